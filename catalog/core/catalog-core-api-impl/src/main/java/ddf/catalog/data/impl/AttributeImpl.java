@@ -13,13 +13,16 @@
  */
 package ddf.catalog.data.impl;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import ddf.catalog.data.Attribute;
 import java.io.IOException;
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -28,6 +31,11 @@
  *
  * <p>
  *
+ * <p>Most attributes hold a single value, so a single value is stored as is and only put into a
+ * list the first time {@link #getValues()}, {@link #addValue(Serializable)} or {@link
+ * #clearValues()} is called. Attribute names are interned, since the same few hundred names are
+ * repeated across every metacard.
+ *
  * <p>This class is {@link Serializable} and care should be taken with compatibility if changes are
  * made.
  *
@@ -41,6 +49,8 @@ public class AttributeImpl implements Attribute {
 
   private static final long serialVersionUID = 1L;
 
+  private static final Interner<String> NAMES = Interners.newWeakInterner();
+
   /**
    * Nontransient field that holds the name of the {@link Attribute}.
    *
@@ -48,7 +58,16 @@ public class AttributeImpl implements Attribute {
    */
   protected String name;
 
-  private transient List<Serializable> values;
+  /** The only value of this attribute while {@link #values} is {@code null}. */
+  private transient Serializable value;
+
+  /**
+   * All values of this attribute, or {@code null} while it holds the single {@link #value}. Once
+   * set it takes precedence over {@link #value}. It is volatile because {@link #getValues()} may
+   * create it while other threads are reading a shared, otherwise unmodified attribute; {@link
+   * #value} is never cleared when that happens, so a racing reader at worst creates an equal list.
+   */
+  private transient volatile List<Serializable> values;
 
   /**
    * Constructor
@@ -56,6 +75,7 @@ public class AttributeImpl implements Attribute {
    * @param name - the name of this {@link Attribute}
    * @param value - the value of this {@link Attribute}
    */
+  @SuppressWarnings("unchecked")
   public AttributeImpl(String name, Serializable value) {
     /*
      * If any defensive logic is added to this constructor, then that logic should be reflected
@@ -63,8 +83,12 @@ public AttributeImpl(String name, Serializable value) {
      * serialized object is maintained. For instance, if a null check is added in the
      * constructor, the same check should be added in the readObject() method.
      */
-    this.name = name;
-    this.values = createPopulatedList(value);
+    this.name = intern(name);
+    if (value instanceof List) {
+      setValues((List<Serializable>) value);
+    } else {
+      this.value = value;
+    }
   }
 
   /**
@@ -80,8 +104,8 @@ public AttributeImpl(String name, List<Serializable> values) {
      * serialized object is maintained. For instance, if a null check is added in the
      * constructor, the same check should be added in the readObject() method.
      */
-    this.name = name;
-    this.values = new LinkedList<>(values);
+    this.name = intern(name);
+    setValues(values);
   }
 
   /** Copy Constructor */
@@ -92,7 +116,7 @@ public AttributeImpl(Attribute attribute) {
      * serialized object is maintained. For instance, if a null check is added in the
      * constructor, the same check should be added in the readObject() method.
      */
-    this(attribute.getName(), attribute.getValues());
+    this(attribute.getName(), valuesOf(attribute));
   }
 
   @Override
@@ -102,8 +126,11 @@ public String getName() {
 
   @Override
   public Serializable getValue() {
-    if (!values.isEmpty()) {
-      return values.get(0);
+    List<Serializable> current = values;
+    if (current == null) {
+      return value;
+    } else if (!current.isEmpty()) {
+      return current.get(0);
     } else {
       return null;
     }
@@ -111,7 +138,13 @@ public Serializable getValue() {
 
   @Override
   public List<Serializable> getValues() {
-    return values;
+    List<Serializable> current = values;
+    if (current == null) {
+      current = new ArrayList<>(2);
+      current.add(value);
+      values = current;
+    }
+    return current;
   }
 
   /**
@@ -120,12 +153,17 @@ public List<Serializable> getValues() {
    * @param value the value to add
    */
   public void addValue(Serializable value) {
-    values.add(value);
+    getValues().add(value);
   }
 
   /** Clears all {@link Attribute} values */
   public void clearValues() {
-    values.clear();
+    if (values != null) {
+      values.clear();
+    } else {
+      values = new ArrayList<>(2);
+    }
+    value = null;
   }
 
   @Override
@@ -140,23 +178,44 @@ public boolean equals(Object o) {
 
     Attribute attribute = (Attribute) o;
 
-    return Objects.equals(name, attribute.getName())
-        && Objects.equals(values, attribute.getValues());
+    if (!Objects.equals(name, attribute.getName())) {
+      return false;
+    }
+    List<Serializable> current = values;
+    List<Serializable> otherValues = valuesOf(attribute);
+    if (current != null) {
+      return Objects.equals(current, otherValues);
+    }
+    return otherValues != null
+        && otherValues.size() == 1
+        && Objects.equals(value, otherValues.get(0));
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, values);
+    // a single value hashes the same as a list holding only that value
+    List<Serializable> current = values;
+    int valuesHash = current != null ? current.hashCode() : 31 + Objects.hashCode(value);
+    return 31 * (31 + Objects.hashCode(name)) + valuesHash;
   }
 
-  private List<Serializable> createPopulatedList(Serializable value) {
-    List<Serializable> list = new LinkedList<>();
-    if (value instanceof List) {
-      list.addAll((List) value);
+  private void setValues(List<Serializable> newValues) {
+    if (newValues.size() == 1) {
+      this.value = newValues.get(0);
     } else {
-      list.add(value);
+      this.values = new ArrayList<>(newValues);
     }
-    return list;
+  }
+
+  private static List<Serializable> valuesOf(Attribute attribute) {
+    if (attribute instanceof AttributeImpl && ((AttributeImpl) attribute).values == null) {
+      return Collections.singletonList(((AttributeImpl) attribute).value);
+    }
+    return attribute.getValues();
+  }
+
+  private static String intern(String name) {
+    return name == null ? null : NAMES.intern(name);
   }
 
   /**
@@ -177,10 +236,16 @@ private void writeObject(ObjectOutputStream s) throws IOException {
      */
     s.defaultWriteObject();
 
-    s.writeInt(values.size());
+    List<Serializable> current = values;
+    if (current == null) {
+      s.writeInt(1);
+      s.writeObject(value);
+    } else {
+      s.writeInt(current.size());
 
-    for (Serializable ser : values) {
-      s.writeObject(ser);
+      for (Serializable ser : current) {
+        s.writeObject(ser);
+      }
     }
   }
 
@@ -203,18 +268,24 @@ private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundEx
 
     validateNonEmpty(numElements);
 
-    values = new LinkedList<Serializable>();
+    name = intern(name);
+    List<Serializable> readValues = new ArrayList<>();
     for (int i = 0; i < numElements; i++) {
-      values.add((Serializable) s.readObject());
+      readValues.add((Serializable) s.readObject());
     }
 
-    validateUntampered(numElements);
+    validateUntampered(readValues, numElements);
+
+    value = null;
+    values = null;
+    setValues(readValues);
   }
 
-  private void validateUntampered(int numElements) throws InvalidObjectException {
+  private void validateUntampered(List<Serializable> readValues, int numElements)
+      throws InvalidObjectException {
     // Invariant: When the object was serialized, the integer written to
     // disk matched the number of value objects written to disk.
-    if (values.size() != numElements) {
+    if (readValues.size() != numElements) {
       throw new InvalidObjectException(
           "Corrupt object: written number of values does not match actual number of values.");
     }
@@ -231,6 +302,7 @@ private void validateNonEmpty(int numElements) throws InvalidObjectException {
 
   @Override
   public String toString() {
-    return getClass().getName() + " {name=" + this.name + ", values=" + this.values + "}";
+    Object printedValues = values != null ? values : Collections.singletonList(value);
+    return getClass().getName() + " {name=" + this.name + ", values=" + printedValues + "}";
   }
 }
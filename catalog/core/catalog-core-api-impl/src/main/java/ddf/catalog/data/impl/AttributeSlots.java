@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.MetacardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact storage for the {@link Attribute}s of a {@link MetacardImpl}.
+ *
+ * <p>Every {@link AttributeDescriptor} of the {@link MetacardType} is given a slot number, in the
+ * order the type returns its descriptors. The slot numbers are computed once per {@link
+ * MetacardType} instance and shared by all metacards of that type. Each metacard only keeps the
+ * slots it actually holds, as a sorted {@code int[]} of slot numbers and a parallel array of {@link
+ * Attribute}s, so a metacard of a type with hundreds of descriptors pays only for the handful of
+ * attributes that are set. Attributes that are not described by the type are kept in a small map
+ * that is only created when needed.
+ *
+ * <p>This class is not thread-safe, just like the {@link java.util.HashMap} it replaces.
+ */
+class AttributeSlots implements Iterable<Attribute> {
+
+  private static final int[] NO_SLOTS = new int[0];
+
+  private static final Attribute[] NO_ATTRIBUTES = new Attribute[0];
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  /**
+   * Slot layouts by {@link MetacardType} instance. Keys are weak and compared by identity, so a
+   * type that is no longer used is dropped and computing {@link MetacardType#hashCode()} is never
+   * needed.
+   */
+  private static final LoadingCache<MetacardType, Layout> LAYOUTS =
+      CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(Layout::new));
+
+  private final Layout layout;
+
+  private int[] slots = NO_SLOTS;
+
+  private Attribute[] attributes = NO_ATTRIBUTES;
+
+  private int size;
+
+  private Map<String, Attribute> undescribed;
+
+  AttributeSlots(MetacardType type) {
+    this.layout = LAYOUTS.getUnchecked(type);
+  }
+
+  private AttributeSlots(Layout layout) {
+    this.layout = layout;
+  }
+
+  /**
+   * Copies the attributes described by the type that have a value into new slots sharing this
+   * layout, without looking the layout up again.
+   */
+  AttributeSlots copyDescribed() {
+    AttributeSlots copy = new AttributeSlots(layout);
+    if (size > 0) {
+      copy.slots = new int[size];
+      copy.attributes = new Attribute[size];
+      for (int i = 0; i < size; i++) {
+        if (attributes[i].getValue() != null) {
+          copy.slots[copy.size] = slots[i];
+          copy.attributes[copy.size] = attributes[i];
+          copy.size++;
+        }
+      }
+    }
+    return copy;
+  }
+
+  Attribute get(String name) {
+    int slot = layout.slotOf(name);
+    if (slot < 0) {
+      return undescribed == null ? null : undescribed.get(name);
+    }
+    int index = Arrays.binarySearch(slots, 0, size, slot);
+    return index >= 0 ? attributes[index] : null;
+  }
+
+  void put(Attribute attribute) {
+    String name = attribute.getName();
+    int slot = layout.slotOf(name);
+    if (slot < 0) {
+      if (undescribed == null) {
+        undescribed = new HashMap<>(4);
+      }
+      undescribed.put(name, attribute);
+      return;
+    }
+
+    int index = Arrays.binarySearch(slots, 0, size, slot);
+    if (index >= 0) {
+      attributes[index] = attribute;
+      return;
+    }
+
+    int insertion = -index - 1;
+    if (size == slots.length) {
+      int capacity = Math.min(Math.max(INITIAL_CAPACITY, size + (size >> 1)), layout.size());
+      slots = Arrays.copyOf(slots, Math.max(capacity, size + 1));
+      attributes = Arrays.copyOf(attributes, slots.length);
+    }
+    System.arraycopy(slots, insertion, slots, insertion + 1, size - insertion);
+    System.arraycopy(attributes, insertion, attributes, insertion + 1, size - insertion);
+    slots[insertion] = slot;
+    attributes[insertion] = attribute;
+    size++;
+  }
+
+  void remove(String name) {
+    int slot = layout.slotOf(name);
+    if (slot < 0) {
+      if (undescribed != null) {
+        undescribed.remove(name);
+      }
+      return;
+    }
+
+    int index = Arrays.binarySearch(slots, 0, size, slot);
+    if (index >= 0) {
+      System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+      System.arraycopy(attributes, index + 1, attributes, index, size - index - 1);
+      size--;
+      attributes[size] = null;
+    }
+  }
+
+  int size() {
+    return size + (undescribed == null ? 0 : undescribed.size());
+  }
+
+  @Override
+  public Iterator<Attribute> iterator() {
+    List<Attribute> all = new ArrayList<>(size());
+    all.addAll(Arrays.asList(attributes).subList(0, size));
+    if (undescribed != null) {
+      all.addAll(undescribed.values());
+    }
+    return all.iterator();
+  }
+
+  /** The slot numbers of the attributes described by one {@link MetacardType} instance. */
+  private static class Layout {
+
+    private final Map<String, Integer> slotsByName;
+
+    Layout(MetacardType type) {
+      Set<AttributeDescriptor> descriptors = type.getAttributeDescriptors();
+      slotsByName = new HashMap<>(descriptors == null ? 0 : descriptors.size() * 2);
+      if (descriptors != null) {
+        for (AttributeDescriptor descriptor : descriptors) {
+          if (descriptor != null && descriptor.getName() != null) {
+            slotsByName.putIfAbsent(descriptor.getName(), slotsByName.size());
+          }
+        }
+      }
+    }
+
+    int slotOf(String name) {
+      Integer slot = slotsByName.get(name);
+      return slot == null ? -1 : slot;
+    }
+
+    int size() {
+      return slotsByName.size();
+    }
+  }
+}
@@ -130,8 +130,8 @@ public class MetacardImpl implements Metacard {
             MetacardType.DEFAULT_METACARD_TYPE_NAME, Collections.unmodifiableSet(descriptors));
   }
 
-  /** key/value map of {@link Attribute}s. */
-  private transient Map<String, Attribute> map = null;
+  /** The {@link Attribute}s of this metacard, unless it wraps another {@link Metacard}. */
+  private transient AttributeSlots attributes = null;
 
   private transient Metacard wrappedMetacard;
 
@@ -163,13 +163,8 @@ public MetacardImpl(MetacardType type) {
      * serialized object is maintained. For instance, if a null check is added in the
      * constructor, the same check should be added in the readObject() method.
      */
-    map = new HashMap<>();
-    if (type != null) {
-      this.type = type;
-    } else {
-      throw new IllegalArgumentException(
-          MetacardType.class.getName() + " instance should not be null.");
-    }
+    this.type = requireType(type);
+    attributes = new AttributeSlots(type);
   }
 
   /**
@@ -184,9 +179,8 @@ public MetacardImpl(Metacard metacard) {
      * serialized object is maintained. For instance, if a null check is added in the
      * constructor, the same check should be added in the readObject() method.
      */
-    this(metacard.getMetacardType());
+    this.type = requireType(metacard.getMetacardType());
     this.wrappedMetacard = metacard;
-    this.map = null;
   }
 
   /**
@@ -199,20 +193,34 @@ public MetacardImpl(Metacard metacard) {
    * @param type the {@link MetacardType} of metacard to create
    */
   public MetacardImpl(Metacard metacard, MetacardType type) {
-    this(type);
+    this.type = requireType(type);
     if (metacard.getSourceId() != null) {
       this.setSourceId(metacard.getSourceId());
     }
-    map = new HashMap<>();
+    if (metacard instanceof MetacardImpl
+        && ((MetacardImpl) metacard).attributes != null
+        && metacard.getMetacardType() == type) {
+      attributes = ((MetacardImpl) metacard).attributes.copyDescribed();
+      return;
+    }
+    attributes = new AttributeSlots(type);
     for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
       Attribute metacardAttribute = metacard.getAttribute(descriptor.getName());
       if (metacardAttribute == null || metacardAttribute.getValue() == null) {
         continue;
       }
-      map.put(descriptor.getName(), metacardAttribute);
+      attributes.put(metacardAttribute);
     }
   }
 
+  private static MetacardType requireType(MetacardType type) {
+    if (type == null) {
+      throw new IllegalArgumentException(
+          MetacardType.class.getName() + " instance should not be null.");
+    }
+    return type;
+  }
+
   @Override
   public Date getCreatedDate() {
     return requestDate(Metacard.CREATED);
@@ -732,7 +740,7 @@ protected byte[] requestBytes(String key) {
 
   @Override
   public Attribute getAttribute(String name) {
-    return (wrappedMetacard != null) ? wrappedMetacard.getAttribute(name) : map.get(name);
+    return (wrappedMetacard != null) ? wrappedMetacard.getAttribute(name) : attributes.get(name);
   }
 
   /**
@@ -759,9 +767,9 @@ public void setAttribute(Attribute attribute) {
       Serializable value = attribute.getValue();
       if (name != null) {
         if (value != null) {
-          map.put(name, attribute);
+          attributes.put(attribute);
         } else {
-          map.remove(name);
+          attributes.remove(name);
         }
       }
     }
@@ -804,10 +812,10 @@ private void writeObject(ObjectOutputStream stream) throws IOException {
       stream.writeObject(mt);
     }
 
-    if (map != null) {
-      stream.writeInt(map.size());
+    if (attributes != null) {
+      stream.writeInt(attributes.size());
 
-      for (Attribute attribute : this.map.values()) {
+      for (Attribute attribute : this.attributes) {
         stream.writeObject(attribute);
       }
     } else if (wrappedMetacard != null && wrappedMetacard.getMetacardType() != null) {
@@ -819,7 +827,7 @@ private void writeWrappedMetacard(Metacard wrappedMetacard, ObjectOutputStream s
       throws IOException {
     MetacardType metacardType = wrappedMetacard.getMetacardType();
 
-    List<Attribute> attributes = new ArrayList<>();
+    List<Attribute> wrappedAttributes = new ArrayList<>();
 
     if (metacardType.getAttributeDescriptors() == null) {
       // no descriptors, means no attributes can be defined.
@@ -833,15 +841,15 @@ private void writeWrappedMetacard(Metacard wrappedMetacard, ObjectOutputStream s
         Attribute attribute = wrappedMetacard.getAttribute(ad.getName());
 
         if (attribute != null) {
-          attributes.add(attribute);
+          wrappedAttributes.add(attribute);
         }
       }
 
       // Must loop again because the size of the attributes list
       // is not known until list has been fully populated.
-      stream.writeInt(attributes.size());
+      stream.writeInt(wrappedAttributes.size());
 
-      for (Attribute attribute : attributes) {
+      for (Attribute attribute : wrappedAttributes) {
         stream.writeObject(attribute);
       }
     }
@@ -862,8 +870,6 @@ private void readObject(ObjectInputStream stream) throws IOException, ClassNotFo
      */
     stream.defaultReadObject();
 
-    map = new HashMap<>();
-
     wrappedMetacard = null;
 
     type = (MetacardType) stream.readObject();
@@ -872,6 +878,8 @@ private void readObject(ObjectInputStream stream) throws IOException, ClassNotFo
       throw new InvalidObjectException(MetacardType.class.getName() + " instance cannot be null.");
     }
 
+    attributes = new AttributeSlots(type);
+
     int numElements = stream.readInt();
 
     for (int i = 0; i < numElements; i++) {
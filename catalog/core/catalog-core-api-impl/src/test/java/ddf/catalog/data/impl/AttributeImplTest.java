@@ -13,14 +13,21 @@
  */
 package ddf.catalog.data.impl;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
 
 import ddf.catalog.data.Attribute;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
@@ -47,6 +54,48 @@ public void testValueRemoval() {
     assertEquals(1, toTest.getValue());
   }
 
+  @Test
+  public void testAddValueToSingleValue() {
+    AttributeImpl attribute = new AttributeImpl("keyword", "first");
+    attribute.getValues().add("second");
+    attribute.addValue("third");
+
+    assertThat(attribute.getValue(), is("first"));
+    assertThat(attribute.getValues(), contains("first", "second", "third"));
+  }
+
+  @Test
+  public void testSingleValueEqualsListOfOneValue() {
+    AttributeImpl single = new AttributeImpl("title", "value");
+    AttributeImpl list =
+        new AttributeImpl("title", Collections.<Serializable>singletonList("value"));
+    AttributeImpl inflated = new AttributeImpl("title", "value");
+    inflated.getValues();
+
+    assertEquals(single, list);
+    assertEquals(single, inflated);
+    assertEquals(inflated, single);
+    assertEquals(single.hashCode(), inflated.hashCode());
+    assertEquals(single.hashCode(), Arrays.asList("title", Arrays.asList("value")).hashCode());
+  }
+
+  @Test
+  public void testCopyOfSingleValue() {
+    AttributeImpl copy = new AttributeImpl(toTest);
+
+    assertEquals(toTest, copy);
+    copy.addValue("other");
+    assertThat(toTest.getValues().size(), is(1));
+  }
+
+  @Test
+  public void testNamesAreInterned() {
+    AttributeImpl first = new AttributeImpl(new String("location"), "POINT (1 2)");
+    AttributeImpl second = new AttributeImpl(new String("location"), "POINT (3 4)");
+
+    assertThat(first.getName(), sameInstance(second.getName()));
+  }
+
   @Test
   public void testSerializationSingle() throws IOException, ClassNotFoundException {
     Attribute read = serializationLoop(toTest);
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.data.impl;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.types.CoreAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttributeSlotsTest {
+
+  private static final MetacardType TYPE =
+      new MetacardTypeImpl("test", new CoreAttributes().getAttributeDescriptors());
+
+  private AttributeSlots slots;
+
+  @Before
+  public void setup() {
+    slots = new AttributeSlots(TYPE);
+  }
+
+  @Test
+  public void testPutAndGet() {
+    Attribute title = new AttributeImpl(Metacard.TITLE, "title");
+    Attribute id = new AttributeImpl(Metacard.ID, "id");
+    slots.put(title);
+    slots.put(id);
+
+    assertThat(slots.get(Metacard.TITLE), is(title));
+    assertThat(slots.get(Metacard.ID), is(id));
+    assertThat(slots.get(Metacard.DESCRIPTION), nullValue());
+    assertThat(slots.size(), is(2));
+  }
+
+  @Test
+  public void testReplace() {
+    slots.put(new AttributeImpl(Metacard.TITLE, "old"));
+    Attribute title = new AttributeImpl(Metacard.TITLE, "new");
+    slots.put(title);
+
+    assertThat(slots.get(Metacard.TITLE), is(title));
+    assertThat(slots.size(), is(1));
+  }
+
+  @Test
+  public void testRemove() {
+    slots.put(new AttributeImpl(Metacard.TITLE, "title"));
+    slots.put(new AttributeImpl(Metacard.ID, "id"));
+    slots.remove(Metacard.TITLE);
+    slots.remove(Metacard.DESCRIPTION);
+
+    assertThat(slots.get(Metacard.TITLE), nullValue());
+    assertThat(slots.get(Metacard.ID).getValue(), is("id"));
+    assertThat(slots.size(), is(1));
+  }
+
+  @Test
+  public void testAttributeNotInType() {
+    Attribute custom = new AttributeImpl("custom.attribute", "value");
+    slots.put(custom);
+
+    assertThat(slots.get("custom.attribute"), is(custom));
+    assertThat(slots.size(), is(1));
+
+    slots.remove("custom.attribute");
+    assertThat(slots.get("custom.attribute"), nullValue());
+    assertThat(slots.size(), is(0));
+  }
+
+  @Test
+  public void testEveryDescriptor() {
+    List<Attribute> expected = new ArrayList<>();
+    TYPE.getAttributeDescriptors()
+        .forEach(
+            descriptor -> {
+              Attribute attribute = new AttributeImpl(descriptor.getName(), descriptor.getName());
+              expected.add(attribute);
+              slots.put(attribute);
+            });
+    Attribute custom = new AttributeImpl("custom.attribute", "value");
+    expected.add(custom);
+    slots.put(custom);
+
+    List<Attribute> actual = new ArrayList<>();
+    slots.forEach(actual::add);
+    assertThat(actual, containsInAnyOrder(expected.toArray()));
+    expected.forEach(attribute -> assertThat(slots.get(attribute.getName()), is(attribute)));
+  }
+}
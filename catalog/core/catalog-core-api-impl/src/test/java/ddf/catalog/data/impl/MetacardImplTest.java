@@ -221,6 +221,24 @@ public void testUpdatingWrappedMetacardFields() {
     assertEquals(testType, mi.getMetacardType());
   }
 
+  @Test
+  public void testCopyingMetacardOfTheSameType() {
+    MetacardImpl source = new MetacardImpl();
+    source.setSourceId("testSource");
+    source.setTitle("testTitle");
+    source.setAttribute(new AttributeImpl(Metacard.DESCRIPTION, (Serializable) null));
+    source.setAttribute(new AttributeImpl("undescribed", "value"));
+
+    MetacardImpl copy = new MetacardImpl(source, source.getMetacardType());
+    copy.setTitle("otherTitle");
+
+    assertEquals("testSource", copy.getSourceId());
+    assertEquals("otherTitle", copy.getTitle());
+    assertEquals("testTitle", source.getTitle());
+    assertNull(copy.getAttribute(Metacard.DESCRIPTION));
+    assertNull(copy.getAttribute("undescribed"));
+  }
+
   @Test
   public void testSetNullFields() {
     mc.setContentTypeName(null);
@@ -19,6 +19,8 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.federation.FederationStrategy;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.FilterDelegate;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteRequest;
@@ -41,8 +43,12 @@
 import ddf.catalog.util.Describable;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import org.opengis.filter.Filter;
 
 /**
  * The {@link CatalogFramework} functions as the routing mechanism between all catalog components.
@@ -342,6 +348,66 @@ Map<String, Set<String>> getResourceOptions(String metacardId, String sourceId)
   SourceInfoResponse getSourceInfo(SourceInfoRequest sourceInfoRequest)
       throws SourceUnavailableException;
 
+  /**
+   * Gets metacards from the local catalog by their ids.
+   *
+   * <p>This is equivalent to a local {@link #query(QueryRequest)} for the metacards with any of the
+   * given ids and tags, and runs the same plugins: the access, policy, pre-query and post-query
+   * plugins see the request as they would see that query. Because the query only names ids, it is
+   * not sorted or paged, and catalog providers can answer it with a direct lookup rather than a
+   * search.
+   *
+   * <p>By default this method builds that query with the given {@link FilterBuilder} and passes it
+   * to {@link #query(QueryRequest)}. Implementations may look the ids up more efficiently.
+   *
+   * @param ids the ids of the metacards to get
+   * @param tags the tags of the metacards to get, or an empty set to get the metacards whatever
+   *     their tags
+   * @param filterBuilder the {@link FilterBuilder} used to build the query
+   * @param properties the properties of the query request, e.g. the subject making the request
+   * @return {@link QueryResponse} with the metacards that were found and that the caller is allowed
+   *     to see, in no particular order
+   * @throws UnsupportedQueryException if the local catalog provider could not run the query
+   * @throws SourceUnavailableException if the local catalog provider is not available
+   * @throws FederationException if the query could not be completed by the {@link
+   *     FederationStrategy}
+   */
+  default QueryResponse queryByIds(
+      Set<String> ids,
+      Set<String> tags,
+      FilterBuilder filterBuilder,
+      Map<String, Serializable> properties)
+      throws UnsupportedQueryException, SourceUnavailableException, FederationException {
+    return query(
+        new IdsQueryRequest(queryByIdsFilter(ids, tags, filterBuilder), ids.size(), properties));
+  }
+
+  /**
+   * Builds the filter of the query that {@link #queryByIds(Set, Set, FilterBuilder, Map)} is
+   * equivalent to, so that implementations looking the ids up in batches match the same metacards.
+   *
+   * @param ids the ids of the metacards to match
+   * @param tags the tags of the metacards to match, or an empty set to match the metacards whatever
+   *     their tags
+   * @param filterBuilder the {@link FilterBuilder} used to build the filter
+   * @return a filter matching the metacards with any of the ids and any of the tags
+   */
+  static Filter queryByIdsFilter(
+      Collection<String> ids, Set<String> tags, FilterBuilder filterBuilder) {
+    List<Filter> idFilters =
+        ids.stream()
+            .map(id -> filterBuilder.attribute(Metacard.ID).is().equalTo().text(id))
+            .collect(Collectors.toList());
+    Filter tagsFilter =
+        tags.isEmpty()
+            ? filterBuilder.attribute(Metacard.TAGS).is().like().text(FilterDelegate.WILDCARD_CHAR)
+            : filterBuilder.anyOf(
+                tags.stream()
+                    .map(tag -> filterBuilder.attribute(Metacard.TAGS).is().like().text(tag))
+                    .collect(Collectors.toList()));
+    return filterBuilder.allOf(filterBuilder.anyOf(idFilters), tagsFilter);
+  }
+
   /**
    * Evaluates a {@link QueryRequest} using the default {@link FederationStrategy}
    *
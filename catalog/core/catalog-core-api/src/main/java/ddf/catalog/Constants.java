@@ -133,6 +133,12 @@ public final class Constants {
 
   public static final String CONTENT_PATHS = "content-paths";
 
+  /**
+   * Checksums computed by the framework while receiving the content of a create or update, as a map
+   * of content item id to a map of checksum algorithm to checksum value.
+   */
+  public static final String CONTENT_CHECKSUMS = "content-checksums";
+
   public static final String ATTRIBUTE_OVERRIDES_KEY = "attributeOverrides";
 
   public static final String ATTRIBUTE_UPDATE_MAP_KEY = "attributeUpdateMap";
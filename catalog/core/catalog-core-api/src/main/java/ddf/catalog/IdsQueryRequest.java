@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog;
+
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.sort.SortBy;
+
+/**
+ * The local, unsorted {@link QueryRequest} sent by the default {@link
+ * CatalogFramework#queryByIds(Set, Set, ddf.catalog.filter.FilterBuilder, Map)}.
+ */
+final class IdsQueryRequest implements QueryRequest {
+
+  private final Query query;
+
+  private final Map<String, Serializable> properties;
+
+  IdsQueryRequest(Filter filter, int pageSize, Map<String, Serializable> properties) {
+    this.query = new IdsQuery(filter, pageSize);
+    this.properties = new HashMap<>(properties);
+  }
+
+  @Override
+  public Query getQuery() {
+    return query;
+  }
+
+  @Override
+  public Set<String> getSourceIds() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public boolean isEnterprise() {
+    return false;
+  }
+
+  @Override
+  public Set<String> getPropertyNames() {
+    return properties.keySet();
+  }
+
+  @Override
+  public Serializable getPropertyValue(String name) {
+    return properties.get(name);
+  }
+
+  @Override
+  public boolean containsPropertyName(String name) {
+    return properties.containsKey(name);
+  }
+
+  @Override
+  public boolean hasProperties() {
+    return !properties.isEmpty();
+  }
+
+  @Override
+  public Map<String, Serializable> getProperties() {
+    return properties;
+  }
+
+  private static final class IdsQuery implements Query {
+
+    private final Filter filter;
+
+    private final int pageSize;
+
+    private IdsQuery(Filter filter, int pageSize) {
+      this.filter = filter;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public int getStartIndex() {
+      return 1;
+    }
+
+    @Override
+    public int getPageSize() {
+      return pageSize;
+    }
+
+    @Override
+    public SortBy getSortBy() {
+      return null;
+    }
+
+    @Override
+    public boolean requestsTotalResultsCount() {
+      return false;
+    }
+
+    @Override
+    public long getTimeoutMillis() {
+      return 0;
+    }
+
+    @Override
+    public boolean evaluate(Object object) {
+      return filter.evaluate(object);
+    }
+
+    @Override
+    public Object accept(FilterVisitor visitor, Object extraData) {
+      return filter.accept(visitor, extraData);
+    }
+
+    @Override
+    public String toString() {
+      return filter.toString();
+    }
+  }
+}
@@ -14,6 +14,7 @@
 package ddf.catalog.event;
 
 import ddf.catalog.data.Metacard;
+import java.util.List;
 
 /**
  * The DeliveryMethod provides the operation (created, updated, deleted) of how a {@link Metacard}
@@ -30,6 +31,22 @@ public interface DeliveryMethod {
    */
   public void created(Metacard newMetacard);
 
+  /**
+   * This method will determine how to handle several {@link Metacard}s that were created/ingested
+   * and are delivered together. Delivery methods whose protocol can carry more than one {@link
+   * Metacard} in a single notification should override this method; by default each {@link
+   * Metacard} is handled by {@link #created(Metacard)}.
+   *
+   * @param newMetacards the {@link Metacard}s that were ingested
+   * @throws DeliveryException if the {@link Metacard}s could not be delivered and should be
+   *     delivered again later
+   */
+  default void createdAll(List<Metacard> newMetacards) throws DeliveryException {
+    for (Metacard newMetacard : newMetacards) {
+      created(newMetacard);
+    }
+  }
+
   /**
    * This method will determine how to handle a {@link Metacard} when it is updated.
    *
@@ -52,4 +69,20 @@ public interface DeliveryMethod {
    * @param metacard the {@link Metacard} that was deleted
    */
   public void deleted(Metacard oldMetacard);
+
+  /**
+   * This method will determine how to handle several {@link Metacard}s that were deleted and are
+   * delivered together. Delivery methods whose protocol can carry more than one {@link Metacard} in
+   * a single notification should override this method; by default each {@link Metacard} is handled
+   * by {@link #deleted(Metacard)}.
+   *
+   * @param oldMetacards the {@link Metacard}s that were deleted
+   * @throws DeliveryException if the {@link Metacard}s could not be delivered and should be
+   *     delivered again later
+   */
+  default void deletedAll(List<Metacard> oldMetacards) throws DeliveryException {
+    for (Metacard oldMetacard : oldMetacards) {
+      deleted(oldMetacard);
+    }
+  }
 }
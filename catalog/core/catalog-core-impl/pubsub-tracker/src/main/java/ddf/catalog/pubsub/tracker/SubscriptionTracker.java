@@ -16,6 +16,7 @@
 import ddf.catalog.event.EventException;
 import ddf.catalog.event.EventProcessor;
 import ddf.catalog.event.Subscription;
+import ddf.catalog.event.SubscriptionExistsException;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -24,6 +25,8 @@
 public class SubscriptionTracker {
   private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionTracker.class);
 
+  private static final String SUBSCRIPTION_ID_PROPERTY = "subscription-id";
+
   protected Map<String, String> services = new HashMap<String, String>();
 
   protected EventProcessor provider;
@@ -64,7 +67,7 @@ public void addingService(Subscription subscription, Map props) {
         serviceId);
 
     try {
-      String subscriptionId = provider.createSubscription(subscription);
+      String subscriptionId = createSubscription(subscription, props);
       LOGGER.debug(
           "{} Provider has created the subscription for request ({}): {}",
           provider.getClass().getName(),
@@ -78,6 +81,25 @@ public void addingService(Subscription subscription, Map props) {
     LOGGER.debug("EXITING: {}", methodName);
   }
 
+  /**
+   * Creates the subscription under the ID given by its {@value #SUBSCRIPTION_ID_PROPERTY} service
+   * property, if any, so that it keeps its ID, and the events waiting to be delivered to it, when
+   * it is registered again after a restart.
+   */
+  private String createSubscription(Subscription subscription, Map props) throws EventException {
+    Object subscriptionId = props.get(SUBSCRIPTION_ID_PROPERTY);
+    if (subscriptionId != null) {
+      try {
+        provider.createSubscription(subscription, subscriptionId.toString());
+        return subscriptionId.toString();
+      } catch (SubscriptionExistsException e) {
+        LOGGER.debug(
+            "Subscription {} already exists, creating subscription with a new ID", subscriptionId);
+      }
+    }
+    return provider.createSubscription(subscription);
+  }
+
   public void removedService(Subscription subscription, Map props) {
     String methodName = "removedService";
     LOGGER.debug("ENTERING: {}", methodName);
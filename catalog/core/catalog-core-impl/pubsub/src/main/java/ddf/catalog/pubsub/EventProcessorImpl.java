@@ -13,6 +13,8 @@
  */
 package ddf.catalog.pubsub;
 
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.types.Core;
@@ -30,6 +32,8 @@
 import ddf.catalog.plugin.PreDeliveryPlugin;
 import ddf.catalog.plugin.PreSubscriptionPlugin;
 import ddf.catalog.pubsub.criteria.contextual.ContextualEvaluator;
+import ddf.catalog.pubsub.internal.DeliveryExecutor;
+import ddf.catalog.pubsub.internal.GeospatialIndex;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import ddf.catalog.pubsub.internal.PubSubThread;
 import ddf.catalog.pubsub.internal.SubscriptionFilterVisitor;
@@ -42,10 +46,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import org.apache.lucene.store.Directory;
-import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.geotools.geometry.jts.WKTReader2;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
@@ -76,9 +79,9 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
   private Map<String, ServiceRegistration> existingSubscriptions;
 
-  private final ExecutorService threadPool =
-      Executors.newCachedThreadPool(
-          StandardThreadFactoryBuilder.newThreadFactory("eventProcessorThread"));
+  private final GeospatialIndex geospatialIndex = new GeospatialIndex();
+
+  private final DeliveryExecutor deliveryExecutor = new DeliveryExecutor();
 
   public EventProcessorImpl() {
     LOGGER.debug("INSIDE: EventProcessorImpl default constructor");
@@ -123,6 +126,20 @@ public EventProcessorImpl(
    * @param eventAdmin - OSGi EventAdmin service used post events
    */
   public static void processEntry(Metacard metacard, String operation, EventAdmin eventAdmin) {
+    processEntry(metacard, operation, eventAdmin, null);
+  }
+
+  /**
+   * Processes an entry by adding properties from the metacard to the event. Then the eventAdmin is
+   * used to post the metacard properties as a single event.
+   *
+   * @param metacard - the metacard to process
+   * @param operation - The type of event {@link ddf.catalog.pubsub.internal.PubSubConstants}
+   * @param eventAdmin - OSGi EventAdmin service used post events
+   * @param geospatialIndex - index of the geospatial predicates of the subscriptions, may be null
+   */
+  public static void processEntry(
+      Metacard metacard, String operation, EventAdmin eventAdmin, GeospatialIndex geospatialIndex) {
     String methodName = "processEntry";
     LOGGER.trace(ENTERING, methodName);
 
@@ -183,7 +200,7 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
           // code so that this index is
           // not built for every contextual subscription that has no
           // textPaths.)
-          Directory index = ContextualEvaluator.buildIndex(metacard.getMetadata());
+          MemoryIndex index = ContextualEvaluator.buildIndex(metacard.getMetadata());
 
           // Build contextual info to be sent in event for this entry.
           // Include the default Lucene search
@@ -199,6 +216,24 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
         }
       }
 
+      // GEOSPATIAL INFORMATION
+      // Parse the entry's location once here rather than in every geospatial predicate, and look
+      // up which of the predicates can possibly match it.
+      if (metacard.getLocation() != null) {
+        try {
+          Geometry location = new WKTReader2().read(metacard.getLocation());
+          properties.put(PubSubConstants.HEADER_GEOSPATIAL_KEY, location);
+
+          GeospatialIndex.Candidates candidates =
+              geospatialIndex == null ? null : geospatialIndex.lookup(location);
+          if (candidates != null) {
+            properties.put(PubSubConstants.HEADER_GEOSPATIAL_CANDIDATES_KEY, candidates);
+          }
+        } catch (ParseException e) {
+          LOGGER.debug("Unable to parse location of entry {}", metacard.getId(), e);
+        }
+      }
+
       if (eventAdmin != null) {
         eventAdmin.postEvent(new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties));
       } else {
@@ -215,6 +250,8 @@ public void init() {
     String methodName = "init";
     LOGGER.trace(ENTERING, methodName);
 
+    deliveryExecutor.init();
+
     LOGGER.trace(EXITING, methodName);
   }
 
@@ -222,6 +259,8 @@ public void destroy() {
     String methodName = "destroy";
     LOGGER.trace(ENTERING, methodName);
 
+    deliveryExecutor.destroy();
+
     LOGGER.trace(EXITING, methodName);
   }
 
@@ -229,7 +268,8 @@ public void destroy() {
    * By default the Felix EventAdmin implementation has a timeout of 5000 ms. Your event handler has
    * to return from the handle event method in this time frame. If it does not, it gets Blacklisted.
    * Therefore, this method processes its events in a separate thread than the EventAdmin who called
-   * it.
+   * it. The threads are pooled; when too many events are waiting, the calling thread blocks until
+   * the pool catches up rather than the event being dropped.
    */
   public void handleEvent(Event event) {
     String methodName = "handleEvent";
@@ -242,7 +282,7 @@ public void handleEvent(Event event) {
       Metacard entry = (Metacard) event.getProperty(EventProcessor.EVENT_METACARD);
       LOGGER.debug("metacard ID = {}", entry.getId());
 
-      new PubSubThread(entry, topic, eventAdmin).start();
+      deliveryExecutor.execute(new PubSubThread(entry, topic, eventAdmin, geospatialIndex));
     } else {
       LOGGER.debug(
           "No existing subscriptions, so no need to handle event since there is no one listening ...");
@@ -272,6 +312,11 @@ public void createSubscription(Subscription subscription, String subscriptionId)
     String methodName = "createSubscription";
     LOGGER.trace(ENTERING, methodName);
 
+    if (existingSubscriptions.containsKey(subscriptionId)) {
+      LOGGER.debug("Subscription {} already exists.", subscriptionId);
+      throw new SubscriptionExistsException();
+    }
+
     LOGGER.debug("Creating Evaluation Criteria... ");
 
     try {
@@ -292,13 +337,20 @@ public void createSubscription(Subscription subscription, String subscriptionId)
           bundleContext.registerService(
               EventHandler.class.getName(),
               new PublishedEventHandler(
-                  finalPredicate, subscription, preDelivery, catalog, threadPool),
+                  finalPredicate,
+                  subscription,
+                  preDelivery,
+                  catalog,
+                  deliveryExecutor,
+                  subscriptionId),
               props);
 
       existingSubscriptions.put(subscriptionId, serviceRegistration);
+      geospatialIndex.add(subscriptionId, visitor.getGeospatialPredicates());
 
       LOGGER.debug("Subscription {} created.", subscriptionId);
     } catch (Exception e) {
+      deliveryExecutor.unregister(subscriptionId, false);
       LOGGER.info("Error while creating subscription predicate: ", e);
       throw new InvalidSubscriptionException(e);
     }
@@ -338,6 +390,10 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
         sr.unregister();
         LOGGER.debug("Removal complete");
         existingSubscriptions.remove(subscriptionId);
+        geospatialIndex.remove(subscriptionId);
+        // Subscriptions are unregistered while the system shuts down; they are registered again
+        // on startup and get the events they missed
+        deliveryExecutor.unregister(subscriptionId, !isFrameworkStopping());
       } else {
         LOGGER.debug(
             "Unable to find existing subscription: {}.  May already be deleted.", subscriptionId);
@@ -351,6 +407,19 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
     LOGGER.trace(EXITING, methodName);
   }
 
+  private boolean isFrameworkStopping() {
+    if (bundleContext == null) {
+      return false;
+    }
+    try {
+      Bundle systemBundle = bundleContext.getBundle(0);
+      return systemBundle != null && systemBundle.getState() == Bundle.STOPPING;
+    } catch (IllegalStateException e) {
+      // the bundle context is no longer valid, so this bundle is stopping
+      return true;
+    }
+  }
+
   @Override
   public void notifyCreated(Metacard newMetacard) {
     LOGGER.trace("ENTERING: notifyCreated");
@@ -41,6 +41,8 @@ public void init() {
     String methodName = "init";
     LOGGER.debug("ENTERING: {}", methodName);
 
+    super.init();
+
     LOGGER.debug("EXITING: {}", methodName);
   }
 
@@ -48,6 +50,8 @@ public void destroy() {
     String methodName = "destroy";
     LOGGER.debug("ENTERING: {}", methodName);
 
+    super.destroy();
+
     LOGGER.debug("EXITING: {}", methodName);
   }
 
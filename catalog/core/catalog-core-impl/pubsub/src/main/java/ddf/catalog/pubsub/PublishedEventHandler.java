@@ -15,15 +15,18 @@
 
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.event.DeliveryException;
 import ddf.catalog.event.Subscription;
 import ddf.catalog.operation.Pingable;
 import ddf.catalog.plugin.PreDeliveryPlugin;
+import ddf.catalog.pubsub.internal.DeliveryExecutor;
 import ddf.catalog.pubsub.internal.DeliveryProcessor;
+import ddf.catalog.pubsub.internal.DeliveryQueue;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import ddf.catalog.pubsub.predicate.Predicate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 import org.apache.commons.collections.CollectionUtils;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
@@ -33,7 +36,7 @@
 public class PublishedEventHandler implements EventHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(PublishedEventHandler.class);
 
-  private final ExecutorService threadPool;
+  private final DeliveryQueue deliveryQueue;
 
   private Predicate predicate;
 
@@ -48,19 +51,51 @@ public PublishedEventHandler(
       Subscription subscription,
       List<PreDeliveryPlugin> preDelivery,
       CatalogFramework catalog,
-      ExecutorService threadPool) {
+      DeliveryExecutor deliveryExecutor,
+      String subscriptionId) {
     this.predicate = finalPredicate;
     this.subscription = subscription;
     this.preDelivery = preDelivery;
     this.catalog = catalog;
-    this.threadPool = threadPool;
+    this.deliveryQueue = deliveryExecutor.register(subscriptionId, this::match, this::deliver);
   }
 
   public void handleEvent(Event event) {
-    threadPool.submit(new EventProcessor(event));
+    deliveryQueue.offer(event);
   }
 
-  private class EventProcessor implements Runnable {
+  private List<Event> match(List<Event> events) {
+    List<Event> matches = new ArrayList<>();
+    for (Event event : events) {
+      if (new EventProcessor(event).matches()) {
+        matches.add(event);
+      }
+    }
+    return matches;
+  }
+
+  private boolean deliver(List<Event> events) {
+    String methodName = "deliver";
+    LOGGER.trace("ENTERING: {}", methodName);
+
+    if (subscription.getDeliveryMethod() instanceof Pingable
+        && !((Pingable) subscription.getDeliveryMethod()).ping()) {
+      LOGGER.debug("Subscription is not active, not delivering {} event(s)", events.size());
+      return false;
+    }
+
+    try {
+      new DeliveryProcessor(subscription, preDelivery).process(events);
+    } catch (DeliveryException e) {
+      LOGGER.debug("Could not deliver {} event(s)", events.size(), e);
+      return false;
+    }
+
+    LOGGER.trace("EXITING: {}", methodName);
+    return true;
+  }
+
+  private class EventProcessor {
 
     private Event event;
 
@@ -68,12 +103,7 @@ public EventProcessor(Event event) {
       this.event = event;
     }
 
-    @Override
-    public void run() {
-
-      String methodName = "handleEvent";
-      LOGGER.trace("ENTERING: {}", methodName);
-
+    public boolean matches() {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("topic = {}", event.getTopic());
         for (String propertyName : event.getPropertyNames()) {
@@ -81,12 +111,6 @@ public void run() {
         }
       }
 
-      if (subscription.getDeliveryMethod() instanceof Pingable
-          && !((Pingable) subscription.getDeliveryMethod()).ping()) {
-        LOGGER.debug("Subscription is not active ignoring event");
-        return;
-      }
-
       LOGGER.debug("subscription is enterprise? {}", subscription.isEnterprise());
       Set<String> sourceIds = subscription.getSourceIds();
       LOGGER.debug("subscription has source names: {}", sourceIds);
@@ -97,17 +121,15 @@ public void run() {
 
       if (subscription.isEnterprise()) {
         // if the subscription is an enterprise subscription then evaluate all incoming events
-        evaluateEvent(event);
+        return evaluateEvent(event);
       } else if (CollectionUtils.isEmpty(sourceIds)) {
-        evaluateLocalSubscription(metacardSourceId);
+        return evaluateLocalSubscription(metacardSourceId);
       } else {
-        evaluateSiteBasedSubscription(sourceIds, metacardSourceId);
+        return evaluateSiteBasedSubscription(sourceIds, metacardSourceId);
       }
-
-      LOGGER.trace("EXITING: {}", methodName);
     }
 
-    private void evaluateSiteBasedSubscription(Set<String> sourceIds, String metacardSourceId) {
+    private boolean evaluateSiteBasedSubscription(Set<String> sourceIds, String metacardSourceId) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug(
             "subscription is a site-based subscription starting with site id {}",
@@ -116,29 +138,29 @@ private void evaluateSiteBasedSubscription(Set<String> sourceIds, String metacar
       // perform site based filtering on subscription
       if (sourceIds.contains(metacardSourceId)) {
         LOGGER.debug("event received from subscribed site");
-        evaluateEvent(event);
+        return evaluateEvent(event);
       } else {
         LOGGER.debug(
             "event received from remote site that is not in list of source IDs of subscription - not evaluating event");
+        return false;
       }
     }
 
-    private void evaluateLocalSubscription(String metacardSourceId) {
+    private boolean evaluateLocalSubscription(String metacardSourceId) {
       LOGGER.debug("subscription is a local subscription. Local Source Id: {}", catalog.getId());
       if (catalog.getId() != null && catalog.getId().equals(metacardSourceId)) {
         LOGGER.debug("event received from local site");
-        evaluateEvent(event);
+        return evaluateEvent(event);
       } else {
         LOGGER.debug(
             "event is from remote site but subscription is local - not evaluating event against subscription filter");
+        return false;
       }
     }
 
-    private void evaluateEvent(Event event) {
+    private boolean evaluateEvent(Event event) {
       // If predicate is NULL then we are handling a filterless subscription - publish all events
-      if (predicate == null || predicate.matches(event)) {
-        new DeliveryProcessor(subscription, preDelivery).process(event);
-      }
+      return predicate == null || predicate.matches(event);
     }
   }
 }
@@ -13,7 +13,8 @@
  */
 package ddf.catalog.pubsub.criteria.contextual;
 
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.Query;
 
 public interface ContextualEvaluationCriteria {
 
@@ -22,7 +23,7 @@ public interface ContextualEvaluationCriteria {
    *
    * @return
    */
-  public Directory getIndex();
+  public MemoryIndex getIndex();
 
   /**
    * The search phrase which forms the criteria to search over the document
@@ -31,6 +32,13 @@ public interface ContextualEvaluationCriteria {
    */
   public String getCriteria();
 
+  /**
+   * The search phrase already parsed into a Lucene query, if available.
+   *
+   * @return the parsed search phrase, or null if it is to be parsed when evaluated
+   */
+  public Query getQuery();
+
   public boolean isFuzzy();
 
   public boolean isCaseSensitiveSearch();
@@ -15,7 +15,8 @@
 
 import java.io.IOException;
 import java.util.Arrays;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,12 +34,20 @@ public class ContextualEvaluationCriteriaImpl implements ContextualEvaluationCri
 
   private String metadata;
 
-  private Directory index;
+  private MemoryIndex index;
+
+  private Query query;
+
+  public ContextualEvaluationCriteriaImpl(
+      String criteria, boolean fuzzy, boolean caseSensitiveSearch, MemoryIndex index) {
+    this(criteria, null, fuzzy, caseSensitiveSearch, index);
+  }
 
   public ContextualEvaluationCriteriaImpl(
-      String criteria, boolean fuzzy, boolean caseSensitiveSearch, Directory index) {
+      String criteria, Query query, boolean fuzzy, boolean caseSensitiveSearch, MemoryIndex index) {
     super();
     this.criteria = criteria;
+    this.query = query;
     this.fuzzy = fuzzy;
     this.caseSensitiveSearch = caseSensitiveSearch;
     this.textPaths = null;
@@ -79,7 +88,11 @@ public String getCriteria() {
     return criteria;
   }
 
-  public Directory getIndex() {
+  public Query getQuery() {
+    return query;
+  }
+
+  public MemoryIndex getIndex() {
     return index;
   }
 
@@ -23,16 +23,10 @@
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.TermAttribute;
-import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.memory.MemoryIndex;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
-import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +42,13 @@ public final class ContextualEvaluator {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ContextualEvaluator.class);
 
+  /** Analyzers keep their token streams per thread, so they can be shared by all evaluations. */
+  private static final ContextualAnalyzer CASE_INSENSITIVE_ANALYZER =
+      new ContextualAnalyzer(Version.LUCENE_30);
+
+  private static final CaseSensitiveContextualAnalyzer CASE_SENSITIVE_ANALYZER =
+      new CaseSensitiveContextualAnalyzer(Version.LUCENE_30);
+
   private static final String DEFAULT_XPATH_1 =
       "/*[local-name()=\"Resource\"]/*"
           + "[local-name() != \"identifier\" and "
@@ -73,6 +74,40 @@ private ContextualEvaluator() {
         "This is a utility class - it should never be instantiated");
   }
 
+  /**
+   * Parses a search phrase into the Lucene query that {@link
+   * #evaluate(ContextualEvaluationCriteria)} runs against the indexes built by this class. Queries
+   * are immutable once parsed, so a subscription can parse its search phrase once and evaluate it
+   * against any number of entries.
+   *
+   * @param searchPhrase the search phrase
+   * @param caseSensitive whether the phrase is to be matched against case-sensitive text
+   * @return the parsed query
+   * @throws ParseException if the search phrase is not valid Lucene query syntax
+   */
+  public static Query parseQuery(String searchPhrase, boolean caseSensitive) throws ParseException {
+    // QueryParsers are not thread-safe and cheap to create, so use a new one for each phrase
+    QueryParser queryParser;
+    if (caseSensitive) {
+      LOGGER.debug("Parsing case-sensitive search phrase ...");
+      queryParser =
+          new QueryParser(Version.LUCENE_30, CASE_SENSITIVE_FIELD_NAME, CASE_SENSITIVE_ANALYZER);
+
+      // Make Wildcard, Prefix, Fuzzy, and Range queries *not* be automatically lower-cased,
+      // i.e., make them be case-sensitive
+      queryParser.setLowercaseExpandedTerms(false);
+    } else {
+      LOGGER.debug("Parsing case-insensitive search phrase ...");
+      queryParser = new QueryParser(Version.LUCENE_30, FIELD_NAME, CASE_INSENSITIVE_ANALYZER);
+    }
+
+    // Configures Lucene query parser to allow a wildcard as first character in the
+    // contextual search phrase
+    queryParser.setAllowLeadingWildcard(true);
+
+    return queryParser.parse(searchPhrase);
+  }
+
   /**
    * @param cec
    * @return
@@ -81,7 +116,7 @@ private ContextualEvaluator() {
    */
   public static boolean evaluate(ContextualEvaluationCriteria cec)
       throws IOException, ParseException {
-    Directory index = cec.getIndex();
+    MemoryIndex index = cec.getIndex();
     String searchPhrase = cec.getCriteria();
 
     // Handle case where no search phrase is specified. Contextual criteria should then specify
@@ -105,65 +140,23 @@ public static boolean evaluate(ContextualEvaluationCriteria cec)
     }
 
     // a. query
-    QueryParser queryParser = null;
-    if (cec.isCaseSensitiveSearch()) {
-      LOGGER.debug("Doing case-sensitive search ...");
-      queryParser =
-          new QueryParser(
-              Version.LUCENE_30,
-              CASE_SENSITIVE_FIELD_NAME,
-              new CaseSensitiveContextualAnalyzer(Version.LUCENE_30));
-
-      // Make Wildcard, Prefix, Fuzzy, and Range queries *not* be automatically lower-cased,
-      // i.e., make them be case-sensitive
-      queryParser.setLowercaseExpandedTerms(false);
-    } else {
-      LOGGER.debug("Doing case-insensitive search ...");
-      queryParser =
-          new QueryParser(Version.LUCENE_30, FIELD_NAME, new ContextualAnalyzer(Version.LUCENE_30));
+    Query q = cec.getQuery();
+    if (q == null) {
+      q = parseQuery(searchPhrase, cec.isCaseSensitiveSearch());
     }
 
-    // Configures Lucene query parser to allow a wildcard as first character in the
-    // contextual search phrase
-    queryParser.setAllowLeadingWildcard(true);
-
-    Query q = queryParser.parse(searchPhrase);
-
     // b. search
-    int hitsPerPage = 1;
-    IndexSearcher searcher = new IndexSearcher(index, true);
-    TopDocs topDocs = searcher.search(q, hitsPerPage);
+    float score;
+    // the same index is searched by the predicates of all subscriptions, and a MemoryIndex
+    // must not be searched concurrently
+    synchronized (index) {
+      score = index.search(q);
+    }
 
     // c. display results
-    LOGGER.debug("Found {} hits.", topDocs.totalHits);
-
-    // searcher can only be closed when there
-    // is no need to access the documents any more.
-    searcher.close();
+    LOGGER.debug("Score of entry: {}", score);
 
-    return topDocs.totalHits > 0;
-  }
-
-  /**
-   * Create a field with the specified field name and value, and add it to a Lucene Document to be
-   * added to the specified IndexWriter.
-   *
-   * @param indexWriter
-   * @param fieldName
-   * @param value
-   * @throws IOException
-   */
-  private static void addDoc(IndexWriter indexWriter, String fieldName, String value)
-      throws IOException {
-    Document doc = new Document();
-    doc.add(
-        new Field(
-            fieldName,
-            value,
-            Field.Store.YES,
-            Field.Index.ANALYZED,
-            Field.TermVector.WITH_POSITIONS_OFFSETS));
-    indexWriter.addDocument(doc);
+    return score > 0.0f;
   }
 
   /**
@@ -175,7 +168,7 @@ private static void addDoc(IndexWriter indexWriter, String fieldName, String val
    * @return the Lucene index for the indexed text from the XML document
    * @throws IOException
    */
-  public static Directory buildIndex(String fullDocument) throws IOException {
+  public static MemoryIndex buildIndex(String fullDocument) throws IOException {
     return buildIndex(fullDocument, DEFAULT_XPATH_SELECTORS);
   }
 
@@ -190,46 +183,22 @@ public static Directory buildIndex(String fullDocument) throws IOException {
    * @return the Lucene index for the indexed text from the XML document
    * @throws IOException
    */
-  public static Directory buildIndex(String fullDocument, String[] xpathSelectors)
+  public static MemoryIndex buildIndex(String fullDocument, String[] xpathSelectors)
       throws IOException {
-    // 0. Specify the analyzer for tokenizing text.
-    // The same analyzer should be used for indexing and searching
-    // 1. create the index
-    Directory index = new RAMDirectory();
-    String indexableText;
-    CaseSensitiveContextualAnalyzer caseSensitiveStandardAnalyzer;
-
-    try (ContextualAnalyzer contextualAnalyzer = new ContextualAnalyzer(Version.LUCENE_30)) {
-      // Retrieve the text from the document that can be indexed using the specified XPath
-      // selectors
-      indexableText = getIndexableText(fullDocument, xpathSelectors);
-
-      // Create an IndexWriter using the case-insensitive StandardAnalyzer
-      // NOTE: the boolean arg in the IndexWriter constructor means to create a new index,
-      // overwriting any existing index
-      try (IndexWriter indexWriter =
-          new IndexWriter(index, contextualAnalyzer, true, IndexWriter.MaxFieldLength.UNLIMITED)) {
-        logTokens(indexWriter.getAnalyzer(), FIELD_NAME, fullDocument, "ContextualAnalyzer");
-
-        // Add the indexable text to the case-insensitive index writer, assigning it the
-        // "case-insensitive" field name
-        addDoc(indexWriter, FIELD_NAME, indexableText);
-      }
+    // The same analyzers are used for indexing and searching. A MemoryIndex holds the single
+    // document of an entry without the segment files and writers of a regular index.
+    MemoryIndex index = new MemoryIndex();
 
-      caseSensitiveStandardAnalyzer = new CaseSensitiveContextualAnalyzer(Version.LUCENE_30);
+    // Retrieve the text from the document that can be indexed using the specified XPath
+    // selectors
+    String indexableText = getIndexableText(fullDocument, xpathSelectors);
 
-      // Create a second IndexWriter using the custom case-sensitive StandardAnalyzer
-      // NOTE: set boolean to false to append the case-sensitive indexed text to the existing
-      // index (populated by first IndexWriter)
-      try (IndexWriter csIndexWriter =
-          new IndexWriter(
-              index, caseSensitiveStandardAnalyzer, false, IndexWriter.MaxFieldLength.UNLIMITED)) {
+    logTokens(CASE_INSENSITIVE_ANALYZER, FIELD_NAME, fullDocument, "ContextualAnalyzer");
+
+    // Add the indexable text as both the case-insensitive and the case-sensitive field
+    index.addField(FIELD_NAME, indexableText, CASE_INSENSITIVE_ANALYZER);
+    index.addField(CASE_SENSITIVE_FIELD_NAME, indexableText, CASE_SENSITIVE_ANALYZER);
 
-        // Add the indexable text to the case-sensitive index writer, assigning it the
-        // "case-sensitive" field name
-        addDoc(csIndexWriter, CASE_SENSITIVE_FIELD_NAME, indexableText);
-      }
-    }
     return index;
   }
 
@@ -20,10 +20,15 @@
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 import com.vividsolutions.jts.operation.distance.DistanceOp;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiPredicate;
 import java.util.regex.Pattern;
 import javax.xml.parsers.ParserConfigurationException;
 import org.geotools.xml.Configuration;
@@ -45,11 +50,12 @@ public class GeospatialEvaluator {
   // If both criteria and input are GeometryCollections, each element of input must lie entirely
   // within one component
   // of criteria.
-  private static boolean containsWithGeometryCollection(Geometry criteria, Geometry input) {
+  private static <T> boolean containsWithGeometryCollection(
+      List<T> criteria, Geometry input, BiPredicate<T, Geometry> contains) {
     for (int whichInput = 0; whichInput < input.getNumGeometries(); ++whichInput) {
       boolean thisInputOk = false;
-      for (int whichCriteria = 0; whichCriteria < criteria.getNumGeometries(); ++whichCriteria) {
-        if (criteria.getGeometryN(whichCriteria).contains(input.getGeometryN(whichInput))) {
+      for (T criteriaComponent : criteria) {
+        if (contains.test(criteriaComponent, input.getGeometryN(whichInput))) {
           thisInputOk = true;
           break;
         }
@@ -62,8 +68,9 @@ private static boolean containsWithGeometryCollection(Geometry criteria, Geometr
     return true;
   }
 
-  private static boolean overlapsWithGeometryCollection(Geometry criteria, Geometry input) {
-    for (int i = 0; i < criteria.getNumGeometries(); ++i) {
+  private static <T> boolean overlapsWithGeometryCollection(
+      List<T> criteria, Geometry input, BiPredicate<T, Geometry> intersects) {
+    for (T criteriaComponent : criteria) {
       for (int j = 0; j < input.getNumGeometries(); ++j) {
         // The legacy interpretation of OVERLAPS corresponds better to a JTS INTERSECTS
         // Intersects means NOT DISJOINT. In other words the two geometries have at least
@@ -73,7 +80,7 @@ private static boolean overlapsWithGeometryCollection(Geometry criteria, Geometr
         // means that if geometry A is a large, and geometry B is smaller than A and is
         // completely inside A,
         // A and B DO NOT overlap.
-        if (criteria.getGeometryN(i).intersects(input.getGeometryN(j))) {
+        if (intersects.test(criteriaComponent, input.getGeometryN(j))) {
           // Criteria overlaps input if any component of either overlaps a component of
           // the other.
           return true;
@@ -84,7 +91,55 @@ private static boolean overlapsWithGeometryCollection(Geometry criteria, Geometr
     return false;
   }
 
+  /**
+   * Prepares each component of a criteria geometry, so that it can be evaluated against many inputs
+   * with {@link #evaluate(GeospatialEvaluationCriteria, List)} without recomputing its indexes
+   * every time.
+   *
+   * @param criteria the criteria geometry, may be null
+   * @return the prepared components of the criteria geometry
+   */
+  public static List<PreparedGeometry> prepare(Geometry criteria) {
+    if (criteria == null) {
+      return Collections.emptyList();
+    }
+
+    List<PreparedGeometry> prepared = new ArrayList<>(criteria.getNumGeometries());
+    for (int i = 0; i < criteria.getNumGeometries(); ++i) {
+      prepared.add(PreparedGeometryFactory.prepare(criteria.getGeometryN(i)));
+    }
+    return prepared;
+  }
+
   public static boolean evaluate(GeospatialEvaluationCriteria gec) {
+    Geometry criteria = gec.getCriteria();
+    List<Geometry> components = new ArrayList<>(criteria.getNumGeometries());
+    for (int i = 0; i < criteria.getNumGeometries(); ++i) {
+      components.add(criteria.getGeometryN(i));
+    }
+
+    return evaluate(gec, components, Geometry::contains, Geometry::intersects);
+  }
+
+  /**
+   * Evaluates the criteria using its prepared components.
+   *
+   * @param gec the criteria to evaluate
+   * @param preparedCriteria the components of {@code gec.getCriteria()}, as returned by {@link
+   *     #prepare(Geometry)}
+   * @return the result of the evaluation
+   */
+  public static boolean evaluate(
+      GeospatialEvaluationCriteria gec, List<PreparedGeometry> preparedCriteria) {
+    return evaluate(
+        gec, preparedCriteria, PreparedGeometry::contains, PreparedGeometry::intersects);
+  }
+
+  private static <T> boolean evaluate(
+      GeospatialEvaluationCriteria gec,
+      List<T> criteriaComponents,
+      BiPredicate<T, Geometry> contains,
+      BiPredicate<T, Geometry> intersects) {
     String methodName = "evaluate";
     LOGGER.trace("ENTERING: {}", methodName);
 
@@ -101,12 +156,12 @@ public static boolean evaluate(GeospatialEvaluationCriteria gec) {
       switch (SpatialOperator.valueOf(operation.toUpperCase())) {
         case CONTAINS:
           LOGGER.debug("Doing CONTAINS evaluation");
-          evaluation = containsWithGeometryCollection(criteria, input);
+          evaluation = containsWithGeometryCollection(criteriaComponents, input, contains);
           break;
 
         case OVERLAPS:
           LOGGER.debug("Doing OVERLAPS evaluation");
-          evaluation = overlapsWithGeometryCollection(criteria, input);
+          evaluation = overlapsWithGeometryCollection(criteriaComponents, input, intersects);
           break;
 
           // Unsupported as of release DDF 2.0.0 10/24/11
@@ -139,6 +194,10 @@ public static boolean evaluate(GeospatialEvaluationCriteria gec) {
           evaluation = false;
           break;
       }
+    } else if (criteria.getEnvelopeInternal().distance(input.getEnvelopeInternal()) > distance) {
+      // the envelopes are never further apart than the geometries themselves
+      LOGGER.debug("Envelopes are further apart than the distance");
+      evaluation = false;
     } else {
       LOGGER.debug("Doing DISTANCE evaluation");
 
@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the work done for catalog events on bounded thread pools: matching catalog entries against
+ * the subscriptions, and delivering the matching entries through a {@link DeliveryQueue} per
+ * subscription.
+ *
+ * <p>When {@code ddf.home} is set, the matching entries of each subscription are kept in a {@link
+ * SubscriptionOutbox} under {@code data/pubsub/outbox} until they are delivered. The outbox of a
+ * subscription is found again when a subscription with the same ID is created after a restart, and
+ * is deleted along with the subscription. Outboxes left untouched for longer than a week, such as
+ * those of subscriptions that were never registered again, are deleted on startup.
+ *
+ * <p>Entries are handed over on EventAdmin threads, which never match entries themselves. When the
+ * entry queue is full, the handing thread blocks until there is room, so that ingest is slowed down
+ * to the rate the subscriptions are matched at rather than entries being lost. Hand-offs that had
+ * to wait are counted and exposed through the MBean.
+ */
+public class DeliveryExecutor implements DeliveryExecutorMBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryExecutor.class);
+
+  private static final int ENTRY_THREADS = 4;
+
+  private static final int ENTRY_QUEUE_CAPACITY = 1000;
+
+  private static final int DELIVERY_THREADS = 16;
+
+  private static final int DELIVERY_QUEUE_CAPACITY = 10000;
+
+  private static final int DELIVERY_BATCH_SIZE = 100;
+
+  private static final long OUTBOX_SEGMENT_BYTES = 16L * 1024 * 1024;
+
+  private static final long OUTBOX_MAXIMUM_BYTES = 512L * 1024 * 1024;
+
+  private static final long OUTBOX_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+  private final AtomicLong blockedEntries = new AtomicLong();
+
+  private final ThreadPoolExecutor entryPool =
+      new ThreadPoolExecutor(
+          ENTRY_THREADS,
+          ENTRY_THREADS,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(ENTRY_QUEUE_CAPACITY),
+          StandardThreadFactoryBuilder.newThreadFactory("pubSubThread"),
+          this::rejectEntry);
+
+  private final ScheduledExecutorService deliveryPool =
+      Executors.newScheduledThreadPool(
+          DELIVERY_THREADS, StandardThreadFactoryBuilder.newThreadFactory("eventProcessorThread"));
+
+  private final Map<String, DeliveryQueue> queues = new ConcurrentHashMap<>();
+
+  private final AtomicLong droppedEvents = new AtomicLong();
+
+  private final Path outboxDirectory;
+
+  private ObjectName objectName;
+
+  public DeliveryExecutor() {
+    this(
+        System.getProperty("ddf.home") == null
+            ? null
+            : Paths.get(System.getProperty("ddf.home"), "data", "pubsub", "outbox"));
+  }
+
+  /** @param outboxDirectory the directory holding the outboxes, or null to keep events in memory */
+  public DeliveryExecutor(Path outboxDirectory) {
+    this.outboxDirectory = outboxDirectory;
+  }
+
+  public void init() {
+    deleteAbandonedOutboxes();
+
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      objectName = new ObjectName(OBJECT_NAME);
+      try {
+        mbeanServer.registerMBean(new StandardMBean(this, DeliveryExecutorMBean.class), objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        LOGGER.debug("Re-registering event delivery MBean");
+        mbeanServer.unregisterMBean(objectName);
+        mbeanServer.registerMBean(new StandardMBean(this, DeliveryExecutorMBean.class), objectName);
+      }
+    } catch (MalformedObjectNameException
+        | InstanceAlreadyExistsException
+        | InstanceNotFoundException
+        | MBeanRegistrationException
+        | NotCompliantMBeanException e) {
+      LOGGER.info("Could not register event delivery MBean.", e);
+    }
+  }
+
+  public void destroy() {
+    queues.values().forEach(DeliveryQueue::close);
+    queues.clear();
+    entryPool.shutdownNow();
+    deliveryPool.shutdownNow();
+
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+      LOGGER.debug("Could not unregister event delivery MBean.", e);
+    }
+  }
+
+  /**
+   * Runs the matching of a catalog entry against the subscriptions on the entry pool. Blocks while
+   * the entry queue is full; the work only runs on the calling thread if it is interrupted while
+   * waiting, so that the entry is never lost.
+   *
+   * @param entryProcessing the work to run
+   */
+  public void execute(Runnable entryProcessing) {
+    entryPool.execute(entryProcessing);
+  }
+
+  private void rejectEntry(Runnable entryProcessing, ThreadPoolExecutor executor) {
+    if (executor.isShutdown()) {
+      return;
+    }
+
+    blockedEntries.incrementAndGet();
+    LOGGER.debug("Entry queue is full, waiting for room to hand over a catalog entry");
+    try {
+      executor.getQueue().put(entryProcessing);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.debug("Interrupted while waiting for the entry queue, matching the entry in place");
+      entryProcessing.run();
+    }
+  }
+
+  /**
+   * Creates the delivery queue of a subscription, replacing any previous queue of that
+   * subscription. Events left in the outbox of the subscription are delivered first.
+   *
+   * @param subscriptionId the ID of the subscription
+   * @param matcher returns the events of a batch that match the subscription
+   * @param deliverer delivers a batch of matching events to the subscription
+   * @return the queue to hand the subscription's events to
+   */
+  public DeliveryQueue register(
+      String subscriptionId,
+      UnaryOperator<List<Event>> matcher,
+      DeliveryQueue.Deliverer deliverer) {
+    DeliveryQueue previous = queues.remove(subscriptionId);
+    if (previous != null) {
+      previous.close();
+    }
+
+    DeliveryQueue queue =
+        new DeliveryQueue(
+            subscriptionId,
+            deliveryPool,
+            DELIVERY_QUEUE_CAPACITY,
+            DELIVERY_BATCH_SIZE,
+            matcher,
+            deliverer,
+            droppedEvents,
+            openOutbox(subscriptionId));
+    queues.put(subscriptionId, queue);
+    return queue;
+  }
+
+  /**
+   * Discards the delivery queue of a subscription.
+   *
+   * @param subscriptionId the ID of the subscription
+   * @param deleteOutbox whether the subscription is gone for good, so that its undelivered events
+   *     are deleted; otherwise they are kept for a subscription created again with the same ID
+   */
+  public void unregister(String subscriptionId, boolean deleteOutbox) {
+    DeliveryQueue queue = queues.remove(subscriptionId);
+    if (queue != null) {
+      queue.close();
+    }
+
+    if (deleteOutbox && outboxDirectory != null) {
+      Path outbox = outboxPath(subscriptionId);
+      if (Files.isDirectory(outbox)) {
+        try {
+          deleteOutbox(outbox);
+        } catch (IOException e) {
+          LOGGER.info("Could not delete outbox {} of subscription {}", outbox, subscriptionId, e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Map<String, Integer> getQueueDepths() {
+    return queues
+        .entrySet()
+        .stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().size()));
+  }
+
+  @Override
+  public Map<String, Long> getStoredEvents() {
+    return queues
+        .entrySet()
+        .stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().storedSize()));
+  }
+
+  @Override
+  public int getPendingEntries() {
+    return entryPool.getQueue().size();
+  }
+
+  @Override
+  public long getBlockedEntries() {
+    return blockedEntries.get();
+  }
+
+  @Override
+  public long getDroppedEvents() {
+    return droppedEvents.get();
+  }
+
+  @Override
+  public List<String> getBackedOffSubscriptions() {
+    return queues
+        .entrySet()
+        .stream()
+        .filter(entry -> entry.getValue().isBackingOff())
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+  }
+
+  private SubscriptionOutbox openOutbox(String subscriptionId) {
+    if (outboxDirectory == null) {
+      return null;
+    }
+
+    Path directory = outboxPath(subscriptionId);
+    try {
+      return new SubscriptionOutbox(
+          directory, OUTBOX_SEGMENT_BYTES, OUTBOX_MAXIMUM_BYTES, droppedEvents);
+    } catch (IOException e) {
+      LOGGER.info(
+          "Could not open outbox {} of subscription {}, its events will not be stored",
+          directory,
+          subscriptionId,
+          e);
+      return null;
+    }
+  }
+
+  private Path outboxPath(String subscriptionId) {
+    // Subscription IDs are chosen by clients, so they are not used as file names directly
+    return outboxDirectory.resolve(
+        UUID.nameUUIDFromBytes(subscriptionId.getBytes(StandardCharsets.UTF_8)).toString());
+  }
+
+  private void deleteAbandonedOutboxes() {
+    if (outboxDirectory == null || !Files.isDirectory(outboxDirectory)) {
+      return;
+    }
+
+    long oldest = System.currentTimeMillis() - OUTBOX_RETENTION_MILLIS;
+    try (DirectoryStream<Path> outboxes = Files.newDirectoryStream(outboxDirectory)) {
+      for (Path outbox : outboxes) {
+        if (lastModified(outbox) < oldest) {
+          LOGGER.debug("Deleting abandoned subscription outbox {}", outbox);
+          deleteOutbox(outbox);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.info("Could not delete abandoned subscription outboxes", e);
+    }
+  }
+
+  private static void deleteOutbox(Path outbox) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(outbox)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(outbox);
+  }
+
+  private static long lastModified(Path outbox) throws IOException {
+    long lastModified = Files.getLastModifiedTime(outbox).toMillis();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(outbox)) {
+      for (Path file : files) {
+        lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+      }
+    }
+    return lastModified;
+  }
+}
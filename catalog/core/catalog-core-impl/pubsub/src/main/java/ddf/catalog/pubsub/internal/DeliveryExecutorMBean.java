@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import java.util.List;
+import java.util.Map;
+
+/** Exposes the state of the event delivery of the subscriptions. */
+public interface DeliveryExecutorMBean {
+
+  String OBJECT_NAME = "ddf.catalog.pubsub.internal.DeliveryExecutor:service=delivery";
+
+  /** @return the number of events waiting to be delivered, by subscription ID */
+  Map<String, Integer> getQueueDepths();
+
+  /** @return the number of matching events stored until they are delivered, by subscription ID */
+  Map<String, Long> getStoredEvents();
+
+  /** @return the number of catalog entries waiting to be matched against the subscriptions */
+  int getPendingEntries();
+
+  /**
+   * @return the total number of catalog entries whose hand-off waited because the entry queue was
+   *     full
+   */
+  long getBlockedEntries();
+
+  /** @return the total number of events dropped because a subscription's queue was full */
+  long getDroppedEvents();
+
+  /** @return the IDs of the subscriptions whose deliveries are paused after failing */
+  List<String> getBackedOffSubscriptions();
+}
@@ -14,12 +14,14 @@
 package ddf.catalog.pubsub.internal;
 
 import ddf.catalog.data.Metacard;
+import ddf.catalog.event.DeliveryException;
 import ddf.catalog.event.Subscription;
 import ddf.catalog.operation.Update;
 import ddf.catalog.operation.impl.UpdateImpl;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PreDeliveryPlugin;
 import ddf.catalog.plugin.StopProcessingException;
+import java.util.ArrayList;
 import java.util.List;
 import org.osgi.service.event.Event;
 import org.slf4j.Logger;
@@ -48,17 +50,9 @@ public void process(Event event) {
     if (subscription != null) {
       if (entry != null) {
         if (operation.equalsIgnoreCase(PubSubConstants.CREATE)) {
-          try {
-            for (PreDeliveryPlugin plugin : preDelivery) {
-              LOGGER.debug("Processing 'created' entry with preDelivery plugin");
-              entry = plugin.processCreate(entry);
-            }
-            subscription.getDeliveryMethod().created(entry);
-          } catch (PluginExecutionException e) {
-            LOGGER.debug("Plugin had exception during execution - still delivering the entry", e);
+          entry = preDeliver(entry, "created");
+          if (entry != null) {
             subscription.getDeliveryMethod().created(entry);
-          } catch (StopProcessingException e) {
-            LOGGER.info("Pre-delivery plugin determined entry cannot be delivered", e);
           }
         } else if (operation.equalsIgnoreCase(PubSubConstants.UPDATE)) {
           // TODO: Handle hit or miss
@@ -76,18 +70,9 @@ public void process(Event event) {
             LOGGER.info("Pre-delivery plugin determined entry cannot be delivered", e);
           }
         } else if (operation.equalsIgnoreCase(PubSubConstants.DELETE)) {
-
-          try {
-            for (PreDeliveryPlugin plugin : preDelivery) {
-              LOGGER.debug("Processing 'deleted' entry with preDelivery plugin");
-              entry = plugin.processCreate(entry);
-            }
+          entry = preDeliver(entry, "deleted");
+          if (entry != null) {
             subscription.getDeliveryMethod().deleted(entry);
-          } catch (PluginExecutionException e) {
-            LOGGER.debug("Plugin had exception during execution - still delivering the entry", e);
-            subscription.getDeliveryMethod().deleted(entry);
-          } catch (StopProcessingException e) {
-            LOGGER.info("Pre-delivery plugin determined entry cannot be delivered", e);
           }
         } else {
           LOGGER.debug("Could not deliver hit for subscription.");
@@ -101,4 +86,91 @@ public void process(Event event) {
 
     LOGGER.debug("EXITING: {}", methodName);
   }
+
+  /**
+   * Delivers several events in the order they were published. Consecutive created and deleted
+   * entries are handed to the delivery method together, so that delivery methods able to carry
+   * several entries per notification can do so.
+   *
+   * @param events the events to deliver
+   * @throws DeliveryException if the delivery method could not deliver a batch of entries
+   */
+  public void process(List<Event> events) throws DeliveryException {
+    String methodName = "process";
+    LOGGER.debug("ENTERING: {}", methodName);
+
+    if (subscription == null) {
+      LOGGER.debug("Could not deliver hits for subscription. Subscription is null.");
+      return;
+    }
+
+    List<Metacard> entries = new ArrayList<>();
+    String entriesOperation = null;
+    for (Event event : events) {
+      Metacard entry = (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
+      String operation = event.getProperty(PubSubConstants.HEADER_OPERATION_KEY).toString();
+      boolean batched =
+          entry != null
+              && (operation.equalsIgnoreCase(PubSubConstants.CREATE)
+                  || operation.equalsIgnoreCase(PubSubConstants.DELETE));
+
+      if (entriesOperation != null && !(batched && operation.equalsIgnoreCase(entriesOperation))) {
+        deliver(entriesOperation, entries);
+        entries = new ArrayList<>();
+        entriesOperation = null;
+      }
+
+      if (batched) {
+        entriesOperation = operation;
+        entry =
+            preDeliver(
+                entry, operation.equalsIgnoreCase(PubSubConstants.CREATE) ? "created" : "deleted");
+        if (entry != null) {
+          entries.add(entry);
+        }
+      } else {
+        process(event);
+      }
+    }
+
+    if (entriesOperation != null) {
+      deliver(entriesOperation, entries);
+    }
+
+    LOGGER.debug("EXITING: {}", methodName);
+  }
+
+  private void deliver(String operation, List<Metacard> entries) throws DeliveryException {
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    LOGGER.debug("Delivering {} '{}' catalog entries.", entries.size(), operation);
+    if (operation.equalsIgnoreCase(PubSubConstants.CREATE)) {
+      subscription.getDeliveryMethod().createdAll(entries);
+    } else {
+      subscription.getDeliveryMethod().deletedAll(entries);
+    }
+  }
+
+  /**
+   * Runs the pre-delivery plugins on a created or deleted entry.
+   *
+   * @return the entry to deliver, or null if a plugin determined it cannot be delivered
+   */
+  private Metacard preDeliver(Metacard entry, String operation) {
+    Metacard processed = entry;
+    try {
+      for (PreDeliveryPlugin plugin : preDelivery) {
+        LOGGER.debug("Processing '{}' entry with preDelivery plugin", operation);
+        processed = plugin.processCreate(processed);
+      }
+    } catch (PluginExecutionException e) {
+      LOGGER.debug("Plugin had exception during execution - still delivering the entry", e);
+    } catch (StopProcessingException e) {
+      LOGGER.info("Pre-delivery plugin determined entry cannot be delivered", e);
+      return null;
+    }
+    return processed;
+  }
 }
@@ -0,0 +1,441 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import ddf.catalog.data.Metacard;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the events published for one subscription until they are delivered.
+ *
+ * <p>Events are matched against the subscription and delivered in batches, in the order they were
+ * published, by at most one thread of the shared delivery pool at a time, so a slow subscriber
+ * never holds more than one thread. When a delivery fails, the queue waits before delivering again,
+ * doubling the wait with each consecutive failure, so that a dead endpoint is only tried now and
+ * then.
+ *
+ * <p>Without a {@link SubscriptionOutbox}, the queue is bounded and never delays the publisher:
+ * once full, the oldest event is dropped to make room for the newest, and the events of a failed
+ * delivery are lost. With one, matching events are written to the outbox by a step of their own,
+ * which a delivery in progress never holds up, and are delivered from the outbox. They stay there
+ * until a delivery succeeds, including across restarts. Events are never dropped from memory then:
+ * once the queue is full, the publisher waits until the queued events are stored.
+ */
+public class DeliveryQueue {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryQueue.class);
+
+  static final long INITIAL_BACKOFF_MILLIS = 100;
+
+  static final long MAXIMUM_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private final String subscriptionId;
+
+  private final ScheduledExecutorService executor;
+
+  private final int batchSize;
+
+  private final UnaryOperator<List<Event>> matcher;
+
+  private final Deliverer deliverer;
+
+  private final AtomicLong droppedEvents;
+
+  private final SubscriptionOutbox outbox;
+
+  private final BlockingQueue<Event> events;
+
+  private final Object drainLock = new Object();
+
+  private final Object storeLock = new Object();
+
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private final AtomicBoolean storeScheduled = new AtomicBoolean();
+
+  private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+  private volatile int consecutiveFailures;
+
+  private volatile long backoffUntil;
+
+  private volatile boolean closed;
+
+  /**
+   * Creates a queue that delivers every event it is given and keeps nothing on disk.
+   *
+   * @param subscriptionId the ID of the subscription the events are delivered to, used for logging
+   * @param executor the pool the events are delivered on
+   * @param capacity the maximum number of events held
+   * @param batchSize the maximum number of events delivered together
+   * @param deliverer delivers a batch of events
+   * @param droppedEvents incremented for each event dropped by this queue
+   */
+  public DeliveryQueue(
+      String subscriptionId,
+      ScheduledExecutorService executor,
+      int capacity,
+      int batchSize,
+      Deliverer deliverer,
+      AtomicLong droppedEvents) {
+    this(
+        subscriptionId,
+        executor,
+        capacity,
+        batchSize,
+        UnaryOperator.identity(),
+        deliverer,
+        droppedEvents,
+        null);
+  }
+
+  /**
+   * @param subscriptionId the ID of the subscription the events are delivered to, used for logging
+   * @param executor the pool the events are delivered on
+   * @param capacity the maximum number of events held
+   * @param batchSize the maximum number of events delivered together
+   * @param matcher returns the events of a batch that are to be delivered
+   * @param deliverer delivers a batch of matching events
+   * @param droppedEvents incremented for each event dropped by this queue
+   * @param outbox where matching events are kept until they are delivered, or null to keep them in
+   *     memory only
+   */
+  public DeliveryQueue(
+      String subscriptionId,
+      ScheduledExecutorService executor,
+      int capacity,
+      int batchSize,
+      UnaryOperator<List<Event>> matcher,
+      Deliverer deliverer,
+      AtomicLong droppedEvents,
+      SubscriptionOutbox outbox) {
+    this.subscriptionId = subscriptionId;
+    this.executor = executor;
+    this.batchSize = batchSize;
+    this.matcher = matcher;
+    this.deliverer = deliverer;
+    this.droppedEvents = droppedEvents;
+    this.outbox = outbox;
+    this.events = new ArrayBlockingQueue<>(capacity);
+    if (outbox != null && outbox.size() > 0) {
+      schedule();
+    }
+  }
+
+  /**
+   * Queues an event for delivery. Without an outbox, never blocks and drops the oldest queued event
+   * if the queue is full. With one, waits for room in the queue instead.
+   *
+   * @param event the event to deliver
+   */
+  public void offer(Event event) {
+    if (closed) {
+      return;
+    }
+
+    if (outbox != null) {
+      try {
+        events.put(event);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOGGER.debug("Interrupted while waiting to queue an event, storing it in place");
+        synchronized (storeLock) {
+          store(matcher.apply(Collections.singletonList(event)));
+        }
+        schedule();
+        return;
+      }
+      scheduleStore();
+      return;
+    }
+
+    while (!events.offer(event)) {
+      if (events.poll() != null) {
+        droppedEvents.incrementAndGet();
+        LOGGER.debug(
+            "Delivery queue of subscription {} is full, dropped oldest event", subscriptionId);
+      }
+    }
+
+    long wait = backoffUntil - System.currentTimeMillis();
+    if (wait > 0) {
+      scheduleRetry(wait);
+    } else {
+      schedule();
+    }
+  }
+
+  /**
+   * Stops delivering. Without an outbox, the events held in memory are discarded; with one, they
+   * are stored first. Waits for a delivery in progress to finish before closing the outbox. The
+   * outbox is kept.
+   */
+  public void close() {
+    closed = true;
+    if (outbox == null) {
+      events.clear();
+      return;
+    }
+
+    synchronized (storeLock) {
+      List<Event> remaining = new ArrayList<>(events.size());
+      events.drainTo(remaining);
+      store(matcher.apply(remaining));
+    }
+    synchronized (drainLock) {
+      if (outbox != null) {
+        outbox.close();
+      }
+    }
+  }
+
+  /** @return the number of events waiting in memory */
+  public int size() {
+    return events.size();
+  }
+
+  /** @return the number of events waiting in the outbox, or 0 if there is no outbox */
+  public long storedSize() {
+    return outbox == null ? 0 : outbox.size();
+  }
+
+  /** @return whether deliveries are paused after failing */
+  public boolean isBackingOff() {
+    return backoffUntil > System.currentTimeMillis();
+  }
+
+  private void schedule() {
+    if (!scheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      executor.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Delivery pool is shut down, not delivering to subscription {}", subscriptionId);
+      scheduled.set(false);
+    }
+  }
+
+  private void scheduleStore() {
+    if (!storeScheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      executor.execute(this::storeQueued);
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Delivery pool is shut down, not storing events of {}", subscriptionId);
+      storeScheduled.set(false);
+    }
+  }
+
+  private void scheduleRetry(long delayMillis) {
+    if (!retryScheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      executor.schedule(
+          () -> {
+            retryScheduled.set(false);
+            schedule();
+          },
+          delayMillis,
+          TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Delivery pool is shut down, not delivering to subscription {}", subscriptionId);
+      retryScheduled.set(false);
+    }
+  }
+
+  /** Moves a batch of queued events to the outbox. Never waits for a delivery. */
+  private void storeQueued() {
+    synchronized (storeLock) {
+      if (!closed) {
+        List<Event> batch = take();
+        if (!batch.isEmpty()) {
+          store(matcher.apply(batch));
+        }
+      }
+    }
+
+    storeScheduled.set(false);
+    if (closed) {
+      return;
+    }
+
+    if (!events.isEmpty()) {
+      scheduleStore();
+    }
+    long wait = backoffUntil - System.currentTimeMillis();
+    if (wait > 0) {
+      scheduleRetry(wait);
+    } else {
+      schedule();
+    }
+  }
+
+  private void drain() {
+    synchronized (drainLock) {
+      if (!closed && !isBackingOff()) {
+        if (outbox != null) {
+          deliverStored();
+        } else {
+          List<Event> batch = take();
+          if (!batch.isEmpty()) {
+            deliverDirectly(matcher.apply(batch));
+          }
+        }
+      }
+    }
+
+    // Give the thread back to the pool after each batch, so that every subscriber gets a turn
+    scheduled.set(false);
+    if (closed) {
+      return;
+    }
+
+    boolean pending = outbox != null ? outbox.size() > 0 : !events.isEmpty();
+    long wait = backoffUntil - System.currentTimeMillis();
+    if (!pending) {
+      return;
+    } else if (wait > 0) {
+      scheduleRetry(wait);
+    } else {
+      schedule();
+    }
+  }
+
+  private List<Event> take() {
+    List<Event> batch = new ArrayList<>(Math.min(batchSize, events.size()));
+    events.drainTo(batch, batchSize);
+    return batch;
+  }
+
+  private void deliverDirectly(List<Event> matches) {
+    if (!matches.isEmpty() && !deliver(matches)) {
+      droppedEvents.addAndGet(matches.size());
+    }
+  }
+
+  private void store(List<Event> matches) {
+    if (matches.isEmpty()) {
+      return;
+    }
+
+    List<SubscriptionOutbox.Entry> entries = new ArrayList<>(matches.size());
+    for (Event event : matches) {
+      entries.add(
+          new SubscriptionOutbox.Entry(
+              event.getProperty(PubSubConstants.HEADER_OPERATION_KEY).toString(),
+              (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY)));
+    }
+
+    try {
+      outbox.append(entries);
+    } catch (IOException e) {
+      LOGGER.info(
+          "Could not store events of subscription {}, delivering them without storing them",
+          subscriptionId,
+          e);
+      deliverDirectly(matches);
+    }
+  }
+
+  private void deliverStored() {
+    SubscriptionOutbox.Batch batch;
+    try {
+      batch = outbox.read(batchSize);
+    } catch (IOException e) {
+      LOGGER.info("Could not read stored events of subscription {}", subscriptionId, e);
+      backOff();
+      return;
+    }
+
+    List<Event> stored = new ArrayList<>(batch.getEntries().size());
+    for (SubscriptionOutbox.Entry entry : batch.getEntries()) {
+      Map<String, Object> properties = new HashMap<>();
+      properties.put(PubSubConstants.HEADER_ENTRY_KEY, entry.getMetacard());
+      properties.put(PubSubConstants.HEADER_OPERATION_KEY, entry.getOperation());
+      stored.add(new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties));
+    }
+
+    if (stored.isEmpty() || deliver(stored)) {
+      try {
+        outbox.commit(batch.getEndOffset());
+      } catch (IOException e) {
+        LOGGER.info(
+            "Could not record delivery to subscription {}, events may be delivered again",
+            subscriptionId,
+            e);
+      }
+    }
+  }
+
+  private boolean deliver(List<Event> batch) {
+    boolean delivered;
+    try {
+      delivered = deliverer.deliver(batch);
+    } catch (RuntimeException e) {
+      LOGGER.debug("Delivery to subscription {} failed", subscriptionId, e);
+      delivered = false;
+    }
+
+    if (delivered) {
+      consecutiveFailures = 0;
+    } else {
+      backOff();
+    }
+    return delivered;
+  }
+
+  private void backOff() {
+    int failures = ++consecutiveFailures;
+    long backoff =
+        Math.min(MAXIMUM_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(failures - 1, 20));
+    backoffUntil = System.currentTimeMillis() + backoff;
+    LOGGER.debug(
+        "Delivery to subscription {} failed {} time(s) in a row, waiting {} ms",
+        subscriptionId,
+        failures,
+        backoff);
+  }
+
+  /** Delivers a batch of events to a subscriber. */
+  @FunctionalInterface
+  public interface Deliverer {
+
+    /**
+     * @param events the events to deliver
+     * @return false if the subscriber is not available and the events were not delivered
+     */
+    boolean deliver(List<Event> events);
+  }
+}
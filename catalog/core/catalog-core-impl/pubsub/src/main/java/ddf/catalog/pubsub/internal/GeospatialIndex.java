@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spatial index of the {@link GeospatialPredicate}s of all subscriptions, by the envelope of their
+ * criteria expanded by their distance.
+ *
+ * <p>An entry's geometry is looked up once per event, and the resulting {@link Candidates} are sent
+ * along with the event so that every predicate whose envelope is disjoint from the entry's can
+ * reject it without evaluating its criteria.
+ */
+public class GeospatialIndex {
+
+  private final Map<String, List<GeospatialPredicate>> predicatesBySubscription = new HashMap<>();
+
+  /** Index over the current predicates, or {@code null} if it must be rebuilt. */
+  private volatile Snapshot snapshot;
+
+  public synchronized void add(String subscriptionId, List<GeospatialPredicate> predicates) {
+    if (predicates.isEmpty()) {
+      remove(subscriptionId);
+      return;
+    }
+    predicatesBySubscription.put(subscriptionId, predicates);
+    snapshot = null;
+  }
+
+  public synchronized void remove(String subscriptionId) {
+    if (predicatesBySubscription.remove(subscriptionId) != null) {
+      snapshot = null;
+    }
+  }
+
+  /**
+   * Finds the predicates that could match a geometry.
+   *
+   * @param input the geometry of an entry
+   * @return the candidates for the geometry, or {@code null} if every predicate must evaluate it
+   */
+  public Candidates lookup(Geometry input) {
+    if (input == null || input.isEmpty()) {
+      return null;
+    }
+
+    Snapshot current = getSnapshot();
+    if (current.indexed.isEmpty()) {
+      return null;
+    }
+
+    Set<GeospatialPredicate> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Object item : current.tree.query(input.getEnvelopeInternal())) {
+      matches.add((GeospatialPredicate) item);
+    }
+    return new Candidates(current.indexed, matches);
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        current = snapshot;
+        if (current == null) {
+          current = new Snapshot(predicatesBySubscription.values());
+          snapshot = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /** The predicates that may match an entry, out of those that were indexed. */
+  public static class Candidates {
+
+    private final Set<GeospatialPredicate> indexed;
+
+    private final Set<GeospatialPredicate> matches;
+
+    private Candidates(Set<GeospatialPredicate> indexed, Set<GeospatialPredicate> matches) {
+      this.indexed = indexed;
+      this.matches = matches;
+    }
+
+    /**
+     * @param predicate a geospatial predicate
+     * @return {@code false} if the predicate cannot match the entry, {@code true} if it must be
+     *     evaluated
+     */
+    public boolean mayMatch(GeospatialPredicate predicate) {
+      return matches.contains(predicate) || !indexed.contains(predicate);
+    }
+  }
+
+  private static class Snapshot {
+
+    private final STRtree tree = new STRtree();
+
+    private final Set<GeospatialPredicate> indexed =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private Snapshot(Collection<List<GeospatialPredicate>> predicates) {
+      for (List<GeospatialPredicate> subscriptionPredicates : predicates) {
+        for (GeospatialPredicate predicate : subscriptionPredicates) {
+          if (predicate.getGeoCriteria() != null && !predicate.getGeoCriteria().isEmpty()) {
+            Envelope envelope = new Envelope(predicate.getGeoCriteria().getEnvelopeInternal());
+            envelope.expandBy(Math.max(predicate.getDistance(), 0));
+            tree.insert(envelope, predicate);
+            indexed.add(predicate);
+          }
+        }
+      }
+      tree.build();
+    }
+  }
+}
@@ -20,6 +20,8 @@ public class PubSubConstants {
 
   public static final String HEADER_GEOSPATIAL_KEY = "geospatialInput";
 
+  public static final String HEADER_GEOSPATIAL_CANDIDATES_KEY = "geospatialCandidates";
+
   public static final String HEADER_TEMPORAL_KEY = "temporalInput";
 
   public static final String HEADER_XPATH_KEY = "xpathInput";
@@ -29,23 +29,31 @@ public class PubSubThread extends Thread {
 
   private EventAdmin eventAdmin;
 
+  private GeospatialIndex geospatialIndex;
+
   public PubSubThread(Metacard entry, String topic, EventAdmin eventAdmin) {
+    this(entry, topic, eventAdmin, null);
+  }
+
+  public PubSubThread(
+      Metacard entry, String topic, EventAdmin eventAdmin, GeospatialIndex geospatialIndex) {
     this.entry = entry;
     this.topic = topic;
     this.eventAdmin = eventAdmin;
+    this.geospatialIndex = geospatialIndex;
   }
 
   public void run() {
     LOGGER.debug("Processing entry event in separate thread - topic = {}", topic);
 
     if (topic.equals(EventProcessor.EVENTS_TOPIC_CREATED)) {
-      EventProcessorImpl.processEntry(entry, PubSubConstants.CREATE, eventAdmin);
+      EventProcessorImpl.processEntry(entry, PubSubConstants.CREATE, eventAdmin, geospatialIndex);
       // new EventProcessorImpl().processEntry( entry, PubSubConstants.CREATE, eventAdmin );
     } else if (topic.equals(EventProcessor.EVENTS_TOPIC_UPDATED)) {
-      EventProcessorImpl.processEntry(entry, PubSubConstants.UPDATE, eventAdmin);
+      EventProcessorImpl.processEntry(entry, PubSubConstants.UPDATE, eventAdmin, geospatialIndex);
       // new EventProcessorImpl().processEntry( entry, PubSubConstants.UPDATE, eventAdmin );
     } else if (topic.equals(EventProcessor.EVENTS_TOPIC_DELETED)) {
-      EventProcessorImpl.processEntry(entry, PubSubConstants.DELETE, eventAdmin);
+      EventProcessorImpl.processEntry(entry, PubSubConstants.DELETE, eventAdmin, geospatialIndex);
       // new EventProcessorImpl().processEntry( entry, PubSubConstants.DELETE, eventAdmin );
     }
   }
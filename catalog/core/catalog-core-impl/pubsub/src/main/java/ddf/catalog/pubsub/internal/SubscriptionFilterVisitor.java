@@ -70,8 +70,15 @@ public class SubscriptionFilterVisitor extends DefaultFilterVisitor {
 
   // private static final String FUZZY_FUNCTION_NAME = "fuzzy";
 
+  private final List<GeospatialPredicate> geospatialPredicates = new ArrayList<>();
+
   public SubscriptionFilterVisitor() {}
 
+  /** @return the geospatial predicates created while visiting filters */
+  public List<GeospatialPredicate> getGeospatialPredicates() {
+    return geospatialPredicates;
+  }
+
   /** A helper method to combine multiple predicates by a logical AND */
   public static Predicate and(final Predicate left, final Predicate right) {
     notNull(left, "left");
@@ -272,7 +279,8 @@ public Object visit(DWithin filter, Object data) {
     LOGGER.debug("radius in meters : {}", radius);
     LOGGER.debug("radius in degrees : {}", radiusInDegrees);
 
-    Predicate predicate = new GeospatialPredicate(jtsGeometry, null, radiusInDegrees);
+    GeospatialPredicate predicate = new GeospatialPredicate(jtsGeometry, null, radiusInDegrees);
+    geospatialPredicates.add(predicate);
 
     LOGGER.debug("EXITING: DWithin filter");
 
@@ -288,8 +296,9 @@ public Object visit(Within filter, Object data) {
     com.vividsolutions.jts.geom.Geometry jtsGeometry =
         getJtsGeometery((LiteralExpressionImpl) filter.getExpression2());
 
-    Predicate predicate =
+    GeospatialPredicate predicate =
         new GeospatialPredicate(jtsGeometry, SpatialOperator.CONTAINS.name(), 0.0);
+    geospatialPredicates.add(predicate);
 
     LOGGER.debug("EXITING: Within filter");
 
@@ -305,8 +314,9 @@ public Object visit(Intersects filter, Object data) {
     com.vividsolutions.jts.geom.Geometry jtsGeometry =
         getJtsGeometery((LiteralExpressionImpl) filter.getExpression2());
 
-    Predicate predicate =
+    GeospatialPredicate predicate =
         new GeospatialPredicate(jtsGeometry, SpatialOperator.OVERLAPS.name(), 0.0);
+    geospatialPredicates.add(predicate);
     LOGGER.debug("EXITING: Intersects filter");
 
     return predicate;
@@ -0,0 +1,483 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub.internal;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log, on local disk, of the entries waiting to be delivered to one subscription.
+ *
+ * <p>Entries are numbered by offset in the order they are appended. The log remembers the offset of
+ * the first entry not yet delivered; entries are read from that offset until a delivery succeeds
+ * and {@link #commit(long)} moves past them, so every entry is delivered at least once, including
+ * after a restart. The log is split into segment files named after the offset of their first entry,
+ * and a segment is deleted once all its entries are delivered. When the log grows past its maximum
+ * size, the oldest segment is deleted even if it holds undelivered entries.
+ *
+ * <p>Each record holds the length and CRC32 of its payload, so that a record torn by a crash is
+ * detected and cut off when the log is opened again. Appends are synced to disk once per batch.
+ */
+public class SubscriptionOutbox {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionOutbox.class);
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final String OFFSET_FILE_NAME = "offset";
+
+  private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+  /** Entries appended by this instance are kept so they do not have to be deserialized again. */
+  private static final int MAXIMUM_RECENT_ENTRIES = 1000;
+
+  private final Path directory;
+
+  private final long segmentBytes;
+
+  private final long maximumBytes;
+
+  private final AtomicLong droppedEvents;
+
+  private final NavigableMap<Long, Path> segments = new TreeMap<>();
+
+  private final Map<Long, Entry> recentEntries = new HashMap<>();
+
+  private FileChannel writer;
+
+  private long totalBytes;
+
+  private long nextOffset;
+
+  private long committedOffset;
+
+  /** Where the last read stopped, so that the next read does not scan its segment again. */
+  private long readOffset = -1;
+
+  private long readSegment;
+
+  private long readPosition;
+
+  /**
+   * Opens the log in a directory, creating it if needed.
+   *
+   * @param directory the directory holding the log of the subscription
+   * @param segmentBytes the size at which a new segment is started
+   * @param maximumBytes the size past which the oldest segments are deleted
+   * @param droppedEvents incremented for each undelivered entry deleted from the log
+   * @throws IOException if the log cannot be opened
+   */
+  public SubscriptionOutbox(
+      Path directory, long segmentBytes, long maximumBytes, AtomicLong droppedEvents)
+      throws IOException {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maximumBytes = maximumBytes;
+    this.droppedEvents = droppedEvents;
+
+    Files.createDirectories(directory);
+    committedOffset = readCommittedOffset();
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          segments.put(
+              Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+        } catch (NumberFormatException e) {
+          LOGGER.debug("Ignoring unexpected file {} in subscription outbox", file);
+        }
+      }
+    }
+
+    if (segments.isEmpty()) {
+      nextOffset = committedOffset;
+    } else {
+      Map.Entry<Long, Path> last = segments.lastEntry();
+      nextOffset = last.getKey() + recover(last.getValue());
+      for (Path segment : segments.values()) {
+        totalBytes += Files.size(segment);
+      }
+      // Entries before the first segment were deleted, and entries past the end were lost
+      committedOffset = Math.min(Math.max(committedOffset, segments.firstKey()), nextOffset);
+    }
+
+    if (segments.isEmpty() || Files.size(segments.lastEntry().getValue()) >= segmentBytes) {
+      roll();
+    } else {
+      writer = openWriter(segments.lastEntry().getValue());
+    }
+    deleteDeliveredSegments();
+  }
+
+  /**
+   * Appends entries to the log and syncs them to disk.
+   *
+   * @param entries the entries to append
+   * @throws IOException if the entries could not be written
+   */
+  public synchronized void append(List<Entry> entries) throws IOException {
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    for (Entry entry : entries) {
+      byte[] payload = serialize(entry);
+      long size = writer.size();
+      if (size > 0 && size + RECORD_HEADER_BYTES + payload.length > segmentBytes) {
+        roll();
+      }
+
+      ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+      record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+      while (record.hasRemaining()) {
+        writer.write(record);
+      }
+      totalBytes += record.limit();
+
+      if (recentEntries.size() < MAXIMUM_RECENT_ENTRIES) {
+        recentEntries.put(nextOffset, entry);
+      }
+      nextOffset++;
+    }
+
+    writer.force(false);
+    deleteOldestSegments();
+  }
+
+  /**
+   * Reads the entries that have not been delivered yet, starting with the oldest.
+   *
+   * @param maximum the maximum number of entries to read
+   * @return the entries read, and the offset to {@link #commit(long)} once they are delivered
+   * @throws IOException if the log could not be read
+   */
+  public synchronized Batch read(int maximum) throws IOException {
+    long offset = committedOffset;
+    if (offset >= nextOffset) {
+      return new Batch(Collections.emptyList(), offset);
+    }
+
+    List<Entry> entries = new ArrayList<>();
+    Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+    long position =
+        (offset == readOffset && segment.getKey() == readSegment)
+            ? readPosition
+            : skip(segment, offset);
+    FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ);
+    try {
+      while (entries.size() < maximum && offset < nextOffset) {
+        if (position >= channel.size()) {
+          Map.Entry<Long, Path> nextSegment = segments.higherEntry(segment.getKey());
+          if (nextSegment == null) {
+            break;
+          }
+          segment = nextSegment;
+          channel.close();
+          channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ);
+          position = 0;
+          continue;
+        }
+
+        ByteBuffer header = readFully(channel, position, RECORD_HEADER_BYTES);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        Entry entry = recentEntries.get(offset);
+        if (entry == null) {
+          byte[] payload = readFully(channel, position + RECORD_HEADER_BYTES, length).array();
+          entry = deserialize(payload, checksum, offset);
+        }
+        if (entry != null) {
+          entries.add(entry);
+        }
+        position += RECORD_HEADER_BYTES + length;
+        offset++;
+      }
+    } finally {
+      channel.close();
+    }
+
+    readOffset = offset;
+    readSegment = segment.getKey();
+    readPosition = position;
+    return new Batch(entries, offset);
+  }
+
+  /**
+   * Records that the entries before an offset have been delivered.
+   *
+   * @param offset the offset returned by {@link #read(int)} for the delivered entries
+   * @throws IOException if the offset could not be saved
+   */
+  public synchronized void commit(long offset) throws IOException {
+    if (offset <= committedOffset) {
+      return;
+    }
+
+    for (long delivered = committedOffset; delivered < offset; delivered++) {
+      recentEntries.remove(delivered);
+    }
+    committedOffset = Math.min(offset, nextOffset);
+    writeCommittedOffset();
+    deleteDeliveredSegments();
+  }
+
+  /** @return the number of entries waiting to be delivered */
+  public synchronized long size() {
+    return nextOffset - committedOffset;
+  }
+
+  /** Closes the log; its files are kept so that delivery resumes when it is opened again. */
+  public synchronized void close() {
+    try {
+      writer.close();
+    } catch (IOException e) {
+      LOGGER.debug("Could not close subscription outbox {}", directory, e);
+    }
+  }
+
+  private long recover(Path segment) throws IOException {
+    long entries = 0;
+    try (FileChannel channel =
+        FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long size = channel.size();
+      long position = 0;
+      while (position + RECORD_HEADER_BYTES <= size) {
+        ByteBuffer header = readFully(channel, position, RECORD_HEADER_BYTES);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || position + RECORD_HEADER_BYTES + length > size) {
+          break;
+        }
+        byte[] payload = readFully(channel, position + RECORD_HEADER_BYTES, length).array();
+        if (checksum(payload) != checksum) {
+          break;
+        }
+        position += RECORD_HEADER_BYTES + length;
+        entries++;
+      }
+
+      if (position < size) {
+        LOGGER.info(
+            "Discarding {} bytes of incomplete entries at the end of subscription outbox {}",
+            size - position,
+            segment);
+        channel.truncate(position);
+        channel.force(true);
+      }
+    }
+    return entries;
+  }
+
+  private long skip(Map.Entry<Long, Path> segment, long offset) throws IOException {
+    long position = 0;
+    try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+      for (long skipped = segment.getKey(); skipped < offset; skipped++) {
+        position += RECORD_HEADER_BYTES + readFully(channel, position, Integer.BYTES).getInt();
+      }
+    }
+    return position;
+  }
+
+  private void roll() throws IOException {
+    if (writer != null) {
+      writer.force(false);
+      writer.close();
+    }
+    Path segment = directory.resolve(String.format("%020d%s", nextOffset, SEGMENT_SUFFIX));
+    segments.put(nextOffset, segment);
+    writer = openWriter(segment);
+  }
+
+  private void deleteOldestSegments() throws IOException {
+    while (totalBytes > maximumBytes && segments.size() > 1) {
+      Map.Entry<Long, Path> oldest = segments.pollFirstEntry();
+      long nextSegmentOffset = segments.firstKey();
+      if (committedOffset < nextSegmentOffset) {
+        long dropped = nextSegmentOffset - committedOffset;
+        droppedEvents.addAndGet(dropped);
+        LOGGER.info(
+            "Subscription outbox {} is full, dropped {} undelivered entries", directory, dropped);
+        for (long offset = committedOffset; offset < nextSegmentOffset; offset++) {
+          recentEntries.remove(offset);
+        }
+        committedOffset = nextSegmentOffset;
+        writeCommittedOffset();
+      }
+      deleteSegment(oldest.getValue());
+    }
+  }
+
+  private void deleteDeliveredSegments() throws IOException {
+    while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= committedOffset) {
+      deleteSegment(segments.pollFirstEntry().getValue());
+    }
+  }
+
+  private void deleteSegment(Path segment) throws IOException {
+    totalBytes -= Files.size(segment);
+    Files.delete(segment);
+    readOffset = -1;
+  }
+
+  private long readCommittedOffset() throws IOException {
+    Path offsetFile = directory.resolve(OFFSET_FILE_NAME);
+    if (!Files.exists(offsetFile)) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(
+          new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8).trim());
+    } catch (NumberFormatException e) {
+      LOGGER.info(
+          "Subscription outbox offset {} is not valid, redelivering all entries", offsetFile);
+      return 0;
+    }
+  }
+
+  private void writeCommittedOffset() throws IOException {
+    Path offsetFile = directory.resolve(OFFSET_FILE_NAME);
+    Path temporaryFile = directory.resolve(OFFSET_FILE_NAME + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temporaryFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.write(
+          ByteBuffer.wrap(Long.toString(committedOffset).getBytes(StandardCharsets.UTF_8)));
+      channel.force(false);
+    }
+    Files.move(
+        temporaryFile,
+        offsetFile,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static FileChannel openWriter(Path segment) throws IOException {
+    return FileChannel.open(
+        segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of subscription outbox segment");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+
+  private static byte[] serialize(Entry entry) throws IOException {
+    Metacard metacard = entry.getMetacard();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeUTF(entry.getOperation());
+      // Only our own implementation is known to be readable again by this bundle
+      output.writeObject(
+          metacard.getClass() == MetacardImpl.class ? metacard : new MetacardImpl(metacard));
+    }
+    return bytes.toByteArray();
+  }
+
+  private Entry deserialize(byte[] payload, int checksum, long offset) {
+    if (checksum(payload) == checksum) {
+      try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+        String operation = input.readUTF();
+        return new Entry(operation, (Metacard) input.readObject());
+      } catch (IOException | ClassNotFoundException e) {
+        LOGGER.debug("Could not read entry {} of subscription outbox {}", offset, directory, e);
+      }
+    }
+
+    LOGGER.info("Skipping unreadable entry {} of subscription outbox {}", offset, directory);
+    droppedEvents.incrementAndGet();
+    return null;
+  }
+
+  /** A catalog entry to deliver, along with the operation that was done on it. */
+  public static final class Entry {
+    private final String operation;
+
+    private final Metacard metacard;
+
+    public Entry(String operation, Metacard metacard) {
+      this.operation = operation;
+      this.metacard = metacard;
+    }
+
+    /** @return the operation, one of the operations in {@link PubSubConstants} */
+    public String getOperation() {
+      return operation;
+    }
+
+    public Metacard getMetacard() {
+      return metacard;
+    }
+  }
+
+  /** Entries read from the log. */
+  public static final class Batch {
+    private final List<Entry> entries;
+
+    private final long endOffset;
+
+    Batch(List<Entry> entries, long endOffset) {
+      this.entries = entries;
+      this.endOffset = endOffset;
+    }
+
+    public List<Entry> getEntries() {
+      return entries;
+    }
+
+    /** @return the offset following the last entry read */
+    public long getEndOffset() {
+      return endOffset;
+    }
+  }
+}
@@ -25,8 +25,9 @@
 import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.lucene.index.memory.MemoryIndex;
 import org.apache.lucene.queryParser.ParseException;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.Query;
 import org.osgi.service.event.Event;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,8 @@ public class ContextualPredicate implements Predicate {
 
   private Collection<String> textPaths;
 
+  private Query query;
+
   public ContextualPredicate(
       String searchPhrase,
       boolean fuzzy,
@@ -55,6 +58,24 @@ public ContextualPredicate(
       this.textPaths = new ArrayList<String>(textPaths);
     }
     this.searchPhrase = normalizePhrase(searchPhrase, fuzzy);
+    this.query = parseQuery(this.searchPhrase, caseSensitiveSearch);
+  }
+
+  /**
+   * Parses the search phrase once, so that it is not parsed again for every entry evaluated. If the
+   * phrase cannot be parsed, it is left to the evaluation to report the error.
+   */
+  private static Query parseQuery(String searchPhrase, boolean caseSensitiveSearch) {
+    if (searchPhrase.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return ContextualEvaluator.parseQuery(searchPhrase, caseSensitiveSearch);
+    } catch (ParseException e) {
+      LOGGER.debug("Unable to parse search phrase [{}]", searchPhrase, e);
+      return null;
+    }
   }
 
   public static boolean isContextual(String searchPhrase) {
@@ -263,9 +284,10 @@ public boolean matches(Event properties) {
       cec =
           new ContextualEvaluationCriteriaImpl(
               searchPhrase,
+              query,
               fuzzy,
               caseSensitiveSearch,
-              (Directory) contextualMap.get("DEFAULT_INDEX"));
+              (MemoryIndex) contextualMap.get("DEFAULT_INDEX"));
     }
 
     try {
@@ -14,13 +14,16 @@
 package ddf.catalog.pubsub.predicate;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 import com.vividsolutions.jts.io.ParseException;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteria;
 import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteriaImpl;
 import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluator;
+import ddf.catalog.pubsub.internal.GeospatialIndex;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.geotools.geometry.jts.WKTReader2;
 import org.osgi.service.event.Event;
@@ -32,6 +35,8 @@ public class GeospatialPredicate implements Predicate {
 
   private Geometry geoCriteria;
 
+  private List<PreparedGeometry> preparedGeoCriteria;
+
   private String geoOperation;
 
   private double distance;
@@ -52,6 +57,7 @@ public GeospatialPredicate(String wkt, String geoOperation, double distance) {
     } catch (Exception e) {
       LOGGER.debug("Exception reading WKT", e);
     }
+    this.preparedGeoCriteria = GeospatialEvaluator.prepare(geoCriteria);
   }
 
   public GeospatialPredicate(Geometry geo, String geoOperation, double distance) {
@@ -59,6 +65,7 @@ public GeospatialPredicate(Geometry geo, String geoOperation, double distance) {
     this.distance = distance;
 
     this.geoCriteria = geo;
+    this.preparedGeoCriteria = GeospatialEvaluator.prepare(geo);
   }
 
   public static boolean isGeospatial(Map geoCriteria, String geoOperation) {
@@ -100,12 +107,27 @@ public boolean matches(Event properties) {
       }
     }
 
+    GeospatialIndex.Candidates candidates =
+        (GeospatialIndex.Candidates)
+            properties.getProperty(PubSubConstants.HEADER_GEOSPATIAL_CANDIDATES_KEY);
+    if (candidates != null && !candidates.mayMatch(this)) {
+      LOGGER.debug("Entry location is outside of the envelope of the geospatial criteria");
+      return false;
+    }
+
+    // The entry's location is parsed once per event when it is published
+    Geometry input = (Geometry) properties.getProperty(PubSubConstants.HEADER_GEOSPATIAL_KEY);
+
     GeospatialEvaluationCriteria gec;
     try {
-      gec =
-          new GeospatialEvaluationCriteriaImpl(
-              geoCriteria, geoOperation, entry.getLocation(), distance);
-      return GeospatialEvaluator.evaluate(gec);
+      if (input != null) {
+        gec = new GeospatialEvaluationCriteriaImpl(geoCriteria, geoOperation, input, distance);
+      } else {
+        gec =
+            new GeospatialEvaluationCriteriaImpl(
+                geoCriteria, geoOperation, entry.getLocation(), distance);
+      }
+      return GeospatialEvaluator.evaluate(gec, preparedGeoCriteria);
     } catch (ParseException e) {
       LOGGER.debug("Error parsing WKT string.  Unable to compare geos.  Returning false.");
       return false;
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import ddf.catalog.pubsub.internal.DeliveryExecutor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeliveryExecutorTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private DeliveryExecutor deliveryExecutor;
+
+  @Before
+  public void setUp() {
+    deliveryExecutor = new DeliveryExecutor(null);
+  }
+
+  @After
+  public void tearDown() {
+    deliveryExecutor.destroy();
+  }
+
+  @Test
+  public void testFullEntryQueueBlocksTheCallerUntilThereIsRoom() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    AtomicInteger processed = new AtomicInteger();
+    Runnable entryProcessing =
+        () -> {
+          threads.add(Thread.currentThread());
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          processed.incrementAndGet();
+        };
+
+    // Fill the entry threads and the entry queue
+    int handedOver = 0;
+    while (deliveryExecutor.getPendingEntries() < 1000) {
+      deliveryExecutor.execute(entryProcessing);
+      handedOver++;
+    }
+
+    Thread caller = new Thread(() -> deliveryExecutor.execute(entryProcessing));
+    caller.start();
+    caller.join(500);
+
+    assertThat(caller.isAlive(), is(true));
+    assertThat(deliveryExecutor.getBlockedEntries(), is(1L));
+    release.countDown();
+    caller.join(10000);
+    assertThat(caller.isAlive(), is(false));
+    long deadline = System.currentTimeMillis() + 10000;
+    while (processed.get() < handedOver + 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(processed.get(), is(handedOver + 1));
+    assertThat(threads.contains(caller), is(false));
+  }
+
+  @Test
+  public void testOutboxIsDeletedWithTheSubscription() throws Exception {
+    Path outboxDirectory = temporaryFolder.newFolder().toPath();
+    DeliveryExecutor durableExecutor = new DeliveryExecutor(outboxDirectory);
+    try {
+      durableExecutor.register("kept", UnaryOperator.identity(), events -> true);
+      durableExecutor.register("deleted", UnaryOperator.identity(), events -> true);
+
+      durableExecutor.unregister("kept", false);
+      durableExecutor.unregister("deleted", true);
+
+      assertThat(outboxCount(outboxDirectory), is(1L));
+    } finally {
+      durableExecutor.destroy();
+    }
+  }
+
+  private static long outboxCount(Path directory) throws IOException {
+    try (Stream<Path> outboxes = Files.list(directory)) {
+      return outboxes.count();
+    }
+  }
+}
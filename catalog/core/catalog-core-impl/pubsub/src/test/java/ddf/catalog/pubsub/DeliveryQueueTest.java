@@ -0,0 +1,334 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.internal.DeliveryQueue;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.internal.SubscriptionOutbox;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.service.event.Event;
+
+public class DeliveryQueueTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ScheduledExecutorService executor;
+
+  private AtomicLong droppedEvents;
+
+  private List<List<Event>> deliveries;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newScheduledThreadPool(2);
+    droppedEvents = new AtomicLong();
+    deliveries = new CopyOnWriteArrayList<>();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testEventsAreDeliveredInOrderInBatches() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DeliveryQueue queue =
+        queue(
+            10,
+            3,
+            events -> {
+              blocked.countDown();
+              await(release);
+              return deliveries.add(events);
+            });
+
+    List<Event> events = events(7);
+    queue.offer(events.get(0));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    for (Event event : events.subList(1, events.size())) {
+      queue.offer(event);
+    }
+    release.countDown();
+
+    awaitDelivered(7);
+    assertThat(deliveries.size(), is(3));
+    assertThat(deliveries.get(0).size(), is(1));
+    assertThat(deliveries.get(1).size(), is(3));
+    assertThat(delivered(), is(events));
+  }
+
+  @Test
+  public void testOldestEventsAreDroppedWhenQueueIsFull() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DeliveryQueue queue =
+        queue(
+            2,
+            10,
+            events -> {
+              blocked.countDown();
+              await(release);
+              return deliveries.add(events);
+            });
+
+    List<Event> events = events(5);
+    queue.offer(events.get(0));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    for (Event event : events.subList(1, events.size())) {
+      queue.offer(event);
+    }
+    assertThat(queue.size(), is(2));
+    release.countDown();
+
+    awaitDelivered(3);
+    assertThat(delivered(), is(Arrays.asList(events.get(0), events.get(3), events.get(4))));
+    assertThat(droppedEvents.get(), is(2L));
+  }
+
+  @Test
+  public void testDeliveryBacksOffAfterFailure() throws Exception {
+    AtomicLong failedAt = new AtomicLong();
+    AtomicLong deliveredAt = new AtomicLong();
+    DeliveryQueue queue =
+        queue(
+            10,
+            10,
+            events -> {
+              if (failedAt.get() == 0) {
+                failedAt.set(System.currentTimeMillis());
+                throw new IllegalStateException("subscriber unavailable");
+              }
+              deliveredAt.set(System.currentTimeMillis());
+              return deliveries.add(events);
+            });
+
+    List<Event> events = events(2);
+    queue.offer(events.get(0));
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (failedAt.get() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    queue.offer(events.get(1));
+
+    awaitDelivered(1);
+    assertThat(delivered(), is(Collections.singletonList(events.get(1))));
+    assertTrue(deliveredAt.get() - failedAt.get() >= 100);
+    assertThat(queue.isBackingOff(), is(false));
+  }
+
+  @Test
+  public void testClosedQueueDiscardsEvents() throws Exception {
+    DeliveryQueue queue = queue(10, 10, deliveries::add);
+    queue.close();
+
+    queue.offer(events(1).get(0));
+
+    assertThat(queue.size(), is(0));
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertThat(deliveries.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testStoredEventsAreDeliveredAgainAfterFailure() throws Exception {
+    AtomicLong attempts = new AtomicLong();
+    DeliveryQueue queue =
+        durableQueue(
+            temporaryFolder.newFolder().toPath(),
+            events -> attempts.incrementAndGet() > 1 && deliveries.add(events));
+
+    queue.offer(entryEvent("1"));
+
+    awaitDelivered(1);
+    assertThat(attempts.get(), is(2L));
+    assertThat(ids(delivered()), is(Collections.singletonList("1")));
+    awaitStored(queue, 0);
+  }
+
+  @Test
+  public void testStoredEventsAreDeliveredWhenSubscriptionIsCreatedAgain() throws Exception {
+    Path outbox = temporaryFolder.newFolder().toPath();
+    DeliveryQueue unavailable = durableQueue(outbox, events -> false);
+    unavailable.offer(entryEvent("1"));
+    unavailable.offer(entryEvent("2"));
+    awaitStored(unavailable, 2);
+    unavailable.close();
+
+    durableQueue(outbox, deliveries::add);
+
+    awaitDelivered(2);
+    assertThat(ids(delivered()), is(Arrays.asList("1", "2")));
+  }
+
+  @Test
+  public void testEventsAreStoredWhileDeliveryIsInProgress() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DeliveryQueue queue =
+        durableQueue(
+            temporaryFolder.newFolder().toPath(),
+            events -> {
+              blocked.countDown();
+              await(release);
+              return deliveries.add(events);
+            });
+
+    queue.offer(entryEvent("first"));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    List<String> expected = new ArrayList<>();
+    expected.add("first");
+    for (int i = 0; i < 25; i++) {
+      queue.offer(entryEvent(String.valueOf(i)));
+      expected.add(String.valueOf(i));
+    }
+
+    awaitStored(queue, 26);
+    assertThat(queue.size(), is(0));
+    release.countDown();
+    awaitDelivered(26);
+    assertThat(ids(delivered()), is(expected));
+    assertThat(droppedEvents.get(), is(0L));
+  }
+
+  @Test
+  public void testCloseWaitsForDeliveryInProgress() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DeliveryQueue queue =
+        durableQueue(
+            temporaryFolder.newFolder().toPath(),
+            events -> {
+              blocked.countDown();
+              await(release);
+              return deliveries.add(events);
+            });
+
+    queue.offer(entryEvent("1"));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+    CountDownLatch closed = new CountDownLatch(1);
+    new Thread(
+            () -> {
+              queue.close();
+              closed.countDown();
+            })
+        .start();
+    assertFalse(closed.await(200, TimeUnit.MILLISECONDS));
+
+    release.countDown();
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertThat(ids(delivered()), is(Collections.singletonList("1")));
+  }
+
+  private DeliveryQueue durableQueue(Path outbox, DeliveryQueue.Deliverer deliverer)
+      throws IOException {
+    return new DeliveryQueue(
+        "subscription",
+        executor,
+        10,
+        10,
+        UnaryOperator.identity(),
+        deliverer,
+        droppedEvents,
+        new SubscriptionOutbox(outbox, 1024 * 1024, 1024 * 1024, droppedEvents));
+  }
+
+  private Event entryEvent(String id) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(id);
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+    return new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties);
+  }
+
+  private List<String> ids(List<Event> events) {
+    return events
+        .stream()
+        .map(event -> ((Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY)).getId())
+        .collect(Collectors.toList());
+  }
+
+  private void awaitStored(DeliveryQueue queue, long count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (queue.storedSize() != count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(queue.storedSize(), is(count));
+  }
+
+  private DeliveryQueue queue(int capacity, int batchSize, DeliveryQueue.Deliverer deliverer) {
+    return new DeliveryQueue(
+        "subscription", executor, capacity, batchSize, deliverer, droppedEvents);
+  }
+
+  private List<Event> events(int count) {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      events.add(new Event("ddf/catalog/event/" + i, Collections.emptyMap()));
+    }
+    return events;
+  }
+
+  private List<Event> delivered() {
+    List<Event> delivered = new ArrayList<>();
+    deliveries.forEach(delivered::addAll);
+    return delivered;
+  }
+
+  private void awaitDelivered(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (delivered().size() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(delivered().size(), is(count));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
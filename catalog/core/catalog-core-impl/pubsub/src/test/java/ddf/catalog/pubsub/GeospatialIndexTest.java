@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKTReader;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
+import ddf.catalog.pubsub.internal.GeospatialIndex;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.predicate.GeospatialPredicate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class GeospatialIndexTest {
+
+  private final WKTReader reader = new WKTReader();
+
+  private GeospatialIndex index;
+
+  private GeospatialPredicate overlapsSquare;
+
+  private GeospatialPredicate nearPoint;
+
+  @Before
+  public void setUp() throws Exception {
+    index = new GeospatialIndex();
+    overlapsSquare =
+        new GeospatialPredicate(
+            reader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"),
+            SpatialOperator.OVERLAPS.name(),
+            0.0);
+    nearPoint = new GeospatialPredicate(reader.read("POINT (50 50)"), null, 2.0);
+
+    index.add("square", Collections.singletonList(overlapsSquare));
+    index.add("point", Collections.singletonList(nearPoint));
+  }
+
+  @Test
+  public void testLookupFindsPredicatesWhoseEnvelopeIntersects() throws Exception {
+    GeospatialIndex.Candidates candidates = index.lookup(reader.read("POINT (5 5)"));
+
+    assertThat(candidates.mayMatch(overlapsSquare), is(true));
+    assertThat(candidates.mayMatch(nearPoint), is(false));
+  }
+
+  @Test
+  public void testLookupExpandsEnvelopeByDistance() throws Exception {
+    GeospatialIndex.Candidates candidates = index.lookup(reader.read("POINT (51.5 51.5)"));
+
+    assertThat(candidates.mayMatch(overlapsSquare), is(false));
+    assertThat(candidates.mayMatch(nearPoint), is(true));
+  }
+
+  @Test
+  public void testPredicatesNotIndexedMayMatch() throws Exception {
+    GeospatialPredicate other =
+        new GeospatialPredicate(
+            reader.read("POLYGON ((100 0, 110 0, 110 10, 100 10, 100 0))"),
+            SpatialOperator.OVERLAPS.name(),
+            0.0);
+
+    assertThat(index.lookup(reader.read("POINT (5 5)")).mayMatch(other), is(true));
+  }
+
+  @Test
+  public void testRemovedSubscriptionIsNotIndexed() throws Exception {
+    index.remove("square");
+    index.remove("point");
+
+    assertThat(index.lookup(reader.read("POINT (5 5)")), is(nullValue()));
+  }
+
+  @Test
+  public void testPredicateSkipsEntriesOutsideOfItsEnvelope() throws Exception {
+    Geometry location = reader.read("POINT (5 5)");
+
+    assertThat(overlapsSquare.matches(event(location, null)), is(true));
+    assertThat(overlapsSquare.matches(event(location, index.lookup(location))), is(true));
+    assertThat(nearPoint.matches(event(location, index.lookup(location))), is(false));
+  }
+
+  private Event event(Geometry location, GeospatialIndex.Candidates candidates) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setLocation(location.toText());
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+    properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+    properties.put(PubSubConstants.HEADER_GEOSPATIAL_KEY, location);
+    if (candidates != null) {
+      properties.put(PubSubConstants.HEADER_GEOSPATIAL_CANDIDATES_KEY, candidates);
+    }
+    return new Event(PubSubConstants.PUBLISHED_EVENT_TOPIC_NAME, properties);
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import ddf.catalog.pubsub.internal.SubscriptionOutbox;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SubscriptionOutboxTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+
+  private AtomicLong droppedEvents;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = temporaryFolder.newFolder("outbox").toPath();
+    droppedEvents = new AtomicLong();
+  }
+
+  @Test
+  public void testEntriesAreReadUntilCommitted() throws Exception {
+    SubscriptionOutbox outbox = outbox(1024 * 1024, 1024 * 1024);
+    outbox.append(entries(0, 5));
+
+    SubscriptionOutbox.Batch first = outbox.read(3);
+    assertThat(ids(first), is(ids(0, 3)));
+    assertThat(outbox.read(3).getEntries().size(), is(3));
+
+    outbox.commit(first.getEndOffset());
+    SubscriptionOutbox.Batch second = outbox.read(10);
+    assertThat(ids(second), is(ids(3, 5)));
+    assertThat(second.getEntries().get(0).getOperation(), is(PubSubConstants.CREATE));
+
+    outbox.commit(second.getEndOffset());
+    assertThat(outbox.size(), is(0L));
+    assertThat(outbox.read(10).getEntries().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testReopenedOutboxResumesAfterCommittedEntries() throws Exception {
+    SubscriptionOutbox outbox = outbox(1024 * 1024, 1024 * 1024);
+    outbox.append(entries(0, 4));
+    outbox.commit(outbox.read(1).getEndOffset());
+    outbox.close();
+
+    SubscriptionOutbox reopened = outbox(1024 * 1024, 1024 * 1024);
+    assertThat(reopened.size(), is(3L));
+    assertThat(ids(reopened.read(10)), is(ids(1, 4)));
+
+    reopened.append(entries(4, 5));
+    assertThat(ids(reopened.read(10)), is(ids(1, 5)));
+  }
+
+  @Test
+  public void testIncompleteEntryIsDiscardedWhenReopened() throws Exception {
+    SubscriptionOutbox outbox = outbox(1024 * 1024, 1024 * 1024);
+    outbox.append(entries(0, 2));
+    outbox.close();
+
+    Path segment = segments().get(0);
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.setLength(file.length() - 10);
+    }
+
+    SubscriptionOutbox reopened = outbox(1024 * 1024, 1024 * 1024);
+    assertThat(reopened.size(), is(1L));
+    reopened.append(entries(2, 3));
+    assertThat(ids(reopened.read(10)), is(ids(Arrays.asList(0, 2))));
+  }
+
+  @Test
+  public void testSegmentsAreDeletedOnceDelivered() throws Exception {
+    SubscriptionOutbox outbox = outbox(2048, 1024 * 1024);
+    for (int i = 0; i < 20; i++) {
+      outbox.append(entries(i, i + 1));
+    }
+    int segments = segments().size();
+    assertThat(segments > 2, is(true));
+
+    SubscriptionOutbox.Batch batch = outbox.read(20);
+    assertThat(ids(batch), is(ids(0, 20)));
+    outbox.commit(batch.getEndOffset());
+
+    assertThat(segments().size(), is(1));
+    assertThat(droppedEvents.get(), is(0L));
+  }
+
+  @Test
+  public void testOldestEntriesAreDroppedPastMaximumSize() throws Exception {
+    SubscriptionOutbox outbox = outbox(2048, 8192);
+    for (int i = 0; i < 40; i++) {
+      outbox.append(entries(i, i + 1));
+    }
+
+    long size = outbox.size();
+    assertThat(size < 40, is(true));
+    assertThat(droppedEvents.get(), is(40 - size));
+    assertThat(ids(outbox.read(40)), is(ids((int) (40 - size), 40)));
+  }
+
+  private SubscriptionOutbox outbox(long segmentBytes, long maximumBytes) throws IOException {
+    return new SubscriptionOutbox(directory, segmentBytes, maximumBytes, droppedEvents);
+  }
+
+  private List<Path> segments() throws IOException {
+    List<Path> segments = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.log")) {
+      files.forEach(segments::add);
+    }
+    return segments;
+  }
+
+  private static List<SubscriptionOutbox.Entry> entries(int from, int to) {
+    List<SubscriptionOutbox.Entry> entries = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      MetacardImpl metacard = new MetacardImpl();
+      metacard.setId(Integer.toString(i));
+      metacard.setTitle("Entry " + i);
+      entries.add(new SubscriptionOutbox.Entry(PubSubConstants.CREATE, metacard));
+    }
+    return entries;
+  }
+
+  private static List<String> ids(SubscriptionOutbox.Batch batch) {
+    return batch
+        .getEntries()
+        .stream()
+        .map(entry -> entry.getMetacard().getId())
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> ids(int from, int to) {
+    List<String> ids = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      ids.add(Integer.toString(i));
+    }
+    return ids;
+  }
+
+  private static List<String> ids(List<Integer> numbers) {
+    return numbers.stream().map(Object::toString).collect(Collectors.toList());
+  }
+}
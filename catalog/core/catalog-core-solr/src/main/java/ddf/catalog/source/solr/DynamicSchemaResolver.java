@@ -56,6 +56,7 @@
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -161,9 +162,9 @@ public class DynamicSchemaResolver {
     }
   }
 
-  protected Set<String> fieldsCache = new HashSet<>();
+  protected Set<String> fieldsCache = ConcurrentHashMap.newKeySet();
 
-  protected Set<String> anyTextFieldsCache = new HashSet<>();
+  protected Set<String> anyTextFieldsCache = ConcurrentHashMap.newKeySet();
 
   protected SchemaFields schemaFields;
 
@@ -173,6 +174,23 @@ public class DynamicSchemaResolver {
   protected Cache<String, byte[]> metacardTypeNameToSerialCache =
       CacheBuilder.newBuilder().maximumSize(4096).initialCapacity(64).build();
 
+  /**
+   * Attribute names and formats by Solr field name. Every field of every result document is
+   * resolved, and the schema only has a bounded number of distinct fields.
+   */
+  private final Cache<String, String> attributeNamesCache =
+      CacheBuilder.newBuilder().maximumSize(16384).initialCapacity(256).build();
+
+  private final Cache<String, AttributeFormat> fieldFormatsCache =
+      CacheBuilder.newBuilder().maximumSize(16384).initialCapacity(256).build();
+
+  /**
+   * Field names by property name, format and exactness. The {@link #fieldsCache} only grows, so
+   * each entry remembers its size when the name was resolved and is resolved again once it grows.
+   */
+  private final Cache<String, ResolvedField> resolvedFieldsCache =
+      CacheBuilder.newBuilder().maximumSize(16384).initialCapacity(256).build();
+
   private Processor processor = new Processor(new Config());
 
   public DynamicSchemaResolver(
@@ -490,7 +508,17 @@ private TinyBinary newTinyBinary(TinyTree tinyTree) {
    * @return the {@link AttributeFormat} associated with the Solr field
    */
   public AttributeFormat getType(String solrFieldName) {
+    AttributeFormat format = fieldFormatsCache.getIfPresent(solrFieldName);
+    if (format == null) {
+      format = getTypeFromSuffix(solrFieldName);
+      if (format != null) {
+        fieldFormatsCache.put(solrFieldName, format);
+      }
+    }
+    return format;
+  }
 
+  private AttributeFormat getTypeFromSuffix(String solrFieldName) {
     String suffix = "";
     int lastIndexOfUndercore = solrFieldName.lastIndexOf(FIRST_CHAR_OF_SUFFIX);
 
@@ -558,12 +586,16 @@ public Serializable getDocValue(String solrFieldName, Object docValue) {
    * @return the original field name
    */
   public String resolveFieldName(String solrFieldName) {
-    int lastIndexOfUndercore = solrFieldName.lastIndexOf(FIRST_CHAR_OF_SUFFIX);
-
-    if (lastIndexOfUndercore != -1) {
-      return solrFieldName.substring(0, lastIndexOfUndercore);
-    }
-    return solrFieldName;
+    String attributeName = attributeNamesCache.getIfPresent(solrFieldName);
+    if (attributeName == null) {
+      int lastIndexOfUndercore = solrFieldName.lastIndexOf(FIRST_CHAR_OF_SUFFIX);
+      attributeName =
+          lastIndexOfUndercore != -1
+              ? solrFieldName.substring(0, lastIndexOfUndercore)
+              : solrFieldName;
+      attributeNamesCache.put(solrFieldName, attributeName);
+    }
+    return attributeName;
   }
 
   public boolean isPrivateField(String solrFieldName) {
@@ -609,6 +641,20 @@ public String getField(
       return Metacard.GEOGRAPHY + "_geo_index";
     }
 
+    String key = propertyName + '|' + format + '|' + isSearchedAsExactValue;
+    int fieldCount = fieldsCache.size();
+    ResolvedField resolved = resolvedFieldsCache.getIfPresent(key);
+    if (resolved != null && resolved.fieldCount == fieldCount) {
+      return resolved.fieldName;
+    }
+
+    String fieldName = resolveField(propertyName, format, isSearchedAsExactValue);
+    resolvedFieldsCache.put(key, new ResolvedField(fieldCount, fieldName));
+    return fieldName;
+  }
+
+  private String resolveField(
+      String propertyName, AttributeFormat format, boolean isSearchedAsExactValue) {
     String fieldName =
         propertyName
             + schemaFields.getFieldSuffix(format)
@@ -876,4 +922,15 @@ static Integer getMetadataSizeLimit() {
     }
     return FIVE_MEGABYTES;
   }
+
+  private static class ResolvedField {
+    private final int fieldCount;
+
+    private final String fieldName;
+
+    private ResolvedField(int fieldCount, String fieldName) {
+      this.fieldCount = fieldCount;
+      this.fieldName = fieldName;
+    }
+  }
 }
@@ -0,0 +1,528 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import com.vividsolutions.jts.geom.Geometry;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.ExcludeFilter;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNil;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.ExpressionVisitor;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.Multiply;
+import org.opengis.filter.expression.NilExpression;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.expression.Subtract;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Beyond;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Disjoint;
+import org.opengis.filter.spatial.DistanceBufferOperator;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
+import org.opengis.filter.temporal.After;
+import org.opengis.filter.temporal.AnyInteracts;
+import org.opengis.filter.temporal.Before;
+import org.opengis.filter.temporal.Begins;
+import org.opengis.filter.temporal.BegunBy;
+import org.opengis.filter.temporal.BinaryTemporalOperator;
+import org.opengis.filter.temporal.During;
+import org.opengis.filter.temporal.EndedBy;
+import org.opengis.filter.temporal.Ends;
+import org.opengis.filter.temporal.Meets;
+import org.opengis.filter.temporal.MetBy;
+import org.opengis.filter.temporal.OverlappedBy;
+import org.opengis.filter.temporal.TContains;
+import org.opengis.filter.temporal.TEquals;
+import org.opengis.filter.temporal.TOverlaps;
+import org.opengis.temporal.Instant;
+import org.opengis.temporal.Period;
+
+/**
+ * Builds a canonical string from a {@link Filter} tree, such that two filters with the same
+ * fingerprint are translated to the same Solr query.
+ *
+ * <p>Unlike {@link Filter#toString()}, the fingerprint keeps the full precision of dates and the
+ * type of every literal. Filters whose translation depends on more than their content, such as
+ * relative temporal filters that are resolved against the current time, or that hold literals of
+ * unknown types have no fingerprint.
+ */
+class FilterFingerprint implements FilterVisitor, ExpressionVisitor {
+
+  private static final FilterFingerprint INSTANCE = new FilterFingerprint();
+
+  private static final String RELATIVE_TEMPORAL_PREFIX = "RELATIVE(";
+
+  private FilterFingerprint() {}
+
+  /**
+   * @param filter filter to fingerprint
+   * @return the fingerprint of the filter, or {@code null} if its translation must not be reused
+   */
+  static String of(Filter filter) {
+    if (filter == null) {
+      return null;
+    }
+
+    StringBuilder fingerprint = new StringBuilder(128);
+    try {
+      filter.accept(INSTANCE, fingerprint);
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
+    return fingerprint.toString();
+  }
+
+  private static StringBuilder append(Object extraData, String operator) {
+    return ((StringBuilder) extraData).append(operator).append('(');
+  }
+
+  private static Object close(Object extraData) {
+    ((StringBuilder) extraData).append(')');
+    return extraData;
+  }
+
+  private Object expressions(String operator, Object extraData, Expression... expressions) {
+    StringBuilder fingerprint = append(extraData, operator);
+    for (Expression expression : expressions) {
+      if (expression == null) {
+        fingerprint.append("null");
+      } else {
+        expression.accept(this, fingerprint);
+      }
+      fingerprint.append(',');
+    }
+    return close(fingerprint);
+  }
+
+  private Object logic(String operator, BinaryLogicOperator filter, Object extraData) {
+    StringBuilder fingerprint = append(extraData, operator);
+    List<Filter> children = filter.getChildren();
+    if (children != null) {
+      for (Filter child : children) {
+        child.accept(this, fingerprint);
+        fingerprint.append(',');
+      }
+    }
+    return close(fingerprint);
+  }
+
+  private Object comparison(String operator, BinaryComparisonOperator filter, Object extraData) {
+    return expressions(
+        operator + ':' + filter.isMatchingCase() + ':' + filter.getMatchAction(),
+        extraData,
+        filter.getExpression1(),
+        filter.getExpression2());
+  }
+
+  private Object spatial(String operator, BinarySpatialOperator filter, Object extraData) {
+    return expressions(operator, extraData, filter.getExpression1(), filter.getExpression2());
+  }
+
+  private Object distance(String operator, DistanceBufferOperator filter, Object extraData) {
+    return spatial(
+        operator + ':' + filter.getDistance() + ':' + filter.getDistanceUnits(), filter, extraData);
+  }
+
+  private Object temporal(String operator, BinaryTemporalOperator filter, Object extraData) {
+    return expressions(operator, extraData, filter.getExpression1(), filter.getExpression2());
+  }
+
+  private Object arithmetic(String operator, BinaryExpression expression, Object extraData) {
+    return expressions(
+        operator, extraData, expression.getExpression1(), expression.getExpression2());
+  }
+
+  private static void appendString(StringBuilder fingerprint, String type, String value) {
+    fingerprint.append(type).append(value.length()).append(':').append(value);
+  }
+
+  private static void appendValue(StringBuilder fingerprint, Object value) {
+    if (value == null) {
+      fingerprint.append("null");
+    } else if (value instanceof String) {
+      if (((String) value).startsWith(RELATIVE_TEMPORAL_PREFIX)) {
+        throw new UnsupportedOperationException("Relative temporal literals depend on the time.");
+      }
+      appendString(fingerprint, "s", (String) value);
+    } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+      appendString(fingerprint, value.getClass().getSimpleName(), value.toString());
+    } else if (value instanceof Date) {
+      fingerprint.append("date:").append(((Date) value).getTime());
+    } else if (value instanceof Geometry) {
+      appendString(fingerprint, "wkt", ((Geometry) value).toText());
+    } else if (value instanceof Instant) {
+      appendInstant(fingerprint, (Instant) value);
+    } else if (value instanceof Period) {
+      fingerprint.append("period:");
+      appendInstant(fingerprint, ((Period) value).getBeginning());
+      fingerprint.append('/');
+      appendInstant(fingerprint, ((Period) value).getEnding());
+    } else {
+      throw new UnsupportedOperationException(
+          "Literals of type " + value.getClass().getName() + " have no fingerprint.");
+    }
+  }
+
+  private static void appendInstant(StringBuilder fingerprint, Instant instant) {
+    if (instant == null
+        || instant.getPosition() == null
+        || instant.getPosition().getDate() == null) {
+      throw new UnsupportedOperationException("Instants without a date have no fingerprint.");
+    }
+    fingerprint.append("instant:").append(instant.getPosition().getDate().getTime());
+  }
+
+  @Override
+  public Object visit(NilExpression expression, Object extraData) {
+    ((StringBuilder) extraData).append("nil");
+    return extraData;
+  }
+
+  @Override
+  public Object visit(Add expression, Object extraData) {
+    return arithmetic(Add.NAME, expression, extraData);
+  }
+
+  @Override
+  public Object visit(Divide expression, Object extraData) {
+    return arithmetic(Divide.NAME, expression, extraData);
+  }
+
+  @Override
+  public Object visit(Function expression, Object extraData) {
+    List<Expression> parameters = expression.getParameters();
+    return expressions(
+        "function:" + expression.getName(),
+        extraData,
+        parameters == null ? new Expression[0] : parameters.toArray(new Expression[0]));
+  }
+
+  @Override
+  public Object visit(Literal expression, Object extraData) {
+    appendValue((StringBuilder) extraData, expression.getValue());
+    return extraData;
+  }
+
+  @Override
+  public Object visit(Multiply expression, Object extraData) {
+    return arithmetic(Multiply.NAME, expression, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyName expression, Object extraData) {
+    String propertyName = expression.getPropertyName();
+    if (propertyName == null) {
+      ((StringBuilder) extraData).append("property:null");
+    } else {
+      appendString((StringBuilder) extraData, "property", propertyName);
+    }
+    return extraData;
+  }
+
+  @Override
+  public Object visit(Subtract expression, Object extraData) {
+    return arithmetic(Subtract.NAME, expression, extraData);
+  }
+
+  @Override
+  public Object visitNullFilter(Object extraData) {
+    ((StringBuilder) extraData).append("null");
+    return extraData;
+  }
+
+  @Override
+  public Object visit(ExcludeFilter filter, Object extraData) {
+    ((StringBuilder) extraData).append("exclude");
+    return extraData;
+  }
+
+  @Override
+  public Object visit(IncludeFilter filter, Object extraData) {
+    ((StringBuilder) extraData).append("include");
+    return extraData;
+  }
+
+  @Override
+  public Object visit(Id filter, Object extraData) {
+    StringBuilder fingerprint = append(extraData, "id");
+    TreeSet<String> ids = new TreeSet<>();
+    for (Object id : filter.getIDs()) {
+      ids.add(String.valueOf(id));
+    }
+    for (String id : ids) {
+      appendString(fingerprint, "", id);
+      fingerprint.append(',');
+    }
+    return close(fingerprint);
+  }
+
+  @Override
+  public Object visit(And filter, Object extraData) {
+    return logic(And.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Not filter, Object extraData) {
+    StringBuilder fingerprint = append(extraData, Not.NAME);
+    if (filter.getFilter() == null) {
+      visitNullFilter(fingerprint);
+    } else {
+      filter.getFilter().accept(this, fingerprint);
+    }
+    return close(fingerprint);
+  }
+
+  @Override
+  public Object visit(Or filter, Object extraData) {
+    return logic(Or.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsBetween filter, Object extraData) {
+    return expressions(
+        PropertyIsBetween.NAME,
+        extraData,
+        filter.getExpression(),
+        filter.getLowerBoundary(),
+        filter.getUpperBoundary());
+  }
+
+  @Override
+  public Object visit(PropertyIsEqualTo filter, Object extraData) {
+    return comparison(PropertyIsEqualTo.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsNotEqualTo filter, Object extraData) {
+    return comparison(PropertyIsNotEqualTo.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsGreaterThan filter, Object extraData) {
+    return comparison(PropertyIsGreaterThan.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsGreaterThanOrEqualTo filter, Object extraData) {
+    return comparison(PropertyIsGreaterThanOrEqualTo.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsLessThan filter, Object extraData) {
+    return comparison(PropertyIsLessThan.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsLessThanOrEqualTo filter, Object extraData) {
+    return comparison(PropertyIsLessThanOrEqualTo.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(PropertyIsLike filter, Object extraData) {
+    StringBuilder fingerprint =
+        append(
+            extraData,
+            PropertyIsLike.NAME
+                + ':'
+                + filter.getWildCard()
+                + filter.getSingleChar()
+                + filter.getEscape()
+                + ':'
+                + filter.isMatchingCase()
+                + ':'
+                + filter.getMatchAction());
+    if (filter.getExpression() == null) {
+      fingerprint.append("null");
+    } else {
+      filter.getExpression().accept(this, fingerprint);
+    }
+    fingerprint.append(',');
+    appendValue(fingerprint, filter.getLiteral());
+    return close(fingerprint);
+  }
+
+  @Override
+  public Object visit(PropertyIsNull filter, Object extraData) {
+    return expressions(PropertyIsNull.NAME, extraData, filter.getExpression());
+  }
+
+  @Override
+  public Object visit(PropertyIsNil filter, Object extraData) {
+    StringBuilder fingerprint = append(extraData, PropertyIsNil.NAME);
+    if (filter.getExpression() == null) {
+      fingerprint.append("null");
+    } else {
+      filter.getExpression().accept(this, fingerprint);
+    }
+    fingerprint.append(',');
+    appendValue(fingerprint, filter.getNilReason());
+    return close(fingerprint);
+  }
+
+  @Override
+  public Object visit(BBOX filter, Object extraData) {
+    return spatial(BBOX.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Beyond filter, Object extraData) {
+    return distance(Beyond.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Contains filter, Object extraData) {
+    return spatial(Contains.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Crosses filter, Object extraData) {
+    return spatial(Crosses.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Disjoint filter, Object extraData) {
+    return spatial(Disjoint.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(DWithin filter, Object extraData) {
+    return distance(DWithin.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Equals filter, Object extraData) {
+    return spatial(Equals.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Intersects filter, Object extraData) {
+    return spatial(Intersects.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Overlaps filter, Object extraData) {
+    return spatial(Overlaps.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Touches filter, Object extraData) {
+    return spatial(Touches.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(Within filter, Object extraData) {
+    return spatial(Within.NAME, filter, extraData);
+  }
+
+  @Override
+  public Object visit(After after, Object extraData) {
+    return temporal(After.NAME, after, extraData);
+  }
+
+  @Override
+  public Object visit(AnyInteracts anyInteracts, Object extraData) {
+    return temporal(AnyInteracts.NAME, anyInteracts, extraData);
+  }
+
+  @Override
+  public Object visit(Before before, Object extraData) {
+    return temporal(Before.NAME, before, extraData);
+  }
+
+  @Override
+  public Object visit(Begins begins, Object extraData) {
+    return temporal(Begins.NAME, begins, extraData);
+  }
+
+  @Override
+  public Object visit(BegunBy begunBy, Object extraData) {
+    return temporal(BegunBy.NAME, begunBy, extraData);
+  }
+
+  @Override
+  public Object visit(During during, Object extraData) {
+    return temporal(During.NAME, during, extraData);
+  }
+
+  @Override
+  public Object visit(EndedBy endedBy, Object extraData) {
+    return temporal(EndedBy.NAME, endedBy, extraData);
+  }
+
+  @Override
+  public Object visit(Ends ends, Object extraData) {
+    return temporal(Ends.NAME, ends, extraData);
+  }
+
+  @Override
+  public Object visit(Meets meets, Object extraData) {
+    return temporal(Meets.NAME, meets, extraData);
+  }
+
+  @Override
+  public Object visit(MetBy metBy, Object extraData) {
+    return temporal(MetBy.NAME, metBy, extraData);
+  }
+
+  @Override
+  public Object visit(OverlappedBy overlappedBy, Object extraData) {
+    return temporal(OverlappedBy.NAME, overlappedBy, extraData);
+  }
+
+  @Override
+  public Object visit(TContains contains, Object extraData) {
+    return temporal(TContains.NAME, contains, extraData);
+  }
+
+  @Override
+  public Object visit(TEquals equals, Object extraData) {
+    return temporal(TEquals.NAME, equals, extraData);
+  }
+
+  @Override
+  public Object visit(TOverlaps contains, Object extraData) {
+    return temporal(TOverlaps.NAME, contains, extraData);
+  }
+}
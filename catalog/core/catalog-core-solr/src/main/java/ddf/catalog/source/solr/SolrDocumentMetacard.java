@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.solr.common.SolrDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Metacard} view of a {@link SolrDocument} returned by a query. Only the mapping from
+ * attribute names to Solr field names is computed up front; the values of an attribute are
+ * converted the first time the attribute is requested. Callers that only look at a few attributes
+ * of each result, such as the id, title and location, never pay for converting the rest, e.g. the
+ * metadata or serialized object attributes.
+ *
+ * <p>Only the values of the fields that hold attributes are kept, not the document, so that private
+ * fields such as the XPath index and the serialized metacard type are released with the query
+ * response. The values of a field are released once its attribute is converted. Attributes set on
+ * the view override the ones in the document. The document itself is never modified.
+ *
+ * <p>Instances are safe to read from several threads; as with {@link
+ * ddf.catalog.data.impl.MetacardImpl}, modifications must not happen concurrently with reads.
+ */
+class SolrDocumentMetacard implements Metacard {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SolrDocumentMetacard.class);
+
+  /** Marks an attribute that was removed or never present in the decoded attributes. */
+  private static final Attribute ABSENT = new AttributeImpl("", "");
+
+  private final transient DynamicSchemaResolver resolver;
+
+  private final MetacardType metacardType;
+
+  /** Values of the attributes not converted yet, as read from the document, by attribute name. */
+  private final transient Map<String, Field> fields;
+
+  private final Map<String, Attribute> decodedAttributes = new ConcurrentHashMap<>();
+
+  private String sourceId;
+
+  /**
+   * @param document the Solr document
+   * @param resolver the resolver used to map Solr fields to attributes and convert their values
+   * @param metacardType the type of the metacard, as read from the document
+   * @param fieldNames the Solr field to read for each attribute name, as built by {@link
+   *     #fieldNames(SolrDocument, DynamicSchemaResolver)}
+   */
+  SolrDocumentMetacard(
+      SolrDocument document,
+      DynamicSchemaResolver resolver,
+      MetacardType metacardType,
+      Map<String, String> fieldNames) {
+    this.resolver = resolver;
+    this.metacardType = metacardType;
+    this.fields = new ConcurrentHashMap<>(fieldNames.size() * 2);
+    fieldNames.forEach(
+        (name, solrFieldName) -> {
+          Collection<Object> values = document.getFieldValues(solrFieldName);
+          if (values != null) {
+            fields.put(name, new Field(solrFieldName, values));
+          }
+        });
+  }
+
+  /**
+   * Maps each attribute held by the document to the Solr field its values are read from. When
+   * several fields resolve to the same attribute the last one wins, just as when every field is
+   * copied into a metacard in document order.
+   */
+  static Map<String, String> fieldNames(SolrDocument document, DynamicSchemaResolver resolver) {
+    Collection<String> solrFieldNames = document.getFieldNames();
+    Map<String, String> fieldNames = new HashMap<>(solrFieldNames.size() * 2);
+    for (String solrFieldName : solrFieldNames) {
+      if (!resolver.isPrivateField(solrFieldName)) {
+        fieldNames.put(resolver.resolveFieldName(solrFieldName), solrFieldName);
+      }
+    }
+    return fieldNames;
+  }
+
+  @Override
+  public Attribute getAttribute(String name) {
+    if (name == null) {
+      return null;
+    }
+    Attribute attribute = decodedAttributes.get(name);
+    if (attribute == null) {
+      attribute = decode(name);
+      Attribute decoded = decodedAttributes.putIfAbsent(name, attribute);
+      if (decoded != null) {
+        attribute = decoded;
+      }
+      fields.remove(name);
+    }
+    return attribute == ABSENT ? null : attribute;
+  }
+
+  private Attribute decode(String name) {
+    Field field = fields.get(name);
+    if (field == null) {
+      return ABSENT;
+    }
+    Attribute attribute =
+        new AttributeImpl(name, resolver.getDocValues(field.solrFieldName, field.values));
+    // an empty multi-valued field holds no attribute, as when it is copied into a MetacardImpl
+    return attribute.getValue() != null ? attribute : ABSENT;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) {
+    if (attribute == null || attribute.getName() == null) {
+      return;
+    }
+    decodedAttributes.put(attribute.getName(), attribute.getValue() != null ? attribute : ABSENT);
+    fields.remove(attribute.getName());
+  }
+
+  @Override
+  public MetacardType getMetacardType() {
+    return metacardType;
+  }
+
+  @Override
+  public String getSourceId() {
+    return sourceId;
+  }
+
+  @Override
+  public void setSourceId(String sourceId) {
+    this.sourceId = sourceId;
+  }
+
+  @Override
+  public String getId() {
+    return value(Metacard.ID, String.class);
+  }
+
+  @Override
+  public String getMetadata() {
+    return value(Metacard.METADATA, String.class);
+  }
+
+  @Override
+  public Date getCreatedDate() {
+    return value(Metacard.CREATED, Date.class);
+  }
+
+  @Override
+  public Date getModifiedDate() {
+    return value(Metacard.MODIFIED, Date.class);
+  }
+
+  @Override
+  public Date getExpirationDate() {
+    return value(Metacard.EXPIRATION, Date.class);
+  }
+
+  @Override
+  public Date getEffectiveDate() {
+    return value(Metacard.EFFECTIVE, Date.class);
+  }
+
+  @Override
+  public String getLocation() {
+    return value(Metacard.GEOGRAPHY, String.class);
+  }
+
+  @Override
+  public String getTitle() {
+    return value(Metacard.TITLE, String.class);
+  }
+
+  @Override
+  public URI getResourceURI() {
+    return uri(value(Metacard.RESOURCE_URI, String.class));
+  }
+
+  @Override
+  public String getResourceSize() {
+    return value(Metacard.RESOURCE_SIZE, String.class);
+  }
+
+  @Override
+  public byte[] getThumbnail() {
+    return value(Metacard.THUMBNAIL, byte[].class);
+  }
+
+  @Override
+  public String getContentTypeName() {
+    return value(Metacard.CONTENT_TYPE, String.class);
+  }
+
+  @Override
+  public String getContentTypeVersion() {
+    return value(Metacard.CONTENT_TYPE_VERSION, String.class);
+  }
+
+  @Override
+  public URI getContentTypeNamespace() {
+    return uri(value(Metacard.TARGET_NAMESPACE, String.class));
+  }
+
+  /**
+   * Serializes a fully converted {@link MetacardImpl} in place of this view, since the Solr
+   * document and resolver are not serializable.
+   */
+  private Object writeReplace() {
+    MetacardImpl metacard = new MetacardImpl(metacardType);
+    Set<String> names = new HashSet<>(fields.keySet());
+    names.addAll(decodedAttributes.keySet());
+    for (String name : names) {
+      metacard.setAttribute(getAttribute(name));
+    }
+    metacard.setSourceId(sourceId);
+    return metacard;
+  }
+
+  private <T> T value(String name, Class<T> type) {
+    Attribute attribute = getAttribute(name);
+    if (attribute == null) {
+      return null;
+    }
+    Serializable value = attribute.getValue();
+    return type.isInstance(value) ? type.cast(value) : null;
+  }
+
+  private URI uri(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return new URI(value);
+    } catch (URISyntaxException e) {
+      LOGGER.debug("Invalid URI [{}] in Solr document", value, e);
+      return null;
+    }
+  }
+
+  private static final class Field {
+
+    private final String solrFieldName;
+
+    private final Collection<Object> values;
+
+    private Field(String solrFieldName, Collection<Object> values) {
+      this.solrFieldName = solrFieldName;
+      this.values = values;
+    }
+  }
+}
@@ -1098,4 +1098,16 @@ public boolean isIdQuery() {
   public Set<String> getIds() {
     return Collections.unmodifiableSet(ids);
   }
+
+  /**
+   * Copies the state that translating a filter left on another delegate, so that this delegate can
+   * stand in for it when its translated query is reused.
+   */
+  void copyTranslationState(SolrFilterDelegate translated) {
+    isSortedByDistance = translated.isSortedByDistance;
+    sortedDistancePoint = translated.sortedDistancePoint;
+    isIdQuery = translated.isIdQuery;
+    ids.clear();
+    ids.addAll(translated.ids);
+  }
 }
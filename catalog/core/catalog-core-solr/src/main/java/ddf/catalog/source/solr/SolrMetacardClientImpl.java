@@ -27,6 +27,9 @@
 import static org.apache.solr.spelling.suggest.SuggesterParams.SUGGEST_DICT;
 import static org.apache.solr.spelling.suggest.SuggesterParams.SUGGEST_Q;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import ddf.catalog.data.Attribute;
@@ -72,7 +75,6 @@
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.PivotField;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -138,6 +140,30 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
   private final int commitNrtCommitWithinMs =
       Math.max(NumberUtils.toInt(accessProperty(SOLR_COMMIT_NRT_COMMITWITHINMS, "1000")), 0);
 
+  private static final String SOLR_COMMIT_NRT_MAX_COMMITWITHINMS =
+      "solr.commit.nrt.maxCommitWithinMs";
+
+  private static final String SOLR_COMMIT_NRT_RATE_STEP = "solr.commit.nrt.rateStep";
+
+  private static final String SOLR_UPDATE_BATCH_MAX_DOCUMENTS = "solr.update.batch.maxDocuments";
+
+  private final SolrUpdateBatcher updateBatcher;
+
+  /**
+   * Field lists computed for the {@link #EXCLUDE_ATTRIBUTES} of a query, by excluded attributes.
+   * Clients tend to send the same few sets of excluded attributes with every query.
+   */
+  private final Cache<Set<String>, Projection> projectionCache =
+      CacheBuilder.newBuilder().maximumSize(64).build();
+
+  /**
+   * Queries translated from filters, by filter fingerprint, sort policy and schema field count.
+   * Saved searches and polling clients send the same filters over and over, and the translated
+   * query no longer applies once the schema gains fields.
+   */
+  private final Cache<String, Translation> translationCache =
+      CacheBuilder.newBuilder().maximumSize(512).build();
+
   public SolrMetacardClientImpl(
       SolrClient client,
       FilterAdapter catalogFilterAdapter,
@@ -147,6 +173,16 @@ public SolrMetacardClientImpl(
     filterDelegateFactory = solrFilterDelegateFactory;
     filterAdapter = catalogFilterAdapter;
     resolver = dynamicSchemaResolver;
+    updateBatcher =
+        new SolrUpdateBatcher(
+            client,
+            NumberUtils.toInt(accessProperty(SOLR_UPDATE_BATCH_MAX_DOCUMENTS, "1000")),
+            commitNrtCommitWithinMs,
+            NumberUtils.toInt(
+                accessProperty(
+                    SOLR_COMMIT_NRT_MAX_COMMITWITHINMS,
+                    String.valueOf(commitNrtCommitWithinMs * 10))),
+            NumberUtils.toInt(accessProperty(SOLR_COMMIT_NRT_RATE_STEP, "500")));
   }
 
   public SolrClient getClient() {
@@ -445,11 +481,59 @@ protected SolrQuery getSolrQuery(QueryRequest request, SolrFilterDelegate solrFi
       solrFilterDelegate.setSortPolicy(sortBys.toArray(new SortBy[0]));
     }
 
-    SolrQuery query = filterAdapter.adapt(request.getQuery(), solrFilterDelegate);
+    SolrQuery query = translate(request, solrFilterDelegate, sortBys);
 
     return postAdapt(request, solrFilterDelegate, query);
   }
 
+  private SolrQuery translate(
+      QueryRequest request, SolrFilterDelegate solrFilterDelegate, List<SortBy> sortBys)
+      throws UnsupportedQueryException {
+    String key = getTranslationKey(request, solrFilterDelegate, sortBys);
+    if (key == null) {
+      return filterAdapter.adapt(request.getQuery(), solrFilterDelegate);
+    }
+
+    Translation translation = translationCache.getIfPresent(key);
+    if (translation != null) {
+      solrFilterDelegate.copyTranslationState(translation.delegate);
+      return translation.query.getCopy();
+    }
+
+    SolrQuery query = filterAdapter.adapt(request.getQuery(), solrFilterDelegate);
+    if (query != null) {
+      translationCache.put(key, new Translation(query.getCopy(), solrFilterDelegate));
+    }
+    return query;
+  }
+
+  private String getTranslationKey(
+      QueryRequest request, SolrFilterDelegate solrFilterDelegate, List<SortBy> sortBys) {
+    // delegates of other types may keep state of their own
+    if (solrFilterDelegate == null || solrFilterDelegate.getClass() != SolrFilterDelegate.class) {
+      return null;
+    }
+
+    int schemaFieldCount = resolver.fieldsCache.size();
+    String fingerprint = FilterFingerprint.of(request.getQuery());
+    if (fingerprint == null) {
+      return null;
+    }
+
+    StringBuilder key = new StringBuilder(fingerprint).append('#').append(schemaFieldCount);
+    for (SortBy sortBy : sortBys) {
+      String sortProperty =
+          sortBy.getPropertyName() == null ? "" : sortBy.getPropertyName().getPropertyName();
+      key.append('#')
+          .append(sortBy.getSortOrder())
+          .append(':')
+          .append(String.valueOf(sortProperty).length())
+          .append(':')
+          .append(sortProperty);
+    }
+    return key.toString();
+  }
+
   private SolrQuery getRealTimeQuery(SolrQuery originalQuery, Collection<String> ids) {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("originalQuery: {}", getQueryParams(originalQuery));
@@ -524,6 +608,31 @@ private void filterAttributes(QueryRequest request, SolrQuery query) {
 
     Set<String> excludedAttributes = (Set<String>) request.getPropertyValue(EXCLUDE_ATTRIBUTES);
 
+    // the schema only ever gains fields, so its size tells whether a projection is still current
+    int schemaFieldCount = resolver.fieldsCache.size();
+    Projection projection = projectionCache.getIfPresent(excludedAttributes);
+    if (projection == null || projection.schemaFieldCount != schemaFieldCount) {
+      projection = new Projection(schemaFieldCount, projectFields(excludedAttributes));
+      projectionCache.put(ImmutableSet.copyOf(excludedAttributes), projection);
+    }
+
+    Set<String> fields = projection.fields;
+
+    if (query.getFields() != null && query.getFields().length() > 2) {
+      fields = Sets.union(fields, Sets.newHashSet(query.getFields().substring(2).split(",")));
+    }
+
+    if (!fields.isEmpty()) {
+      query.setFields(fields.toArray(new String[fields.size()]));
+    }
+  }
+
+  /**
+   * Builds the Solr field list that returns every field except those of the excluded attributes.
+   * Types of fields that none of the excluded attributes use are requested with a wildcard, such as
+   * {@code *_txt}; the other fields of the same types as the excluded ones are listed by name.
+   */
+  private Set<String> projectFields(Set<String> excludedAttributes) {
     Set<String> excludedFields =
         resolver
             .fieldsCache
@@ -555,15 +664,7 @@ private void filterAttributes(QueryRequest request, SolrQuery query) {
                         .filter(field -> excludedAttributes.stream().noneMatch(field::startsWith)))
             .collect(Collectors.toSet());
 
-    Set<String> fields = Sets.union(includedFields, wildcardFields);
-
-    if (query.getFields() != null && query.getFields().length() > 2) {
-      fields = Sets.union(fields, Sets.newHashSet(query.getFields().substring(2).split(",")));
-    }
-
-    if (!fields.isEmpty()) {
-      query.setFields(fields.toArray(new String[fields.size()]));
-    }
+    return ImmutableSet.copyOf(Sets.union(includedFields, wildcardFields));
   }
 
   private boolean skipFilteredAttributes(QueryRequest request) {
@@ -685,8 +786,22 @@ private ResultImpl createResult(SolrDocument doc) throws MetacardCreationExcepti
     return result;
   }
 
+  /**
+   * Creates the metacard of a Solr document. When the {@link MetacardType} describes every
+   * attribute in the document, the metacard is a view of the document that converts attribute
+   * values on first access; otherwise all attributes are converted up front.
+   *
+   * @param doc Solr document to create the metacard from
+   * @return the metacard
+   * @throws MetacardCreationException if the metacard type of the document cannot be read
+   */
   public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
     MetacardType metacardType = resolver.getMetacardType(doc);
+    Map<String, String> fieldNames = SolrDocumentMetacard.fieldNames(doc, resolver);
+    if (describesAll(metacardType, fieldNames.keySet())) {
+      return new MetacardImpl(new SolrDocumentMetacard(doc, resolver, metacardType, fieldNames));
+    }
+
     MetacardImpl metacard = new MetacardImpl(metacardType);
 
     for (String solrFieldName : doc.getFieldNames()) {
@@ -703,6 +818,19 @@ public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationExce
     return metacard;
   }
 
+  /**
+   * A metacard that wraps another one only serializes the attributes its type describes, so the
+   * lazy view is only used when nothing would be lost that way.
+   */
+  private static boolean describesAll(MetacardType metacardType, Set<String> attributeNames) {
+    for (String attributeName : attributeNames) {
+      if (metacardType.getAttributeDescriptor(attributeName) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCommit)
       throws IOException, SolrServerException, MetacardCreationException {
@@ -719,14 +847,12 @@ public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCo
       }
     }
 
-    if (!forceAutoCommit) {
-      if (isNrtCommit) {
-        client.add(docs, commitNrtCommitWithinMs);
-      } else {
-        client.add(docs);
-      }
+    if (forceAutoCommit) {
+      updateBatcher.add(docs, SolrUpdateBatcher.Commit.SOFT);
+    } else if (isNrtCommit) {
+      updateBatcher.add(docs, SolrUpdateBatcher.Commit.WITHIN);
     } else {
-      softCommit(docs);
+      updateBatcher.add(docs, SolrUpdateBatcher.Commit.NONE);
     }
 
     return docs;
@@ -749,31 +875,21 @@ public void deleteByIds(
       return;
     }
 
+    SolrUpdateBatcher.Commit commit =
+        forceCommit ? SolrUpdateBatcher.Commit.HARD : SolrUpdateBatcher.Commit.NONE;
     if (Metacard.ID.equals(fieldName)) {
       CollectionUtils.transform(identifiers, Object::toString);
-      client.deleteById((List<String>) identifiers);
+      updateBatcher.deleteById((List<String>) identifiers, commit);
     } else {
-      if (identifiers.size() < SolrCatalogProvider.MAX_BOOLEAN_CLAUSES) {
-        client.deleteByQuery(getIdentifierQuery(fieldName, identifiers));
-      } else {
-        int i;
-        for (i = SolrCatalogProvider.MAX_BOOLEAN_CLAUSES;
-            i < identifiers.size();
-            i += SolrCatalogProvider.MAX_BOOLEAN_CLAUSES) {
-          client.deleteByQuery(
-              getIdentifierQuery(
-                  fieldName, identifiers.subList(i - SolrCatalogProvider.MAX_BOOLEAN_CLAUSES, i)));
-        }
-        client.deleteByQuery(
+      List<String> queries = new ArrayList<>();
+      for (int i = 0; i < identifiers.size(); i += SolrCatalogProvider.MAX_BOOLEAN_CLAUSES) {
+        queries.add(
             getIdentifierQuery(
                 fieldName,
                 identifiers.subList(
-                    i - SolrCatalogProvider.MAX_BOOLEAN_CLAUSES, identifiers.size())));
+                    i, Math.min(i + SolrCatalogProvider.MAX_BOOLEAN_CLAUSES, identifiers.size()))));
       }
-    }
-
-    if (forceCommit) {
-      client.commit();
+      updateBatcher.deleteByQuery(queries, commit);
     }
   }
 
@@ -802,15 +918,27 @@ private static String accessProperty(String key, String defaultValue) {
     return value;
   }
 
-  private org.apache.solr.client.solrj.response.UpdateResponse softCommit(
-      List<SolrInputDocument> docs) throws SolrServerException, IOException {
-    return new org.apache.solr.client.solrj.request.UpdateRequest()
-        .add(docs)
-        .setAction(
-            AbstractUpdateRequest.ACTION.COMMIT,
-            /* waitForFlush */ true,
-            /* waitToMakeVisible */ true,
-            /* softCommit */ true)
-        .process(client.getClient());
+  private static class Projection {
+
+    private final int schemaFieldCount;
+
+    private final Set<String> fields;
+
+    private Projection(int schemaFieldCount, Set<String> fields) {
+      this.schemaFieldCount = schemaFieldCount;
+      this.fields = fields;
+    }
+  }
+
+  private static class Translation {
+
+    private final SolrQuery query;
+
+    private final SolrFilterDelegate delegate;
+
+    private Translation(SolrQuery query, SolrFilterDelegate delegate) {
+      this.query = query;
+      this.delegate = delegate;
+    }
   }
 }
@@ -0,0 +1,308 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.codice.solr.client.solrj.SolrClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the updates that concurrent threads send to a Solr core into fewer, larger update
+ * requests.
+ *
+ * <p>Each caller queues its update and then either writes it itself or waits for the thread that is
+ * writing to pick it up: while one update request is in flight, the updates that arrive are
+ * collected and sent together as soon as it completes. The queue is lock-free and the writer role
+ * is claimed with a compare-and-set, so nothing is held while Solr processes a request and the
+ * batchers of different cores never wait on each other. A lone caller is therefore never delayed,
+ * and callers always return once their own update has been written, so the real-time get handler
+ * sees their changes right away. Explicit commits requested by the updates of a batch are merged
+ * into a single commit.
+ *
+ * <p>Adds and deletes are never mixed in one request, since Solr applies the deletes of a request
+ * after its adds. If a batch fails, its updates are retried one by one so that only the callers
+ * whose update is at fault see the error.
+ */
+class SolrUpdateBatcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SolrUpdateBatcher.class);
+
+  /** Weight of the latest batch in the estimated ingest rate. */
+  private static final double RATE_SMOOTHING = 0.2;
+
+  /** Commit that an update needs once it is written, from the weakest to the strongest. */
+  enum Commit {
+    /** Left to the auto commits configured for the core. */
+    NONE,
+    /** Within the commit-within time of near-real-time metacard types. */
+    WITHIN,
+    /** Soft commit before returning. */
+    SOFT,
+    /** Hard commit before returning. */
+    HARD
+  }
+
+  private final SolrClient client;
+
+  private final int maxBatchDocuments;
+
+  private final int commitWithinMs;
+
+  private final int maxCommitWithinMs;
+
+  private final int commitWithinRateStep;
+
+  private final Queue<Update> pending = new ConcurrentLinkedQueue<>();
+
+  /** Set while a caller is writing batches; at most one request is in flight at a time. */
+  private final AtomicBoolean writing = new AtomicBoolean();
+
+  // written only by the thread that holds the writer role
+  private volatile double documentsPerSecond;
+
+  // read and written only by the thread that holds the writer role
+  private long lastWriteMillis = System.currentTimeMillis();
+
+  /**
+   * @param client client of the Solr core to update
+   * @param maxBatchDocuments maximum number of documents and identifiers sent in one request; a
+   *     single update larger than this is still sent as a whole
+   * @param commitWithinMs commit-within time used while the ingest rate is low
+   * @param maxCommitWithinMs upper bound of the commit-within time
+   * @param commitWithinRateStep ingest rate, in documents per second, by which the commit-within
+   *     time grows by another {@code commitWithinMs}
+   */
+  SolrUpdateBatcher(
+      SolrClient client,
+      int maxBatchDocuments,
+      int commitWithinMs,
+      int maxCommitWithinMs,
+      int commitWithinRateStep) {
+    this.client = client;
+    this.maxBatchDocuments = Math.max(1, maxBatchDocuments);
+    this.commitWithinMs = Math.max(0, commitWithinMs);
+    this.maxCommitWithinMs = Math.max(this.commitWithinMs, maxCommitWithinMs);
+    this.commitWithinRateStep = Math.max(1, commitWithinRateStep);
+  }
+
+  void add(List<SolrInputDocument> docs, Commit commit) throws IOException, SolrServerException {
+    submit(new Update(Kind.ADD, docs, Collections.emptyList(), Collections.emptyList(), commit));
+  }
+
+  void deleteById(List<String> ids, Commit commit) throws IOException, SolrServerException {
+    submit(new Update(Kind.DELETE, Collections.emptyList(), ids, Collections.emptyList(), commit));
+  }
+
+  void deleteByQuery(List<String> queries, Commit commit) throws IOException, SolrServerException {
+    submit(
+        new Update(Kind.DELETE, Collections.emptyList(), Collections.emptyList(), queries, commit));
+  }
+
+  /**
+   * Returns the commit-within time for the current ingest rate: the busier the core, the longer the
+   * time, so that fewer searchers are opened while a large ingest is running.
+   */
+  int getCommitWithinMs() {
+    long steps = (long) (documentsPerSecond / commitWithinRateStep);
+    return (int) Math.min(maxCommitWithinMs, commitWithinMs * (1 + steps));
+  }
+
+  int getPendingCount() {
+    return pending.size();
+  }
+
+  private void submit(Update update) throws IOException, SolrServerException {
+    pending.add(update);
+    boolean interrupted = false;
+    while (!update.done) {
+      if (writing.compareAndSet(false, true)) {
+        try {
+          while (!update.done) {
+            write(nextBatch());
+          }
+        } finally {
+          writing.set(false);
+          wakeNextWriter();
+        }
+      } else {
+        while (!update.done && writing.get()) {
+          LockSupport.park(this);
+          interrupted |= Thread.interrupted();
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    update.rethrow();
+  }
+
+  /**
+   * Wakes the caller of the oldest queued update so that it claims the writer role. Callers that
+   * queued their update after the role was released claim it on their own.
+   */
+  private void wakeNextWriter() {
+    Update next = pending.peek();
+    if (next != null) {
+      LockSupport.unpark(next.caller);
+    }
+  }
+
+  private List<Update> nextBatch() {
+    List<Update> batch = new ArrayList<>();
+    Update first = pending.poll();
+    batch.add(first);
+    int size = first.size();
+    Update next;
+    while ((next = pending.peek()) != null
+        && next.kind == first.kind
+        && size + next.size() <= maxBatchDocuments) {
+      batch.add(pending.poll());
+      size += next.size();
+    }
+    return batch;
+  }
+
+  private void write(List<Update> batch) {
+    try {
+      process(batch);
+    } catch (IOException | SolrServerException | RuntimeException e) {
+      if (batch.size() == 1) {
+        batch.get(0).failure = e;
+      } else {
+        LOGGER.debug("Update of {} requests failed; retrying them one by one.", batch.size(), e);
+        for (Update update : batch) {
+          try {
+            process(Collections.singletonList(update));
+          } catch (IOException | SolrServerException | RuntimeException updateException) {
+            update.failure = updateException;
+          }
+        }
+      }
+    } finally {
+      for (Update update : batch) {
+        update.done = true;
+        LockSupport.unpark(update.caller);
+      }
+    }
+  }
+
+  private void process(List<Update> batch) throws IOException, SolrServerException {
+    UpdateRequest request = new UpdateRequest();
+    Commit commit = Commit.NONE;
+    int documents = 0;
+    for (Update update : batch) {
+      if (!update.docs.isEmpty()) {
+        request.add(update.docs);
+        documents += update.docs.size();
+      }
+      if (!update.ids.isEmpty()) {
+        request.deleteById(update.ids);
+      }
+      update.queries.forEach(request::deleteByQuery);
+      if (update.commit.compareTo(commit) > 0) {
+        commit = update.commit;
+      }
+    }
+
+    updateRate(documents);
+    switch (commit) {
+      case HARD:
+        request.setAction(AbstractUpdateRequest.ACTION.COMMIT, true, true);
+        break;
+      case SOFT:
+        request.setAction(AbstractUpdateRequest.ACTION.COMMIT, true, true, true);
+        break;
+      case WITHIN:
+        request.setCommitWithin(getCommitWithinMs());
+        break;
+      default:
+        break;
+    }
+
+    LOGGER.trace("Sending {} updates to Solr in one request with commit {}", batch.size(), commit);
+    client.request(request);
+  }
+
+  private void updateRate(int documents) {
+    long now = System.currentTimeMillis();
+    double rate = documents * 1000.0 / Math.max(1, now - lastWriteMillis);
+    documentsPerSecond = RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * documentsPerSecond;
+    lastWriteMillis = now;
+  }
+
+  private enum Kind {
+    ADD,
+    DELETE
+  }
+
+  private static class Update {
+
+    private final Kind kind;
+
+    private final List<SolrInputDocument> docs;
+
+    private final List<String> ids;
+
+    private final List<String> queries;
+
+    private final Commit commit;
+
+    private final Thread caller = Thread.currentThread();
+
+    // failure is written before done is set, and read after done is seen
+    private volatile boolean done;
+
+    private Exception failure;
+
+    private Update(
+        Kind kind,
+        List<SolrInputDocument> docs,
+        List<String> ids,
+        List<String> queries,
+        Commit commit) {
+      this.kind = kind;
+      this.docs = docs;
+      this.ids = ids;
+      this.queries = queries;
+      this.commit = commit;
+    }
+
+    private int size() {
+      return docs.size() + ids.size() + queries.size();
+    }
+
+    private void rethrow() throws IOException, SolrServerException {
+      if (failure instanceof IOException) {
+        throw (IOException) failure;
+      } else if (failure instanceof SolrServerException) {
+        throw (SolrServerException) failure;
+      } else if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+    }
+  }
+}
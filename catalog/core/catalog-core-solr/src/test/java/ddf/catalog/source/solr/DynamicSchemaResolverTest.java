@@ -29,6 +29,7 @@
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.MetacardType;
@@ -266,6 +267,21 @@ public void testAdditionalFieldConstructor() throws Exception {
     assertThat(resolver.fieldsCache, hasItem(anotherExtraField));
   }
 
+  @Test
+  public void testGetFieldResolvesAgainAfterSchemaFieldAdded() throws Exception {
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver(Collections.EMPTY_LIST);
+
+    assertThat(
+        resolver.getField("rating", AttributeFormat.DOUBLE, false),
+        is("rating" + SchemaFields.INTEGER_SUFFIX));
+
+    resolver.fieldsCache.add("rating" + SchemaFields.DOUBLE_SUFFIX);
+
+    assertThat(
+        resolver.getField("rating", AttributeFormat.DOUBLE, false),
+        is("rating" + SchemaFields.DOUBLE_SUFFIX));
+  }
+
   private MetacardType deserializeMetacardType(byte[] serializedMetacardType) throws IOException {
     return METACARD_TYPE_MAPPER.readValue(serializedMetacardType, MetacardType.class);
   }
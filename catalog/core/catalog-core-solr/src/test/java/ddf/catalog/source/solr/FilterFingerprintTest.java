@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import java.util.Date;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+public class FilterFingerprintTest {
+
+  private final FilterBuilder builder = new GeotoolsFilterBuilder();
+
+  @Test
+  public void equivalentFiltersHaveTheSameFingerprint() {
+    assertThat(FilterFingerprint.of(titleOrLocation("a", 1.5)), notNullValue());
+    assertThat(
+        FilterFingerprint.of(titleOrLocation("a", 1.5)),
+        is(FilterFingerprint.of(titleOrLocation("a", 1.5))));
+  }
+
+  @Test
+  public void differentLiteralsHaveDifferentFingerprints() {
+    assertThat(
+        FilterFingerprint.of(titleOrLocation("a", 1.5)),
+        not(FilterFingerprint.of(titleOrLocation("b", 1.5))));
+    assertThat(
+        FilterFingerprint.of(titleOrLocation("a", 1.5)),
+        not(FilterFingerprint.of(titleOrLocation("a", 2.5))));
+  }
+
+  @Test
+  public void literalTypesArePartOfTheFingerprint() {
+    assertThat(
+        FilterFingerprint.of(builder.attribute("rating").is().equalTo().number(1)),
+        not(FilterFingerprint.of(builder.attribute("rating").is().equalTo().number(1L))));
+    assertThat(
+        FilterFingerprint.of(builder.attribute("rating").is().equalTo().number(1)),
+        not(FilterFingerprint.of(builder.attribute("rating").is().equalTo().text("1"))));
+  }
+
+  @Test
+  public void datesKeepMillisecondPrecision() {
+    Date date = new Date();
+    Date nextMillisecond = new Date(date.getTime() + 1);
+
+    assertThat(
+        FilterFingerprint.of(builder.attribute(Metacard.MODIFIED).is().after().date(date)),
+        not(
+            FilterFingerprint.of(
+                builder.attribute(Metacard.MODIFIED).is().after().date(nextMillisecond))));
+  }
+
+  @Test
+  public void caseSensitivityIsPartOfTheFingerprint() {
+    assertThat(
+        FilterFingerprint.of(builder.attribute(Metacard.TITLE).is().like().text("a")),
+        not(
+            FilterFingerprint.of(
+                builder.attribute(Metacard.TITLE).is().like().caseSensitiveText("a"))));
+  }
+
+  @Test
+  public void relativeTemporalFiltersHaveNoFingerprint() {
+    assertThat(
+        FilterFingerprint.of(builder.attribute(Metacard.MODIFIED).is().during().last(60000L)),
+        nullValue());
+  }
+
+  private Filter titleOrLocation(String title, double distance) {
+    return builder.anyOf(
+        builder.attribute(Metacard.TITLE).is().like().text(title),
+        builder.attribute(Metacard.GEOGRAPHY).withinBuffer().wkt("POINT (1 2)", distance),
+        builder.allOf(
+            builder.attribute(Metacard.TITLE).is().like().text(title),
+            builder.not(builder.attribute(Metacard.CONTENT_TYPE).is().empty())));
+  }
+}
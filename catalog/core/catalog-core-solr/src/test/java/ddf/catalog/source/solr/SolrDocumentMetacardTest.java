@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import org.apache.solr.common.SolrDocument;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SolrDocumentMetacardTest {
+
+  private static final Date CREATED = new Date(1_500_000_000_000L);
+
+  private DynamicSchemaResolver resolver;
+
+  private SolrDocument document;
+
+  @Before
+  public void setUp() {
+    resolver = new DynamicSchemaResolver();
+    document = new SolrDocument();
+    document.addField(Metacard.ID + SchemaFields.TEXT_SUFFIX, "1234");
+    document.addField(Metacard.TITLE + SchemaFields.TEXT_SUFFIX, "title");
+    document.addField(Metacard.CREATED + SchemaFields.DATE_SUFFIX, CREATED);
+    document.addField(Metacard.TAGS + SchemaFields.TEXT_SUFFIX, "resource");
+    document.addField(Metacard.TAGS + SchemaFields.TEXT_SUFFIX, "other");
+  }
+
+  @Test
+  public void testFieldNamesSkipPrivateFields() {
+    document.addField(SchemaFields.METACARD_TYPE_FIELD_NAME, "ddf.metacard");
+
+    Map<String, String> fieldNames = SolrDocumentMetacard.fieldNames(document, resolver);
+
+    assertThat(fieldNames.get(Metacard.TITLE), is(Metacard.TITLE + SchemaFields.TEXT_SUFFIX));
+    assertThat(fieldNames.size(), is(4));
+  }
+
+  @Test
+  public void testAttributesAreReadFromDocument() {
+    Metacard metacard = newMetacard();
+
+    assertThat(metacard.getId(), is("1234"));
+    assertThat(metacard.getTitle(), is("title"));
+    assertThat(metacard.getCreatedDate(), is(CREATED));
+    assertThat(metacard.getAttribute(Metacard.TAGS).getValues(), contains("resource", "other"));
+    assertThat(metacard.getAttribute(Metacard.DESCRIPTION), nullValue());
+  }
+
+  @Test
+  public void testDocumentIsNotKept() {
+    document.addField(DynamicSchemaResolver.LUX_XML_FIELD_NAME, new byte[1024]);
+    Metacard metacard = newMetacard();
+
+    document.clear();
+
+    assertThat(metacard.getTitle(), is("title"));
+    assertThat(metacard.getAttribute(Metacard.TAGS).getValues(), contains("resource", "other"));
+  }
+
+  @Test
+  public void testEmptyMultiValuedFieldHasNoAttribute() {
+    document.setField(Metacard.DESCRIPTION + SchemaFields.TEXT_SUFFIX, new ArrayList<>());
+
+    Metacard metacard = newMetacard();
+
+    assertThat(metacard.getAttribute(Metacard.DESCRIPTION), nullValue());
+    assertThat(new MetacardImpl(metacard).getAttribute(Metacard.DESCRIPTION), nullValue());
+  }
+
+  @Test
+  public void testSetAttributeOverridesDocument() {
+    Metacard metacard = newMetacard();
+
+    metacard.setAttribute(new AttributeImpl(Metacard.TITLE, "new title"));
+    metacard.setAttribute(new AttributeImpl(Metacard.CREATED, (Date) null));
+
+    assertThat(metacard.getTitle(), is("new title"));
+    assertThat(metacard.getCreatedDate(), nullValue());
+    assertThat(
+        document.getFieldValue(Metacard.TITLE + SchemaFields.TEXT_SUFFIX), is((Object) "title"));
+  }
+
+  @Test
+  public void testSerializedMetacardHoldsAllAttributes() throws Exception {
+    MetacardImpl metacard = new MetacardImpl(newMetacard());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(metacard);
+    }
+    Metacard copy;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (Metacard) in.readObject();
+    }
+
+    assertThat(copy.getId(), is("1234"));
+    assertThat(copy.getTitle(), is("title"));
+    assertThat(copy.getCreatedDate(), is(CREATED));
+    assertThat(
+        copy.getAttribute(Metacard.TAGS).getValues(),
+        is(Arrays.asList((Object) "resource", "other")));
+  }
+
+  private SolrDocumentMetacard newMetacard() {
+    return new SolrDocumentMetacard(
+        document,
+        resolver,
+        MetacardImpl.BASIC_METACARD,
+        SolrDocumentMetacard.fieldNames(document, resolver));
+  }
+}
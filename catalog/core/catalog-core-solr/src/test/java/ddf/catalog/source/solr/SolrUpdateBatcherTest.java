@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import ddf.catalog.source.solr.SolrUpdateBatcher.Commit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.UpdateParams;
+import org.codice.solr.client.solrj.SolrClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SolrUpdateBatcherTest {
+
+  private final List<UpdateRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+  private SolrClient client;
+
+  private SolrUpdateBatcher batcher;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    client = mock(SolrClient.class);
+    doAnswer(
+            invocation -> {
+              requests.add((UpdateRequest) invocation.getArguments()[0]);
+              return null;
+            })
+        .when(client)
+        .request(any(SolrRequest.class));
+    batcher = new SolrUpdateBatcher(client, 100, 1000, 5000, 500);
+    executor = Executors.newFixedThreadPool(8);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSingleUpdateIsSentImmediately() throws Exception {
+    batcher.add(Collections.singletonList(doc("1")), Commit.NONE);
+
+    assertThat(requests.size(), is(1));
+    assertThat(ids(requests.get(0)), contains("1"));
+    assertThat(requests.get(0).getParams(), is(nullValue()));
+  }
+
+  @Test
+  public void testConcurrentUpdatesAreCoalesced() throws Exception {
+    CountDownLatch firstRequestStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstRequest = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              requests.add((UpdateRequest) invocation.getArguments()[0]);
+              if (requests.size() == 1) {
+                firstRequestStarted.countDown();
+                releaseFirstRequest.await(10, TimeUnit.SECONDS);
+              }
+              return null;
+            })
+        .when(client)
+        .request(any(SolrRequest.class));
+
+    Future<?> first = executor.submit(() -> add("first", Commit.NONE));
+    firstRequestStarted.await(10, TimeUnit.SECONDS);
+    List<Future<?>> others = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      String id = String.valueOf(i);
+      Commit commit = i == 0 ? Commit.SOFT : Commit.NONE;
+      others.add(executor.submit(() -> add(id, commit)));
+    }
+    while (batcher.getPendingCount() < 5) {
+      Thread.sleep(10);
+    }
+    releaseFirstRequest.countDown();
+
+    first.get(10, TimeUnit.SECONDS);
+    for (Future<?> other : others) {
+      other.get(10, TimeUnit.SECONDS);
+    }
+    assertThat(requests.size(), is(2));
+    assertThat(ids(requests.get(1)), containsInAnyOrder("0", "1", "2", "3", "4"));
+    assertThat(requests.get(1).getParams().get(UpdateParams.SOFT_COMMIT), is("true"));
+  }
+
+  @Test
+  public void testEveryConcurrentUpdateIsWrittenOnce() throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      String id = String.valueOf(i);
+      expected.add(id);
+      futures.add(executor.submit(() -> add(id, Commit.NONE)));
+    }
+
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    assertThat(batcher.getPendingCount(), is(0));
+    List<String> written =
+        requests.stream().flatMap(request -> ids(request).stream()).collect(Collectors.toList());
+    assertThat(written, containsInAnyOrder(expected.toArray()));
+  }
+
+  @Test
+  public void testFailedBatchIsRetriedOneByOne() throws Exception {
+    doAnswer(
+            invocation -> {
+              UpdateRequest request = (UpdateRequest) invocation.getArguments()[0];
+              if (ids(request).contains("bad")) {
+                throw new SolrServerException("bad document");
+              }
+              requests.add(request);
+              return null;
+            })
+        .when(client)
+        .request(any(SolrRequest.class));
+
+    try {
+      batcher.add(Collections.singletonList(doc("bad")), Commit.NONE);
+      fail("Expected the failure of the update to be thrown");
+    } catch (SolrServerException e) {
+      assertThat(requests, is(empty()));
+    }
+    batcher.add(Collections.singletonList(doc("good")), Commit.NONE);
+    assertThat(ids(requests.get(0)), contains("good"));
+  }
+
+  @Test
+  public void testDeletesAreNotMixedWithAdds() throws Exception {
+    batcher.deleteById(Collections.singletonList("1"), Commit.HARD);
+    batcher.add(Collections.singletonList(doc("1")), Commit.WITHIN);
+
+    assertThat(requests.size(), is(2));
+    assertThat(requests.get(0).getDeleteById(), contains("1"));
+    assertThat(requests.get(0).getDocuments(), is(nullValue()));
+    assertThat(requests.get(1).getDeleteById(), is(nullValue()));
+    assertThat(requests.get(1).getCommitWithin(), is(1000));
+  }
+
+  @Test
+  public void testCommitWithinGrowsWithIngestRate() throws Exception {
+    List<SolrInputDocument> docs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      docs.add(doc(String.valueOf(i)));
+    }
+    for (int i = 0; i < 20; i++) {
+      batcher.add(docs, Commit.WITHIN);
+    }
+
+    assertThat(batcher.getCommitWithinMs(), is(5000));
+  }
+
+  private Void add(String id, Commit commit) throws Exception {
+    batcher.add(Collections.singletonList(doc(id)), commit);
+    return null;
+  }
+
+  private static SolrInputDocument doc(String id) {
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id_txt", id);
+    return doc;
+  }
+
+  private static List<String> ids(UpdateRequest request) {
+    if (request.getDocuments() == null) {
+      return Collections.emptyList();
+    }
+    return request
+        .getDocuments()
+        .stream()
+        .map(doc -> (String) doc.getFieldValue("id_txt"))
+        .collect(Collectors.toList());
+  }
+}
@@ -23,6 +23,7 @@
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.federation.FederationStrategy;
+import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.impl.operations.CreateOperations;
 import ddf.catalog.impl.operations.DeleteOperations;
 import ddf.catalog.impl.operations.QueryOperations;
@@ -291,6 +292,17 @@ public QueryResponse query(QueryRequest queryRequest, FederationStrategy strateg
     return queryOperations.query(queryRequest, strategy, fanoutEnabled);
   }
 
+  @Override
+  public QueryResponse queryByIds(
+      Set<String> ids,
+      Set<String> tags,
+      FilterBuilder filterBuilder,
+      Map<String, Serializable> properties)
+      throws UnsupportedQueryException, SourceUnavailableException, FederationException {
+    // Batches the ids and builds the queries with the filter builder of the framework
+    return queryOperations.queryByIds(ids, tags, properties, fanoutEnabled);
+  }
+
   @Override
   public BinaryContent transform(
       Metacard metacard, String transformerShortname, Map<String, Serializable> arguments)
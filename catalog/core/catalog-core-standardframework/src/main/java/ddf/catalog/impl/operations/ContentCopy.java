@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+/**
+ * Copies incoming content to a file in a single pass. While the bytes go by, the copy computes what
+ * later ingest steps would otherwise read the file again for: the size of the content, its Adler32
+ * checksum, and its leading bytes, from which the mime type can be detected.
+ */
+class ContentCopy {
+
+  static final String CHECKSUM_ALGORITHM = "Adler32";
+
+  /** Number of leading bytes kept, which covers the magic of every type Tika detects. */
+  static final int HEAD_SIZE = 64 * 1024;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final long size;
+
+  private final String checksum;
+
+  private final byte[] head;
+
+  private ContentCopy(long size, String checksum, byte[] head) {
+    this.size = size;
+    this.checksum = checksum;
+    this.head = head;
+  }
+
+  /**
+   * Copies the stream to the file, replacing its contents. The stream is not closed.
+   *
+   * @param inputStream content to copy
+   * @param target file to copy the content to
+   * @return the facts gathered about the content
+   * @throws IOException if the stream could not be read or the file could not be written
+   */
+  static ContentCopy copy(InputStream inputStream, Path target) throws IOException {
+    Adler32 adler32 = new Adler32();
+    byte[] head = new byte[HEAD_SIZE];
+    int headLength = 0;
+    long size = 0;
+
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (OutputStream outputStream = Files.newOutputStream(target)) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        if (headLength < head.length) {
+          int headBytes = Math.min(read, head.length - headLength);
+          System.arraycopy(buffer, 0, head, headLength, headBytes);
+          headLength += headBytes;
+        }
+        adler32.update(buffer, 0, read);
+        outputStream.write(buffer, 0, read);
+        size += read;
+      }
+    }
+
+    return new ContentCopy(
+        size, Long.toHexString(adler32.getValue()), Arrays.copyOf(head, headLength));
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  /** @return the checksum of the content, in the format of the Adler32 checksum provider */
+  String getChecksum() {
+    return checksum;
+  }
+
+  /** @return a stream over the first {@link #HEAD_SIZE} bytes of the content */
+  InputStream openHead() {
+    return new ByteArrayInputStream(head);
+  }
+
+  /** @return whether the leading bytes are the whole content */
+  boolean isHeadComplete() {
+    return head.length == size;
+  }
+}
@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
 import static ddf.catalog.Constants.CONTENT_PATHS;
 
 import ddf.catalog.Constants;
@@ -128,6 +129,7 @@ public CreateResponse create(
     Map<String, Metacard> metacardMap = new HashMap<>();
     List<ContentItem> contentItems = new ArrayList<>(streamCreateRequest.getContentItems().size());
     HashMap<String, Map<String, Path>> tmpContentPaths = new HashMap<>();
+    HashMap<String, Map<String, String>> contentChecksums = new HashMap<>();
 
     CreateResponse createResponse = null;
     CreateStorageRequest createStorageRequest = null;
@@ -137,9 +139,13 @@ public CreateResponse create(
         opsStorageSupport.prepareStorageRequest(
             streamCreateRequest, streamCreateRequest::getContentItems);
 
-    // Operation populates the metacardMap, contentItems, and tmpContentPaths
+    // Operation populates the metacardMap, contentItems, tmpContentPaths and contentChecksums
     opsMetacardSupport.generateMetacardAndContentItems(
-        streamCreateRequest.getContentItems(), metacardMap, contentItems, tmpContentPaths);
+        streamCreateRequest.getContentItems(),
+        metacardMap,
+        contentItems,
+        tmpContentPaths,
+        contentChecksums);
 
     if (blockCreateMetacards(metacardMap.values(), fanoutTagBlacklist)) {
       String message =
@@ -149,6 +155,7 @@ public CreateResponse create(
     }
 
     streamCreateRequest.getProperties().put(CONTENT_PATHS, tmpContentPaths);
+    streamCreateRequest.getProperties().put(CONTENT_CHECKSUMS, contentChecksums);
 
     injectAttributes(metacardMap);
     setDefaultValues(metacardMap);
@@ -159,7 +166,8 @@ public CreateResponse create(
         createStorageRequest =
             new CreateStorageRequestImpl(
                 contentItems, streamCreateRequest.getId(), streamCreateRequest.getProperties());
-        createStorageRequest = processPreCreateStoragePlugins(createStorageRequest);
+        createStorageRequest =
+            processPreCreateStoragePlugins(createStorageRequest, contentChecksums);
 
         try {
           createStorageResponse = sourceOperations.getStorage().create(createStorageRequest);
@@ -600,13 +608,17 @@ private CreateStorageResponse processPostCreateStoragePlugins(
   }
 
   private CreateStorageRequest processPreCreateStoragePlugins(
-      CreateStorageRequest createStorageRequest) {
+      CreateStorageRequest createStorageRequest,
+      Map<String, Map<String, String>> contentChecksums) {
+    PrecomputedChecksums precomputedChecksums =
+        new PrecomputedChecksums(createStorageRequest.getContentItems(), contentChecksums);
     for (final PreCreateStoragePlugin plugin : frameworkProperties.getPreCreateStoragePlugins()) {
       try {
         createStorageRequest = plugin.process(createStorageRequest);
       } catch (PluginExecutionException e) {
         LOGGER.debug("Plugin processing failed. This is allowable. Skipping to next plugin.", e);
       }
+      precomputedChecksums.discardChanged(createStorageRequest.getContentItems());
     }
     return createStorageRequest;
   }
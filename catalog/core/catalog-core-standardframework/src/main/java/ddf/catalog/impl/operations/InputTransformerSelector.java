@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ddf.catalog.transform.InputTransformer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.activation.MimeType;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Learns which {@link InputTransformer}s fail on which kind of content, so that {@link
+ * MetacardFactory} stops spending time on them. Content is told apart by its detected mime type
+ * and, for XML, by its root element. Both come from small sets of values, so the number of kinds of
+ * content stays well within what is kept.
+ *
+ * <p>A transformer whose attempts on a kind of content are overwhelmingly failures is tried after
+ * all other candidates for that content, so it is skipped whenever another transformer succeeds.
+ * Only a sample of at least {@link #MINIMUM_ATTEMPTS} attempts is judged, and a transformer that
+ * succeeds more than once every {@link #FAILURES_PER_SUCCESS} failures keeps its place, so a few
+ * malformed files do not hand the valid ones of the same kind over to a catch-all transformer. The
+ * relative order of the other candidates is left untouched, which keeps the transformer that
+ * creates the metacard the same as when every candidate is tried. Known failures are tried in their
+ * usual place again once they have not failed for a while, so that updated transformers get another
+ * chance.
+ */
+public class InputTransformerSelector implements InputTransformerSelectorMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InputTransformerSelector.class);
+
+  /** Number of bytes looked at to find the root element of XML content. */
+  static final int SIGNATURE_BYTES = 8 * 1024;
+
+  /** Number of attempts on a kind of content needed before a transformer may be tried last. */
+  static final int MINIMUM_ATTEMPTS = 10;
+
+  /** Number of failures for each success above which a transformer is tried last. */
+  static final int FAILURES_PER_SUCCESS = 20;
+
+  private static final long RETRY_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final int MAXIMUM_CONTENT_KINDS = 1024;
+
+  private final Cache<String, ConcurrentMap<String, TransformerStatistics>> statistics =
+      CacheBuilder.newBuilder().maximumSize(MAXIMUM_CONTENT_KINDS).build();
+
+  private final AtomicLong failureNanos = new AtomicLong();
+
+  private ObjectName objectName;
+
+  public void init() {
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      objectName = new ObjectName(OBJECT_NAME);
+      try {
+        mbeanServer.registerMBean(
+            new StandardMBean(this, InputTransformerSelectorMBean.class), objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        LOGGER.debug("Re-registering input transformer statistics MBean");
+        mbeanServer.unregisterMBean(objectName);
+        mbeanServer.registerMBean(
+            new StandardMBean(this, InputTransformerSelectorMBean.class), objectName);
+      }
+    } catch (MalformedObjectNameException
+        | InstanceAlreadyExistsException
+        | InstanceNotFoundException
+        | MBeanRegistrationException
+        | NotCompliantMBeanException e) {
+      LOGGER.info("Could not register input transformer statistics MBean.", e);
+    }
+  }
+
+  public void destroy() {
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+      LOGGER.debug("Could not unregister input transformer statistics MBean.", e);
+    }
+  }
+
+  /**
+   * Describes the kind of content that is about to be transformed.
+   *
+   * @param mimeType detected mime type of the content
+   * @param content stream over the start of the content; at most {@link #SIGNATURE_BYTES} are read
+   * @return the key under which outcomes for this kind of content are recorded
+   * @throws IOException if the content could not be read
+   */
+  String contentKey(MimeType mimeType, InputStream content) throws IOException {
+    byte[] head = new byte[SIGNATURE_BYTES];
+    int length = 0;
+    int read;
+    while (length < head.length && (read = content.read(head, length, head.length - length)) > 0) {
+      length += read;
+    }
+    String rootElement = rootElement(head, length);
+    return rootElement == null
+        ? mimeType.getBaseType()
+        : mimeType.getBaseType() + "|<" + rootElement + '>';
+  }
+
+  /**
+   * Orders the candidate transformers for a kind of content, moving the transformers that almost
+   * always fail on it to the end.
+   */
+  List<InputTransformer> order(String contentKey, List<InputTransformer> candidates) {
+    Map<String, TransformerStatistics> contentStatistics = statistics.getIfPresent(contentKey);
+    if (contentStatistics == null) {
+      return candidates;
+    }
+
+    long now = System.currentTimeMillis();
+    List<InputTransformer> ordered = new ArrayList<>(candidates.size());
+    List<InputTransformer> knownFailures = new ArrayList<>();
+    for (InputTransformer candidate : candidates) {
+      TransformerStatistics transformerStatistics = contentStatistics.get(name(candidate));
+      if (transformerStatistics != null && transformerStatistics.isKnownFailure(now)) {
+        knownFailures.add(candidate);
+      } else {
+        ordered.add(candidate);
+      }
+    }
+    if (!knownFailures.isEmpty()) {
+      LOGGER.debug("Trying transformers {} last for content [{}]", knownFailures, contentKey);
+      ordered.addAll(knownFailures);
+    }
+    return ordered;
+  }
+
+  void recordSuccess(String contentKey, InputTransformer transformer, long nanos) {
+    TransformerStatistics transformerStatistics = statistics(contentKey, transformer);
+    transformerStatistics.successes.incrementAndGet();
+    transformerStatistics.successNanos.addAndGet(nanos);
+  }
+
+  void recordFailure(String contentKey, InputTransformer transformer, long nanos) {
+    TransformerStatistics transformerStatistics = statistics(contentKey, transformer);
+    transformerStatistics.failures.incrementAndGet();
+    transformerStatistics.failureNanos.addAndGet(nanos);
+    transformerStatistics.lastFailureMillis = System.currentTimeMillis();
+    failureNanos.addAndGet(nanos);
+  }
+
+  @Override
+  public List<Map<String, Object>> transformerStatistics() {
+    long now = System.currentTimeMillis();
+    List<Map<String, Object>> result = new ArrayList<>();
+    for (Map.Entry<String, ConcurrentMap<String, TransformerStatistics>> content :
+        statistics.asMap().entrySet()) {
+      for (Map.Entry<String, TransformerStatistics> transformer : content.getValue().entrySet()) {
+        TransformerStatistics transformerStatistics = transformer.getValue();
+        Map<String, Object> row = new HashMap<>();
+        row.put("content", content.getKey());
+        row.put("transformer", transformer.getKey());
+        row.put("successes", transformerStatistics.successes.get());
+        row.put("failures", transformerStatistics.failures.get());
+        row.put("skipped", transformerStatistics.isKnownFailure(now));
+        row.put("successMillis", toMillis(transformerStatistics.successNanos.get()));
+        row.put("failureMillis", toMillis(transformerStatistics.failureNanos.get()));
+        result.add(row);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public long getFailureMillis() {
+    return toMillis(failureNanos.get());
+  }
+
+  @Override
+  public void resetStatistics() {
+    statistics.invalidateAll();
+    failureNanos.set(0);
+  }
+
+  private TransformerStatistics statistics(String contentKey, InputTransformer transformer) {
+    ConcurrentMap<String, TransformerStatistics> contentStatistics =
+        statistics.asMap().computeIfAbsent(contentKey, key -> new ConcurrentHashMap<>());
+    return contentStatistics.computeIfAbsent(
+        name(transformer), name -> new TransformerStatistics());
+  }
+
+  /**
+   * Names a transformer instance. Several instances of the same class may be registered with
+   * different configurations, so the identity of the instance is part of the name.
+   */
+  private static String name(InputTransformer transformer) {
+    return transformer.getClass().getName()
+        + '@'
+        + Integer.toHexString(System.identityHashCode(transformer));
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  /** Returns the root element of XML content, or null if the content does not look like XML. */
+  static String rootElement(byte[] head, int length) {
+    String text = new String(head, 0, length, StandardCharsets.ISO_8859_1);
+    int start = skipByteOrderMarkAndWhitespace(text);
+    if (start < text.length() && text.charAt(start) == '<') {
+      return rootElement(text, start);
+    }
+    return null;
+  }
+
+  private static int skipByteOrderMarkAndWhitespace(String text) {
+    int index = text.startsWith("\u00ef\u00bb\u00bf") ? 3 : 0;
+    while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  /** Finds the name of the first element, skipping the XML declaration, comments and doctype. */
+  private static String rootElement(String text, int start) {
+    int index = start;
+    while (index >= 0 && index < text.length()) {
+      index = text.indexOf('<', index);
+      if (index < 0 || index + 1 >= text.length()) {
+        return null;
+      }
+      if (text.startsWith("<!--", index)) {
+        index = text.indexOf("-->", index);
+      } else if (text.charAt(index + 1) == '?' || text.charAt(index + 1) == '!') {
+        index = text.indexOf('>', index);
+      } else {
+        int end = index + 1;
+        while (end < text.length() && isNameCharacter(text.charAt(end))) {
+          end++;
+        }
+        return end > index + 1 && end < text.length() ? text.substring(index + 1, end) : null;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isNameCharacter(char c) {
+    return Character.isLetterOrDigit(c) || c == ':' || c == '_' || c == '-' || c == '.';
+  }
+
+  private static class TransformerStatistics {
+
+    private final AtomicLong successes = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong successNanos = new AtomicLong();
+
+    private final AtomicLong failureNanos = new AtomicLong();
+
+    private volatile long lastFailureMillis;
+
+    private boolean isKnownFailure(long now) {
+      long successCount = successes.get();
+      long failureCount = failures.get();
+      return successCount + failureCount >= MINIMUM_ATTEMPTS
+          && failureCount > successCount * FAILURES_PER_SUCCESS
+          && now - lastFailureMillis < RETRY_INTERVAL_MILLIS;
+    }
+  }
+}
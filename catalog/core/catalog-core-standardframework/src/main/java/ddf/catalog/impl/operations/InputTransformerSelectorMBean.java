@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import java.util.List;
+import java.util.Map;
+
+/** Exposes the statistics {@link InputTransformerSelector} keeps about input transformers. */
+public interface InputTransformerSelectorMBean {
+
+  String OBJECT_NAME = "ddf.catalog.impl.operations.InputTransformerSelector:service=stats";
+
+  /**
+   * Returns the outcome of the transformers tried for each kind of content, as maps with the
+   * following keys: {@code content} (mime type of the content and, for XML, its root element),
+   * {@code transformer}, {@code successes}, {@code failures}, {@code skipped} (whether the
+   * transformer is currently tried last for that content), {@code successMillis} and {@code
+   * failureMillis} (total time spent in successful and failed attempts).
+   *
+   * @return the statistics of each kind of content and transformer
+   */
+  List<Map<String, Object>> transformerStatistics();
+
+  /** @return the total time, in milliseconds, spent in transformers that failed */
+  long getFailureMillis();
+
+  /** Forgets all statistics, so that every transformer is tried again in its usual order. */
+  void resetStatistics();
+}
@@ -21,12 +21,14 @@
 import ddf.mime.MimeTypeToTransformerMapper;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.codice.ddf.platform.util.uuidgenerator.UuidGenerator;
@@ -50,14 +52,34 @@ public class MetacardFactory {
 
   private UuidGenerator uuidGenerator;
 
+  private InputTransformerSelector transformerSelector = new InputTransformerSelector();
+
   public MetacardFactory(
       MimeTypeToTransformerMapper mimeTypeToTransformerMapper, UuidGenerator uuidGenerator) {
     this.mimeTypeToTransformerMapper = mimeTypeToTransformerMapper;
     this.uuidGenerator = uuidGenerator;
   }
 
+  public void setTransformerSelector(InputTransformerSelector transformerSelector) {
+    this.transformerSelector = transformerSelector;
+  }
+
   Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Path tmpContentPath)
       throws MetacardCreationException, MimeTypeParseException {
+    return generateMetacard(mimeTypeRaw, id, fileName, tmpContentPath, null);
+  }
+
+  /**
+   * @param contentCopy the copy of the content made to {@code tmpContentPath}, whose leading bytes
+   *     are used to tell the kind of content apart, or null to read them from the file
+   */
+  Metacard generateMetacard(
+      String mimeTypeRaw,
+      String id,
+      String fileName,
+      Path tmpContentPath,
+      @Nullable ContentCopy contentCopy)
+      throws MetacardCreationException, MimeTypeParseException {
 
     Metacard generatedMetacard = null;
 
@@ -69,7 +91,13 @@ Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Path t
 
     LOGGER.debug("List of matches for mimeType [{}]: {}", mimeType, listOfCandidates);
 
+    String contentKey = contentKey(mimeType, fileName, tmpContentPath, contentCopy);
+    if (contentKey != null) {
+      listOfCandidates = transformerSelector.order(contentKey, listOfCandidates);
+    }
+
     for (InputTransformer candidate : listOfCandidates) {
+      long start = System.nanoTime();
       try (InputStream transformerStream =
           com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream()) {
         generatedMetacard = candidate.transform(transformerStream);
@@ -79,6 +107,14 @@ Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Path t
         stackTraceList.addAll(stackTraces);
         LOGGER.debug("Transformer [{}] could not create metacard.", candidate, e);
       }
+      if (contentKey != null) {
+        long elapsed = System.nanoTime() - start;
+        if (generatedMetacard != null) {
+          transformerSelector.recordSuccess(contentKey, candidate, elapsed);
+        } else {
+          transformerSelector.recordFailure(contentKey, candidate, elapsed);
+        }
+      }
       if (generatedMetacard != null) {
         break;
       }
@@ -103,4 +139,15 @@ Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Path t
 
     return generatedMetacard;
   }
+
+  private String contentKey(
+      MimeType mimeType, String fileName, Path tmpContentPath, ContentCopy contentCopy) {
+    try (InputStream head =
+        contentCopy != null ? contentCopy.openHead() : Files.newInputStream(tmpContentPath)) {
+      return transformerSelector.contentKey(mimeType, head);
+    } catch (IOException e) {
+      LOGGER.debug("Could not read the start of [{}]; trying all transformers.", fileName, e);
+      return null;
+    }
+  }
 }
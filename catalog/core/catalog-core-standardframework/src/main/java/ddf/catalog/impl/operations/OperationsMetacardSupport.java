@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.data.impl.ContentItemImpl;
 import ddf.catalog.data.Attribute;
@@ -32,19 +33,29 @@
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.apache.tika.detect.DefaultProbDetector;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.codice.ddf.platform.util.InputValidation;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +69,10 @@
 public class OperationsMetacardSupport {
   private static final Logger LOGGER = LoggerFactory.getLogger(OperationsMetacardSupport.class);
 
+  private static final int DEFAULT_INGEST_THREAD_POOL_SIZE = 4;
+
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
   //
   // Injected properties
   //
@@ -65,12 +80,62 @@ public class OperationsMetacardSupport {
 
   private final MetacardFactory metacardFactory;
 
+  private volatile int ingestThreadPoolSize = DEFAULT_INGEST_THREAD_POOL_SIZE;
+
+  private ThreadPoolExecutor ingestExecutor;
+
   public OperationsMetacardSupport(
       FrameworkProperties frameworkProperties, MetacardFactory metacardFactory) {
     this.frameworkProperties = frameworkProperties;
     this.metacardFactory = metacardFactory;
   }
 
+  /**
+   * Sets the number of content items of a request that are processed concurrently. A size of 1
+   * processes the items one after another on the requesting thread.
+   *
+   * @param ingestThreadPoolSize maximum number of threads processing content items
+   */
+  public synchronized void setIngestThreadPoolSize(int ingestThreadPoolSize) {
+    this.ingestThreadPoolSize = Math.max(1, ingestThreadPoolSize);
+    if (ingestExecutor != null) {
+      if (this.ingestThreadPoolSize > ingestExecutor.getMaximumPoolSize()) {
+        ingestExecutor.setMaximumPoolSize(this.ingestThreadPoolSize);
+        ingestExecutor.setCorePoolSize(this.ingestThreadPoolSize);
+      } else {
+        ingestExecutor.setCorePoolSize(this.ingestThreadPoolSize);
+        ingestExecutor.setMaximumPoolSize(this.ingestThreadPoolSize);
+      }
+    }
+  }
+
+  public void destroy() {
+    ExecutorService executor;
+    synchronized (this) {
+      executor = ingestExecutor;
+      ingestExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  private synchronized ExecutorService getIngestExecutor() {
+    if (ingestExecutor == null) {
+      // threads only live while there is content to process
+      ingestExecutor =
+          new ThreadPoolExecutor(
+              ingestThreadPoolSize,
+              ingestThreadPoolSize,
+              IDLE_THREAD_TIMEOUT_SECONDS,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              StandardThreadFactoryBuilder.newThreadFactory("ingestThread"));
+      ingestExecutor.allowCoreThreadTimeOut(true);
+    }
+    return ingestExecutor;
+  }
+
   /**
    * Processes input metacard, injecting attributes as defined by the {@code injectors}.
    *
@@ -92,90 +157,176 @@ void generateMetacardAndContentItems(
       List<ContentItem> contentItems,
       Map<String, Map<String, Path>> tmpContentPaths)
       throws IngestException {
-    for (ContentItem contentItem : incomingContentItems) {
-      try {
-        Path tmpPath = null;
-        String fileName;
-        long size;
-        try (InputStream inputStream = contentItem.getInputStream()) {
-          fileName = contentItem.getFilename();
-          if (inputStream == null) {
-            throw new IngestException(
-                "Could not copy bytes of content message.  Message was NULL.");
-          }
+    generateMetacardAndContentItems(
+        incomingContentItems, metacardMap, contentItems, tmpContentPaths, new HashMap<>());
+  }
 
-          if (!InputValidation.isFileNameClientSideSafe(fileName)) {
-            throw new IngestException("Ignored filename found.");
-          }
+  /**
+   * Copies the content of the incoming items to temporary files and generates their metacards. The
+   * content is read from the incoming stream only once: its checksum and the bytes used to detect
+   * its mime type are gathered while it is copied.
+   *
+   * <p>The items of a request are processed concurrently on the ingest thread pool. The results are
+   * added in the order of the incoming items, and if any item fails the whole request fails once
+   * every item has completed, with none of the temporary files left behind.
+   *
+   * @param incomingContentItems the content items of the request
+   * @param metacardMap populated with the generated metacards, by metacard id
+   * @param contentItems populated with content items backed by the temporary files
+   * @param tmpContentPaths populated with the temporary files, by content item id and qualifier
+   * @param contentChecksums populated with the checksum of each unqualified content item, by
+   *     content item id and checksum algorithm
+   * @throws IngestException if the content could not be copied or no metacard could be generated
+   */
+  void generateMetacardAndContentItems(
+      List<ContentItem> incomingContentItems,
+      Map<String, Metacard> metacardMap,
+      List<ContentItem> contentItems,
+      Map<String, Map<String, Path>> tmpContentPaths,
+      Map<String, Map<String, String>> contentChecksums)
+      throws IngestException {
+    List<GeneratedContent> generatedContents = generateContents(incomingContentItems);
 
-          String sanitizedFilename = InputValidation.sanitizeFilename(fileName);
-          tmpPath =
-              Files.createTempFile(
-                  FilenameUtils.getBaseName(sanitizedFilename),
-                  FilenameUtils.getExtension(sanitizedFilename));
-          Files.copy(inputStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
-          size = Files.size(tmpPath);
-
-          final String key = contentItem.getId();
-          Map<String, Path> pathAndQualifiers = tmpContentPaths.get(key);
-
-          if (pathAndQualifiers == null) {
-            pathAndQualifiers = new HashMap<>();
-            pathAndQualifiers.put(contentItem.getQualifier(), tmpPath);
-            tmpContentPaths.put(key, pathAndQualifiers);
-          } else {
-            pathAndQualifiers.put(contentItem.getQualifier(), tmpPath);
-          }
+    for (GeneratedContent generatedContent : generatedContents) {
+      ContentItem generatedContentItem = generatedContent.contentItem;
+      Metacard metacard = generatedContentItem.getMetacard();
+      metacardMap.put(metacard.getId(), metacard);
+      contentItems.add(generatedContentItem);
+      tmpContentPaths
+          .computeIfAbsent(generatedContent.key, key -> new HashMap<>())
+          .put(generatedContent.qualifier, generatedContent.tmpPath);
+      if (generatedContent.checksum != null) {
+        Map<String, String> checksums = new HashMap<>();
+        checksums.put(ContentCopy.CHECKSUM_ALGORITHM, generatedContent.checksum);
+        contentChecksums.put(generatedContentItem.getId(), checksums);
+      }
+    }
+  }
 
-        } catch (IOException e) {
-          if (tmpPath != null) {
-            FileUtils.deleteQuietly(tmpPath.toFile());
-          }
-          throw new IngestException("Could not copy bytes of content message.", e);
+  private List<GeneratedContent> generateContents(List<ContentItem> incomingContentItems)
+      throws IngestException {
+    List<GeneratedContent> generatedContents = new ArrayList<>(incomingContentItems.size());
+    if (incomingContentItems.size() < 2 || ingestThreadPoolSize < 2) {
+      for (ContentItem contentItem : incomingContentItems) {
+        try {
+          generatedContents.add(generateContent(contentItem));
+        } catch (IngestException e) {
+          deleteTmpFiles(generatedContents);
+          throw e;
         }
-        String mimeTypeRaw = contentItem.getMimeTypeRawData();
-        mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath);
+      }
+      return generatedContents;
+    }
 
-        if (!InputValidation.isMimeTypeClientSideSafe(mimeTypeRaw)) {
-          throw new IngestException("Unsupported mime type.");
-        }
+    List<Future<GeneratedContent>> futures = new ArrayList<>(incomingContentItems.size());
+    Subject subject = ThreadContext.getSubject();
+    for (ContentItem contentItem : incomingContentItems) {
+      Callable<GeneratedContent> task = () -> generateContent(contentItem);
+      futures.add(getIngestExecutor().submit(subject != null ? subject.associateWith(task) : task));
+    }
 
-        // If any sanitization was done, rename file name to sanitized file name.
-        if (!InputValidation.sanitizeFilename(fileName).equals(fileName)) {
-          fileName = InputValidation.sanitizeFilename(fileName);
+    // wait for every item, even after a failure, so that no temporary file is left behind
+    IngestException failure = null;
+    for (Future<GeneratedContent> future : futures) {
+      try {
+        generatedContents.add(Uninterruptibles.getUninterruptibly(future));
+      } catch (ExecutionException e) {
+        IngestException itemFailure =
+            e.getCause() instanceof IngestException
+                ? (IngestException) e.getCause()
+                : new IngestException("Could not create metacard.", e.getCause());
+        if (failure == null) {
+          failure = itemFailure;
         } else {
-          fileName = updateFileExtension(mimeTypeRaw, fileName);
+          failure.addSuppressed(itemFailure);
         }
+      }
+    }
 
-        Metacard metacard;
-        boolean qualifiedContent = StringUtils.isNotEmpty(contentItem.getQualifier());
-        if (qualifiedContent) {
-          metacard = contentItem.getMetacard();
-        } else {
-          metacard =
-              metacardFactory.generateMetacard(mimeTypeRaw, contentItem.getId(), fileName, tmpPath);
+    if (failure != null) {
+      deleteTmpFiles(generatedContents);
+      throw failure;
+    }
+    return generatedContents;
+  }
+
+  private void deleteTmpFiles(List<GeneratedContent> generatedContents) {
+    generatedContents.forEach(content -> FileUtils.deleteQuietly(content.tmpPath.toFile()));
+  }
+
+  /**
+   * Copies the content of a single item to a temporary file and generates its metacard. The
+   * temporary file is deleted if the metacard cannot be generated.
+   */
+  private GeneratedContent generateContent(ContentItem contentItem) throws IngestException {
+    Path tmpPath = null;
+    try {
+      String fileName;
+      ContentCopy contentCopy;
+      try (InputStream inputStream = contentItem.getInputStream()) {
+        fileName = contentItem.getFilename();
+        if (inputStream == null) {
+          throw new IngestException("Could not copy bytes of content message.  Message was NULL.");
         }
-        metacardMap.put(metacard.getId(), metacard);
-
-        ContentItem generatedContentItem =
-            new ContentItemImpl(
-                metacard.getId(),
-                qualifiedContent ? contentItem.getQualifier() : "",
-                com.google.common.io.Files.asByteSource(tmpPath.toFile()),
-                mimeTypeRaw,
-                fileName,
-                size,
-                metacard);
-        contentItems.add(generatedContentItem);
-      } catch (Exception e) {
-        tmpContentPaths
-            .values()
-            .stream()
-            .flatMap(id -> id.values().stream())
-            .forEach(path -> FileUtils.deleteQuietly(path.toFile()));
-        tmpContentPaths.clear();
-        throw new IngestException("Could not create metacard.", e);
+
+        if (!InputValidation.isFileNameClientSideSafe(fileName)) {
+          throw new IngestException("Ignored filename found.");
+        }
+
+        String sanitizedFilename = InputValidation.sanitizeFilename(fileName);
+        tmpPath =
+            Files.createTempFile(
+                FilenameUtils.getBaseName(sanitizedFilename),
+                FilenameUtils.getExtension(sanitizedFilename));
+        contentCopy = ContentCopy.copy(inputStream, tmpPath);
+      } catch (IOException e) {
+        throw new IngestException("Could not copy bytes of content message.", e);
+      }
+      String mimeTypeRaw = contentItem.getMimeTypeRawData();
+      mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath, contentCopy);
+
+      if (!InputValidation.isMimeTypeClientSideSafe(mimeTypeRaw)) {
+        throw new IngestException("Unsupported mime type.");
       }
+
+      // If any sanitization was done, rename file name to sanitized file name.
+      if (!InputValidation.sanitizeFilename(fileName).equals(fileName)) {
+        fileName = InputValidation.sanitizeFilename(fileName);
+      } else {
+        fileName = updateFileExtension(mimeTypeRaw, fileName);
+      }
+
+      Metacard metacard;
+      boolean qualifiedContent = StringUtils.isNotEmpty(contentItem.getQualifier());
+      if (qualifiedContent) {
+        metacard = contentItem.getMetacard();
+      } else {
+        metacard =
+            metacardFactory.generateMetacard(
+                mimeTypeRaw, contentItem.getId(), fileName, tmpPath, contentCopy);
+      }
+
+      ContentItem generatedContentItem =
+          new ContentItemImpl(
+              metacard.getId(),
+              qualifiedContent ? contentItem.getQualifier() : "",
+              com.google.common.io.Files.asByteSource(tmpPath.toFile()),
+              mimeTypeRaw,
+              fileName,
+              contentCopy.getSize(),
+              metacard);
+
+      return new GeneratedContent(
+          contentItem.getId(),
+          contentItem.getQualifier(),
+          tmpPath,
+          generatedContentItem,
+          qualifiedContent ? null : contentCopy.getChecksum());
+    } catch (Exception e) {
+      if (tmpPath != null) {
+        FileUtils.deleteQuietly(tmpPath.toFile());
+      }
+      throw new IngestException("Could not create metacard.", e);
     }
   }
 
@@ -228,7 +379,8 @@ private String updateFileExtension(String mimeTypeRaw, String fileName) {
   }
 
   // package-private for unit testing
-  String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
+  String guessMimeType(
+      String mimeTypeRaw, String fileName, Path tmpContentPath, ContentCopy contentCopy)
       throws IOException {
     if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
       try (InputStream inputStreamMessageCopy =
@@ -245,7 +397,9 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
       }
       if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
         Detector detector = new DefaultProbDetector();
-        try (InputStream inputStreamMessageCopy = TikaInputStream.get(tmpContentPath)) {
+        // Detection only needs the leading bytes kept during the copy, so the content is not read
+        // from disk again
+        try (InputStream inputStreamMessageCopy = TikaInputStream.get(contentCopy.openHead())) {
           MediaType mediaType = detector.detect(inputStreamMessageCopy, new Metadata());
           mimeTypeRaw = mediaType.toString();
         } catch (IOException e) {
@@ -253,18 +407,13 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
         }
       }
       if (mimeTypeRaw.equals("text/plain")) {
-        try (InputStream inputStreamMessageCopy =
-                com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream();
-            BufferedReader bufferedReader =
-                new BufferedReader(
-                    new InputStreamReader(inputStreamMessageCopy, Charset.forName("UTF-8")))) {
-          String line =
-              bufferedReader
-                  .lines()
-                  .map(String::trim)
-                  .filter(StringUtils::isNotEmpty)
-                  .findFirst()
-                  .orElse("");
+        try {
+          String line = firstNonEmptyLine(contentCopy.openHead());
+          if (line.isEmpty() && !contentCopy.isHeadComplete()) {
+            line =
+                firstNonEmptyLine(
+                    com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream());
+          }
 
           if (line.startsWith("<")) {
             mimeTypeRaw = "text/xml";
@@ -278,4 +427,39 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
     }
     return mimeTypeRaw;
   }
+
+  private String firstNonEmptyLine(InputStream inputStream) throws IOException {
+    try (BufferedReader bufferedReader =
+        new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")))) {
+      return bufferedReader
+          .lines()
+          .map(String::trim)
+          .filter(StringUtils::isNotEmpty)
+          .findFirst()
+          .orElse("");
+    }
+  }
+
+  /** The temporary file and content item generated for one incoming content item. */
+  private static class GeneratedContent {
+
+    private final String key;
+
+    private final String qualifier;
+
+    private final Path tmpPath;
+
+    private final ContentItem contentItem;
+
+    private final String checksum;
+
+    private GeneratedContent(
+        String key, String qualifier, Path tmpPath, ContentItem contentItem, String checksum) {
+      this.key = key;
+      this.qualifier = qualifier;
+      this.tmpPath = tmpPath;
+      this.contentItem = contentItem;
+      this.checksum = checksum;
+    }
+  }
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import ddf.catalog.content.data.ContentItem;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Keeps the checksums computed while content was copied in step with the content items of a storage
+ * request. A pre-storage plugin may replace a content item or change its bytes, after which the
+ * checksum computed for the original content no longer holds. It is then discarded, so that the
+ * checksum plugin computes it again from the content that is stored.
+ */
+class PrecomputedChecksums {
+
+  private final Map<String, Map<String, String>> checksums;
+
+  private final Map<String, ContentItem> contentItems = new HashMap<>();
+
+  private final Map<String, Long> sizes = new HashMap<>();
+
+  /**
+   * @param contentItems the content items the checksums were computed for
+   * @param checksums the checksums by content item id and algorithm, which are discarded from
+   */
+  PrecomputedChecksums(List<ContentItem> contentItems, Map<String, Map<String, String>> checksums) {
+    this.checksums = checksums;
+    for (ContentItem contentItem : contentItems) {
+      if (isChecksummed(contentItem)) {
+        this.contentItems.put(contentItem.getId(), contentItem);
+        sizes.put(contentItem.getId(), sizeOf(contentItem));
+      }
+    }
+  }
+
+  /**
+   * Discards the checksums of the content items that were replaced or changed size.
+   *
+   * @param contentItems the content items of the request after a plugin ran
+   */
+  void discardChanged(List<ContentItem> contentItems) {
+    for (ContentItem contentItem : contentItems) {
+      String id = contentItem.getId();
+      if (isChecksummed(contentItem)
+          && (contentItem != this.contentItems.get(id) || sizeOf(contentItem) != sizes.get(id))) {
+        checksums.remove(id);
+      }
+    }
+  }
+
+  private boolean isChecksummed(ContentItem contentItem) {
+    return StringUtils.isEmpty(contentItem.getQualifier())
+        && checksums.containsKey(contentItem.getId());
+  }
+
+  private static long sizeOf(ContentItem contentItem) {
+    try {
+      return contentItem.getSize();
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+}
@@ -13,6 +13,8 @@
  */
 package ddf.catalog.impl.operations;
 
+import com.google.common.collect.Iterables;
+import ddf.catalog.CatalogFramework;
 import ddf.catalog.Constants;
 import ddf.catalog.core.versioning.DeletedMetacard;
 import ddf.catalog.core.versioning.MetacardVersion;
@@ -103,6 +105,12 @@ public class QueryOperations extends DescribableImpl {
 
   public static final Integer MAX_PAGE_SIZE = determineAndRetrieveMaxPageSize();
 
+  /**
+   * Number of ids looked up by each query of {@link #queryByIds}, which keeps the filters small
+   * enough for every catalog provider to turn into a single lookup.
+   */
+  static final int QUERY_BY_IDS_BATCH_SIZE = 200;
+
   private static final Supplier<Boolean> ZERO_PAGESIZE_COMPATIBILTY =
       () -> Boolean.valueOf(System.getProperty(ZERO_PAGESIZE_COMPATIBILITY_PROPERTY));
 
@@ -162,6 +170,56 @@ public QueryResponse query(
     return query(queryRequest, strategy, false, fanoutEnabled);
   }
 
+  /**
+   * Queries the local catalog for the metacards with the given ids and any of the given tags, in
+   * batches of {@link #QUERY_BY_IDS_BATCH_SIZE}. Each batch runs through {@link
+   * #query(QueryRequest, boolean)} so that all query plugins apply, but is neither sorted nor
+   * paged. An empty set of tags matches the metacards whatever their tags.
+   */
+  public QueryResponse queryByIds(
+      Set<String> ids,
+      Set<String> tags,
+      Map<String, Serializable> properties,
+      boolean fanoutEnabled)
+      throws UnsupportedQueryException, FederationException {
+    List<Result> results = new ArrayList<>(ids.size());
+    Set<ProcessingDetails> processingDetails = new HashSet<>();
+    Map<String, Serializable> responseProperties = new HashMap<>();
+    QueryRequest firstRequest = null;
+
+    for (List<String> batch : Iterables.partition(ids, QUERY_BY_IDS_BATCH_SIZE)) {
+      QueryRequest queryRequest =
+          new QueryRequestImpl(
+              new QueryImpl(
+                  CatalogFramework.queryByIdsFilter(
+                      batch, tags, frameworkProperties.getFilterBuilder()),
+                  1,
+                  batch.size(),
+                  null,
+                  false,
+                  0),
+              false,
+              null,
+              new HashMap<>(properties));
+      QueryResponse queryResponse = query(queryRequest, null, false, fanoutEnabled);
+
+      if (firstRequest == null) {
+        firstRequest = queryResponse.getRequest();
+        responseProperties.putAll(queryResponse.getProperties());
+      }
+      results.addAll(queryResponse.getResults());
+      processingDetails.addAll(queryResponse.getProcessingDetails());
+    }
+
+    if (firstRequest == null) {
+      firstRequest = new QueryRequestImpl(new QueryImpl(Filter.EXCLUDE), false, null, properties);
+    }
+    QueryResponseImpl queryResponse =
+        new QueryResponseImpl(firstRequest, results, true, results.size(), responseProperties);
+    queryResponse.setProcessingDetails(processingDetails);
+    return queryResponse;
+  }
+
   //
   // Helper methods
   //
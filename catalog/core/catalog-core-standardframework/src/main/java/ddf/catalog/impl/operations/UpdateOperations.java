@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import static ddf.catalog.Constants.CONTENT_CHECKSUMS;
 import static ddf.catalog.Constants.CONTENT_PATHS;
 
 import com.google.common.collect.Iterables;
@@ -157,6 +158,7 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
     Map<String, Metacard> metacardMap = new HashMap<>();
     List<ContentItem> contentItems = new ArrayList<>(streamUpdateRequest.getContentItems().size());
     HashMap<String, Map<String, Path>> tmpContentPaths = new HashMap<>();
+    HashMap<String, Map<String, String>> contentChecksums = new HashMap<>();
 
     UpdateResponse updateResponse = null;
     UpdateStorageRequest updateStorageRequest = null;
@@ -166,11 +168,16 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
         opsStorageSupport.prepareStorageRequest(
             streamUpdateRequest, streamUpdateRequest::getContentItems);
 
-    // Operation populates the metacardMap, contentItems, and tmpContentPaths
+    // Operation populates the metacardMap, contentItems, tmpContentPaths and contentChecksums
     opsMetacardSupport.generateMetacardAndContentItems(
-        streamUpdateRequest.getContentItems(), metacardMap, contentItems, tmpContentPaths);
+        streamUpdateRequest.getContentItems(),
+        metacardMap,
+        contentItems,
+        tmpContentPaths,
+        contentChecksums);
 
     streamUpdateRequest.getProperties().put(CONTENT_PATHS, tmpContentPaths);
+    streamUpdateRequest.getProperties().put(CONTENT_CHECKSUMS, contentChecksums);
 
     streamUpdateRequest = applyAttributeOverrides(streamUpdateRequest, metacardMap);
 
@@ -179,7 +186,8 @@ public UpdateResponse update(UpdateStorageRequest streamUpdateRequest)
         updateStorageRequest =
             new UpdateStorageRequestImpl(
                 contentItems, streamUpdateRequest.getId(), streamUpdateRequest.getProperties());
-        updateStorageRequest = processPreUpdateStoragePlugins(updateStorageRequest);
+        updateStorageRequest =
+            processPreUpdateStoragePlugins(updateStorageRequest, contentChecksums);
 
         try {
           updateStorageResponse = sourceOperations.getStorage().update(updateStorageRequest);
@@ -672,13 +680,17 @@ private UpdateStorageResponse processPostUpdateStoragePlugins(
   }
 
   private UpdateStorageRequest processPreUpdateStoragePlugins(
-      UpdateStorageRequest updateStorageRequest) {
+      UpdateStorageRequest updateStorageRequest,
+      Map<String, Map<String, String>> contentChecksums) {
+    PrecomputedChecksums precomputedChecksums =
+        new PrecomputedChecksums(updateStorageRequest.getContentItems(), contentChecksums);
     for (final PreUpdateStoragePlugin plugin : frameworkProperties.getPreUpdateStoragePlugins()) {
       try {
         updateStorageRequest = plugin.process(updateStorageRequest);
       } catch (PluginExecutionException e) {
         LOGGER.debug("Plugin processing failed. This is allowable. Skipping to next plugin.", e);
       }
+      precomputedChecksums.discardChanged(updateStorageRequest.getContentItems());
     }
     return updateStorageRequest;
   }
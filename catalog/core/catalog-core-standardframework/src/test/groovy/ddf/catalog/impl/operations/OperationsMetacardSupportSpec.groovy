@@ -195,6 +195,98 @@ class OperationsMetacardSupportSpec extends Specification {
         thrown(IngestException)
     }
 
+    def 'test generation of metacards and content for multiple items keeps request order'() {
+        setup:
+        def metacardMap = [:]
+        List<ContentItem> contentItems = []
+        Map<String, Map<String, Path>> contentPaths = [:]
+        Map<String, Map<String, String>> checksums = [:]
+        frameworkProperties.mimeTypeMapper.guessMimeType(_, _) >> { 'text/plain' }
+        def ids = (1..8).collect { "item${it}" as String }
+        def inputs = ids.collect { id ->
+            def item = Mock(ContentItem)
+            item.getFilename() >> "${id}.txt"
+            item.getInputStream() >> { new ByteArrayInputStream(id.bytes) }
+            item.getId() >> id
+            item.getMimeTypeRawData() >> 'application/octet-stream'
+            return item
+        }
+        def metacards = ids.collectEntries { id ->
+            def metacard = Mock(Metacard)
+            metacard.getId() >> id
+            [(id): metacard]
+        }
+        def localTransformer = Mock(InputTransformer)
+        localTransformer.transform(_) >> { InputStream stream -> metacards[stream.text] }
+        def localMapper = Mock(MimeTypeToTransformerMapper)
+        localMapper.findMatches(_, _) >> { [localTransformer] }
+        def support = new OperationsMetacardSupport(frameworkProperties,
+                new MetacardFactory(localMapper, uuidGenerator))
+        support.setIngestThreadPoolSize(4)
+
+        when:
+        support.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths,
+                checksums)
+
+        then:
+        contentItems*.id == ids
+        metacardMap.keySet() == ids as Set
+        contentPaths.keySet() == ids as Set
+        checksums.keySet() == ids as Set
+
+        cleanup:
+        contentPaths.values()*.values().flatten().each { Files.deleteIfExists(it) }
+        support.destroy()
+    }
+
+    def 'test generation of metacards and content for multiple items with one failure'() {
+        setup:
+        def metacardMap = [:]
+        List<ContentItem> contentItems = []
+        Map<String, Map<String, Path>> contentPaths = [:]
+        frameworkProperties.mimeTypeMapper.guessMimeType(_, _) >> { 'text/plain' }
+        def prefix = "failure${UUID.randomUUID()}"
+        def inputs = (1..4).collect { num ->
+            def item = Mock(ContentItem)
+            item.getFilename() >> "${prefix}${num}.txt"
+            item.getInputStream() >> { new ByteArrayInputStream("item${num}".bytes) }
+            item.getId() >> "item${num}"
+            item.getMimeTypeRawData() >> 'application/octet-stream'
+            return item
+        }
+        def transformed = Collections.synchronizedList([])
+        def localTransformer = Mock(InputTransformer)
+        localTransformer.transform(_) >> { InputStream stream ->
+            def content = stream.text
+            transformed << content
+            if (content == 'item3') {
+                throw new IOException()
+            }
+            return generatedMetacard
+        }
+        def localMapper = Mock(MimeTypeToTransformerMapper)
+        localMapper.findMatches(_, _) >> { [localTransformer] }
+        def localFactory = new MetacardFactory(localMapper, uuidGenerator)
+        def support = new OperationsMetacardSupport(frameworkProperties, localFactory)
+        support.setIngestThreadPoolSize(4)
+
+        when:
+        support.generateMetacardAndContentItems(inputs, metacardMap, contentItems, contentPaths)
+
+        then:
+        thrown(IngestException)
+        metacardMap.isEmpty()
+        contentItems.isEmpty()
+        contentPaths.isEmpty()
+        transformed.size() == 4
+        new File(System.getProperty('java.io.tmpdir')).list().findAll {
+            it.startsWith(prefix)
+        }.isEmpty()
+
+        cleanup:
+        support.destroy()
+    }
+
     def 'test set default values'() {
         setup:
         def attDescs = (1..4).collect { num ->
@@ -242,14 +334,26 @@ class OperationsMetacardSupportSpec extends Specification {
     def 'test multiple detector fall through'() {
         mimeTypeMapper.guessMimeType(_, _) >> null
         def tempFile = Files.createTempFile("test", "bin")
-        Files.write(tempFile.toAbsolutePath(), "test file content".getBytes())
+        def contentCopy = ContentCopy.copy(new ByteArrayInputStream("test file content".getBytes()), tempFile)
         when:
-        def mimeType = opsMetacard.guessMimeType(ContentItem.DEFAULT_MIME_TYPE, tempFile.getFileName().toString(), tempFile.toAbsolutePath())
+        def mimeType = opsMetacard.guessMimeType(ContentItem.DEFAULT_MIME_TYPE, tempFile.getFileName().toString(), tempFile.toAbsolutePath(), contentCopy)
         then:
         !ContentItem.DEFAULT_MIME_TYPE.equals(mimeType)
         "text/plain".equals(mimeType)
     }
 
+    def 'test detection of content larger than the leading bytes'() {
+        mimeTypeMapper.guessMimeType(_, _) >> null
+        def tempFile = Files.createTempFile("test", "bin")
+        def content = new byte[ContentCopy.HEAD_SIZE * 2]
+        System.arraycopy("%PDF-1.4\n".getBytes(), 0, content, 0, 9)
+        def contentCopy = ContentCopy.copy(new ByteArrayInputStream(content), tempFile)
+        when:
+        def mimeType = opsMetacard.guessMimeType(ContentItem.DEFAULT_MIME_TYPE, "test", tempFile, contentCopy)
+        then:
+        mimeType == "application/pdf"
+    }
+
     def 'test derived content does not have metacard generated'() {
         setup:
         def id = 'ABC123'
@@ -30,6 +30,7 @@ import ddf.catalog.operation.Query
 import ddf.catalog.operation.QueryRequest
 import ddf.catalog.operation.QueryResponse
 import ddf.catalog.operation.impl.QueryImpl
+import ddf.catalog.operation.impl.QueryResponseImpl
 import ddf.catalog.plugin.PolicyPlugin
 import ddf.catalog.plugin.PolicyResponse
 import ddf.catalog.source.CatalogProvider
@@ -826,6 +827,58 @@ class QueryOperationsSpec extends Specification {
 
     }
 
+    def 'query by ids queries the local catalog in batches'() {
+        setup:
+        frameworkProperties.filterBuilder = new GeotoolsFilterBuilder()
+        sourceOperations.isSourceAvailable(_) >> true
+        def ids = (1..450).collect { "id$it".toString() } as Set
+        def result = mockResult('id', SOURCE_ID)
+        def requests = []
+        frameworkProperties.federationStrategy.federate(_, _) >> { sources, QueryRequest request ->
+            requests << request
+            new QueryResponseImpl(request, [result], 1)
+        }
+
+        when:
+        def response = queryOperations.queryByIds(ids, [] as Set, [:], false)
+
+        then:
+        requests.size() == 3
+        requests*.query*.pageSize == [200, 200, 50]
+        requests.every { !it.enterprise && it.query.sortBy == null }
+        requests.every { it.query.toString().contains("[ metacard-tags is like * ]") }
+        response.results.size() == 3
+        response.hits == 3
+    }
+
+    def 'query by ids with tags only matches those tags'() {
+        setup:
+        frameworkProperties.filterBuilder = new GeotoolsFilterBuilder()
+        sourceOperations.isSourceAvailable(_) >> true
+        def requests = []
+        frameworkProperties.federationStrategy.federate(_, _) >> { sources, QueryRequest request ->
+            requests << request
+            new QueryResponseImpl(request, [], 0)
+        }
+
+        when:
+        queryOperations.queryByIds(['id'] as Set, ['workspace'] as Set, [:], false)
+
+        then:
+        requests.size() == 1
+        requests[0].query.toString().contains("[ metacard-tags is like workspace ]")
+        !requests[0].query.toString().contains("[ metacard-tags is like * ]")
+    }
+
+    def 'query by ids with no ids does not query'() {
+        when:
+        def response = queryOperations.queryByIds([] as Set, [] as Set, [:], false)
+
+        then:
+        0 * frameworkProperties.federationStrategy.federate(_, _)
+        response.results.isEmpty()
+    }
+
     private def mockCatalogProvider(def id) {
         def catProv = Mock(CatalogProvider)
         catProv.getId() >> { return id }
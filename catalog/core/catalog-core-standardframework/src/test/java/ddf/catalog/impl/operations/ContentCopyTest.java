@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.codice.ddf.checksum.impl.Adler32ChecksumProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentCopyTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testCopySmallContent() throws Exception {
+    byte[] content = "hello".getBytes("UTF-8");
+
+    ContentCopy contentCopy = copy(content);
+
+    assertThat(contentCopy.getSize(), is((long) content.length));
+    assertThat(contentCopy.isHeadComplete(), is(true));
+    assertThat(IOUtils.toByteArray(contentCopy.openHead()), is(content));
+    assertThat(contentCopy.getChecksum(), is(adler32(content)));
+  }
+
+  @Test
+  public void testCopyLargeContent() throws Exception {
+    byte[] content = new byte[ContentCopy.HEAD_SIZE * 3 + 17];
+    new Random(0).nextBytes(content);
+
+    Path target = temporaryFolder.newFile().toPath();
+    ContentCopy contentCopy = ContentCopy.copy(new ByteArrayInputStream(content), target);
+
+    assertThat(Files.readAllBytes(target), is(content));
+    assertThat(contentCopy.getSize(), is((long) content.length));
+    assertThat(contentCopy.isHeadComplete(), is(false));
+    assertThat(IOUtils.toByteArray(contentCopy.openHead()).length, is(ContentCopy.HEAD_SIZE));
+    assertThat(contentCopy.getChecksum(), is(adler32(content)));
+  }
+
+  @Test
+  public void testCopyEmptyContent() throws Exception {
+    ContentCopy contentCopy = copy(new byte[0]);
+
+    assertThat(contentCopy.getSize(), is(0L));
+    assertThat(contentCopy.isHeadComplete(), is(true));
+    assertThat(contentCopy.getChecksum(), is(adler32(new byte[0])));
+  }
+
+  private ContentCopy copy(byte[] content) throws IOException {
+    return ContentCopy.copy(new ByteArrayInputStream(content), temporaryFolder.newFile().toPath());
+  }
+
+  /** The framework's checksum must be the one the checksum plugin would have computed. */
+  private String adler32(byte[] content) throws Exception {
+    try (InputStream inputStream = new ByteArrayInputStream(content)) {
+      return new Adler32ChecksumProvider().calculateChecksum(inputStream);
+    }
+  }
+}
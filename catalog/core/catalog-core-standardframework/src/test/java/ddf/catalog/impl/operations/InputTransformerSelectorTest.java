@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import ddf.catalog.transform.InputTransformer;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import javax.activation.MimeType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InputTransformerSelectorTest {
+
+  private InputTransformerSelector selector;
+
+  private InputTransformer first;
+
+  private InputTransformer second;
+
+  private InputTransformer third;
+
+  @Before
+  public void setUp() {
+    selector = new InputTransformerSelector();
+    first = mock(InputTransformer.class);
+    second = mock(InputTransformer.class);
+    third = mock(InputTransformer.class);
+  }
+
+  @Test
+  public void testXmlContentKeyUsesRootElement() throws Exception {
+    String xml =
+        "<?xml version=\"1.0\"?>\n<!-- a comment -->\n<!DOCTYPE x>\n<csw:Record xmlns:csw=\"x\"/>";
+
+    assertThat(
+        key("text/xml; charset=UTF-8", xml.getBytes(StandardCharsets.UTF_8)),
+        is("text/xml|<csw:Record>"));
+  }
+
+  @Test
+  public void testBinaryContentKeyIsMimeType() throws Exception {
+    byte[] content = {(byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0, 1, 2, 3};
+    byte[] otherContent = {(byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe1, 4, 5, 6};
+
+    assertThat(key("image/jpeg", content), is("image/jpeg"));
+    assertThat(key("image/jpeg", otherContent), is("image/jpeg"));
+  }
+
+  @Test
+  public void testOrderUnchangedWithoutStatistics() {
+    List<InputTransformer> candidates = Arrays.asList(first, second, third);
+
+    assertThat(selector.order("key", candidates), contains(first, second, third));
+  }
+
+  @Test
+  public void testRepeatedFailuresAreTriedLast() {
+    recordFailures("key", first, InputTransformerSelector.MINIMUM_ATTEMPTS);
+    selector.recordSuccess("key", second, 10);
+
+    assertThat(
+        selector.order("key", Arrays.asList(first, second, third)), contains(second, third, first));
+    assertThat(
+        selector.order("other", Arrays.asList(first, second, third)),
+        contains(first, second, third));
+  }
+
+  @Test
+  public void testTransformerThatSucceededIsNotDemoted() {
+    recordFailures("key", first, InputTransformerSelector.MINIMUM_ATTEMPTS);
+    selector.recordSuccess("key", first, 10);
+
+    assertThat(
+        selector.order("key", Arrays.asList(first, second, third)), contains(first, second, third));
+  }
+
+  @Test
+  public void testTransformerThatRarelySucceedsIsDemoted() {
+    selector.recordSuccess("key", first, 10);
+    recordFailures("key", first, InputTransformerSelector.FAILURES_PER_SUCCESS + 1);
+
+    assertThat(
+        selector.order("key", Arrays.asList(first, second, third)), contains(second, third, first));
+  }
+
+  @Test
+  public void testFailuresBelowMinimumAttemptsAreNotDemoted() {
+    recordFailures("key", first, InputTransformerSelector.MINIMUM_ATTEMPTS - 1);
+
+    assertThat(selector.order("key", Arrays.asList(first, second)), contains(first, second));
+  }
+
+  @Test
+  public void testResetStatistics() {
+    selector.recordFailure("key", first, 2_000_000);
+    selector.recordFailure("key", first, 2_000_000);
+    assertThat(selector.transformerStatistics().isEmpty(), is(not(true)));
+    assertThat(selector.getFailureMillis(), is(4L));
+
+    selector.resetStatistics();
+
+    assertThat(selector.transformerStatistics().isEmpty(), is(true));
+    assertThat(selector.getFailureMillis(), is(0L));
+    assertThat(selector.order("key", Arrays.asList(first, second)), contains(first, second));
+  }
+
+  private void recordFailures(String contentKey, InputTransformer transformer, int count) {
+    for (int i = 0; i < count; i++) {
+      selector.recordFailure(contentKey, transformer, 10);
+    }
+  }
+
+  private String key(String mimeType, byte[] content) throws Exception {
+    return selector.contentKey(new MimeType(mimeType), new ByteArrayInputStream(content));
+  }
+}
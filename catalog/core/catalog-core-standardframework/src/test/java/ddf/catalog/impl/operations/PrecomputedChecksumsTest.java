@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.io.ByteSource;
+import ddf.catalog.content.data.ContentItem;
+import ddf.catalog.content.data.impl.ContentItemImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrecomputedChecksumsTest {
+
+  private static final String ID = "00000000000000000000000000000001";
+
+  private Map<String, Map<String, String>> checksums;
+
+  private ContentItem contentItem;
+
+  private PrecomputedChecksums precomputedChecksums;
+
+  @Before
+  public void setUp() {
+    checksums = new HashMap<>();
+    checksums.put(ID, Collections.singletonMap(ContentCopy.CHECKSUM_ALGORITHM, "5c801e6"));
+    contentItem = contentItem("hello");
+    precomputedChecksums =
+        new PrecomputedChecksums(Collections.singletonList(contentItem), checksums);
+  }
+
+  @Test
+  public void testUnchangedContentItemKeepsChecksum() {
+    precomputedChecksums.discardChanged(Collections.singletonList(contentItem));
+
+    assertThat(checksums, hasKey(ID));
+  }
+
+  @Test
+  public void testReplacedContentItemDiscardsChecksum() {
+    precomputedChecksums.discardChanged(Collections.singletonList(contentItem("jello")));
+
+    assertThat(checksums, not(hasKey(ID)));
+  }
+
+  @Test
+  public void testQualifiedContentItemKeepsChecksum() throws Exception {
+    List<ContentItem> contentItems =
+        Collections.singletonList(
+            new ContentItemImpl(
+                ID,
+                "thumbnail",
+                ByteSource.wrap(new byte[] {1, 2}),
+                "image/jpeg",
+                "thumbnail.jpg",
+                2,
+                contentItem.getMetacard()));
+
+    precomputedChecksums.discardChanged(contentItems);
+
+    assertThat(checksums, hasKey(ID));
+  }
+
+  private ContentItem contentItem(String content) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(ID);
+    return new ContentItemImpl(
+        ID,
+        ByteSource.wrap(content.getBytes()),
+        "text/plain",
+        "hello.txt",
+        content.length(),
+        metacard);
+  }
+}
@@ -0,0 +1,463 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.opensearch.source;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.source.UnsupportedQueryException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.StAXStreamBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads an Atom feed in a single pass over an {@link XMLStreamReader}. The metadata embedded in
+ * each entry is handed to a {@link MetacardParser} as a stream over the entry's elements, so
+ * neither the feed nor the embedded metadata has to be held in memory.
+ *
+ * <p>Entries are mapped to results the same way the ROME based parsing did: the metacards from the
+ * configured foreign markup come first, followed by the ones from the entry content.
+ */
+final class AtomFeedReader {
+
+  static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
+  static final String FEED = "feed";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AtomFeedReader.class);
+
+  /** Namespaces of the Dublin Core and Syndication modules, which ROME doesn't treat as markup. */
+  private static final Set<String> MODULE_NAMESPACES =
+      new HashSet<>(
+          Arrays.asList(
+              "http://purl.org/dc/elements/1.1/", "http://purl.org/rss/1.0/modules/syndication/"));
+
+  private static final String ENTRY = "entry";
+
+  private static final String ID = "id";
+
+  private static final String TITLE = "title";
+
+  private static final String CATEGORY = "category";
+
+  private static final String CONTENT = "content";
+
+  private static final String TERM = "term";
+
+  private static final String TYPE = "type";
+
+  private static final String SCORE = "score";
+
+  private static final String TOTAL_RESULTS = "totalResults";
+
+  /** Parses the metacard in a piece of embedded metadata. */
+  @FunctionalInterface
+  interface MetacardParser {
+    /**
+     * @param content the serialized metadata
+     * @param namespaceUri the namespace of the metadata's root element, or null if it is not known
+     * @param id the id of the entry the metadata belongs to
+     * @return the metacard, or null if it could not be parsed
+     */
+    @Nullable
+    Metacard parse(InputStream content, @Nullable String namespaceUri, @Nullable String id)
+        throws UnsupportedQueryException;
+  }
+
+  private final Collection<String> markUpSet;
+
+  private final String sourceId;
+
+  private final MetacardParser metacardParser;
+
+  /**
+   * @param markUpSet names of the entry foreign markup elements that contain metacards
+   * @param sourceId the source id set on the metacards from the entry content
+   * @param metacardParser parses the embedded metadata
+   */
+  AtomFeedReader(
+      @Nullable Collection<String> markUpSet, String sourceId, MetacardParser metacardParser) {
+    this.markUpSet = markUpSet == null ? Collections.emptySet() : markUpSet;
+    this.sourceId = sourceId;
+    this.metacardParser = metacardParser;
+  }
+
+  /** Returns true if the reader is positioned on the start of an Atom feed element. */
+  static boolean isAtomFeed(XMLStreamReader reader) {
+    return reader.getEventType() == XMLStreamConstants.START_ELEMENT
+        && ATOM_NAMESPACE.equals(reader.getNamespaceURI())
+        && FEED.equals(reader.getLocalName());
+  }
+
+  /**
+   * Reads the feed the reader is positioned on.
+   *
+   * @param reader a reader positioned on the start of an Atom feed element
+   */
+  AtomFeed read(XMLStreamReader reader) throws XMLStreamException, UnsupportedQueryException {
+    Map<String, String> feedNamespaces = declareNamespaces(Collections.emptyMap(), reader);
+    List<Result> results = new ArrayList<>();
+    List<Element> foreignMarkup = new ArrayList<>();
+    long entryCount = 0;
+
+    int event = reader.next();
+    while (event != XMLStreamConstants.END_ELEMENT && event != XMLStreamConstants.END_DOCUMENT) {
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        if (isForeignMarkup(reader)) {
+          foreignMarkup.add(buildElement(reader));
+          event = reader.getEventType();
+          continue;
+        } else if (isAtomElement(reader, ENTRY)) {
+          results.addAll(readEntry(reader, feedNamespaces));
+          entryCount++;
+        } else {
+          skipElement(reader);
+        }
+      }
+      event = reader.next();
+    }
+
+    long totalResults = entryCount;
+    for (Element element : foreignMarkup) {
+      if (element.getName().equals(TOTAL_RESULTS)) {
+        try {
+          totalResults = Long.parseLong(element.getContent(0).getValue());
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+          // totalResults is already initialized to the correct value, so don't change it here.
+          LOGGER.debug("Received invalid number of results.", e);
+        }
+      }
+    }
+
+    return new AtomFeed(results, totalResults, foreignMarkup);
+  }
+
+  private List<Result> readEntry(XMLStreamReader reader, Map<String, String> feedNamespaces)
+      throws XMLStreamException, UnsupportedQueryException {
+    Map<String, String> entryNamespaces = declareNamespaces(feedNamespaces, reader);
+    String id = null;
+    String title = null;
+    String relevance = "";
+    List<String> categories = new ArrayList<>();
+    List<EmbeddedMetacard> markupMetacards = new ArrayList<>();
+    List<EmbeddedMetacard> contentMetacards = new ArrayList<>();
+
+    while (nextChildElement(reader)) {
+      if (isAtomElement(reader, ID)) {
+        id = readText(reader);
+        if (StringUtils.isNotEmpty(id)) {
+          id = id.substring(id.lastIndexOf(':') + 1);
+        }
+      } else if (isAtomElement(reader, TITLE)) {
+        title = readText(reader);
+      } else if (isAtomElement(reader, CATEGORY)) {
+        categories.add(reader.getAttributeValue(null, TERM));
+        skipElement(reader);
+      } else if (isAtomElement(reader, CONTENT)) {
+        EmbeddedMetacard metacard = readContent(reader, entryNamespaces, id);
+        if (metacard != null) {
+          contentMetacards.add(metacard);
+        }
+      } else if (isForeignMarkup(reader) && SCORE.equals(reader.getLocalName())) {
+        relevance = readText(reader);
+      } else if (isForeignMarkup(reader) && markUpSet.contains(reader.getLocalName())) {
+        markupMetacards.add(readEmbeddedElement(reader, entryNamespaces, id));
+      } else {
+        skipElement(reader);
+      }
+    }
+
+    List<Metacard> metacards = new ArrayList<>();
+    for (EmbeddedMetacard embedded : markupMetacards) {
+      Metacard metacard = embedded.parse(id);
+      if (metacard != null) {
+        metacards.add(metacard);
+      }
+    }
+    // we currently do not support downloading content via an RSS enclosure, this support can be
+    // added at a later date if we decide to include it
+    for (EmbeddedMetacard embedded : contentMetacards) {
+      Metacard metacard = embedded.parse(id);
+      if (metacard != null) {
+        metacard.setSourceId(sourceId);
+        if (StringUtils.isEmpty(metacard.getTitle())) {
+          metacard.setAttribute(new AttributeImpl(Core.TITLE, title));
+        }
+        metacards.add(metacard);
+      }
+    }
+    for (int i = 0; i < categories.size() && i < metacards.size(); i++) {
+      Metacard metacard = metacards.get(i);
+      if (StringUtils.isBlank(metacard.getContentTypeName())) {
+        metacard.setAttribute(new AttributeImpl(Metacard.CONTENT_TYPE, categories.get(i)));
+      }
+    }
+
+    if (StringUtils.isEmpty(relevance)) {
+      LOGGER.debug("Couldn't find valid relevance. Setting relevance to 0");
+      relevance = "0";
+    }
+    List<Result> results = new ArrayList<>();
+    for (Metacard metacard : metacards) {
+      ResultImpl result = new ResultImpl(metacard);
+      result.setRelevanceScore(Double.valueOf(relevance));
+      results.add(result);
+    }
+    return results;
+  }
+
+  /**
+   * Reads an Atom content element. XML content is passed on as the stream of its first child
+   * element; text content is passed on as is, and other media types are base64 decoded.
+   */
+  @Nullable
+  private EmbeddedMetacard readContent(
+      XMLStreamReader reader, Map<String, String> entryNamespaces, @Nullable String id)
+      throws XMLStreamException, UnsupportedQueryException {
+    String type = StringUtils.defaultIfEmpty(reader.getAttributeValue(null, TYPE), "text");
+    Map<String, String> contentNamespaces = declareNamespaces(entryNamespaces, reader);
+    boolean textContent = isTextContent(type);
+    EmbeddedMetacard metacard = null;
+    StringBuilder text = new StringBuilder();
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        if (!textContent && metacard == null) {
+          metacard = readEmbeddedElement(reader, contentNamespaces, id);
+        } else {
+          skipElement(reader);
+        }
+      } else if (event == XMLStreamConstants.CHARACTERS
+          || event == XMLStreamConstants.CDATA
+          || event == XMLStreamConstants.SPACE) {
+        text.append(reader.getText());
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        break;
+      }
+    }
+
+    if (metacard != null || StringUtils.isEmpty(text)) {
+      return metacard;
+    }
+
+    byte[] bytes;
+    if (textContent || isXmlContent(type)) {
+      bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+    } else {
+      try {
+        bytes = Base64.getMimeDecoder().decode(text.toString().trim());
+      } catch (IllegalArgumentException e) {
+        LOGGER.debug("Unable to decode base64 content of type {} from Atom feed.", type, e);
+        return null;
+      }
+    }
+    return new EmbeddedMetacard(bytes, null);
+  }
+
+  /**
+   * Passes the element the reader is positioned on to the metacard parser. If the entry id has not
+   * been read yet, the element is kept until the end of the entry.
+   */
+  private EmbeddedMetacard readEmbeddedElement(
+      XMLStreamReader reader, Map<String, String> inheritedNamespaces, @Nullable String id)
+      throws XMLStreamException, UnsupportedQueryException {
+    String namespaceUri = StringUtils.defaultIfEmpty(reader.getNamespaceURI(), null);
+    try (XmlElementInputStream element = new XmlElementInputStream(reader, inheritedNamespaces)) {
+      if (id == null) {
+        return new EmbeddedMetacard(IOUtils.toByteArray(element), namespaceUri);
+      }
+      return new EmbeddedMetacard(metacardParser.parse(element, namespaceUri, id));
+    } catch (IOException e) {
+      throw unwrap(e);
+    }
+  }
+
+  private static XMLStreamException unwrap(IOException e) {
+    if (e.getCause() instanceof XMLStreamException) {
+      return (XMLStreamException) e.getCause();
+    }
+    return new XMLStreamException(e);
+  }
+
+  private static boolean isTextContent(String type) {
+    return "text".equals(type) || "html".equals(type) || type.startsWith("text/");
+  }
+
+  private static boolean isXmlContent(String type) {
+    return "xhtml".equals(type) || type.endsWith("/xml") || type.endsWith("+xml");
+  }
+
+  private static boolean isAtomElement(XMLStreamReader reader, String localName) {
+    return ATOM_NAMESPACE.equals(reader.getNamespaceURI())
+        && localName.equals(reader.getLocalName());
+  }
+
+  private static boolean isForeignMarkup(XMLStreamReader reader) {
+    String namespaceUri = StringUtils.defaultString(reader.getNamespaceURI());
+    return !ATOM_NAMESPACE.equals(namespaceUri) && !MODULE_NAMESPACES.contains(namespaceUri);
+  }
+
+  private static Map<String, String> declareNamespaces(
+      Map<String, String> inheritedNamespaces, XMLStreamReader reader) {
+    if (reader.getNamespaceCount() == 0) {
+      return inheritedNamespaces;
+    }
+
+    Map<String, String> namespaces = new HashMap<>(inheritedNamespaces);
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      namespaces.put(
+          StringUtils.defaultString(reader.getNamespacePrefix(i)),
+          StringUtils.defaultString(reader.getNamespaceURI(i)));
+    }
+    return namespaces;
+  }
+
+  /**
+   * Moves to the next child element of the current element. Returns false when the end of the
+   * current element is reached instead.
+   */
+  private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        return true;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the text of the current element and its descendants, ending on its end tag. */
+  private static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      } else if (event == XMLStreamConstants.CHARACTERS
+          || event == XMLStreamConstants.CDATA
+          || event == XMLStreamConstants.SPACE) {
+        text.append(reader.getText());
+      }
+    }
+    return text.toString();
+  }
+
+  /** Skips the current element, ending on its end tag. */
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /** Builds a JDOM element from the current element, ending on the event after its end tag. */
+  private static Element buildElement(XMLStreamReader reader) throws XMLStreamException {
+    try {
+      return (Element) new StAXStreamBuilder().fragment(reader);
+    } catch (JDOMException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  /** A metacard that is either parsed, or kept serialized until the entry id is known. */
+  private final class EmbeddedMetacard {
+    private final Metacard metacard;
+
+    private final byte[] content;
+
+    private final String namespaceUri;
+
+    EmbeddedMetacard(@Nullable Metacard metacard) {
+      this.metacard = metacard;
+      this.content = null;
+      this.namespaceUri = null;
+    }
+
+    EmbeddedMetacard(byte[] content, @Nullable String namespaceUri) {
+      this.metacard = null;
+      this.content = content;
+      this.namespaceUri = namespaceUri;
+    }
+
+    @Nullable
+    Metacard parse(@Nullable String id) throws UnsupportedQueryException {
+      if (content == null) {
+        return metacard;
+      }
+      return metacardParser.parse(new ByteArrayInputStream(content), namespaceUri, id);
+    }
+  }
+
+  /** The results, hit count, and feed level foreign markup read from an Atom feed. */
+  static final class AtomFeed {
+    private final List<Result> results;
+
+    private final long totalResults;
+
+    private final List<Element> foreignMarkup;
+
+    AtomFeed(List<Result> results, long totalResults, List<Element> foreignMarkup) {
+      this.results = results;
+      this.totalResults = totalResults;
+      this.foreignMarkup = foreignMarkup;
+    }
+
+    List<Result> getResults() {
+      return results;
+    }
+
+    long getTotalResults() {
+      return totalResults;
+    }
+
+    List<Element> getForeignMarkup() {
+      return foreignMarkup;
+    }
+  }
+}
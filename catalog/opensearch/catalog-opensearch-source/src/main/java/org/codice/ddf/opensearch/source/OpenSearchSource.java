@@ -48,6 +48,7 @@
 import ddf.security.SecurityConstants;
 import ddf.security.Subject;
 import ddf.security.encryption.EncryptionService;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -127,6 +128,9 @@ public class OpenSearchSource implements FederatedSource, ConfiguredService {
 
   private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 
+  /** Bytes buffered while peeking at the root element of a feed. */
+  private static final int ROOT_ELEMENT_READ_LIMIT = 64 * 1024;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(OpenSearchSource.class);
 
   protected final EncryptionService encryptionService;
@@ -494,8 +498,64 @@ void setForeignMarkupBiConsumer(
     this.foreignMarkupBiConsumer = foreignMarkupBiConsumer;
   }
 
+  /**
+   * Atom feeds are read by the streaming {@link AtomFeedReader}; any other feed format is left to
+   * ROME. The root element is peeked at so the stream can be handed to ROME unread.
+   */
   private SourceResponseImpl processResponse(InputStream is, QueryRequest queryRequest)
       throws UnsupportedQueryException {
+    BufferedInputStream bufferedStream = new BufferedInputStream(is, ROOT_ELEMENT_READ_LIMIT);
+    bufferedStream.mark(ROOT_ELEMENT_READ_LIMIT);
+
+    XMLStreamReader reader = null;
+    try {
+      reader = xmlInputFactory.createXMLStreamReader(bufferedStream);
+      while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+        // advance to the root element
+      }
+      if (AtomFeedReader.isAtomFeed(reader)) {
+        return processAtomResponse(reader, queryRequest);
+      }
+    } catch (XMLStreamException e) {
+      LOGGER.debug("Unable to read the root element of the feed.", e);
+    } finally {
+      closeReader(reader);
+    }
+
+    try {
+      bufferedStream.reset();
+    } catch (IOException e) {
+      LOGGER.debug("Unable to reset the feed stream.", e);
+      SourceResponseImpl response = new SourceResponseImpl(queryRequest, new ArrayList<>());
+      response.setHits(0);
+      return response;
+    }
+    return processSyndFeedResponse(bufferedStream, queryRequest);
+  }
+
+  private SourceResponseImpl processAtomResponse(XMLStreamReader reader, QueryRequest queryRequest)
+      throws UnsupportedQueryException {
+    AtomFeedReader atomFeedReader =
+        new AtomFeedReader(markUpSet, this.shortname, this::parseContent);
+    AtomFeedReader.AtomFeed feed;
+    try {
+      feed = atomFeedReader.read(reader);
+    } catch (XMLStreamException e) {
+      LOGGER.debug("Unable to read Atom feed.", e);
+      SourceResponseImpl response = new SourceResponseImpl(queryRequest, new ArrayList<>());
+      response.setHits(0);
+      return response;
+    }
+
+    SourceResponseImpl response = new SourceResponseImpl(queryRequest, feed.getResults());
+    response.setHits(feed.getTotalResults());
+    this.foreignMarkupBiConsumer.accept(
+        Collections.unmodifiableList(feed.getForeignMarkup()), response);
+    return response;
+  }
+
+  private SourceResponseImpl processSyndFeedResponse(InputStream is, QueryRequest queryRequest)
+      throws UnsupportedQueryException {
     List<Result> resultQueue = new ArrayList<>();
 
     SyndFeedInput syndFeedInput = new SyndFeedInput();
@@ -601,20 +661,56 @@ private List<Result> createResponseFromEntry(SyndEntry entry) throws Unsupported
   @Nullable
   private Metacard parseContent(String content, String id) throws UnsupportedQueryException {
     if (StringUtils.isNotEmpty(content)) {
-      InputTransformer inputTransformer =
-          getInputTransformer(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
-      if (inputTransformer != null) {
-        try {
-          return inputTransformer.transform(
-              new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), id);
-        } catch (IOException e) {
-          LOGGER.debug("Unable to read metacard content from Atom feed.", e);
-        } catch (CatalogTransformerException e) {
-          LOGGER.debug(
-              "Unable to convert metacard content from Atom feed into Metacard object.", e);
-        }
+      return parseContent(content.getBytes(StandardCharsets.UTF_8), id);
+    }
+    return null;
+  }
+
+  @Nullable
+  private Metacard parseContent(byte[] content, String id) throws UnsupportedQueryException {
+    InputTransformer inputTransformer = getInputTransformer(new ByteArrayInputStream(content));
+    return transform(inputTransformer, new ByteArrayInputStream(content), id);
+  }
+
+  /**
+   * Parses metadata streamed from an Atom entry. The transformer is looked up by the namespace of
+   * the root element, so the content is read only once; content whose root element does not have a
+   * transformer is searched for one the same way as the content of other feeds.
+   */
+  @Nullable
+  private Metacard parseContent(InputStream content, @Nullable String namespaceUri, String id)
+      throws UnsupportedQueryException {
+    InputTransformer inputTransformer = null;
+    if (namespaceUri != null) {
+      try {
+        inputTransformer = lookupTransformerReference(namespaceUri);
+      } catch (InvalidSyntaxException e) {
+        LOGGER.debug("Failed to look up transformer for namespace {}", namespaceUri, e);
       }
     }
+
+    if (inputTransformer != null) {
+      return transform(inputTransformer, content, id);
+    }
+
+    try {
+      byte[] bytes = IOUtils.toByteArray(content);
+      return bytes.length == 0 ? null : parseContent(bytes, id);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to read metacard content from Atom feed.", e);
+      return null;
+    }
+  }
+
+  @Nullable
+  private Metacard transform(InputTransformer inputTransformer, InputStream content, String id) {
+    try {
+      return inputTransformer.transform(content, id);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to read metacard content from Atom feed.", e);
+    } catch (CatalogTransformerException e) {
+      LOGGER.debug("Unable to convert metacard content from Atom feed into Metacard object.", e);
+    }
     return null;
   }
 
@@ -687,19 +783,23 @@ private InputTransformer getInputTransformer(InputStream inputStream)
     } catch (XMLStreamException | InvalidSyntaxException e) {
       LOGGER.debug("Failed to parse transformer namespace", e);
     } finally {
-      try {
-        if (xmlStreamReader != null) {
-          xmlStreamReader.close();
-        }
-      } catch (XMLStreamException e) {
-        LOGGER.debug("Failed to close namespace reader", e);
-      }
+      closeReader(xmlStreamReader);
     }
 
     throw new UnsupportedQueryException(
         "Unable to find applicable InputTransformer for metacard content from Atom feed.");
   }
 
+  private void closeReader(@Nullable XMLStreamReader xmlStreamReader) {
+    try {
+      if (xmlStreamReader != null) {
+        xmlStreamReader.close();
+      }
+    } catch (XMLStreamException e) {
+      LOGGER.debug("Failed to close namespace reader", e);
+    }
+  }
+
   @Nullable
   protected InputTransformer lookupTransformerReference(String namespaceUri)
       throws InvalidSyntaxException {
@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.opensearch.source;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * An {@link InputStream} over the element the {@link XMLStreamReader} is positioned on. The element
+ * is serialized as it is read, so the subtree is never held in memory as a whole. The namespaces
+ * declared on its ancestors are declared on the element so that it can be parsed on its own.
+ *
+ * <p>When the stream is closed or fully read, the reader is positioned on the element's end tag.
+ */
+final class XmlElementInputStream extends InputStream {
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private static final int FILL_SIZE = 8 * 1024;
+
+  private final XMLStreamReader reader;
+
+  private final Map<String, String> inheritedNamespaces;
+
+  private final Buffer buffer = new Buffer();
+
+  private final XMLStreamWriter writer;
+
+  private int position;
+
+  private int depth;
+
+  private boolean started;
+
+  private boolean finished;
+
+  /**
+   * @param reader a reader positioned on a start element
+   * @param inheritedNamespaces prefix to namespace URI mappings in scope at the element, excluding
+   *     the ones the element declares itself
+   */
+  XmlElementInputStream(XMLStreamReader reader, Map<String, String> inheritedNamespaces)
+      throws XMLStreamException {
+    if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+      throw new IllegalStateException("The reader is not positioned on a start element.");
+    }
+    this.reader = reader;
+    this.inheritedNamespaces = inheritedNamespaces;
+    this.writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(buffer, StandardCharsets.UTF_8.name());
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    int count = read(single, 0, 1);
+    return count == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+
+    if (position == buffer.size() && !fill()) {
+      return -1;
+    }
+
+    int count = Math.min(length, buffer.size() - position);
+    System.arraycopy(buffer.bytes(), position, bytes, offset, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return buffer.size() - position;
+  }
+
+  /** Skips the rest of the element without serializing it. */
+  @Override
+  public void close() throws IOException {
+    try {
+      while (!finished) {
+        int event = started ? reader.next() : reader.getEventType();
+        started = true;
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+          finished = depth == 0;
+        }
+      }
+      writer.close();
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /** Serializes the next events into the empty buffer. Returns false at the end of the element. */
+  private boolean fill() throws IOException {
+    buffer.reset();
+    position = 0;
+    try {
+      while (!finished && buffer.size() < FILL_SIZE) {
+        writeNextEvent();
+        writer.flush();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+    return buffer.size() > 0;
+  }
+
+  private void writeNextEvent() throws XMLStreamException {
+    int event = started ? reader.next() : reader.getEventType();
+    switch (event) {
+      case XMLStreamConstants.START_ELEMENT:
+        writeStartElement(!started);
+        depth++;
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+        writer.writeEndElement();
+        depth--;
+        finished = depth == 0;
+        break;
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+        writer.writeCharacters(
+            reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        break;
+      case XMLStreamConstants.CDATA:
+        writer.writeCData(reader.getText());
+        break;
+      case XMLStreamConstants.COMMENT:
+        writer.writeComment(reader.getText());
+        break;
+      case XMLStreamConstants.PROCESSING_INSTRUCTION:
+        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+        break;
+      case XMLStreamConstants.ENTITY_REFERENCE:
+        writer.writeEntityRef(reader.getLocalName());
+        break;
+      default:
+        break;
+    }
+    started = true;
+  }
+
+  private void writeStartElement(boolean root) throws XMLStreamException {
+    String prefix = defaultString(reader.getPrefix());
+    writer.writeStartElement(
+        prefix, reader.getLocalName(), defaultString(reader.getNamespaceURI()));
+
+    if (root) {
+      for (Map.Entry<String, String> namespace : inheritedNamespaces.entrySet()) {
+        if (!isDeclared(namespace.getKey())) {
+          writeNamespace(namespace.getKey(), namespace.getValue());
+        }
+      }
+    }
+
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      writeNamespace(defaultString(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+    }
+
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String namespaceUri = reader.getAttributeNamespace(i);
+      if (namespaceUri == null || namespaceUri.isEmpty()) {
+        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      } else {
+        writer.writeAttribute(
+            defaultString(reader.getAttributePrefix(i)),
+            namespaceUri,
+            reader.getAttributeLocalName(i),
+            reader.getAttributeValue(i));
+      }
+    }
+  }
+
+  private boolean isDeclared(String prefix) {
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      if (prefix.equals(defaultString(reader.getNamespacePrefix(i)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeNamespace(String prefix, String namespaceUri) throws XMLStreamException {
+    if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+      writer.writeDefaultNamespace(defaultString(namespaceUri));
+    } else {
+      writer.writeNamespace(prefix, namespaceUri);
+    }
+  }
+
+  private static String defaultString(String value) {
+    return value == null ? "" : value;
+  }
+
+  /** Exposes the internal array so the serialized events can be read without copying them. */
+  private static final class Buffer extends ByteArrayOutputStream {
+    Buffer() {
+      super(FILL_SIZE * 2);
+    }
+
+    byte[] bytes() {
+      return buf;
+    }
+  }
+}
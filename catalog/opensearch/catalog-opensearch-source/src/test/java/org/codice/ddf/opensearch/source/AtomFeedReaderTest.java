@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.opensearch.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.io.IOUtils;
+import org.jdom2.Element;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+public class AtomFeedReaderTest {
+
+  private static final String METACARD_NAMESPACE = "urn:catalog:metacard";
+
+  private static final String FEED_START =
+      "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:os=\"http://a9.com/-/spec/opensearch/1.1/\""
+          + " xmlns:relevance=\"http://a9.com/-/opensearch/extensions/relevance/1.0/\""
+          + " xmlns:mc=\"urn:catalog:metacard\">"
+          + "<os:totalResults>42</os:totalResults>"
+          + "<os:itemsPerPage>10</os:itemsPerPage>"
+          + "<os:startIndex>1</os:startIndex>"
+          + "<title>Query Response</title>";
+
+  private static final String FEED_END = "</feed>";
+
+  private List<String> parsedNamespaces;
+
+  private AtomFeedReader atomFeedReader;
+
+  @Before
+  public void setUp() {
+    parsedNamespaces = new ArrayList<>();
+    atomFeedReader =
+        new AtomFeedReader(
+            Collections.singleton("resourceMetacard"),
+            "sourceId",
+            (content, namespaceUri, id) -> {
+              parsedNamespaces.add(namespaceUri);
+              try {
+                MetacardImpl metacard = new MetacardImpl();
+                metacard.setId(id);
+                metacard.setMetadata(IOUtils.toString(content, StandardCharsets.UTF_8));
+                return metacard;
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  @Test
+  public void testContentAndForeignMarkup() throws Exception {
+    AtomFeedReader.AtomFeed feed =
+        read(
+            FEED_START
+                + "<entry>"
+                + "<mc:resourceMetacard><mc:string name=\"title\"/></mc:resourceMetacard>"
+                + "<id>urn:catalog:id:abc123</id>"
+                + "<title>Entry Title</title>"
+                + "<category term=\"resource\"/>"
+                + "<category term=\"data\"/>"
+                + "<relevance:score>0.75</relevance:score>"
+                + "<content type=\"application/xml\"><mc:metacard><mc:string name=\"title\">"
+                + "<mc:value>&lt;Title&gt;</mc:value></mc:string></mc:metacard></content>"
+                + "</entry>"
+                + FEED_END);
+
+    assertThat(feed.getTotalResults(), is(42L));
+    assertThat(
+        feed.getForeignMarkup().stream().map(Element::getName).collect(Collectors.toList()),
+        contains("totalResults", "itemsPerPage", "startIndex"));
+    assertThat(parsedNamespaces, contains(METACARD_NAMESPACE, METACARD_NAMESPACE));
+
+    List<Result> results = feed.getResults();
+    assertThat(results, hasSize(2));
+
+    Metacard markupMetacard = results.get(0).getMetacard();
+    assertThat(markupMetacard.getId(), is("abc123"));
+    assertThat(markupMetacard.getSourceId(), is(nullValue()));
+    assertThat(markupMetacard.getContentTypeName(), is("resource"));
+    assertThat(markupMetacard.getMetadata(), containsString("resourceMetacard"));
+
+    Metacard contentMetacard = results.get(1).getMetacard();
+    assertThat(contentMetacard.getId(), is("abc123"));
+    assertThat(contentMetacard.getSourceId(), is("sourceId"));
+    assertThat(contentMetacard.getTitle(), is("Entry Title"));
+    assertThat(contentMetacard.getContentTypeName(), is("data"));
+    assertThat(results.get(1).getRelevanceScore(), is(0.75));
+
+    Document document = parse(contentMetacard.getMetadata());
+    assertThat(document.getDocumentElement().getNamespaceURI(), is(METACARD_NAMESPACE));
+    assertThat(document.getDocumentElement().getLocalName(), is("metacard"));
+    assertThat(document.getDocumentElement().getTextContent(), is("<Title>"));
+  }
+
+  @Test
+  public void testTextContent() throws Exception {
+    AtomFeedReader.AtomFeed feed =
+        read(
+            FEED_START
+                + "<entry><id>urn:catalog:id:1</id><title>Text</title>"
+                + "<content>&lt;metacard xmlns=\"urn:catalog:metacard\"/&gt;</content>"
+                + "</entry>"
+                + FEED_END);
+
+    assertThat(feed.getResults(), hasSize(1));
+    assertThat(parsedNamespaces, contains((String) null));
+    Metacard metacard = feed.getResults().get(0).getMetacard();
+    assertThat(metacard.getMetadata(), is("<metacard xmlns=\"urn:catalog:metacard\"/>"));
+    assertThat(feed.getResults().get(0).getRelevanceScore(), is(0.0));
+  }
+
+  @Test
+  public void testBase64Content() throws Exception {
+    String metadata = "<metacard xmlns=\"urn:catalog:metacard\"/>";
+    AtomFeedReader.AtomFeed feed =
+        read(
+            FEED_START
+                + "<entry><id>urn:catalog:id:1</id><content type=\"application/octet-stream\">"
+                + Base64.getEncoder().encodeToString(metadata.getBytes(StandardCharsets.UTF_8))
+                + "</content></entry>"
+                + FEED_END);
+
+    assertThat(feed.getResults(), hasSize(1));
+    assertThat(feed.getResults().get(0).getMetacard().getMetadata(), is(metadata));
+  }
+
+  @Test
+  public void testEntryWithoutMetadata() throws Exception {
+    AtomFeedReader.AtomFeed feed =
+        read("<feed xmlns=\"http://www.w3.org/2005/Atom\"><entry><id>1</id></entry></feed>");
+
+    assertThat(feed.getResults(), hasSize(0));
+    assertThat(feed.getTotalResults(), is(1L));
+    assertThat(feed.getForeignMarkup(), hasSize(0));
+  }
+
+  private AtomFeedReader.AtomFeed read(String xml) throws Exception {
+    XMLStreamReader reader =
+        XMLInputFactory.newInstance()
+            .createXMLStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+      // advance to the root element
+    }
+    assertThat(AtomFeedReader.isAtomFeed(reader), is(true));
+    return atomFeedReader.read(reader);
+  }
+
+  private static Document parse(String xml) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    try (InputStream inputStream = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
+      return factory.newDocumentBuilder().parse(inputStream);
+    }
+  }
+}
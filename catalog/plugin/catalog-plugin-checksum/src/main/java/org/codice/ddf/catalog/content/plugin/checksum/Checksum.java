@@ -13,6 +13,7 @@
  */
 package org.codice.ddf.catalog.content.plugin.checksum;
 
+import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.operation.CreateStorageRequest;
 import ddf.catalog.content.operation.UpdateStorageRequest;
@@ -23,8 +24,11 @@
 import ddf.catalog.plugin.PluginExecutionException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.checksum.ChecksumProvider;
 
@@ -40,7 +44,7 @@ public CreateStorageRequest process(CreateStorageRequest input) throws PluginExe
     if (input == null) {
       throw new IllegalArgumentException("CreateStorageRequest cannot be null");
     }
-    runChecksum(input.getContentItems());
+    runChecksum(input.getContentItems(), getContentChecksums(input.getProperties()));
 
     return input;
   }
@@ -50,12 +54,26 @@ public UpdateStorageRequest process(UpdateStorageRequest input) throws PluginExe
     if (input == null) {
       throw new IllegalArgumentException("UpdateStorageRequest cannot be null");
     }
-    runChecksum(input.getContentItems());
+    runChecksum(input.getContentItems(), getContentChecksums(input.getProperties()));
 
     return input;
   }
 
-  private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionException {
+  /**
+   * Gets the checksums the framework computed while receiving the content, so the content does not
+   * have to be read again when they were computed with the configured algorithm.
+   */
+  private Map<String, Map<String, String>> getContentChecksums(
+      Map<String, Serializable> properties) {
+    if (properties != null && properties.get(Constants.CONTENT_CHECKSUMS) instanceof Map) {
+      return (Map<String, Map<String, String>>) properties.get(Constants.CONTENT_CHECKSUMS);
+    }
+    return Collections.emptyMap();
+  }
+
+  private void runChecksum(
+      List<ContentItem> contentItems, Map<String, Map<String, String>> contentChecksums)
+      throws PluginExecutionException {
     for (ContentItem contentItem : contentItems) {
       if (StringUtils.isNotEmpty(contentItem.getQualifier())) {
         // We are dealing with a derived resource, and this Metacard's checksum should reflect the
@@ -63,9 +81,16 @@ private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionE
         continue;
       }
 
+      String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
+      Map<String, String> checksums = contentChecksums.get(contentItem.getId());
+      if (checksums != null && checksums.get(checksumAlgorithm) != null) {
+        addChecksumAttributes(
+            contentItem.getMetacard(), checksumAlgorithm, checksums.get(checksumAlgorithm));
+        continue;
+      }
+
       try (InputStream inputStream = contentItem.getInputStream()) {
         // calculate checksum so that it can be added as an attribute on metacard
-        String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
         String checksumValue;
 
         try {
@@ -24,6 +24,7 @@
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.operation.CreateStorageRequest;
 import ddf.catalog.content.operation.UpdateStorageRequest;
@@ -33,9 +34,13 @@
 import ddf.catalog.plugin.PluginExecutionException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.codice.ddf.checksum.ChecksumProvider;
 import org.junit.Before;
 import org.junit.Test;
@@ -194,4 +199,48 @@ public void testProcessUpdateDerivedContentDoesNotSetAttribute() throws Exceptio
 
     verify(metacard, never()).setAttribute(any(Attribute.class));
   }
+
+  @Test
+  public void testProcessCreateUsesPrecomputedChecksum() throws Exception {
+    Metacard metacard = new MetacardImpl();
+    ContentItem mockContentItem = mock(ContentItem.class);
+    when(mockContentItem.getId()).thenReturn("id");
+    when(mockContentItem.getMetacard()).thenReturn(metacard);
+
+    CreateStorageRequest mockCreateRequest = mock(CreateStorageRequest.class);
+    when(mockCreateRequest.getContentItems())
+        .thenReturn(Collections.singletonList(mockContentItem));
+    when(mockCreateRequest.getProperties())
+        .thenReturn(contentChecksums("id", SAMPLE_CHECKSUM_ALGORITHM, "precomputed"));
+
+    checksum.process(mockCreateRequest);
+
+    assertThat(metacard.getAttribute(Metacard.CHECKSUM).getValue(), is("precomputed"));
+    assertThat(
+        metacard.getAttribute(Metacard.CHECKSUM_ALGORITHM).getValue(),
+        is(SAMPLE_CHECKSUM_ALGORITHM));
+    verify(mockContentItem, never()).getInputStream();
+  }
+
+  @Test
+  public void testProcessUpdateIgnoresPrecomputedChecksumOfOtherAlgorithm() throws Exception {
+    when(mockUpdateRequest.getProperties())
+        .thenReturn(contentChecksums(null, "Adler32", "precomputed"));
+
+    UpdateStorageRequest request = checksum.process(mockUpdateRequest);
+
+    assertThat(
+        request.getContentItems().get(0).getMetacard().getAttribute(Metacard.CHECKSUM).getValue(),
+        is(SAMPLE_CHECKSUM_VALUE));
+  }
+
+  private Map<String, Serializable> contentChecksums(String id, String algorithm, String value) {
+    HashMap<String, String> checksums = new HashMap<>();
+    checksums.put(algorithm, value);
+    HashMap<String, Map<String, String>> contentChecksums = new HashMap<>();
+    contentChecksums.put(id, checksums);
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(Constants.CONTENT_CHECKSUMS, contentChecksums);
+    return properties;
+  }
 }
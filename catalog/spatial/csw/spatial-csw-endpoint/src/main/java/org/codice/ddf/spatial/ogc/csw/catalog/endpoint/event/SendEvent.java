@@ -17,6 +17,7 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.event.DeliveryException;
 import ddf.catalog.event.DeliveryMethod;
 import ddf.catalog.operation.Pingable;
 import ddf.catalog.operation.QueryRequest;
@@ -204,9 +205,10 @@ public SendEvent(
     ping();
   }
 
-  private void sendEvent(String operation, Metacard... metacards) {
+  /** @return false if the callback could not be reached and the event was not sent */
+  private boolean sendEvent(String operation, Metacard... metacards) {
     if (subject == null) {
-      return;
+      return true;
     }
     try {
       List<Result> results =
@@ -232,14 +234,15 @@ private void sendEvent(String operation, Metacard... metacards) {
       }
 
       if (queryResponse.getResults().isEmpty()) {
-        return;
+        return true;
       }
       recordCollection.setSourceResponse(queryResponse);
 
-      send(operation, recordCollection);
+      return send(operation, recordCollection);
     } catch (StopProcessingException | InvalidSyntaxException e) {
       LOGGER.debug("Unable to send event error running AccessPlugin processPostQuery. ", e);
     }
+    return true;
   }
 
   private boolean send(String operation, CswRecordCollection recordCollection) {
@@ -272,6 +275,14 @@ public void created(Metacard newMetacard) {
     sendEvent(HttpMethod.POST, newMetacard);
   }
 
+  @Override
+  public void createdAll(List<Metacard> newMetacards) throws DeliveryException {
+    LOGGER.debug("Created {} metacards", newMetacards.size());
+    if (!sendEvent(HttpMethod.POST, newMetacards.toArray(new Metacard[0]))) {
+      throw new DeliveryException("Unable to send event to callback url " + callbackUrl);
+    }
+  }
+
   @Override
   public void updatedHit(Metacard newMetacard, Metacard oldMetacard) {
     LOGGER.debug("Updated Hit {} {}", newMetacard, oldMetacard);
@@ -290,6 +301,14 @@ public void deleted(Metacard oldMetacard) {
     sendEvent(HttpMethod.DELETE, oldMetacard);
   }
 
+  @Override
+  public void deletedAll(List<Metacard> oldMetacards) throws DeliveryException {
+    LOGGER.debug("Deleted {} metacards", oldMetacards.size());
+    if (!sendEvent(HttpMethod.DELETE, oldMetacards.toArray(new Metacard[0]))) {
+      throw new DeliveryException("Unable to send event to callback url " + callbackUrl);
+    }
+  }
+
   private long introduceJitter(long value, double percent) {
     long maxJitter = Math.round(value * percent);
     if (value == 0 || maxJitter == 0) {
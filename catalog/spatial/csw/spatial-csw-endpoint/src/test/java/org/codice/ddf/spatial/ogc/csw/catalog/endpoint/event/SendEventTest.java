@@ -29,6 +29,7 @@
 
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.event.DeliveryException;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.operation.SourceResponse;
@@ -40,6 +41,8 @@
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
@@ -54,6 +57,7 @@
 import org.codice.ddf.security.common.Security;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswSubscribe;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.transformer.TransformerManager;
 import org.junit.Before;
@@ -151,6 +155,26 @@ public void testCreated() throws Exception {
     verifyResults();
   }
 
+  @Test
+  public void testCreatedAll() throws Exception {
+    sendEvent.createdAll(Arrays.asList(metacard, metacard, metacard));
+    verifyResults();
+  }
+
+  @Test(expected = DeliveryException.class)
+  public void testCreatedAllCallbackUnavailable() throws Exception {
+    when(webclient.invoke(eq(HttpMethod.POST), any(CswRecordCollection.class)))
+        .thenThrow(new ProcessingException("Connection refused"));
+    sendEvent.createdAll(Arrays.asList(metacard, metacard, metacard));
+  }
+
+  @Test(expected = DeliveryException.class)
+  public void testDeletedAllCallbackUnavailable() throws Exception {
+    when(webclient.invoke(eq(HttpMethod.DELETE), any(CswRecordCollection.class)))
+        .thenThrow(new ProcessingException("Connection refused"));
+    sendEvent.deletedAll(Arrays.asList(metacard, metacard, metacard));
+  }
+
   @Test
   public void testUpdatedHit() throws Exception {
     sendEvent.updatedHit(metacard, metacard);
@@ -169,6 +193,12 @@ public void testDeleted() throws Exception {
     verifyResults();
   }
 
+  @Test
+  public void testDeletedAll() throws Exception {
+    sendEvent.deletedAll(Arrays.asList(metacard, metacard, metacard));
+    verifyResults();
+  }
+
   @Test
   public void testIsAvailableSubjectExpiration() throws Exception {
     when(webclient.invoke(eq("HEAD"), isNull())).thenReturn(response);
@@ -15,17 +15,20 @@
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.StreamException;
 import com.thoughtworks.xstream.io.xml.WstxDriver;
 import com.thoughtworks.xstream.security.NoTypePermission;
 import ddf.catalog.data.Metacard;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
+import java.io.SequenceInputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import javax.ws.rs.Consumes;
@@ -36,15 +39,6 @@
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
-import net.opengis.wfs.v_2_0_0.FeatureCollectionType;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlEnvelopeConverter;
@@ -55,6 +49,11 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Reads a WFS 2.0 GetFeature response in a single pass. The collection attributes are read from the
+ * root element and each member is handed to its {@link FeatureConverter} as it is parsed, so the
+ * response is never held in memory as a whole.
+ */
 @Consumes({MediaType.TEXT_XML, MediaType.APPLICATION_XML, Wfs20Constants.GML_MIME_TYPE})
 @Provider
 public class FeatureCollectionMessageBodyReaderWfs20
@@ -63,7 +62,19 @@
   private static final Logger LOGGER =
       LoggerFactory.getLogger(FeatureCollectionMessageBodyReaderWfs20.class);
 
-  private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
+  private static final String FEATURE_COLLECTION = "FeatureCollection";
+
+  private static final String EXCEPTION_REPORT = "ExceptionReport";
+
+  private static final String NUMBER_MATCHED = "numberMatched";
+
+  private static final String NUMBER_RETURNED = "numberReturned";
+
+  /**
+   * Number of bytes kept from the start of the response so an ExceptionReport can be returned to
+   * the caller. The parser only needs its first buffer to reach the root element.
+   */
+  private static final int RESPONSE_PREFIX_BYTES = 64 * 1024;
 
   protected XStream xstream;
 
@@ -72,8 +83,10 @@
   protected Map<String, FeatureConverter> featureConverterMap =
       new HashMap<String, FeatureConverter>();
 
+  private final WstxDriver driver = new WstxDriver();
+
   public FeatureCollectionMessageBodyReaderWfs20() {
-    xstream = new XStream(new WstxDriver());
+    xstream = new XStream(driver);
     xstream.addPermission(NoTypePermission.NONE);
     xstream.setClassLoader(this.getClass().getClassLoader());
     xstream.registerConverter(new GmlGeometryConverter());
@@ -81,32 +94,7 @@ public FeatureCollectionMessageBodyReaderWfs20() {
     featureCollectionConverter = new FeatureCollectionConverterWfs20();
     featureCollectionConverter.setFeatureConverterMap(featureConverterMap);
     xstream.registerConverter(featureCollectionConverter);
-    xstream.alias("FeatureCollection", Wfs20FeatureCollection.class);
-  }
-
-  private static JAXBContext initJaxbContext() {
-    JAXBContext jaxbContext = null;
-
-    // JAXB context path
-    String contextPath =
-        StringUtils.join(
-            new String[] {
-              Wfs20Constants.OGC_WFS_PACKAGE,
-              Wfs20Constants.OGC_FILTER_PACKAGE,
-              Wfs20Constants.OGC_GML_PACKAGE,
-              Wfs20Constants.OGC_OWS_PACKAGE
-            },
-            ":");
-
-    try {
-      jaxbContext =
-          JAXBContext.newInstance(
-              contextPath, FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-    } catch (JAXBException e) {
-      LOGGER.info("Unable to create JAXB context using contextPath: {}.", contextPath, e);
-    }
-
-    return jaxbContext;
+    xstream.alias(FEATURE_COLLECTION, Wfs20FeatureCollection.class);
   }
 
   @Override
@@ -118,7 +106,6 @@ public boolean isReadable(
     return Wfs20FeatureCollection.class.isAssignableFrom(clazz);
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public Wfs20FeatureCollection readFrom(
       Class<Wfs20FeatureCollection> clazz,
@@ -129,92 +116,136 @@ public Wfs20FeatureCollection readFrom(
       InputStream inStream)
       throws IOException, WebApplicationException {
 
-    // Save original input stream for any exception message that might need to be
-    // created and additional attributes
-    String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-    LOGGER.debug("{}", originalInputStream);
+    ResponsePrefixInputStream responseStream = new ResponsePrefixInputStream(inStream);
 
     ClassLoader ccl = Thread.currentThread().getContextClassLoader();
 
     try {
       Thread.currentThread()
           .setContextClassLoader(FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-      // Fetch FeatureCollection attributes
-      Unmarshaller unmarshaller = null;
-      JAXBElement<FeatureCollectionType> wfsFeatureCollectionType = null;
       xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
-      try {
-        unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
-        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-        xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
-        XMLStreamReader xmlStreamReader =
-            xmlInputFactory.createXMLStreamReader(new StringReader(originalInputStream));
-        wfsFeatureCollectionType =
-            (JAXBElement<FeatureCollectionType>) unmarshaller.unmarshal(xmlStreamReader);
-      } catch (ClassCastException e1) {
-        LOGGER.debug(
-            "Exception unmarshalling {}, could be an OWS Exception Report from server.",
-            e1.getMessage());
-
-        // If an ExceptionReport is sent from the remote WFS site it will be sent with an
-        // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-        // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
-        // response, resulting in an XStreamException since ExceptionReport cannot be
-        // unmarshalled. So this catch clause is responsible for catching that XStream
-        // exception and creating a JAX-RS response containing the original stream
-        // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
-        // which CXF will wrap as a ClientException that the WfsSource catches, converts
-        // to a WfsException, and logs.
-
-        ByteArrayInputStream bis =
-            new ByteArrayInputStream(originalInputStream.getBytes(StandardCharsets.UTF_8));
-        ResponseBuilder responseBuilder = Response.ok(bis);
-        responseBuilder.type("text/xml");
-        Response response = responseBuilder.build();
-        throw new WebApplicationException(e1, response);
-      } catch (VirtualMachineError e) {
-        throw e;
-      } catch (JAXBException | XMLStreamException e1) {
-        LOGGER.debug("Error in retrieving feature collection.", e1);
-      } catch (RuntimeException | Error e) {
-        LOGGER.debug("Error processing collection", e);
-        throw e;
-      }
 
-      Wfs20FeatureCollection featureCollection = null;
+      HierarchicalStreamReader reader = driver.createReader(responseStream);
+      try {
+        String rootName = reader.getNodeName();
+
+        if (EXCEPTION_REPORT.equals(rootName)) {
+          LOGGER.debug("Received an OWS Exception Report from server.");
+
+          // If an ExceptionReport is sent from the remote WFS site it will be sent with an
+          // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
+          // Instead the ExceptionReport will come here and be treated like a GetFeature
+          // response. So create a JAX-RS response containing the original stream
+          // (with the ExceptionReport) and throw it as a WebApplicationException,
+          // which CXF will wrap as a ClientException that the WfsSource catches, converts
+          // to a WfsException, and logs.
+          ResponseBuilder responseBuilder = Response.ok(responseStream.replay());
+          responseBuilder.type("text/xml");
+          throw new WebApplicationException(responseBuilder.build());
+        }
 
-      if (null != wfsFeatureCollectionType && null != wfsFeatureCollectionType.getValue()) {
-        BigInteger numberReturned = wfsFeatureCollectionType.getValue().getNumberReturned();
-        String numberMatched = wfsFeatureCollectionType.getValue().getNumberMatched();
+        if (!FEATURE_COLLECTION.equals(rootName)) {
+          LOGGER.debug("Unexpected root element {} in GetFeature response.", rootName);
+          return null;
+        }
 
-        // Re-create the input stream (since it has already been read for potential
-        // exception message creation)
-        inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
+        // The prefix is only needed to report an ExceptionReport
+        responseStream.release();
 
-        try {
-          xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
-          featureCollection = (Wfs20FeatureCollection) xstream.fromXML(inStream);
-          featureCollection.setNumberMatched(numberMatched);
-          featureCollection.setNumberReturned(numberReturned);
+        String numberMatched = reader.getAttribute(NUMBER_MATCHED);
+        BigInteger numberReturned = parseNumberReturned(reader.getAttribute(NUMBER_RETURNED));
 
-        } catch (XStreamException e) {
-          LOGGER.debug("Exception unmarshalling {}", e);
-        } finally {
-          IOUtils.closeQuietly(inStream);
-        }
+        Wfs20FeatureCollection featureCollection =
+            (Wfs20FeatureCollection) xstream.unmarshal(reader);
+        featureCollection.setNumberMatched(numberMatched);
+        featureCollection.setNumberReturned(numberReturned);
+        return featureCollection;
+      } finally {
+        reader.close();
       }
-
-      return featureCollection;
+    } catch (StreamException e) {
+      LOGGER.debug("Error in retrieving feature collection.", e);
+      return null;
+    } catch (XStreamException e) {
+      LOGGER.debug("Exception unmarshalling feature collection.", e);
+      return null;
     } finally {
       Thread.currentThread().setContextClassLoader(ccl);
     }
   }
 
+  private BigInteger parseNumberReturned(String numberReturned) {
+    if (StringUtils.isBlank(numberReturned)) {
+      return null;
+    }
+
+    try {
+      return new BigInteger(numberReturned.trim());
+    } catch (NumberFormatException e) {
+      LOGGER.debug("Invalid {} value: {}", NUMBER_RETURNED, numberReturned);
+      return null;
+    }
+  }
+
   public void registerConverter(FeatureConverter converter) {
     featureConverterMap.put(converter.getMetacardType().getName(), converter);
     xstream.registerConverter(converter);
     xstream.alias(converter.getMetacardType().getName(), Metacard.class);
   }
+
+  /**
+   * Keeps the first {@link #RESPONSE_PREFIX_BYTES} bytes read from the response, so that an
+   * ExceptionReport can be passed on without buffering every response in full.
+   */
+  private static class ResponsePrefixInputStream extends FilterInputStream {
+
+    private ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+
+    ResponsePrefixInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1 && prefix != null && prefix.size() < RESPONSE_PREFIX_BYTES) {
+        prefix.write(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      if (count > 0 && prefix != null) {
+        prefix.write(b, off, Math.min(count, RESPONSE_PREFIX_BYTES - prefix.size()));
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // Route skips through read() so that skipped bytes are captured as well
+      byte[] buffer = new byte[(int) Math.min(n, 4096)];
+      int count = read(buffer, 0, buffer.length);
+      return Math.max(count, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    /** Returns the whole response: the bytes read so far followed by the unread remainder. */
+    InputStream replay() throws IOException {
+      if (prefix == null || prefix.size() >= RESPONSE_PREFIX_BYTES) {
+        throw new IOException("Response prefix is no longer available.");
+      }
+      return new SequenceInputStream(new ByteArrayInputStream(prefix.toByteArray()), in);
+    }
+
+    void release() {
+      prefix = null;
+    }
+  }
 }
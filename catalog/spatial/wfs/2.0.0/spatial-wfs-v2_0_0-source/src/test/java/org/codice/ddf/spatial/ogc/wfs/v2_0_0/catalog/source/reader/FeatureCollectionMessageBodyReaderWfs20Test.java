@@ -14,13 +14,19 @@
 package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source.reader;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import javax.ws.rs.WebApplicationException;
+import org.apache.commons.io.IOUtils;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
 import org.junit.Test;
 
@@ -35,6 +41,34 @@ public void testAllowedDeserialization() throws WebApplicationException, IOExcep
         reader.readFrom(null, null, null, null, null, validWfsFeatureCollectionResponseXml);
     validWfsFeatureCollectionResponseXml.close();
     assertThat(response, notNullValue());
+    assertThat(response.getNumberMatched(), is("825"));
+    assertThat(response.getNumberReturned(), is(BigInteger.valueOf(250)));
+  }
+
+  /** An ExceptionReport is passed back to the caller with the complete response body */
+  @Test
+  public void testExceptionReport() throws IOException {
+    String exceptionReport =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<ows:ExceptionReport xmlns:ows=\"http://www.opengis.net/ows/1.1\" version=\"2.0.0\">"
+            + "<ows:Exception exceptionCode=\"InvalidParameterValue\" locator=\"typeName\">"
+            + "<ows:ExceptionText>Feature type unknown</ows:ExceptionText>"
+            + "</ows:Exception></ows:ExceptionReport>";
+    FeatureCollectionMessageBodyReaderWfs20 reader = new FeatureCollectionMessageBodyReaderWfs20();
+
+    try {
+      reader.readFrom(
+          null,
+          null,
+          null,
+          null,
+          null,
+          new ByteArrayInputStream(exceptionReport.getBytes(StandardCharsets.UTF_8)));
+      fail("Expected a WebApplicationException for an ExceptionReport.");
+    } catch (WebApplicationException e) {
+      InputStream entity = (InputStream) e.getResponse().getEntity();
+      assertThat(IOUtils.toString(entity, StandardCharsets.UTF_8), is(exceptionReport));
+    }
   }
 
   /** Negative test case to assure invalid objects are not unmarshalled */
@@ -15,10 +15,16 @@
 
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.HandlebarsException;
+import com.github.jknack.handlebars.TagType;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.helper.StringHelpers;
+import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.slf4j.Logger;
@@ -29,6 +35,12 @@
  * the values to be returned.
  */
 final class FeatureAttributeEntry {
+  /** Rendered values larger than this are not kept in the per-thread buffer. */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<CharArrayWriter> RENDER_BUFFER =
+      ThreadLocal.withInitial(CharArrayWriter::new);
+
   private String attributeName;
 
   private String featureName;
@@ -37,6 +49,8 @@ final class FeatureAttributeEntry {
 
   private Template template;
 
+  private Set<String> referencedProperties;
+
   private String toStringValue;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FeatureAttributeEntry.class);
@@ -58,6 +72,7 @@ final class FeatureAttributeEntry {
 
     try {
       this.template = handleBars.compileInline(templateText);
+      this.referencedProperties = collectReferencedProperties(handleBars, template);
     } catch (IOException e) {
       LOGGER.debug("Could not compile handlebars template: {}. ", templateText, e);
     } catch (HandlebarsException e) {
@@ -81,15 +96,53 @@ protected String getTemplateText() {
     return templateText;
   }
 
+  /**
+   * Returns the feature properties the template reads, or null when they cannot be determined, such
+   * as when the template calls helpers or uses paths. An empty set means the template renders the
+   * same value for every feature.
+   */
+  Set<String> getReferencedProperties() {
+    return referencedProperties;
+  }
+
+  boolean hasTemplate() {
+    return template != null;
+  }
+
+  private static Set<String> collectReferencedProperties(Handlebars handlebars, Template template) {
+    List<String> tagNames = template.collect(TagType.values());
+    Set<String> properties = new HashSet<>();
+    for (String tagName : tagNames) {
+      if (handlebars.helper(tagName) != null
+          || "this".equals(tagName)
+          || tagName.contains(".")
+          || tagName.contains("/")
+          || tagName.contains("[")
+          || tagName.startsWith("@")) {
+        return null;
+      }
+      properties.add(tagName);
+    }
+    return Collections.unmodifiableSet(properties);
+  }
+
   private String applyTemplate(Map<String, String> map) {
     if (template == null) {
       LOGGER.debug("Error applying template for entry: {}. The template is null.", toStringValue);
       return null;
     }
+
+    CharArrayWriter writer = RENDER_BUFFER.get();
+    writer.reset();
     try {
-      return template.apply(map);
+      template.apply(map, writer);
+      return writer.toString();
     } catch (IOException | IllegalArgumentException ioe) {
       LOGGER.error("Unable to apply template {}", templateText, ioe);
+    } finally {
+      if (writer.size() > MAX_RETAINED_BUFFER_SIZE) {
+        RENDER_BUFFER.remove();
+      }
     }
 
     return null;
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.ogc.wfs.transformer.handlebars;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.types.Core;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The attribute mappings of a {@link HandlebarsWfsFeatureTransformer} compiled against one metacard
+ * type. The plan resolves each mapping's attribute format once, evaluates templates that do not
+ * depend on the feature, and records which feature properties the mappings read so that the
+ * transformer only has to extract those.
+ */
+final class FeatureMappingPlan {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FeatureMappingPlan.class);
+
+  private final MetacardType metacardType;
+
+  private final List<Mapping> mappings;
+
+  /** Slot index of each referenced property, or null when every property has to be extracted. */
+  private final Map<String, Integer> slots;
+
+  private FeatureMappingPlan(
+      MetacardType metacardType, List<Mapping> mappings, Map<String, Integer> slots) {
+    this.metacardType = metacardType;
+    this.mappings = mappings;
+    this.slots = slots;
+  }
+
+  /**
+   * Compiles the mapping entries for the given metacard type. Entries whose attribute is not part
+   * of the metacard type, or whose template could not be compiled, are left out of the plan.
+   *
+   * @param entries the configured attribute mappings
+   * @param metacardType the type of the metacards that will be created
+   * @param requiredProperties properties that are always extracted, such as the feature id
+   */
+  static FeatureMappingPlan compile(
+      Collection<FeatureAttributeEntry> entries,
+      MetacardType metacardType,
+      String... requiredProperties) {
+    List<Mapping> mappings = new ArrayList<>();
+    Set<String> properties = new LinkedHashSet<>();
+    Collections.addAll(properties, requiredProperties);
+    boolean allProperties = false;
+
+    for (FeatureAttributeEntry entry : entries) {
+      AttributeDescriptor attributeDescriptor =
+          metacardType.getAttributeDescriptor(entry.getAttributeName());
+      if (attributeDescriptor == null) {
+        LOGGER.debug(
+            "AttributeDescriptor for attribute name {} not found. The mapping is being ignored.",
+            entry.getAttributeName());
+        continue;
+      }
+
+      AttributeFormat format = attributeDescriptor.getType().getAttributeFormat();
+      boolean resourceSize = StringUtils.equals(entry.getAttributeName(), Core.RESOURCE_SIZE);
+
+      if (StringUtils.isBlank(entry.getTemplateText())) {
+        properties.add(entry.getFeatureProperty());
+        mappings.add(new Mapping(entry, format, resourceSize, null));
+      } else if (entry.hasTemplate()) {
+        Set<String> referencedProperties = entry.getReferencedProperties();
+        String constantValue = null;
+        if (referencedProperties == null) {
+          allProperties = true;
+        } else if (referencedProperties.isEmpty()) {
+          constantValue = entry.getMappingFunction().apply(Collections.emptyMap());
+        } else {
+          properties.addAll(referencedProperties);
+        }
+        mappings.add(new Mapping(entry, format, resourceSize, constantValue));
+      } else {
+        LOGGER.debug("Ignoring mapping {} since its template could not be compiled.", entry);
+      }
+    }
+
+    Map<String, Integer> slots = null;
+    if (!allProperties) {
+      slots = new HashMap<>();
+      for (String property : properties) {
+        slots.put(property, slots.size());
+      }
+    }
+
+    return new FeatureMappingPlan(metacardType, Collections.unmodifiableList(mappings), slots);
+  }
+
+  MetacardType getMetacardType() {
+    return metacardType;
+  }
+
+  List<Mapping> getMappings() {
+    return mappings;
+  }
+
+  /** Returns true if the value of the given feature property is used by the plan. */
+  boolean isReferenced(String property) {
+    return slots == null || slots.containsKey(property);
+  }
+
+  /** Creates the map that holds the extracted property values of one feature. */
+  Map<String, String> newFeatureValues() {
+    return slots == null ? new HashMap<>() : new FeatureValues(slots);
+  }
+
+  /** A compiled attribute mapping. */
+  static final class Mapping {
+    private final FeatureAttributeEntry entry;
+
+    private final AttributeFormat attributeFormat;
+
+    private final boolean resourceSize;
+
+    private final String constantValue;
+
+    private Mapping(
+        FeatureAttributeEntry entry,
+        AttributeFormat attributeFormat,
+        boolean resourceSize,
+        String constantValue) {
+      this.entry = entry;
+      this.attributeFormat = attributeFormat;
+      this.resourceSize = resourceSize;
+      this.constantValue = constantValue;
+    }
+
+    FeatureAttributeEntry getEntry() {
+      return entry;
+    }
+
+    AttributeFormat getAttributeFormat() {
+      return attributeFormat;
+    }
+
+    boolean isResourceSize() {
+      return resourceSize;
+    }
+
+    /** Returns the mapped value for a feature, before it is converted to the attribute format. */
+    String getValue(Map<String, String> featureValues) {
+      if (constantValue != null) {
+        return constantValue;
+      }
+
+      if (StringUtils.isBlank(entry.getTemplateText())) {
+        return featureValues.get(entry.getFeatureProperty());
+      }
+
+      return entry.getMappingFunction().apply(featureValues);
+    }
+  }
+
+  /**
+   * Holds the values of the referenced properties in an array indexed by the plan's slots. Values
+   * of properties the plan does not reference are discarded.
+   */
+  private static final class FeatureValues extends AbstractMap<String, String> {
+    private final Map<String, Integer> slots;
+
+    private final String[] values;
+
+    private FeatureValues(Map<String, Integer> slots) {
+      this.slots = slots;
+      this.values = new String[slots.size()];
+    }
+
+    @Override
+    public String get(Object key) {
+      Integer slot = slots.get(key);
+      return slot == null ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public String put(String key, String value) {
+      Integer slot = slots.get(key);
+      if (slot == null) {
+        return null;
+      }
+      String previous = values[slot];
+      values[slot] = value;
+      return previous;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      Set<Entry<String, String>> entries = new HashSet<>();
+      for (Entry<String, Integer> slot : slots.entrySet()) {
+        String value = values[slot.getValue()];
+        if (value != null) {
+          entries.add(new SimpleImmutableEntry<>(slot.getKey(), value));
+        }
+      }
+      return entries;
+    }
+  }
+}
@@ -30,13 +30,11 @@
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
 import ddf.catalog.data.Attribute;
-import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.AttributeType;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.data.impl.MetacardImpl;
-import ddf.catalog.data.types.Core;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.io.StringWriter;
@@ -47,27 +45,20 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.namespace.QName;
-import javax.xml.stream.XMLEventFactory;
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Namespace;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import ogc.schema.opengis.wfs_capabilities.v_1_0_0.FeatureTypeType;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.tika.io.IOUtils;
 import org.codice.ddf.platform.util.XMLUtils;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants;
 import org.codice.ddf.spatial.ogc.wfs.catalog.metacardtype.registry.WfsMetacardTypeRegistry;
@@ -96,8 +87,6 @@ public class HandlebarsWfsFeatureTransformer implements FeatureTransformer<Featu
 
   private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
 
-  private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newInstance();
-
   private static final String ATTRIBUTE_NAME = "attributeName";
 
   private static final String FEATURE_NAME = "featureName";
@@ -110,239 +99,260 @@ public class HandlebarsWfsFeatureTransformer implements FeatureTransformer<Featu
 
   private static final String GML_NAMESPACE = "http://www.opengis.net/gml";
 
+  private static final Gml3ToWkt GML3_TO_WKT =
+      new Gml3ToWktImpl(new org.geotools.gml3.GMLConfiguration());
+
+  private static final Gml3ToWkt GML2_TO_WKT =
+      new Gml3ToWktImpl(new org.geotools.gml2.GMLConfiguration());
+
   private String featureType;
 
   private QName featureTypeQName;
 
   private String dataUnit;
 
-  private MetacardType metacardType;
-
-  private Map<String, FeatureAttributeEntry> mappingEntries;
+  private volatile AttributeMappings attributeMappings =
+      new AttributeMappings(Collections.emptyMap());
 
   private WfsMetacardTypeRegistry metacardTypeRegistry;
 
-  public HandlebarsWfsFeatureTransformer() {
-    mappingEntries = new HashMap<>();
-  }
-
   @Override
   public Optional<Metacard> apply(InputStream inputStream, WfsMetadata metadata) {
-    if (!isStateValid(inputStream, metadata)) {
-      LOGGER.debug("Transformer state is invalid: {}, {}", featureType, mappingEntries);
+    AttributeMappings mappings = attributeMappings;
+    if (!isStateValid(inputStream, metadata, mappings)) {
+      LOGGER.debug("Transformer state is invalid: {}, {}", featureType, mappings.entries);
       return Optional.empty();
     }
 
-    lookupMetacardType(metadata);
+    MetacardType metacardType = lookupMetacardType(metadata);
     if (metacardType == null) {
       return Optional.empty();
     }
 
-    Map<String, String> contextMap = new HashMap<>();
-    populateContextMap(inputStream, contextMap);
-    if (CollectionUtils.isEmpty(contextMap)) {
+    FeatureMappingPlan plan = mappings.getPlan(metacardType);
+
+    Map<String, String> featureValues = plan.newFeatureValues();
+    if (!populateFeatureValues(inputStream, plan, featureValues)) {
       return Optional.empty();
     }
 
-    return Optional.of(createMetacard(contextMap, metadata.getId()));
+    return Optional.of(createMetacard(plan, featureValues, metadata.getId()));
   }
 
   /**
-   * Reads in the FeatureMember from the input stream, populating the contextMap with the XML tag
-   * names and values
+   * Reads in the FeatureMember from the input stream, populating featureValues with the values of
+   * the XML elements referenced by the mapping plan. An element whose first child is a GML element
+   * is given the GML as its value.
    *
    * @param inputStream the stream containing the FeatureMember xml document
+   * @return true if the FeatureMember contains the feature type handled by this transformer
    */
-  private void populateContextMap(InputStream inputStream, Map<String, String> contextMap) {
-    Map<String, String> namespaces = new HashMap<>();
-    boolean canHandleFeatureType = false;
+  private boolean populateFeatureValues(
+      InputStream inputStream, FeatureMappingPlan plan, Map<String, String> featureValues) {
+    XMLStreamReader xmlStreamReader = null;
     try {
-      XMLEventReader xmlEventReader = getXmlEventReader(inputStream);
+      xmlStreamReader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
 
+      boolean canHandleFeatureType = false;
       String elementName = null;
-      while (xmlEventReader.hasNext()) {
-        XMLEvent xmlEvent = xmlEventReader.nextEvent();
-        if (xmlEvent.isStartElement()) {
-          StartElement startElement = xmlEvent.asStartElement();
-          elementName = startElement.getName().getLocalPart();
-          canHandleFeatureType |=
-              processStartElement(
-                  xmlEventReader, startElement, namespaces, contextMap, canHandleFeatureType);
-        } else if (xmlEvent.isCharacters()) {
-          contextMap.put(elementName, xmlEvent.asCharacters().getData());
+      // The element whose first child may be a GML element, if no other content has been read
+      String gmlPropertyName = null;
+      boolean readingText = false;
+
+      while (xmlStreamReader.hasNext()) {
+        int event = xmlStreamReader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          readingText = false;
+          if (gmlPropertyName != null && isGmlElement(xmlStreamReader)) {
+            if (plan.isReferenced(gmlPropertyName)) {
+              featureValues.put(gmlPropertyName, readGmlData(xmlStreamReader, gmlPropertyName));
+            } else {
+              skipToParentEnd(xmlStreamReader);
+            }
+            gmlPropertyName = null;
+            continue;
+          }
+
+          elementName = xmlStreamReader.getLocalName();
+          if (!canHandleFeatureType && canHandleFeatureType(xmlStreamReader)) {
+            featureValues.put(METACARD_ID, getIdAttributeValue(xmlStreamReader));
+            canHandleFeatureType = true;
+            gmlPropertyName = null;
+          } else {
+            gmlPropertyName = canHandleFeatureType ? elementName : null;
+          }
+        } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+          String text = xmlStreamReader.getText();
+          if (text.trim().length() > 0) {
+            gmlPropertyName = null;
+            if (elementName != null && plan.isReferenced(elementName)) {
+              String previous = readingText ? featureValues.get(elementName) : null;
+              featureValues.put(elementName, previous == null ? text : previous + text);
+            }
+            readingText = true;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          gmlPropertyName = null;
+          readingText = false;
         }
       }
-      if (!canHandleFeatureType) {
-        contextMap.clear();
-      }
+      return canHandleFeatureType;
     } catch (XMLStreamException e) {
       LOGGER.debug("Error transforming feature to metacard.", e);
-    }
-  }
-
-  private boolean processStartElement(
-      XMLEventReader xmlEventReader,
-      StartElement startElement,
-      Map<String, String> namespaces,
-      Map<String, String> contextMap,
-      boolean featureTypeFound)
-      throws XMLStreamException {
-    mapNamespaces(startElement, namespaces);
-    if (!featureTypeFound) {
-      if (canHandleFeatureType(startElement)) {
-        String id =
-            getIdAttributeValue(
-                startElement, namespaces, getNamespaceAlias(GML_NAMESPACE, namespaces));
-        contextMap.put(METACARD_ID, id);
-        return true;
-      }
-    } else {
-      XMLEvent eventPeek = xmlEventReader.peek();
-      if (eventPeek.isStartElement() && isGmlElement(eventPeek.asStartElement(), namespaces)) {
-        readGmlData(xmlEventReader, startElement.getName().getLocalPart(), contextMap);
-      }
-    }
-    return false;
-  }
-
-  private boolean isGmlElement(StartElement startElement, Map<String, String> namespaces) {
-    String gmlNamespaceAlias = getNamespaceAlias(GML_NAMESPACE, namespaces);
-    if (StringUtils.isBlank(gmlNamespaceAlias)) {
       return false;
+    } finally {
+      closeQuietly(xmlStreamReader);
     }
-    return startElement.getName().getPrefix().equals(gmlNamespaceAlias);
   }
 
-  private boolean canHandleFeatureType(StartElement startElement) {
-    return startElement.getName().getLocalPart().equals(featureTypeQName.getLocalPart());
+  private boolean isGmlElement(XMLStreamReader xmlStreamReader) {
+    String namespaceUri = xmlStreamReader.getNamespaceURI();
+    return namespaceUri != null && namespaceUri.contains(GML_NAMESPACE);
   }
 
-  private String getNamespaceAlias(String namespace, Map<String, String> namespaces) {
-    return namespaces
-        .entrySet()
-        .stream()
-        .filter(entry -> entry.getValue().contains(namespace))
-        .map(Map.Entry::getKey)
-        .findFirst()
-        .orElse("");
+  private boolean canHandleFeatureType(XMLStreamReader xmlStreamReader) {
+    return xmlStreamReader.getLocalName().equals(featureTypeQName.getLocalPart());
   }
 
-  private String getIdAttributeValue(
-      StartElement startElement, Map<String, String> namespaces, String namespaceAlias) {
+  private String getIdAttributeValue(XMLStreamReader xmlStreamReader) {
     String id = null;
-    startElement.getAttributeByName(new QName(namespaces.get(namespaceAlias), "id")).getValue();
-    javax.xml.stream.events.Attribute idAttribute =
-        startElement.getAttributeByName(new QName(namespaces.get(namespaceAlias), "id"));
-    if (idAttribute != null) {
-      id = idAttribute.getValue();
-    }
-
-    if (StringUtils.isBlank(id)) {
-      for (Iterator i = startElement.getAttributes(); i.hasNext(); ) {
-        idAttribute = (javax.xml.stream.events.Attribute) i.next();
-        if (idAttribute != null && idAttribute.getName().getLocalPart().equals("id")) {
-          id = idAttribute.getValue();
+    for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+      if ("id".equals(xmlStreamReader.getAttributeLocalName(i))) {
+        String namespaceUri = xmlStreamReader.getAttributeNamespace(i);
+        if (namespaceUri != null && namespaceUri.contains(GML_NAMESPACE)) {
+          return xmlStreamReader.getAttributeValue(i);
         }
+        id = xmlStreamReader.getAttributeValue(i);
       }
     }
-
     return id;
   }
 
-  private XMLEventReader getXmlEventReader(InputStream inputStream) throws XMLStreamException {
-    XMLEventReader xmlEventReader = XML_INPUT_FACTORY.createXMLEventReader(inputStream);
-    xmlEventReader =
-        XML_INPUT_FACTORY.createFilteredReader(
-            xmlEventReader,
-            event -> {
-              if (event.isCharacters()) {
-                return event.asCharacters().getData().trim().length() > 0;
-              }
-
-              return true;
-            });
-    return xmlEventReader;
-  }
-
-  private void readGmlData(
-      XMLEventReader xmlEventReader, String elementName, Map<String, String> contextMap)
+  /**
+   * Writes the current GML element and any following siblings, up to the end of their parent
+   * element, to a string. The parent's end element is consumed.
+   */
+  private String readGmlData(XMLStreamReader xmlStreamReader, String elementName)
       throws XMLStreamException {
+    StringWriter stringWriter = new StringWriter();
+    XMLStreamWriter streamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(stringWriter);
 
-    if (!xmlEventReader.peek().isStartElement()) {
-      LOGGER.debug(
-          "Problem reading gml data for element: {}. Invalid xml element provided.", elementName);
-      return;
+    try {
+      int depth = 0;
+      int event = xmlStreamReader.getEventType();
+      while (true) {
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          writeStartElement(xmlStreamReader, streamWriter);
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth == 0) {
+            break;
+          }
+          streamWriter.writeEndElement();
+          depth--;
+        } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)
+            && xmlStreamReader.getText().trim().length() > 0) {
+          streamWriter.writeCharacters(xmlStreamReader.getText());
+        }
+        event = xmlStreamReader.next();
+      }
+      streamWriter.flush();
+    } finally {
+      streamWriter.close();
     }
 
-    StringWriter stringWriter = new StringWriter();
-    XMLEventWriter eventWriter = XML_OUTPUT_FACTORY.createXMLEventWriter(stringWriter);
+    LOGGER.trace("GML for element {}: {}", elementName, stringWriter);
+    return stringWriter.toString();
+  }
 
-    if (eventWriter == null) {
-      LOGGER.debug("Problem reading gml data for element: {}. Event writer is null", elementName);
-      return;
+  /** Writes a start element, declaring its prefix if the element does not declare it itself. */
+  private void writeStartElement(XMLStreamReader xmlStreamReader, XMLStreamWriter streamWriter)
+      throws XMLStreamException {
+    String prefix = StringUtils.defaultString(xmlStreamReader.getPrefix());
+    String namespaceUri = StringUtils.defaultString(xmlStreamReader.getNamespaceURI());
+    streamWriter.writeStartElement(prefix, xmlStreamReader.getLocalName(), namespaceUri);
+
+    boolean prefixBound = false;
+    for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+      String namespacePrefix = StringUtils.defaultString(xmlStreamReader.getNamespacePrefix(i));
+      prefixBound |= namespacePrefix.equals(prefix);
+      if (namespacePrefix.isEmpty()) {
+        streamWriter.writeDefaultNamespace(xmlStreamReader.getNamespaceURI(i));
+      } else {
+        streamWriter.writeNamespace(namespacePrefix, xmlStreamReader.getNamespaceURI(i));
+      }
+    }
+    if (!prefix.isEmpty() && !prefixBound) {
+      streamWriter.writeNamespace(prefix, namespaceUri);
     }
 
-    int count = 0;
-    boolean addEvent = true;
+    for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+      String attributePrefix = StringUtils.defaultString(xmlStreamReader.getAttributePrefix(i));
+      if (attributePrefix.isEmpty()) {
+        streamWriter.writeAttribute(
+            xmlStreamReader.getAttributeLocalName(i), xmlStreamReader.getAttributeValue(i));
+      } else {
+        streamWriter.writeAttribute(
+            attributePrefix,
+            xmlStreamReader.getAttributeNamespace(i),
+            xmlStreamReader.getAttributeLocalName(i),
+            xmlStreamReader.getAttributeValue(i));
+      }
+    }
+  }
 
-    try {
-      while (addEvent) {
-        XMLEvent xmlEvent = xmlEventReader.nextEvent();
-
-        // populate the start element with the namespaces
-        if (xmlEvent.isStartElement()) {
-          xmlEvent = addNamespacesToStartElement(xmlEvent.asStartElement());
-          count++;
-        } else if (xmlEvent.isEndElement()) {
-          if (count == 0) {
-            addEvent = false;
-            eventWriter.flush();
-            LOGGER.debug("String writer: {}", stringWriter);
-            contextMap.put(elementName, stringWriter.toString());
-          }
-          count--;
-        }
+  /** Skips the current element and any following siblings, consuming their parent's end element. */
+  private void skipToParentEnd(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    int depth = 1;
+    while (depth >= 0 && xmlStreamReader.hasNext()) {
+      int event = xmlStreamReader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
 
-        if (addEvent) {
-          eventWriter.add(xmlEvent);
-        }
+  private void closeQuietly(XMLStreamReader xmlStreamReader) {
+    if (xmlStreamReader != null) {
+      try {
+        xmlStreamReader.close();
+      } catch (XMLStreamException e) {
+        LOGGER.debug("Unable to close XML stream reader.", e);
       }
-    } finally {
-      eventWriter.close();
-      IOUtils.closeQuietly(stringWriter);
     }
   }
 
-  private void lookupMetacardType(WfsMetadata metadata) {
+  private MetacardType lookupMetacardType(WfsMetadata metadata) {
     Optional<MetacardType> optionalMetacardType =
         metacardTypeRegistry.lookupMetacardTypeBySimpleName(
             metadata.getId(), featureTypeQName.getLocalPart());
-    if (optionalMetacardType.isPresent()) {
-      metacardType = optionalMetacardType.get();
-    } else {
+    if (!optionalMetacardType.isPresent()) {
       LOGGER.debug(
           "Error looking up metacard type for source id: '{}', and simple name: '{}'",
           metadata.getId(),
           featureTypeQName.getLocalPart());
+      return null;
     }
+    return optionalMetacardType.get();
   }
 
-  private Metacard createMetacard(Map<String, String> contextMap, String metadataId) {
+  private Metacard createMetacard(
+      FeatureMappingPlan plan, Map<String, String> featureValues, String metadataId) {
+    MetacardType metacardType = plan.getMetacardType();
     MetacardImpl metacard = new MetacardImpl(metacardType);
 
-    List<Attribute> attributes =
-        mappingEntries
-            .values()
-            .stream()
-            .map(entry -> createAttribute(entry, contextMap))
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
-
-    attributes.forEach(metacard::setAttribute);
+    for (FeatureMappingPlan.Mapping mapping : plan.getMappings()) {
+      Attribute attribute = createAttribute(mapping, featureValues);
+      if (attribute != null) {
+        metacard.setAttribute(attribute);
+      }
+    }
 
     String id = null;
     if (StringUtils.isBlank(metacard.getId())) {
-      id = contextMap.get(METACARD_ID);
+      id = featureValues.get(METACARD_ID);
       if (StringUtils.isNotBlank(id)) {
         metacard.setId(id);
       } else {
@@ -381,40 +391,17 @@ private Metacard createMetacard(Map<String, String> contextMap, String metadataI
     return metacard;
   }
 
-  private StartElement addNamespacesToStartElement(StartElement startElement) {
-    String prefix = startElement.getName().getPrefix();
-    if (StringUtils.isBlank(prefix)) {
-      return startElement;
-    }
-
-    if (isPrefixBound(startElement, prefix)) {
-      return startElement;
-    }
-
-    return XML_EVENT_FACTORY.createStartElement(
-        prefix,
-        startElement.getNamespaceURI(prefix),
-        startElement.getName().getLocalPart(),
-        startElement.getAttributes(),
-        Collections.singletonList(
-                XML_EVENT_FACTORY.createNamespace(prefix, startElement.getNamespaceURI(prefix)))
-            .iterator());
-  }
-
-  private Attribute createAttribute(FeatureAttributeEntry entry, Map<String, String> contextMap) {
-    String value;
-    if (StringUtils.isNotBlank(entry.getTemplateText())) {
-      value = entry.getMappingFunction().apply(contextMap);
-    } else {
-      value = contextMap.get(entry.getFeatureProperty());
-    }
+  private Attribute createAttribute(
+      FeatureMappingPlan.Mapping mapping, Map<String, String> featureValues) {
+    FeatureAttributeEntry entry = mapping.getEntry();
+    String value = mapping.getValue(featureValues);
 
     if (StringUtils.isBlank(value)) {
       LOGGER.debug("No value found for feature type: {}", entry.getFeatureProperty());
       return null;
     }
 
-    Serializable attributeValue = getMetacardAttributeValue(entry.getFeatureProperty(), value);
+    Serializable attributeValue = getMetacardAttributeValue(mapping, value);
     if (attributeValue == null) {
       LOGGER.debug(
           "No attribute value found for feature type: {}, attribute: {}",
@@ -426,40 +413,14 @@ private Attribute createAttribute(FeatureAttributeEntry entry, Map<String, Strin
     return new AttributeImpl(entry.getAttributeName(), attributeValue);
   }
 
-  private Serializable getMetacardAttributeValue(String featureName, String featureValue) {
-    FeatureAttributeEntry entry = mappingEntries.get(featureName);
-    if (entry == null) {
-      LOGGER.debug(
-          "Error handling feature name: {}, with value: {}. No mapping entry found for feature name",
-          featureName,
-          featureValue);
-      return null;
-    }
-
-    AttributeDescriptor attributeDescriptor =
-        metacardType.getAttributeDescriptor(entry.getAttributeName());
-    if (attributeDescriptor == null) {
-      LOGGER.debug(
-          "AttributeDescriptor for attribute name {} not found. The mapping is being ignored.",
-          entry.getAttributeName());
-      return null;
-    }
-
-    Serializable attributeValue = null;
-
-    if (StringUtils.equals(entry.getAttributeName(), Core.RESOURCE_SIZE)) {
+  private Serializable getMetacardAttributeValue(
+      FeatureMappingPlan.Mapping mapping, String featureValue) {
+    if (mapping.isResourceSize()) {
       String bytes = convertToBytes(featureValue, getDataUnit());
-
-      if (StringUtils.isNotBlank(bytes)) {
-        attributeValue = bytes;
-      }
-    } else {
-      attributeValue =
-          getValueForAttributeFormat(
-              attributeDescriptor.getType().getAttributeFormat(), featureValue);
+      return StringUtils.isNotBlank(bytes) ? bytes : null;
     }
 
-    return attributeValue;
+    return getValueForAttributeFormat(mapping.getAttributeFormat(), featureValue);
   }
 
   private Serializable getValueForAttributeFormat(
@@ -528,9 +489,8 @@ private String getWktFromGeometry(String geometry) {
 
   private String getWktFromGml3(String geometry) {
     String wkt = null;
-    Gml3ToWkt gml3ToWkt = new Gml3ToWktImpl(new org.geotools.gml3.GMLConfiguration());
     try {
-      wkt = gml3ToWkt.convert(geometry);
+      wkt = GML3_TO_WKT.convert(geometry);
     } catch (Exception e) {
       LOGGER.debug("Error converting gml to wkt using gml3 configuration. GML: {}.", geometry, e);
     }
@@ -539,35 +499,16 @@ private String getWktFromGml3(String geometry) {
 
   private String getWktFromGml2(String geometry) {
     String wkt = null;
-    Gml3ToWkt gml3ToWkt = new Gml3ToWktImpl(new org.geotools.gml2.GMLConfiguration());
     try {
-      wkt = gml3ToWkt.convert(geometry);
+      wkt = GML2_TO_WKT.convert(geometry);
     } catch (Exception e) {
       LOGGER.debug("Error converting gml to wkt using gml2 configuration. GML: {}.", geometry, e);
     }
     return wkt;
   }
 
-  private boolean isPrefixBound(StartElement startElement, String prefix) {
-    for (Iterator i = startElement.getNamespaces(); i.hasNext(); ) {
-      Namespace namespace = (Namespace) i.next();
-
-      if (namespace.getPrefix().equals(prefix)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private void mapNamespaces(StartElement startElement, Map<String, String> map) {
-
-    for (Iterator i = startElement.getNamespaces(); i.hasNext(); ) {
-      Namespace namespace = (Namespace) i.next();
-      map.put(namespace.getPrefix(), namespace.getNamespaceURI());
-    }
-  }
-
-  private boolean isStateValid(InputStream inputStream, WfsMetadata metadata) {
+  private boolean isStateValid(
+      InputStream inputStream, WfsMetadata metadata, AttributeMappings mappings) {
     if (inputStream == null) {
       LOGGER.debug("Received a null input stream.");
       return false;
@@ -583,7 +524,7 @@ private boolean isStateValid(InputStream inputStream, WfsMetadata metadata) {
       return false;
     }
 
-    if (CollectionUtils.isEmpty(mappingEntries.values())) {
+    if (CollectionUtils.isEmpty(mappings.entries.values())) {
       LOGGER.debug("There are no mappings for feature type: {}", featureType);
       return false;
     }
@@ -591,14 +532,17 @@ private boolean isStateValid(InputStream inputStream, WfsMetadata metadata) {
     return true;
   }
 
-  private void addAttributeMapping(String attributeName, String featureName, String templateText) {
+  private void addAttributeMapping(
+      Map<String, FeatureAttributeEntry> entries,
+      String attributeName,
+      String featureName,
+      String templateText) {
     LOGGER.trace(
         "Adding attribute mapping from: {} to: {} using: {}",
         attributeName,
         featureName,
         templateText);
-    mappingEntries.put(
-        featureName, new FeatureAttributeEntry(attributeName, featureName, templateText));
+    entries.put(featureName, new FeatureAttributeEntry(attributeName, featureName, templateText));
   }
 
   public String getDataUnit() {
@@ -621,14 +565,16 @@ public void setMetacardTypeRegistry(WfsMetacardTypeRegistry metacardTypeRegistry
   }
 
   /**
-   * Sets a list of attribute mappings from a list of JSON strings.
+   * Sets a list of attribute mappings from a list of JSON strings. The new mappings replace the
+   * previous ones at once, so a feature being transformed concurrently uses either set but never a
+   * mix of both.
    *
    * @param attributeMappingsList - a list of JSON-formatted `FeatureAttributeEntry` objects.
    */
   public void setAttributeMappings(/*@Nullable*/ List<String> attributeMappingsList) {
     LOGGER.trace("Setting attribute mappings to: {}", attributeMappingsList);
     if (attributeMappingsList != null) {
-      mappingEntries.clear();
+      Map<String, FeatureAttributeEntry> entries = new HashMap<>();
       attributeMappingsList
           .stream()
           .filter(StringUtils::isNotEmpty)
@@ -637,9 +583,11 @@ public void setAttributeMappings(/*@Nullable*/ List<String> attributeMappingsLis
           .forEach(
               map ->
                   addAttributeMapping(
+                      entries,
                       (String) map.get(ATTRIBUTE_NAME),
                       (String) map.get(FEATURE_NAME),
                       (String) map.get(TEMPLATE)));
+      attributeMappings = new AttributeMappings(entries);
     }
   }
 
@@ -690,4 +638,29 @@ private String convertToBytes(String value, String unit) {
     LOGGER.debug("resource size in bytes: {}", resourceSizeAsString);
     return resourceSizeAsString;
   }
+
+  /**
+   * An immutable set of attribute mappings together with the plan compiled from them. Both are
+   * replaced with a single write, so a plan compiled from stale mappings can never be cached for
+   * newer ones.
+   */
+  private static final class AttributeMappings {
+
+    private final Map<String, FeatureAttributeEntry> entries;
+
+    private volatile FeatureMappingPlan plan;
+
+    private AttributeMappings(Map<String, FeatureAttributeEntry> entries) {
+      this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    private FeatureMappingPlan getPlan(MetacardType metacardType) {
+      FeatureMappingPlan currentPlan = plan;
+      if (currentPlan == null || currentPlan.getMetacardType() != metacardType) {
+        currentPlan = FeatureMappingPlan.compile(entries.values(), metacardType, METACARD_ID);
+        plan = currentPlan;
+      }
+      return currentPlan;
+    }
+  }
 }
@@ -134,6 +134,36 @@ public void setDefaultValueEvenIfFeatureTypeNotFound() {
     assertThat(getAttributeValue(Location.COUNTRY_CODE, metacard), equalTo("USA"));
   }
 
+  @Test
+  public void templateReadsOtherFeatureProperties() {
+    List<String> mappings = new ArrayList<>(getMappings());
+    mappings.add(createMapping(Core.DESCRIPTION, "Keyword", "{{PanTopic}} - {{Keyword}}"));
+    transformer.setAttributeMappings(mappings);
+
+    Optional<Metacard> metacardOptional = transformer.apply(inputStream, mockWfsMetadata);
+
+    assertThat(metacardOptional.isPresent(), is(true));
+    Metacard metacard = metacardOptional.get();
+
+    assertExpectedAttributes(metacard);
+    assertThat(getAttributeValue(Core.DESCRIPTION, metacard), equalTo("General PAN 1 - Imagery"));
+  }
+
+  @Test
+  public void templateWithHelperIsApplied() {
+    List<String> mappings = new ArrayList<>(getMappings());
+    mappings.add(createMapping(Core.DESCRIPTION, "Keyword", "{{lower PANStatus}}"));
+    transformer.setAttributeMappings(mappings);
+
+    Optional<Metacard> metacardOptional = transformer.apply(inputStream, mockWfsMetadata);
+
+    assertThat(metacardOptional.isPresent(), is(true));
+    Metacard metacard = metacardOptional.get();
+
+    assertExpectedAttributes(metacard);
+    assertThat(getAttributeValue(Core.DESCRIPTION, metacard), equalTo("active"));
+  }
+
   @Test
   public void invalidStateBlankFeatureTypeReturnsEmpty() {
     transformer.setFeatureType("");
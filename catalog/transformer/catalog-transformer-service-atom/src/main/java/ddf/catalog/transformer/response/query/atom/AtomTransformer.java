@@ -34,31 +34,56 @@
 import ddf.geo.formatter.CompositeGeometry;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
+import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
-import org.apache.abdera.Abdera;
-import org.apache.abdera.ext.geo.GeoHelper;
-import org.apache.abdera.ext.geo.GeoHelper.Encoding;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.abdera.ext.geo.Box;
+import org.apache.abdera.ext.geo.Line;
+import org.apache.abdera.ext.geo.Point;
+import org.apache.abdera.ext.geo.Polygon;
 import org.apache.abdera.ext.geo.Position;
 import org.apache.abdera.ext.opensearch.OpenSearchConstants;
-import org.apache.abdera.model.Content.Type;
-import org.apache.abdera.model.Element;
-import org.apache.abdera.model.Entry;
-import org.apache.abdera.model.Feed;
 import org.apache.abdera.model.Link;
+import org.apache.commons.io.input.BrokenInputStream;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang.StringUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.codice.ddf.configuration.SystemInfo;
+import org.codice.ddf.platform.util.ForkJoinPoolFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,9 +115,32 @@ public class AtomTransformer implements QueryResponseTransformer {
 
   static final String DEFAULT_SOURCE_ID = "unknown";
 
+  private static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
   private static final String FEDERATION_EXTENSION_NAMESPACE =
       "http://a9.com/-/opensearch/extensions/federation/1.0/";
 
+  private static final String FEDERATION_EXTENSION_PREFIX = "fs";
+
+  private static final String RELEVANCE_EXTENSION_NAMESPACE =
+      "http://a9.com/-/opensearch/extensions/relevance/1.0/";
+
+  private static final String RELEVANCE_EXTENSION_PREFIX = "relevance";
+
+  private static final String GEORSS_NAMESPACE = "http://www.georss.org/georss";
+
+  private static final String GEORSS_PREFIX = "georss";
+
+  private static final String GML_NAMESPACE = "http://www.opengis.net/gml";
+
+  private static final String GML_PREFIX = "gml";
+
+  private static final Map<String, String> NAMESPACE_PREFIXES = new LinkedHashMap<>();
+
+  private static final String XML_CONTENT_TYPE = "application/xml";
+
+  private static final byte[] FEED_FOOTER = "</feed>".getBytes(StandardCharsets.UTF_8);
+
   private static final String COULD_NOT_CREATE_XML_CONTENT_MESSAGE =
       "Could not create xml content. Running default behavior.";
 
@@ -104,10 +152,28 @@ public class AtomTransformer implements QueryResponseTransformer {
 
   private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 
-  // expensive creation, meant to be done once
-  private static final Abdera ABDERA = new Abdera();
+  private static final DateTimeFormatter ATOM_DATE_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+  /** Number of entries created ahead of the entry being read from the feed. */
+  private static final int ENTRY_WINDOW_SIZE = 16;
+
+  private static final int ENTRY_BUFFER_SIZE = 4 * 1024;
+
+  private static final ForkJoinPool ENTRY_POOL = ForkJoinPoolFactory.getNewForkJoinPool(null, true);
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
 
   static {
+    NAMESPACE_PREFIXES.put(ATOM_NAMESPACE, "");
+    NAMESPACE_PREFIXES.put(OpenSearchConstants.OPENSEARCH_NS, OpenSearchConstants.OS_PREFIX);
+    NAMESPACE_PREFIXES.put(FEDERATION_EXTENSION_NAMESPACE, FEDERATION_EXTENSION_PREFIX);
+    NAMESPACE_PREFIXES.put(RELEVANCE_EXTENSION_NAMESPACE, RELEVANCE_EXTENSION_PREFIX);
+    NAMESPACE_PREFIXES.put(GEORSS_NAMESPACE, GEORSS_PREFIX);
+    NAMESPACE_PREFIXES.put(GML_NAMESPACE, GML_PREFIX);
+
     try {
       MIME_TYPE.setPrimaryType("application");
       MIME_TYPE.setSubType("atom+xml");
@@ -117,6 +183,13 @@ public class AtomTransformer implements QueryResponseTransformer {
     }
   }
 
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    return xmlInputFactory;
+  }
+
   private MetacardTransformer metacardTransformer;
 
   private ActionProvider viewMetacardActionProvider;
@@ -151,132 +224,181 @@ public BinaryContent transform(SourceResponse sourceResponse, Map<String, Serial
     }
 
     final Date currentDate = new Date();
-    final Feed feed = createFeed();
+
+    List<Result> results = Collections.emptyList();
+    if (getCount(sourceResponse) != 0 && sourceResponse.getResults() != null) {
+      results = sourceResponse.getResults();
+    }
 
     /*
-     * Atom spec text (rfc4287) Sect 4.2.14: "The "atom:title" element is a Text construct that
-     * conveys a human- readable title for an entry or feed."
+     * The feed is streamed: the header is written up front, and the entries are written as the
+     * content is read. The entries are created in a small window ahead of the reader so that the
+     * metacard transformations run in parallel while the entries stay in order.
      */
-    feed.setTitle(DEFAULT_FEED_TITLE);
+    List<InputStream> feedParts = new ArrayList<>(3);
+    feedParts.add(new ByteArrayInputStream(createFeedHeader(sourceResponse, currentDate)));
+    feedParts.add(new SequenceInputStream(new EntryEnumeration(results, currentDate)));
+    feedParts.add(new ByteArrayInputStream(FEED_FOOTER));
 
-    feed.setUpdated(currentDate);
-
-    // TODO Use the same id for the same query
-    // one challenge is a query in one site should not have the same feed id
-    // as a query in another site probably could factor in ddf.host and port
-    // into the algorithm
+    return new BinaryContentImpl(
+        new SequenceInputStream(Collections.enumeration(feedParts)), MIME_TYPE);
+  }
 
-    feed.setId(URN_UUID + UUID.randomUUID().toString());
+  private byte[] createFeedHeader(SourceResponse sourceResponse, Date currentDate)
+      throws CatalogTransformerException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-    // TODO SELF LINK For the Feed, possible design --> serialize Query into
-    // a URL
-    /*
-     * Atom spec text (rfc4287): "atom:feed elements SHOULD contain one atom:link element with a
-     * rel attribute value of self. This is the preferred URI for retrieving Atom Feed Documents
-     * representing this Atom feed. "
-     */
-    feed.addLink("#", Link.REL_SELF);
+    try {
+      XMLStreamWriter writer =
+          XML_OUTPUT_FACTORY.createXMLStreamWriter(baos, StandardCharsets.UTF_8.name());
+      writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+      startElement(writer, ATOM_NAMESPACE, "feed");
+      // the entries are written separately, so every namespace they use is declared here
+      for (Map.Entry<String, String> namespace : NAMESPACE_PREFIXES.entrySet()) {
+        if (namespace.getValue().isEmpty()) {
+          writer.writeDefaultNamespace(namespace.getKey());
+        } else {
+          writer.writeNamespace(namespace.getValue(), namespace.getKey());
+        }
+      }
 
-    if (!StringUtils.isEmpty(SystemInfo.getOrganization())) {
-      feed.addAuthor(SystemInfo.getOrganization());
-    } else {
-      feed.addAuthor(DEFAULT_AUTHOR);
-    }
+      /*
+       * Atom spec text (rfc4287) Sect 4.2.14: "The "atom:title" element is a Text construct that
+       * conveys a human- readable title for an entry or feed."
+       */
+      writeText(writer, "title", DEFAULT_FEED_TITLE);
 
-    /*
-     * Atom spec text (rfc4287 sect. 4.2.4): "The "atom:generator" element's content identifies
-     * the agent used to generate a feed, for debugging and other purposes." Generator is not
-     * required in the atom:feed element.
-     */
-    if (!StringUtils.isEmpty(SystemInfo.getSiteName())) {
-      // text is required.
-      feed.setGenerator(null, SystemInfo.getVersion(), SystemInfo.getSiteName());
-    }
+      writeAtomElement(writer, "updated", formatDate(currentDate));
 
-    /*
-     * According to http://www.opensearch.org/Specifications/OpenSearch/1.1 specification,
-     * totalResults must be a non-negative integer. Requirements: This attribute is optional.
-     */
-    if (sourceResponse.getHits() > -1) {
-      Element hits = feed.addExtension(OpenSearchConstants.TOTAL_RESULTS);
-      hits.setText(Long.toString(sourceResponse.getHits()));
-    }
+      // TODO Use the same id for the same query
+      // one challenge is a query in one site should not have the same feed id
+      // as a query in another site probably could factor in ddf.host and port
+      // into the algorithm
 
-    if (sourceResponse.getRequest() != null && sourceResponse.getRequest().getQuery() != null) {
-      Element itemsPerPage = feed.addExtension(OpenSearchConstants.ITEMS_PER_PAGE);
-      Element startIndex = feed.addExtension(OpenSearchConstants.START_INDEX);
+      writeAtomElement(writer, "id", URN_UUID + UUID.randomUUID().toString());
 
+      // TODO SELF LINK For the Feed, possible design --> serialize Query into
+      // a URL
       /*
-       * According to http://www.opensearch.org/Specifications/OpenSearch/1.1 specification,
-       * itemsPerPage must be a non-negative integer. It is possible that Catalog pageSize is
-       * set to a non-negative integer though. When non-negative we will instead we will
-       * change it to the number of search results on current page.
+       * Atom spec text (rfc4287): "atom:feed elements SHOULD contain one atom:link element with a
+       * rel attribute value of self. This is the preferred URI for retrieving Atom Feed Documents
+       * representing this Atom feed. "
        */
-      if (sourceResponse.getRequest().getQuery().getPageSize() > -1) {
-        itemsPerPage.setText(
-            Integer.toString(sourceResponse.getRequest().getQuery().getPageSize()));
+      emptyElement(writer, ATOM_NAMESPACE, "link");
+      writer.writeAttribute("href", "#");
+      writer.writeAttribute("rel", Link.REL_SELF);
+
+      startElement(writer, ATOM_NAMESPACE, "author");
+      if (!StringUtils.isEmpty(SystemInfo.getOrganization())) {
+        writeAtomElement(writer, "name", SystemInfo.getOrganization());
       } else {
-        if (sourceResponse.getResults() != null) {
-          itemsPerPage.setText(Integer.toString(sourceResponse.getResults().size()));
-        }
+        writeAtomElement(writer, "name", DEFAULT_AUTHOR);
       }
+      writer.writeEndElement();
 
-      startIndex.setText(Integer.toString(sourceResponse.getRequest().getQuery().getStartIndex()));
-    }
+      /*
+       * Atom spec text (rfc4287 sect. 4.2.4): "The "atom:generator" element's content identifies
+       * the agent used to generate a feed, for debugging and other purposes." Generator is not
+       * required in the atom:feed element.
+       */
+      if (!StringUtils.isEmpty(SystemInfo.getSiteName())) {
+        startElement(writer, ATOM_NAMESPACE, "generator");
+        if (SystemInfo.getVersion() != null) {
+          writer.writeAttribute("version", SystemInfo.getVersion());
+        }
+        // text is required.
+        writer.writeCharacters(SystemInfo.getSiteName());
+        writer.writeEndElement();
+      }
 
-    if (getCount(sourceResponse) != 0) {
-      sourceResponse.getResults().stream().forEach(r -> addSingleResult(currentDate, feed, r));
-    }
+      /*
+       * According to http://www.opensearch.org/Specifications/OpenSearch/1.1 specification,
+       * totalResults must be a non-negative integer. Requirements: This attribute is optional.
+       */
+      if (sourceResponse.getHits() > -1) {
+        writeElement(
+            writer, OpenSearchConstants.TOTAL_RESULTS, Long.toString(sourceResponse.getHits()));
+      }
 
-    byte[] bytes = createOutputStream(feed);
-    return new BinaryContentImpl(new ByteArrayInputStream(bytes), MIME_TYPE);
-  }
+      if (sourceResponse.getRequest() != null && sourceResponse.getRequest().getQuery() != null) {
+        /*
+         * According to http://www.opensearch.org/Specifications/OpenSearch/1.1 specification,
+         * itemsPerPage must be a non-negative integer. It is possible that Catalog pageSize is
+         * set to a non-negative integer though. When non-negative we will instead we will
+         * change it to the number of search results on current page.
+         */
+        String itemsPerPage = null;
+        if (sourceResponse.getRequest().getQuery().getPageSize() > -1) {
+          itemsPerPage = Integer.toString(sourceResponse.getRequest().getQuery().getPageSize());
+        } else if (sourceResponse.getResults() != null) {
+          itemsPerPage = Integer.toString(sourceResponse.getResults().size());
+        }
+        writeElement(writer, OpenSearchConstants.ITEMS_PER_PAGE, itemsPerPage);
 
-  private byte[] createOutputStream(Feed feed) throws CatalogTransformerException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        writeElement(
+            writer,
+            OpenSearchConstants.START_INDEX,
+            Integer.toString(sourceResponse.getRequest().getQuery().getStartIndex()));
+      }
 
-    try {
-      Thread.currentThread().setContextClassLoader(AtomTransformer.class.getClassLoader());
-      feed.writeTo(baos);
-    } catch (IOException e) {
+      // closes the feed start tag, the entries and the end tag are appended to these bytes. The
+      // writer is only flushed: closing it would also end the feed element.
+      writer.writeCharacters("");
+      writer.flush();
+    } catch (XMLStreamException e) {
       LOGGER.info("Could not write to output stream.", e);
       throw new CatalogTransformerException("Could not transform into Atom.", e);
-    } finally {
-      Thread.currentThread().setContextClassLoader(tccl);
     }
     return baos.toByteArray();
   }
 
-  private Feed createFeed() {
-    ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+  /**
+   * Writes the entry for a single result, relying on the namespace declarations of the feed.
+   * Returns an empty array if the result has no metacard.
+   */
+  private byte[] createEntry(Date currentDate, Result result) throws XMLStreamException {
+    Metacard metacard = result.getMetacard();
 
+    if (metacard == null) {
+      return new byte[0];
+    }
+
+    byte[] content = getContent(metacard);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(ENTRY_BUFFER_SIZE);
     try {
-      Thread.currentThread().setContextClassLoader(AtomTransformer.class.getClassLoader());
-      return ABDERA.newFeed();
-    } finally {
-      Thread.currentThread().setContextClassLoader(tccl);
+      writeEntry(baos, currentDate, result, content);
+    } catch (XMLStreamException e) {
+      if (content == null) {
+        throw e;
+      }
+      LOGGER.debug(COULD_NOT_CREATE_XML_CONTENT_MESSAGE, e);
+      baos.reset();
+      writeEntry(baos, currentDate, result, null);
     }
+    return baos.toByteArray();
   }
 
-  private void addSingleResult(Date currentDate, Feed feed, Result result) {
+  private void writeEntry(
+      OutputStream outputStream, Date currentDate, Result result, @Nullable byte[] content)
+      throws XMLStreamException {
     Metacard metacard = result.getMetacard();
+    XMLStreamWriter writer =
+        XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name());
 
-    if (metacard == null) {
-      return;
-    }
+    startElement(writer, ATOM_NAMESPACE, "entry");
 
-    Entry entry = feed.addEntry();
-    entry.setId(URN_CATALOG_ID + metacard.getId());
+    writeAtomElement(writer, "id", URN_CATALOG_ID + metacard.getId());
 
-    addSourceExtension(result, entry);
-    addRelevanceScoreExtension(result, entry);
+    addSourceExtension(result, writer);
+    addRelevanceScoreExtension(result, writer);
 
     /*
      * Atom spec text (rfc4287): "The "atom:title" element is a Text construct that conveys
      * a human- readable title for an entry or feed."
      */
-    entry.setTitle(metacard.getTitle());
+    if (metacard.getTitle() != null) {
+      writeText(writer, "title", metacard.getTitle());
+    }
 
     /*
      * Atom spec text (rfc4287): "The "atom:updated" element is a Date construct indicating
@@ -284,75 +406,205 @@ private void addSingleResult(Date currentDate, Feed feed, Result result) {
      * publisher considers significant." Therefore, a new Date is used because we are making
      * the entry for the first time.
      */
-    entry.setUpdated(Optional.ofNullable(metacard.getModifiedDate()).orElse(currentDate));
+    writeAtomElement(
+        writer,
+        "updated",
+        formatDate(Optional.ofNullable(metacard.getModifiedDate()).orElse(currentDate)));
 
     /*
      * Atom spec text (rfc4287): "Typically, atom:published will be associated with the
      * initial creation or first availability of the resource."
      */
-    Optional.ofNullable(metacard.getCreatedDate()).ifPresent(entry::setPublished);
+    if (metacard.getCreatedDate() != null) {
+      writeAtomElement(writer, "published", formatDate(metacard.getCreatedDate()));
+    }
 
     /*
      * For atom:link elements, Atom spec text (rfc4287): "The value "related" signifies that
      * the IRI in the value of the href attribute identifies a resource related to the
      * resource described by the containing element."
      */
-    addLink(resourceActionProvider, metacard, entry, Link.REL_RELATED);
-    addLink(viewMetacardActionProvider, metacard, entry, Link.REL_ALTERNATE);
-    addLink(thumbnailActionProvider, metacard, entry, REL_PREVIEW);
+    addLink(resourceActionProvider, metacard, writer, Link.REL_RELATED);
+    addLink(viewMetacardActionProvider, metacard, writer, Link.REL_ALTERNATE);
+    addLink(thumbnailActionProvider, metacard, writer, REL_PREVIEW);
 
     /*
      * Atom spec text (rfc4287) Sect. 4.2.2.: "The "atom:category" element conveys
      * information about a category associated with an entry or feed. This specification
      * assigns no meaning to the content (if any) of this element."
      */
+    if (metacard.getContentTypeName() != null) {
+      emptyElement(writer, ATOM_NAMESPACE, "category");
+      writer.writeAttribute("term", metacard.getContentTypeName());
+    }
+
+    addPosition(metacard, writer);
+    setContent(metacard, writer, content);
 
-    Optional.ofNullable(metacard.getContentTypeName()).ifPresent(entry::addCategory);
-    addPosition(metacard, entry);
-    setContent(metacard, entry);
+    writer.writeEndElement();
+    writer.close();
   }
 
-  private void addPosition(Metacard metacard, Entry entry) {
+  private void addPosition(Metacard metacard, XMLStreamWriter writer) throws XMLStreamException {
     for (Position position : getGeoRssPositions(metacard)) {
-      GeoHelper.addPosition(entry, position, Encoding.GML);
+      writePosition(position, writer);
     }
   }
 
-  private void setContent(Metacard metacard, Entry entry) {
-    String contentOutput = metacard.getId();
-    Type atomContentType = Type.TEXT;
-
-    if (metacardTransformer != null) {
-      BinaryContent binaryContent = getBinaryContent(metacard);
+  /** Writes a position with the GML encoding of GeoRSS, in the form Abdera's GeoHelper uses. */
+  private void writePosition(Position position, XMLStreamWriter writer) throws XMLStreamException {
+    if (position instanceof Point) {
+      startElement(writer, GEORSS_NAMESPACE, "where");
+      startElement(writer, GML_NAMESPACE, "Point");
+      writeElement(writer, GML_NAMESPACE, "pos", ((Point) position).getCoordinate().toString());
+      writer.writeEndElement();
+      writer.writeEndElement();
+    } else if (position instanceof Line) {
+      startElement(writer, GEORSS_NAMESPACE, "where");
+      startElement(writer, GML_NAMESPACE, "LineString");
+      writeElement(writer, GML_NAMESPACE, "posList", ((Line) position).getCoordinates().toString());
+      writer.writeEndElement();
+      writer.writeEndElement();
+    } else if (position instanceof Polygon) {
+      startElement(writer, GEORSS_NAMESPACE, "where");
+      startElement(writer, GML_NAMESPACE, "Polygon");
+      startElement(writer, GML_NAMESPACE, "exterior");
+      startElement(writer, GML_NAMESPACE, "LinearRing");
+      writeElement(
+          writer, GML_NAMESPACE, "posList", ((Polygon) position).getCoordinates().toString());
+      writer.writeEndElement();
+      writer.writeEndElement();
+      writer.writeEndElement();
+      writer.writeEndElement();
+    } else if (position instanceof Box) {
+      Box box = (Box) position;
+      startElement(writer, GEORSS_NAMESPACE, "where");
+      startElement(writer, GML_NAMESPACE, "Envelope");
+      if (box.getLowerCorner() != null) {
+        writeElement(writer, GML_NAMESPACE, "lowerCorner", box.getLowerCorner().toString());
+      }
+      if (box.getUpperCorner() != null) {
+        writeElement(writer, GML_NAMESPACE, "upperCorner", box.getUpperCorner().toString());
+      }
+      writer.writeEndElement();
+      writer.writeEndElement();
+    }
+  }
 
-      String content = getContentOutput(binaryContent);
-      contentOutput = Optional.ofNullable(content).orElse(metacard.getId());
+  /**
+   * Writes the transformed metacard as XML content, or the metacard id as text content when there
+   * is no transformed metacard.
+   */
+  private void setContent(Metacard metacard, XMLStreamWriter writer, @Nullable byte[] content)
+      throws XMLStreamException {
+    startElement(writer, ATOM_NAMESPACE, "content");
 
-      if (content != null) {
-        atomContentType = Type.XML;
-      }
+    if (content != null) {
+      writer.writeAttribute("type", XML_CONTENT_TYPE);
+      copyElement(content, writer);
+    } else {
+      writer.writeAttribute("type", "text");
+      writer.writeCharacters(metacard.getId());
     }
 
-    ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+    writer.writeEndElement();
+  }
 
+  /** Copies the root element of an XML document into the writer, leaving out the prolog. */
+  private void copyElement(byte[] xml, XMLStreamWriter writer) throws XMLStreamException {
+    XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml));
     try {
-      Thread.currentThread().setContextClassLoader(AtomTransformer.class.getClassLoader());
-      entry.setContent(contentOutput, atomContentType);
+      int depth = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          copyStartElement(reader, writer, depth == 0);
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          writer.writeEndElement();
+          depth--;
+        } else if (depth > 0) {
+          copyNode(event, reader, writer);
+        }
+      }
     } finally {
-      Thread.currentThread().setContextClassLoader(tccl);
+      reader.close();
     }
   }
 
-  private String getContentOutput(BinaryContent binaryContent) {
-    if (binaryContent != null) {
-      try {
-        byte[] xmlBytes = binaryContent.getByteArray();
+  private void copyStartElement(XMLStreamReader reader, XMLStreamWriter writer, boolean root)
+      throws XMLStreamException {
+    writer.writeStartElement(
+        StringUtils.defaultString(reader.getPrefix()),
+        reader.getLocalName(),
+        StringUtils.defaultString(reader.getNamespaceURI()));
+
+    boolean declaresDefaultNamespace = false;
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      String prefix = reader.getNamespacePrefix(i);
+      if (StringUtils.isEmpty(prefix)) {
+        writer.writeDefaultNamespace(StringUtils.defaultString(reader.getNamespaceURI(i)));
+        declaresDefaultNamespace = true;
+      } else {
+        writer.writeNamespace(prefix, reader.getNamespaceURI(i));
+      }
+    }
+    // unprefixed elements in the content must not end up in the Atom namespace
+    if (root && !declaresDefaultNamespace) {
+      writer.writeDefaultNamespace("");
+    }
+
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String namespaceUri = reader.getAttributeNamespace(i);
+      if (StringUtils.isEmpty(namespaceUri)) {
+        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      } else {
+        writer.writeAttribute(
+            StringUtils.defaultString(reader.getAttributePrefix(i)),
+            namespaceUri,
+            reader.getAttributeLocalName(i),
+            reader.getAttributeValue(i));
+      }
+    }
+  }
 
-        if (xmlBytes != null && xmlBytes.length > 0) {
-          return new String(xmlBytes, StandardCharsets.UTF_8);
+  private void copyNode(int event, XMLStreamReader reader, XMLStreamWriter writer)
+      throws XMLStreamException {
+    switch (event) {
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+        writer.writeCharacters(
+            reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        break;
+      case XMLStreamConstants.CDATA:
+        writer.writeCData(reader.getText());
+        break;
+      case XMLStreamConstants.COMMENT:
+        writer.writeComment(reader.getText());
+        break;
+      case XMLStreamConstants.PROCESSING_INSTRUCTION:
+        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Nullable
+  private byte[] getContent(Metacard metacard) {
+    if (metacardTransformer != null) {
+      BinaryContent binaryContent = getBinaryContent(metacard);
+
+      if (binaryContent != null) {
+        try {
+          byte[] xmlBytes = binaryContent.getByteArray();
+
+          if (xmlBytes != null && xmlBytes.length > 0) {
+            return xmlBytes;
+          }
+        } catch (IOException e) {
+          LOGGER.debug(COULD_NOT_CREATE_XML_CONTENT_MESSAGE, e);
         }
-      } catch (IOException e) {
-        LOGGER.debug(COULD_NOT_CREATE_XML_CONTENT_MESSAGE, e);
       }
     }
 
@@ -369,23 +621,18 @@ private BinaryContent getBinaryContent(Metacard metacard) {
     return null;
   }
 
-  private void addRelevanceScoreExtension(Result result, Entry entry) {
+  private void addRelevanceScoreExtension(Result result, XMLStreamWriter writer)
+      throws XMLStreamException {
     if (result.getRelevanceScore() != null) {
-      Element relevance =
-          entry.addExtension(
-              new QName(
-                  "http://a9.com/-/opensearch/extensions/relevance/1.0/", "score", "relevance"));
-      relevance.setText(result.getRelevanceScore().toString());
+      writeElement(
+          writer, RELEVANCE_EXTENSION_NAMESPACE, "score", result.getRelevanceScore().toString());
     }
   }
 
-  private void addSourceExtension(Result result, Entry entry) {
+  private void addSourceExtension(Result result, XMLStreamWriter writer) throws XMLStreamException {
     String sourceName =
         Optional.ofNullable(result.getMetacard().getSourceId()).orElse(DEFAULT_SOURCE_ID);
 
-    Element source =
-        entry.addExtension(new QName(FEDERATION_EXTENSION_NAMESPACE, "resultSource", "fs"));
-
     /*
      * According to the os-federation.xsd, the resultSource element text has a max length of
      * 16 and is the shortname of the source id. Previously, we were duplicating the names
@@ -394,54 +641,66 @@ private void addSourceExtension(Result result, Entry entry) {
      * source id can still be found in the attribute instead.
      */
 
-    source.setAttributeValue(new QName(FEDERATION_EXTENSION_NAMESPACE, "sourceId"), sourceName);
+    emptyElement(writer, FEDERATION_EXTENSION_NAMESPACE, "resultSource");
+    writer.writeAttribute(
+        FEDERATION_EXTENSION_PREFIX, FEDERATION_EXTENSION_NAMESPACE, "sourceId", sourceName);
   }
 
-  // a Link object could not be made and returned without a classpath problem in the OSGi runtime
-  // therefore this was a workaround that did not require me to add special logic for
-  // contextclassloader
   private void addLink(
-      ActionProvider actionProvider, Metacard metacard, Entry entry, String linkType) {
+      ActionProvider actionProvider, Metacard metacard, XMLStreamWriter writer, String linkType)
+      throws XMLStreamException {
 
     if (actionProvider != null) {
+      Action action;
       try {
+        action = actionProvider.getAction(metacard);
+      } catch (RuntimeException e) {
+        // ActionProvider is injected but not available
+        LOGGER.debug("Could not retrieve action.", e);
+        return;
+      }
 
-        Action action = actionProvider.getAction(metacard);
-
-        if (action != null) {
-          if (actionProvider.equals(resourceActionProvider) && metacard.getResourceURI() != null) {
+      if (action != null) {
+        if (actionProvider.equals(resourceActionProvider) && metacard.getResourceURI() != null) {
 
-            Link viewLink = addLinkHelper(action, entry, linkType, MIME_TYPE_OCTET_STREAM);
-            try {
-              Long length = Long.parseLong(metacard.getResourceSize(), 10);
-              viewLink.setLength(length);
-            } catch (NumberFormatException e) {
-              LOGGER.debug("Could not cast {} as Long type.", metacard.getResourceSize());
-            }
+          Long length = null;
+          try {
+            length = Long.parseLong(metacard.getResourceSize(), 10);
+          } catch (NumberFormatException e) {
+            LOGGER.debug("Could not cast {} as Long type.", metacard.getResourceSize());
+          }
+          writeLink(action, writer, linkType, MIME_TYPE_OCTET_STREAM, length);
 
-          } else if (actionProvider.equals(thumbnailActionProvider)
-              && metacard.getThumbnail() != null) {
+        } else if (actionProvider.equals(thumbnailActionProvider)
+            && metacard.getThumbnail() != null) {
 
-            addLinkHelper(action, entry, linkType, MIME_TYPE_JPEG);
-          } else if (!actionProvider.equals(resourceActionProvider)
-              && !actionProvider.equals(thumbnailActionProvider)) {
+          writeLink(action, writer, linkType, MIME_TYPE_JPEG, null);
+        } else if (!actionProvider.equals(resourceActionProvider)
+            && !actionProvider.equals(thumbnailActionProvider)) {
 
-            addLinkHelper(action, entry, linkType, MIME_TYPE_OCTET_STREAM);
-          }
+          writeLink(action, writer, linkType, MIME_TYPE_OCTET_STREAM, null);
         }
-
-      } catch (RuntimeException e) {
-        // ActionProvider is injected but not available
-        LOGGER.debug("Could not retrieve action.", e);
       }
     }
   }
 
-  private Link addLinkHelper(Action action, Entry entry, String linkType, String mimeType) {
-    Link viewLink = entry.addLink(action.getUrl().toString(), linkType);
-    viewLink.setTitle(action.getTitle());
-    viewLink.setMimeType(mimeType);
-    return viewLink;
+  private void writeLink(
+      Action action,
+      XMLStreamWriter writer,
+      String linkType,
+      String mimeType,
+      @Nullable Long length)
+      throws XMLStreamException {
+    emptyElement(writer, ATOM_NAMESPACE, "link");
+    writer.writeAttribute("href", action.getUrl().toString());
+    writer.writeAttribute("rel", linkType);
+    if (action.getTitle() != null) {
+      writer.writeAttribute("title", action.getTitle());
+    }
+    writer.writeAttribute("type", mimeType);
+    if (length != null) {
+      writer.writeAttribute("length", length.toString());
+    }
   }
 
   private List<Position> getGeoRssPositions(Metacard metacard) {
@@ -486,6 +745,118 @@ private List<Position> getGeoRssPositions(Metacard metacard) {
     return georssPositions;
   }
 
+  private static void startElement(XMLStreamWriter writer, String namespaceUri, String localName)
+      throws XMLStreamException {
+    writer.writeStartElement(NAMESPACE_PREFIXES.get(namespaceUri), localName, namespaceUri);
+  }
+
+  private static void emptyElement(XMLStreamWriter writer, String namespaceUri, String localName)
+      throws XMLStreamException {
+    writer.writeEmptyElement(NAMESPACE_PREFIXES.get(namespaceUri), localName, namespaceUri);
+  }
+
+  private static void writeAtomElement(XMLStreamWriter writer, String localName, String text)
+      throws XMLStreamException {
+    writeElement(writer, ATOM_NAMESPACE, localName, text);
+  }
+
+  /** Writes an Atom text construct of type text. */
+  private static void writeText(XMLStreamWriter writer, String localName, String text)
+      throws XMLStreamException {
+    startElement(writer, ATOM_NAMESPACE, localName);
+    writer.writeAttribute("type", "text");
+    writer.writeCharacters(text);
+    writer.writeEndElement();
+  }
+
+  private static void writeElement(XMLStreamWriter writer, QName name, @Nullable String text)
+      throws XMLStreamException {
+    writeElement(writer, name.getNamespaceURI(), name.getLocalPart(), text);
+  }
+
+  private static void writeElement(
+      XMLStreamWriter writer, String namespaceUri, String localName, @Nullable String text)
+      throws XMLStreamException {
+    if (text == null) {
+      emptyElement(writer, namespaceUri, localName);
+    } else {
+      startElement(writer, namespaceUri, localName);
+      writer.writeCharacters(text);
+      writer.writeEndElement();
+    }
+  }
+
+  private static String formatDate(Date date) {
+    return ATOM_DATE_FORMATTER.format(date.toInstant());
+  }
+
+  /**
+   * Supplies the serialized entries in result order. Entries are created on the entry pool up to
+   * {@link #ENTRY_WINDOW_SIZE} results ahead of the entry being read.
+   */
+  private class EntryEnumeration implements Enumeration<InputStream> {
+
+    private final Iterator<Result> results;
+
+    private final Date currentDate;
+
+    private final Deque<Future<byte[]>> window = new ArrayDeque<>(ENTRY_WINDOW_SIZE);
+
+    /**
+     * The entries are created after {@link #transform} has returned, while the feed is read, so
+     * they run as the subject of the request that asked for the feed.
+     */
+    @Nullable private final Subject subject = ThreadContext.getSubject();
+
+    EntryEnumeration(List<Result> results, Date currentDate) {
+      this.results = results.iterator();
+      this.currentDate = currentDate;
+      fillWindow();
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+      return !window.isEmpty();
+    }
+
+    @Override
+    public InputStream nextElement() {
+      Future<byte[]> entry = window.poll();
+      if (entry == null) {
+        throw new NoSuchElementException();
+      }
+      fillWindow();
+
+      try {
+        return new ByteArrayInputStream(entry.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return fail(new InterruptedIOException("Interrupted while creating Atom entry."));
+      } catch (ExecutionException e) {
+        LOGGER.info("Could not create Atom entry.", e.getCause());
+        return fail(new IOException("Could not create Atom entry.", e.getCause()));
+      }
+    }
+
+    /**
+     * Ends the feed with a stream that fails on read, so that the reader sees an error instead of a
+     * feed with entries missing.
+     */
+    private InputStream fail(IOException e) {
+      window.forEach(entry -> entry.cancel(true));
+      window.clear();
+      return new BrokenInputStream(e);
+    }
+
+    private void fillWindow() {
+      while (window.size() < ENTRY_WINDOW_SIZE && results.hasNext()) {
+        Result result = results.next();
+        Callable<byte[]> task = () -> createEntry(currentDate, result);
+        window.add(ENTRY_POOL.submit(subject != null ? subject.associateWith(task) : task));
+      }
+    }
+  }
+
   private int getCount(SourceResponse queryResponse) {
     if (queryResponse == null) {
       return ALL_RESULTS_COUNT_VALUE;
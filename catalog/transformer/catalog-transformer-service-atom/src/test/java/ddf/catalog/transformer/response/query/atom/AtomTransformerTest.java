@@ -22,6 +22,8 @@
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.action.Action;
@@ -48,8 +50,10 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -62,6 +66,8 @@
 import javax.xml.validation.Validator;
 import org.apache.abdera.model.Link;
 import org.apache.commons.io.IOUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.codice.ddf.configuration.SystemInfo;
 import org.custommonkey.xmlunit.NamespaceContext;
 import org.custommonkey.xmlunit.SimpleNamespaceContext;
@@ -1270,6 +1276,82 @@ public void testZeroCount()
     assertXpathNotExists("/atom:feed/atom:entry", output);
   }
 
+  @Test
+  public void testFeedWithSeveralEntriesIsWellFormed()
+      throws IOException, CatalogTransformerException, XpathException, SAXException {
+
+    // given
+    AtomTransformer transformer =
+        getConfiguredAtomTransformer(getXmlMetacardTransformerStub(), true);
+
+    SourceResponse response = getSourceResponseStub(SAMPLE_ID, null, 3);
+
+    // when
+    BinaryContent binaryContent = transformer.transform(response, null);
+
+    // then
+    byte[] bytes = binaryContent.getByteArray();
+
+    String output = new String(bytes);
+
+    // parses the whole document, so a feed closed twice fails here
+    validateAgainstAtomSchema(bytes);
+    assertFeedCompliant(output);
+    assertEntryCompliant(output);
+    assertXpathEvaluatesTo("3", "count(/atom:feed/atom:entry)", output);
+    assertXpathEvaluatesTo("1", "count(/atom:feed)", output);
+  }
+
+  @Test(expected = IOException.class)
+  public void testEntryFailureFailsTheFeed() throws IOException, CatalogTransformerException {
+
+    // given
+    AtomTransformer transformer =
+        getConfiguredAtomTransformer(getXmlMetacardTransformerStub(), true);
+
+    Metacard metacard = mock(Metacard.class);
+    when(metacard.getId()).thenThrow(new IllegalStateException());
+
+    SourceResponse response = getSourceResponseStub(SAMPLE_ID, null, 2);
+    List<Result> results = new ArrayList<>(response.getResults());
+    results.add(1, new ResultImpl(metacard));
+    when(response.getResults()).thenReturn(results);
+
+    // when
+    BinaryContent binaryContent = transformer.transform(response, null);
+
+    // then
+    binaryContent.getByteArray();
+  }
+
+  @Test
+  public void testEntriesAreCreatedAsTheRequestSubject()
+      throws IOException, CatalogTransformerException {
+
+    // given
+    AtomTransformer transformer =
+        getConfiguredAtomTransformer(getXmlMetacardTransformerStub(), true);
+
+    Subject subject = mock(Subject.class);
+    when(subject.associateWith(isA(Callable.class)))
+        .thenAnswer(invocation -> invocation.getArguments()[0]);
+
+    SourceResponse response = getSourceResponseStub(SAMPLE_ID, null, 2);
+
+    // when
+    BinaryContent binaryContent;
+    ThreadContext.bind(subject);
+    try {
+      binaryContent = transformer.transform(response, null);
+    } finally {
+      ThreadContext.unbindSubject();
+    }
+    binaryContent.getByteArray();
+
+    // then
+    verify(subject, times(2)).associateWith(isA(Callable.class));
+  }
+
   private void validateAgainstAtomSchema(byte[] output) throws SAXException, IOException {
 
     Document document = parser.parse(new ByteArrayInputStream(output));
@@ -1454,23 +1536,28 @@ private void assertEntryCompliant(String output)
   }
 
   private SourceResponse getSourceResponseStub(String id, String wkt) {
+    return getSourceResponseStub(id, wkt, 1);
+  }
+
+  private SourceResponse getSourceResponseStub(String id, String wkt, int resultCount) {
     SourceResponse response = mock(SourceResponse.class);
 
-    when(response.getHits()).thenReturn(new Long(1));
+    when(response.getHits()).thenReturn((long) resultCount);
 
     when(response.getRequest()).thenReturn(getStubRequest());
 
-    ResultImpl result = new ResultImpl();
+    List<Result> results = new ArrayList<>(resultCount);
+    for (int i = 0; i < resultCount; i++) {
+      MetacardStub metacard = new MetacardStub("");
 
-    MetacardStub metacard = new MetacardStub("");
-
-    metacard.setId(id);
+      metacard.setId(resultCount == 1 ? id : id + i);
 
-    metacard.setLocation(wkt);
+      metacard.setLocation(wkt);
 
-    result.setMetacard(metacard);
+      results.add(new ResultImpl(metacard));
+    }
 
-    when(response.getResults()).thenReturn(Arrays.asList((Result) result));
+    when(response.getResults()).thenReturn(results);
     return response;
   }
 
@@ -16,19 +16,27 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Map;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
+import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamSource;
 import org.codice.ddf.platform.util.XMLUtils;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class AbstractXsltTransformer {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractXsltTransformer.class);
+
   protected static final MimeType DEFAULT_MIME_TYPE; // "text/plain"
 
   protected static final String MIME_TYPE_HEADER_NAME = "DDF-Mime-Type";
@@ -45,6 +53,8 @@ public abstract class AbstractXsltTransformer {
 
   protected Templates templates;
 
+  protected TransformerPool transformerPool;
+
   protected MimeType mimeType;
 
   protected BundleContext context;
@@ -91,6 +101,7 @@ public void init(String mimeString, InputStream xslStream)
     xsltSource = new StreamSource(xslStream);
     try {
       templates = tf.newTemplates(xsltSource);
+      transformerPool = new TransformerPool(templates);
     } catch (TransformerConfigurationException tce) {
       throw new TransformerConfigurationException(
           "Could not create new templates for XsltTransformer ( "
@@ -109,4 +120,32 @@ public void init(String mimeString, InputStream xslStream)
       }
     }
   }
+
+  /**
+   * Runs the xsl transform with a pooled {@link Transformer}. The {@link Transformer} is reset and
+   * returned to the pool once the transform completes, so parameters never leak between calls.
+   *
+   * @param source input to the transform
+   * @param parameters stylesheet parameters, may be empty
+   * @param output destination the transformed content is written to
+   */
+  protected void transform(Source source, Map<String, Object> parameters, Result output)
+      throws TransformerException {
+    TransformerPool pool = transformerPool;
+    Transformer transformer = pool.borrow();
+    boolean completed = false;
+    try {
+      for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+        LOGGER.trace("Adding parameter to transform {}:{}", entry.getKey(), entry.getValue());
+        transformer.setParameter(entry.getKey(), entry.getValue());
+      }
+      transformer.transform(source, output);
+      completed = true;
+    } finally {
+      // a transformer that failed part way through is discarded rather than reused
+      if (completed) {
+        pool.release(transformer);
+      }
+    }
+  }
 }
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URLConnection;
+import java.util.Base64;
+import java.util.List;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * {@link XMLReader} that emits the {@code results} document consumed by the response queue
+ * stylesheets as a stream of SAX events. Each metacard's metadata is parsed directly into the event
+ * stream by the wrapped secure parser, so no DOM of the result set is ever built.
+ */
+class ResultsXmlReader extends XMLFilterImpl {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResultsXmlReader.class);
+
+  private static final String NO_NAMESPACE = "";
+
+  private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+  private static final DateTimeFormatter DATE_FORMATTER = ISODateTimeFormat.dateTime();
+
+  private final List<Result> results;
+
+  ResultsXmlReader(XMLReader secureParser, List<Result> results) {
+    super(secureParser);
+    this.results = results;
+  }
+
+  @Override
+  public void parse(String systemId) throws IOException, SAXException {
+    parse(new InputSource(systemId));
+  }
+
+  @Override
+  public void parse(InputSource input) throws IOException, SAXException {
+    ContentHandler handler = getContentHandler();
+    XMLReader metadataParser = getParent();
+    metadataParser.setContentHandler(new EmbeddedDocumentHandler(handler));
+    metadataParser.setErrorHandler(getErrorHandler());
+
+    handler.startDocument();
+    startElement(handler, "results", NO_ATTRIBUTES);
+    for (Result result : results) {
+      Metacard metacard = result.getMetacard();
+      if (metacard == null) {
+        continue;
+      }
+      String metadata = metacard.getMetadata();
+      if (metadata == null) {
+        LOGGER.debug("Null content/document returned to XSLT ResponseQueueTransformer");
+        continue;
+      }
+
+      startElement(handler, "metacard", NO_ATTRIBUTES);
+      writeMetacardElements(handler, result, metacard);
+      startElement(handler, "document", NO_ATTRIBUTES);
+      metadataParser.parse(new InputSource(new StringReader(metadata)));
+      endElement(handler, "document");
+      endElement(handler, "metacard");
+    }
+    endElement(handler, "results");
+    handler.endDocument();
+  }
+
+  private void writeMetacardElements(ContentHandler handler, Result result, Metacard metacard)
+      throws SAXException {
+    writeElement(handler, "id", metacard.getId());
+    if (metacard.getMetacardType() != null) {
+      writeElement(handler, "type", metacard.getMetacardType().getName());
+    }
+    writeElement(handler, "title", metacard.getTitle());
+    if (result.getRelevanceScore() != null) {
+      writeElement(handler, "score", result.getRelevanceScore().toString());
+    }
+    if (result.getDistanceInMeters() != null) {
+      writeElement(handler, "distance", result.getDistanceInMeters().toString());
+    }
+    writeElement(handler, "site", metacard.getSourceId());
+    if (metacard.getContentTypeName() != null) {
+      AttributesImpl qualifier = new AttributesImpl();
+      // the qualifier the results document has always carried, which stylesheets may match on
+      qualifier.addAttribute(NO_NAMESPACE, "qualifier", "qualifier", "CDATA", "content-type");
+      startElement(handler, "content-type", qualifier);
+      characters(handler, metacard.getContentTypeName());
+      endElement(handler, "content-type");
+    }
+    if (metacard.getResourceURI() != null) {
+      writeElement(handler, "product", metacard.getResourceURI().toString());
+    }
+    byte[] thumbnail = metacard.getThumbnail();
+    if (thumbnail != null) {
+      writeElement(handler, "thumbnail", Base64.getEncoder().encodeToString(thumbnail));
+      String mimeType;
+      try {
+        mimeType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(thumbnail));
+      } catch (IOException e) {
+        mimeType = "image/png";
+      }
+      writeElement(handler, "t_mimetype", mimeType);
+    }
+    if (metacard.getCreatedDate() != null) {
+      writeElement(handler, "created", DATE_FORMATTER.print(metacard.getCreatedDate().getTime()));
+    }
+    // looking at the date last modified
+    if (metacard.getModifiedDate() != null) {
+      writeElement(handler, "updated", DATE_FORMATTER.print(metacard.getModifiedDate().getTime()));
+    }
+    if (metacard.getEffectiveDate() != null) {
+      writeElement(
+          handler, "effective", DATE_FORMATTER.print(metacard.getEffectiveDate().getTime()));
+    }
+    writeElement(handler, "location", metacard.getLocation());
+  }
+
+  private void writeElement(ContentHandler handler, String name, String value) throws SAXException {
+    if (value == null) {
+      return;
+    }
+    startElement(handler, name, NO_ATTRIBUTES);
+    characters(handler, value);
+    endElement(handler, name);
+  }
+
+  private void startElement(ContentHandler handler, String name, Attributes attributes)
+      throws SAXException {
+    handler.startElement(NO_NAMESPACE, name, name, attributes);
+  }
+
+  private void endElement(ContentHandler handler, String name) throws SAXException {
+    handler.endElement(NO_NAMESPACE, name, name);
+  }
+
+  private void characters(ContentHandler handler, String value) throws SAXException {
+    char[] chars = value.toCharArray();
+    handler.characters(chars, 0, chars.length);
+  }
+
+  /**
+   * Forwards the events of an embedded metadata document to the enclosing handler, dropping the
+   * document boundaries so the metadata becomes a child of the current element.
+   */
+  private static class EmbeddedDocumentHandler extends XMLFilterImpl {
+
+    EmbeddedDocumentHandler(ContentHandler target) {
+      setContentHandler(target);
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+      // locations inside embedded metadata are not meaningful to the enclosing document
+    }
+
+    @Override
+    public void startDocument() {
+      // the enclosing results document is already started
+    }
+
+    @Override
+    public void endDocument() {
+      // the enclosing results document is ended once all results are written
+    }
+  }
+}
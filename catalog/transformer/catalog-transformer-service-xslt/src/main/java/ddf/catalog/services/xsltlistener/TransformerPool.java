@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+/**
+ * Bounded pool of {@link Transformer}s created from a single compiled {@link Templates}. A {@link
+ * Transformer} is not thread-safe, so each caller borrows its own instance and hands it back once
+ * the transform is complete. When the pool is empty a new {@link Transformer} is created, and
+ * instances returned to a full pool are discarded.
+ */
+class TransformerPool {
+
+  private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+  private final Templates templates;
+
+  private final BlockingQueue<Transformer> idleTransformers;
+
+  TransformerPool(Templates templates) {
+    this(templates, DEFAULT_POOL_SIZE);
+  }
+
+  TransformerPool(Templates templates, int maxIdle) {
+    this.templates = templates;
+    this.idleTransformers = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+  }
+
+  Templates getTemplates() {
+    return templates;
+  }
+
+  /**
+   * Gets an idle {@link Transformer} from the pool, or creates a new one if none are available.
+   *
+   * @return a {@link Transformer} owned by the caller until it is passed to {@link
+   *     #release(Transformer)}
+   * @throws TransformerConfigurationException if a new {@link Transformer} could not be created
+   */
+  Transformer borrow() throws TransformerConfigurationException {
+    Transformer transformer = idleTransformers.poll();
+    return transformer != null ? transformer : templates.newTransformer();
+  }
+
+  /**
+   * Resets the {@link Transformer} to its initial state and makes it available to other callers.
+   *
+   * @param transformer a {@link Transformer} obtained from {@link #borrow()}
+   */
+  void release(Transformer transformer) {
+    if (transformer == null) {
+      return;
+    }
+    transformer.reset();
+    // Saxon keeps the parameters across reset(), which would leak them into the next transform
+    transformer.clearParameters();
+    idleTransformers.offer(transformer);
+  }
+
+  int getIdleCount() {
+    return idleTransformers.size();
+  }
+}
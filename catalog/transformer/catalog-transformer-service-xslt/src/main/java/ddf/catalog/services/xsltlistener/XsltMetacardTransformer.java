@@ -18,7 +18,6 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
-import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
@@ -27,12 +26,10 @@
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
-import org.apache.commons.io.IOUtils;
 import org.codice.ddf.platform.util.XMLUtils;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.InvalidSyntaxException;
@@ -68,7 +65,6 @@ public BinaryContent transform(Metacard metacard, Map<String, Serializable> argu
       throws CatalogTransformerException {
     LOGGER.debug("Entering metacard xslt transform.");
 
-    Transformer transformer;
     Map<String, Object> mergedMap = new HashMap<String, Object>(localMap);
 
     if (arguments != null) {
@@ -122,8 +118,6 @@ public BinaryContent transform(Metacard metacard, Map<String, Serializable> argu
     // map.put("updated", fmt.print(result.getPostedDate().getTime()));
     // map.put("type", card.getSingleType().getValue());
 
-    BinaryContent resultContent;
-    StreamResult resultOutput = null;
     XMLReader xmlReader = null;
     try {
       XMLReader xmlParser = XML_UTILS.getSecureXmlParser();
@@ -133,37 +127,19 @@ public BinaryContent transform(Metacard metacard, Map<String, Serializable> argu
     }
     Source source =
         new SAXSource(xmlReader, new InputSource(new StringReader(metacard.getMetadata())));
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-    resultOutput = new StreamResult(baos);
+    XsltTransformedContent.Output output = new XsltTransformedContent.Output();
 
+    BinaryContent resultContent;
     try {
-      transformer = templates.newTransformer();
+      transform(source, mergedMap, new StreamResult(output));
+      LOGGER.debug("Transform complete.");
+      resultContent = output.toContent(mimeType);
     } catch (TransformerConfigurationException tce) {
       throw new CatalogTransformerException(
           "Could not perform Xslt transform: " + tce.getException(), tce.getCause());
-    }
-
-    if (!mergedMap.isEmpty()) {
-      for (Map.Entry<String, Object> entry : mergedMap.entrySet()) {
-        LOGGER.debug("Adding parameter to transform {}:{}", entry.getKey(), entry.getValue());
-        transformer.setParameter(entry.getKey(), entry.getValue());
-      }
-    }
-
-    try {
-      transformer.transform(source, resultOutput);
-      byte[] bytes = baos.toByteArray();
-      IOUtils.closeQuietly(baos);
-      LOGGER.debug("Transform complete.");
-      resultContent = new XsltTransformedContent(bytes, mimeType);
     } catch (TransformerException te) {
       throw new CatalogTransformerException(
           "Could not perform Xslt transform: " + te.getMessage(), te.getCause());
-    } finally {
-      // TODO: if we ever start to reuse transformers, we should add this
-      // code back in
-      // transformer.reset();
     }
 
     return resultContent;
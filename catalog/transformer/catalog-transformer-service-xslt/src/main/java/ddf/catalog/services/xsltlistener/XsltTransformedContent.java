@@ -16,11 +16,39 @@
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.impl.BinaryContentImpl;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import javax.activation.MimeType;
 
 public class XsltTransformedContent extends BinaryContentImpl implements BinaryContent {
 
+  private static final int BUFFER_SIZE = 8192;
+
   public XsltTransformedContent(byte[] formattedContent, MimeType mimeType) {
     super(new ByteArrayInputStream(formattedContent), mimeType);
+    setSize(formattedContent.length);
+  }
+
+  /**
+   * Wraps the first {@code length} bytes of {@code buffer} without copying them. The buffer must
+   * not be modified after it is handed to this content.
+   */
+  XsltTransformedContent(byte[] buffer, int length, MimeType mimeType) {
+    super(new ByteArrayInputStream(buffer, 0, length), mimeType);
+    setSize(length);
+  }
+
+  /**
+   * Output stream the xsl transform writes into. The written bytes are handed to the resulting
+   * {@link XsltTransformedContent} directly instead of being copied out with {@code toByteArray()}.
+   */
+  static class Output extends ByteArrayOutputStream {
+
+    Output() {
+      super(BUFFER_SIZE);
+    }
+
+    XsltTransformedContent toContent(MimeType mimeType) {
+      return new XsltTransformedContent(buf, count, mimeType);
+    }
   }
 }
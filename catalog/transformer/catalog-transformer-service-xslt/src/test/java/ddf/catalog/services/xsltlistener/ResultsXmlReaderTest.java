@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import org.codice.ddf.platform.util.XMLUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+public class ResultsXmlReaderTest {
+
+  private final List<Result> results = new ArrayList<>();
+
+  private final XPath xpath = XPathFactory.newInstance().newXPath();
+
+  private MetacardImpl metacard;
+
+  @Before
+  public void setUp() {
+    metacard = new MetacardImpl();
+    metacard.setId("1234");
+    metacard.setTitle("title");
+    metacard.setSourceId("ddf.distribution");
+    metacard.setMetadata(
+        "<md:metadata xmlns:md=\"urn:test\"><md:name>name</md:name></md:metadata>");
+  }
+
+  @Test
+  public void testMetadataIsEmbeddedInDocumentElement() throws Exception {
+    results.add(new ResultImpl(metacard));
+
+    Node document = read();
+
+    assertThat(xpath.evaluate("count(/results/metacard)", document), is("1"));
+    assertThat(xpath.evaluate("/results/metacard/id", document), is("1234"));
+    assertThat(xpath.evaluate("/results/metacard/title", document), is("title"));
+    assertThat(xpath.evaluate("/results/metacard/site", document), is("ddf.distribution"));
+    assertThat(
+        xpath.evaluate("namespace-uri(/results/metacard/document/*)", document), is("urn:test"));
+    assertThat(xpath.evaluate("/results/metacard/document/*/*", document), is("name"));
+  }
+
+  @Test
+  public void testOptionalElementsAreWritten() throws Exception {
+    metacard.setContentTypeName("text/xml");
+    metacard.setResourceURI(new URI("http://host/product"));
+    metacard.setThumbnail(new byte[] {1, 2, 3});
+    ResultImpl result = new ResultImpl(metacard);
+    result.setRelevanceScore(0.5);
+    result.setDistanceInMeters(10.0);
+    results.add(result);
+
+    Node document = read();
+
+    assertThat(xpath.evaluate("/results/metacard/content-type", document), is("text/xml"));
+    assertThat(
+        xpath.evaluate("/results/metacard/content-type/@qualifier", document), is("content-type"));
+    assertThat(xpath.evaluate("/results/metacard/product", document), is("http://host/product"));
+    assertThat(
+        xpath.evaluate("/results/metacard/thumbnail", document),
+        is(Base64.getEncoder().encodeToString(new byte[] {1, 2, 3})));
+    assertThat(xpath.evaluate("/results/metacard/score", document), is("0.5"));
+    assertThat(xpath.evaluate("/results/metacard/distance", document), is("10.0"));
+  }
+
+  @Test
+  public void testResultsWithoutMetadataAreSkipped() throws Exception {
+    MetacardImpl withoutMetadata = new MetacardImpl();
+    withoutMetadata.setId("5678");
+    results.add(new ResultImpl(withoutMetadata));
+    results.add(new ResultImpl());
+    results.add(new ResultImpl(metacard));
+
+    Node document = read();
+
+    assertThat(xpath.evaluate("count(/results/metacard)", document), is("1"));
+    assertThat(xpath.evaluate("/results/metacard/id", document), is("1234"));
+  }
+
+  @Test
+  public void testEmptyResults() throws Exception {
+    Node document = read();
+
+    assertThat(xpath.evaluate("count(/results)", document), is("1"));
+    assertThat(xpath.evaluate("count(/results/*)", document), is("0"));
+  }
+
+  private Node read() throws Exception {
+    ResultsXmlReader reader =
+        new ResultsXmlReader(XMLUtils.getInstance().getSecureXmlParser(), results);
+    DOMResult output = new DOMResult();
+    TransformerFactory.newInstance()
+        .newTransformer()
+        .transform(new SAXSource(reader, new InputSource()), output);
+    return output.getNode();
+  }
+}
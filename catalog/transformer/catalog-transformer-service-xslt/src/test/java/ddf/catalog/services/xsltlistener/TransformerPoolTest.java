@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.services.xsltlistener;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransformerPoolTest {
+
+  private static final String STYLESHEET =
+      "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+          + "<xsl:output method=\"text\"/>"
+          + "<xsl:param name=\"prefix\" select=\"'none'\"/>"
+          + "<xsl:template match=\"/\">"
+          + "<xsl:value-of select=\"concat($prefix, ':', /value)\"/>"
+          + "</xsl:template>"
+          + "</xsl:stylesheet>";
+
+  private TransformerPool pool;
+
+  @Before
+  public void setUp() throws Exception {
+    pool =
+        new TransformerPool(
+            TransformerFactory.newInstance()
+                .newTemplates(new StreamSource(new StringReader(STYLESHEET))),
+            2);
+  }
+
+  @Test
+  public void testReleasedTransformerIsReused() throws Exception {
+    Transformer transformer = pool.borrow();
+    pool.release(transformer);
+
+    assertThat(pool.getIdleCount(), is(1));
+    assertThat(pool.borrow(), is(sameInstance(transformer)));
+    assertThat(pool.getIdleCount(), is(0));
+  }
+
+  @Test
+  public void testBorrowCreatesTransformerWhenNoneIsIdle() throws Exception {
+    Transformer first = pool.borrow();
+    Transformer second = pool.borrow();
+
+    assertThat(second, is(not(sameInstance(first))));
+  }
+
+  @Test
+  public void testReleasedTransformerIsReset() throws Exception {
+    Transformer transformer = pool.borrow();
+    transformer.setParameter("prefix", "first");
+    assertThat(transform(transformer, "1"), is("first:1"));
+    transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+    pool.release(transformer);
+
+    Transformer reused = pool.borrow();
+
+    assertThat(reused, is(sameInstance(transformer)));
+    assertThat(reused.getParameter("prefix"), is(nullValue()));
+    assertThat(reused.getOutputProperty(OutputKeys.METHOD), is("text"));
+    assertThat(transform(reused, "2"), is("none:2"));
+  }
+
+  @Test
+  public void testIdleTransformersAreBounded() throws Exception {
+    List<Transformer> transformers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      transformers.add(pool.borrow());
+    }
+    transformers.forEach(pool::release);
+
+    assertThat(pool.getIdleCount(), is(2));
+  }
+
+  @Test
+  public void testReleaseIgnoresNull() {
+    pool.release(null);
+
+    assertThat(pool.getIdleCount(), is(0));
+  }
+
+  @Test
+  public void testConcurrentCallersEachGetTheirOwnTransformer() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 500; i++) {
+        String value = String.valueOf(i);
+        Callable<String> task =
+            () -> {
+              Transformer transformer = pool.borrow();
+              try {
+                transformer.setParameter("prefix", value);
+                return transform(transformer, value);
+              } finally {
+                pool.release(transformer);
+              }
+            };
+        futures.add(executor.submit(task));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        assertThat(futures.get(i).get(10, TimeUnit.SECONDS), is(i + ":" + i));
+      }
+      assertThat(pool.getIdleCount(), is(lessThanOrEqualTo(2)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String transform(Transformer transformer, String value) throws Exception {
+    StringWriter output = new StringWriter();
+    transformer.transform(
+        new StreamSource(new StringReader("<value>" + value + "</value>")),
+        new StreamResult(output));
+    return output.toString();
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.video;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link InputStream} that passes every byte read from it on to a {@link ChunkPipe}, so that a
+ * second consumer on another thread sees the same bytes without the underlying stream being read
+ * twice.
+ *
+ * <p>The first consumer may stop reading early or close the stream; neither closes the underlying
+ * stream or the pipe. The owner calls {@link #finish()} afterwards to pass the rest of the
+ * underlying stream on to the pipe, or {@link #abort()} to give up on it.
+ */
+class BranchingInputStream extends FilterInputStream {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BranchingInputStream.class);
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final ChunkPipe pipe;
+
+  private byte[] chunk = new byte[CHUNK_SIZE];
+
+  private int chunkSize;
+
+  BranchingInputStream(final InputStream in, final ChunkPipe pipe) {
+    super(in);
+    this.pipe = pipe;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int value = in.read();
+    if (value >= 0) {
+      if (chunkSize == chunk.length) {
+        flush();
+      }
+      chunk[chunkSize++] = (byte) value;
+    }
+    return value;
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+    final int count = in.read(bytes, offset, length);
+    branch(bytes, offset, count);
+    return count;
+  }
+
+  /** Reads the skipped bytes rather than skipping them, because the pipe needs them too. */
+  @Override
+  public long skip(final long count) throws IOException {
+    final byte[] skipped = new byte[(int) Math.min(count, CHUNK_SIZE)];
+    long remaining = count;
+    while (remaining > 0) {
+      final int read = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+      if (read < 0) {
+        break;
+      }
+      remaining -= read;
+    }
+    return count - remaining;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  /** Does nothing; see {@link #finish()} and {@link #abort()}. */
+  @Override
+  public void close() {
+    // The owner closes the underlying stream once the pipe has everything it needs.
+  }
+
+  /**
+   * Passes the rest of the underlying stream on to the pipe, then signals the end of the stream to
+   * the pipe and closes the underlying stream. If the pipe's reader has already stopped reading,
+   * the rest of the underlying stream is not read.
+   *
+   * @throws IOException if the underlying stream cannot be read
+   */
+  void finish() throws IOException {
+    try {
+      final byte[] bytes = new byte[CHUNK_SIZE];
+      int count;
+      while (!pipe.isReaderClosed() && (count = in.read(bytes)) >= 0) {
+        branch(bytes, 0, count);
+      }
+      flush();
+      pipe.close();
+    } finally {
+      closeUnderlyingStream();
+    }
+  }
+
+  /** Signals the end of the stream to the pipe without reading the rest of the underlying one. */
+  void abort() {
+    try {
+      pipe.close();
+    } catch (IOException e) {
+      // Only thrown on interruption, which is already flagged on the thread.
+    } finally {
+      closeUnderlyingStream();
+    }
+  }
+
+  private void branch(final byte[] bytes, int offset, final int count) throws IOException {
+    int remaining = count;
+    while (remaining > 0) {
+      if (chunkSize == chunk.length) {
+        flush();
+      }
+      final int copied = Math.min(remaining, chunk.length - chunkSize);
+      System.arraycopy(bytes, offset, chunk, chunkSize, copied);
+      chunkSize += copied;
+      offset += copied;
+      remaining -= copied;
+    }
+  }
+
+  private void flush() throws IOException {
+    if (chunkSize > 0 && !pipe.isReaderClosed()) {
+      pipe.write(chunkSize == chunk.length ? chunk : Arrays.copyOf(chunk, chunkSize));
+      chunk = new byte[CHUNK_SIZE];
+    }
+    chunkSize = 0;
+  }
+
+  private void closeUnderlyingStream() {
+    try {
+      in.close();
+    } catch (IOException e) {
+      LOGGER.debug("Unable to close the video input stream.", e);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.video;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands chunks of bytes from a writing thread to a reading thread, which reads them as an {@link
+ * InputStream}.
+ *
+ * <p>The chunks are queued in a bounded queue, so a writer that gets ahead of the reader waits for
+ * it. If the reader closes its stream, the writer's chunks are dropped instead, so a reader that
+ * fails never holds up the writer.
+ */
+class ChunkPipe {
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private final BlockingQueue<byte[]> chunks;
+
+  private final Reader reader = new Reader();
+
+  private volatile boolean readerClosed;
+
+  private boolean writerClosed;
+
+  /** @param capacity the number of chunks the writer can get ahead of the reader */
+  ChunkPipe(final int capacity) {
+    chunks = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Queues {@code chunk} for the reader. The pipe takes ownership of the array, so the writer must
+   * not change it afterwards.
+   *
+   * @throws InterruptedIOException if the writer is interrupted while waiting for the reader
+   */
+  void write(final byte[] chunk) throws InterruptedIOException {
+    if (chunk.length > 0 && !writerClosed) {
+      put(chunk);
+    }
+  }
+
+  /**
+   * Signals the end of the stream to the reader. Calling it more than once has no effect.
+   *
+   * @throws InterruptedIOException if the writer is interrupted while waiting for the reader
+   */
+  void close() throws InterruptedIOException {
+    if (!writerClosed) {
+      writerClosed = true;
+      put(END_OF_STREAM);
+    }
+  }
+
+  /** Returns whether the reader has closed its stream and no longer wants any chunks. */
+  boolean isReaderClosed() {
+    return readerClosed;
+  }
+
+  /** Returns the stream from which the reading thread reads the chunks. */
+  InputStream reader() {
+    return reader;
+  }
+
+  private void put(final byte[] chunk) throws InterruptedIOException {
+    try {
+      while (!readerClosed) {
+        if (chunks.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the reader.");
+    }
+  }
+
+  private class Reader extends InputStream {
+    private byte[] chunk;
+
+    private int position;
+
+    @Override
+    public int read() throws IOException {
+      if (!nextChunk()) {
+        return -1;
+      }
+      return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      if (!nextChunk()) {
+        return -1;
+      }
+
+      final int count = Math.min(length, chunk.length - position);
+      System.arraycopy(chunk, position, bytes, offset, count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return chunk == null ? 0 : chunk.length - position;
+    }
+
+    @Override
+    public void close() {
+      readerClosed = true;
+      chunks.clear();
+    }
+
+    /** Makes sure there are unread bytes in {@link #chunk}, or returns false at the end. */
+    private boolean nextChunk() throws IOException {
+      if (chunk == END_OF_STREAM) {
+        return false;
+      }
+      if (readerClosed) {
+        throw new IOException("The stream is closed.");
+      }
+
+      if (chunk == null || position == chunk.length) {
+        try {
+          chunk = chunks.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the writer.");
+        }
+        position = 0;
+      }
+
+      return chunk != END_OF_STREAM;
+    }
+  }
+}
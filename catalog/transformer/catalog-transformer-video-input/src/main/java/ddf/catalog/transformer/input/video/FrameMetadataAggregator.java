@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.video;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.data.types.DateTime;
+import ddf.catalog.data.types.Media;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Aggregates the geometry and time of each video frame into the footprint, frame-center track, and
+ * temporal bounds of the whole video, in memory that does not grow with the length of the video.
+ *
+ * <ul>
+ *   <li>The footprint is the convex hull of every frame's corners, or of its center when the
+ *       corners are unknown. Points are buffered and periodically reduced to their hull, which
+ *       covers everything seen so far.
+ *   <li>The track holds at most {@link #MAX_TRACK_POINTS} frame centers. When it fills up, every
+ *       other point is dropped and only every other frame after that is kept.
+ * </ul>
+ *
+ * <p>Coordinates are treated as planar, so footprints that cross the antimeridian are not handled.
+ */
+class FrameMetadataAggregator {
+  static final int MAX_TRACK_POINTS = 1024;
+
+  private static final int MAX_HULL_POINTS = 4096;
+
+  private static final Comparator<double[]> LON_LAT_ORDER =
+      Comparator.<double[]>comparingDouble(point -> point[0])
+          .thenComparingDouble(point -> point[1]);
+
+  private long startMicros = Long.MAX_VALUE;
+
+  private long endMicros = Long.MIN_VALUE;
+
+  /** Longitude and latitude pairs, the first {@link #hullSize} of which are in use. */
+  private double[][] hull = new double[MAX_HULL_POINTS][];
+
+  private int hullSize;
+
+  private final double[] track = new double[MAX_TRACK_POINTS * 2];
+
+  private int trackSize;
+
+  private long trackStride = 1;
+
+  private long centersSeen;
+
+  private double lastCenterLon = Double.NaN;
+
+  private double lastCenterLat = Double.NaN;
+
+  /**
+   * Adds one frame. Unknown values are given as {@link Long#MIN_VALUE} or {@link Double#NaN}.
+   *
+   * @param timestampMicros the frame's time in microseconds since the epoch
+   * @param centerLat the latitude of the frame center
+   * @param centerLon the longitude of the frame center
+   * @param cornerLats the latitudes of the frame's four corners
+   * @param cornerLons the longitudes of the frame's four corners
+   */
+  void addFrame(
+      final long timestampMicros,
+      final double centerLat,
+      final double centerLon,
+      final double[] cornerLats,
+      final double[] cornerLons) {
+    if (timestampMicros != Long.MIN_VALUE) {
+      startMicros = Math.min(startMicros, timestampMicros);
+      endMicros = Math.max(endMicros, timestampMicros);
+    }
+
+    final boolean hasCenter = !Double.isNaN(centerLat) && !Double.isNaN(centerLon);
+    if (hasCorners(cornerLats, cornerLons)) {
+      for (int i = 0; i < cornerLats.length; i++) {
+        addHullPoint(cornerLons[i], cornerLats[i]);
+      }
+    } else if (hasCenter) {
+      addHullPoint(centerLon, centerLat);
+    }
+
+    if (hasCenter) {
+      addTrackPoint(centerLon, centerLat);
+    }
+  }
+
+  /** Sets the footprint, frame-center track, and temporal bounds on {@code metacard}, if known. */
+  void populate(final Metacard metacard) {
+    if (hullSize > 0) {
+      reduceHull();
+      metacard.setAttribute(new AttributeImpl(Core.LOCATION, footprintWkt()));
+    }
+
+    if (trackSize > 0) {
+      metacard.setAttribute(new AttributeImpl(Media.FRAME_CENTER, trackWkt()));
+    }
+
+    if (startMicros <= endMicros) {
+      metacard.setAttribute(new AttributeImpl(DateTime.START, new Date(startMicros / 1000)));
+      metacard.setAttribute(new AttributeImpl(DateTime.END, new Date(endMicros / 1000)));
+    }
+  }
+
+  private static boolean hasCorners(final double[] cornerLats, final double[] cornerLons) {
+    for (int i = 0; i < cornerLats.length; i++) {
+      if (Double.isNaN(cornerLats[i]) || Double.isNaN(cornerLons[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addHullPoint(final double lon, final double lat) {
+    if (hullSize == hull.length) {
+      reduceHull();
+      if (hullSize > hull.length / 2) {
+        hull = Arrays.copyOf(hull, hull.length * 2);
+      }
+    }
+    hull[hullSize++] = new double[] {lon, lat};
+  }
+
+  /** Replaces the buffered points with their convex hull, using Andrew's monotone chain. */
+  private void reduceHull() {
+    final double[][] sorted = Arrays.copyOf(hull, hullSize);
+    Arrays.sort(sorted, LON_LAT_ORDER);
+
+    // Consecutive frames often share corners; duplicates would survive as zero-length edges.
+    int distinct = 0;
+    for (final double[] point : sorted) {
+      if (distinct == 0 || LON_LAT_ORDER.compare(sorted[distinct - 1], point) != 0) {
+        sorted[distinct++] = point;
+      }
+    }
+    final double[][] points = Arrays.copyOf(sorted, distinct);
+
+    final double[][] chain = new double[points.length * 2][];
+    int size = 0;
+    for (final double[] point : points) {
+      while (size >= 2 && cross(chain[size - 2], chain[size - 1], point) <= 0) {
+        size--;
+      }
+      chain[size++] = point;
+    }
+    final int lowerSize = size + 1;
+    for (int i = points.length - 2; i >= 0; i--) {
+      while (size >= lowerSize && cross(chain[size - 2], chain[size - 1], points[i]) <= 0) {
+        size--;
+      }
+      chain[size++] = points[i];
+    }
+
+    // The chain ends where it started; a single distinct point yields just that point.
+    hullSize = Math.max(1, size - 1);
+    System.arraycopy(chain, 0, hull, 0, hullSize);
+    Arrays.fill(hull, hullSize, hull.length, null);
+  }
+
+  private static double cross(final double[] o, final double[] a, final double[] b) {
+    return (a[0] - o[0]) * (b[1] - o[1]) - (a[1] - o[1]) * (b[0] - o[0]);
+  }
+
+  private void addTrackPoint(final double lon, final double lat) {
+    lastCenterLon = lon;
+    lastCenterLat = lat;
+
+    if (centersSeen++ % trackStride != 0) {
+      return;
+    }
+
+    if (trackSize == MAX_TRACK_POINTS) {
+      for (int i = 0; i < MAX_TRACK_POINTS / 2; i++) {
+        track[i * 2] = track[i * 4];
+        track[i * 2 + 1] = track[i * 4 + 1];
+      }
+      trackSize = MAX_TRACK_POINTS / 2;
+      trackStride *= 2;
+      if ((centersSeen - 1) % trackStride != 0) {
+        return;
+      }
+    }
+
+    track[trackSize * 2] = lon;
+    track[trackSize * 2 + 1] = lat;
+    trackSize++;
+  }
+
+  private String footprintWkt() {
+    final StringBuilder wkt = new StringBuilder();
+    if (hullSize == 1) {
+      wkt.append("POINT (");
+      appendCoordinate(wkt, hull[0][0], hull[0][1]);
+      return wkt.append(')').toString();
+    }
+
+    wkt.append(hullSize == 2 ? "LINESTRING (" : "POLYGON ((");
+    for (int i = 0; i < hullSize; i++) {
+      appendCoordinate(wkt.append(i > 0 ? ", " : ""), hull[i][0], hull[i][1]);
+    }
+    if (hullSize == 2) {
+      return wkt.append(')').toString();
+    }
+    appendCoordinate(wkt.append(", "), hull[0][0], hull[0][1]);
+    return wkt.append("))").toString();
+  }
+
+  private String trackWkt() {
+    final boolean endsAtLastCenter =
+        track[trackSize * 2 - 2] == lastCenterLon && track[trackSize * 2 - 1] == lastCenterLat;
+    final int points = endsAtLastCenter ? trackSize : trackSize + 1;
+
+    final StringBuilder wkt = new StringBuilder(points == 1 ? "POINT (" : "LINESTRING (");
+    for (int i = 0; i < trackSize; i++) {
+      appendCoordinate(wkt.append(i > 0 ? ", " : ""), track[i * 2], track[i * 2 + 1]);
+    }
+    if (!endsAtLastCenter) {
+      appendCoordinate(wkt.append(", "), lastCenterLon, lastCenterLat);
+    }
+    return wkt.append(')').toString();
+  }
+
+  private static void appendCoordinate(
+      final StringBuilder wkt, final double lon, final double lat) {
+    wkt.append(round(lon)).append(' ').append(round(lat));
+  }
+
+  /** Rounds to about a centimeter, which is well below the precision of the source metadata. */
+  private static double round(final double degrees) {
+    return Math.round(degrees * 1e7) / 1e7;
+  }
+}
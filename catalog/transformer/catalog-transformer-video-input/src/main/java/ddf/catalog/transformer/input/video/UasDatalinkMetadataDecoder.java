@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.video;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.codice.ddf.libs.klv.KlvContext;
+import org.codice.ddf.libs.klv.KlvDataElement;
+import org.codice.ddf.libs.klv.KlvDecoder;
+import org.codice.ddf.libs.klv.KlvDecodingException;
+import org.codice.ddf.libs.klv.data.Klv;
+import org.codice.ddf.libs.klv.data.Klv.KeyLength;
+import org.codice.ddf.libs.klv.data.Klv.LengthEncoding;
+import org.codice.ddf.libs.klv.data.numerical.KlvInt;
+import org.codice.ddf.libs.klv.data.numerical.KlvIntegerEncodedFloatingPoint;
+import org.codice.ddf.libs.klv.data.numerical.KlvLong;
+import org.codice.ddf.libs.klv.data.numerical.KlvShort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes the UAS Datalink Local Sets (MISB ST 0601) in the metadata packets of a transport stream
+ * and adds the time and geometry of each one to a {@link FrameMetadataAggregator}.
+ *
+ * <p>Only the elements needed for the aggregate are decoded: the precision time stamp, the frame
+ * center, and the frame corners, either as full coordinates or as offsets from the frame center.
+ * Values are read in place with the decoder's reusable data elements, so decoding allocates little
+ * per packet. Instances are not thread-safe.
+ */
+class UasDatalinkMetadataDecoder implements BiConsumer<Integer, byte[]> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UasDatalinkMetadataDecoder.class);
+
+  private static final byte[] UAS_DATALINK_LOCAL_SET_KEY = {
+    0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01, 0x00, 0x00, 0x00
+  };
+
+  private static final long UAS_DATALINK_LOCAL_SET_KEY_MSB =
+      ByteBuffer.wrap(UAS_DATALINK_LOCAL_SET_KEY).getLong(0);
+
+  private static final long UAS_DATALINK_LOCAL_SET_KEY_LSB =
+      ByteBuffer.wrap(UAS_DATALINK_LOCAL_SET_KEY).getLong(8);
+
+  /** The number of bytes in a metadata access unit cell header (ISO 13818-1 2.12.4). */
+  private static final int METADATA_AU_CELL_HEADER_LENGTH = 5;
+
+  private static final String PRECISION_TIME_STAMP = "precision time stamp";
+
+  private static final String FRAME_CENTER_LATITUDE = "frame center latitude";
+
+  private static final String FRAME_CENTER_LONGITUDE = "frame center longitude";
+
+  private static final String OFFSET_CORNER_LATITUDE = "offset corner latitude point ";
+
+  private static final String OFFSET_CORNER_LONGITUDE = "offset corner longitude point ";
+
+  private static final String CORNER_LATITUDE = "corner latitude point ";
+
+  private static final String CORNER_LONGITUDE = "corner longitude point ";
+
+  private static final int CORNERS = 4;
+
+  private final FrameMetadataAggregator aggregator;
+
+  private final KlvDecoder localSetDecoder = new KlvDecoder(createLocalSetContext());
+
+  private final Klv klv = Klv.reusable();
+
+  private final Consumer<KlvDataElement> valueSetter = this::setValue;
+
+  private long timestamp;
+
+  private double centerLat;
+
+  private double centerLon;
+
+  private final double[] offsetCornerLats = new double[CORNERS];
+
+  private final double[] offsetCornerLons = new double[CORNERS];
+
+  private final double[] cornerLats = new double[CORNERS];
+
+  private final double[] cornerLons = new double[CORNERS];
+
+  UasDatalinkMetadataDecoder(final FrameMetadataAggregator aggregator) {
+    this.aggregator = aggregator;
+  }
+
+  @Override
+  public void accept(final Integer packetId, final byte[] metadataPacket) {
+    final ByteBuffer buffer = ByteBuffer.wrap(metadataPacket);
+    skipHeaders(buffer);
+
+    while (buffer.hasRemaining()) {
+      try {
+        klv.read(buffer, KeyLength.SixteenBytes, LengthEncoding.BER);
+      } catch (IndexOutOfBoundsException e) {
+        LOGGER.debug("Skipping the rest of a malformed metadata packet in stream {}.", packetId, e);
+        return;
+      }
+
+      if (klv.getKeyMostSignificantBits() == UAS_DATALINK_LOCAL_SET_KEY_MSB
+          && klv.getKeyLeastSignificantBits() == UAS_DATALINK_LOCAL_SET_KEY_LSB) {
+        decodeLocalSet(packetId);
+      }
+    }
+  }
+
+  /**
+   * Skips the PES header and, for synchronous metadata, the access unit cell header in front of the
+   * KLV.
+   */
+  private static void skipHeaders(final ByteBuffer buffer) {
+    if (buffer.remaining() >= 9 && buffer.get(0) == 0 && buffer.get(1) == 0 && buffer.get(2) == 1) {
+      // 6 bytes of start code, stream ID, and packet length, 3 bytes of flags and header length.
+      position(buffer, Math.min(buffer.limit(), 9 + (buffer.get(8) & 0xFF)));
+    }
+
+    if (!startsWithKlvKey(buffer, buffer.position())
+        && startsWithKlvKey(buffer, buffer.position() + METADATA_AU_CELL_HEADER_LENGTH)) {
+      position(buffer, buffer.position() + METADATA_AU_CELL_HEADER_LENGTH);
+    }
+  }
+
+  /** Returns whether a SMPTE universal label begins at {@code index}. */
+  private static boolean startsWithKlvKey(final ByteBuffer buffer, final int index) {
+    if (buffer.limit() - index < 4) {
+      return false;
+    }
+    for (int i = 0; i < 4; i++) {
+      if (buffer.get(index + i) != UAS_DATALINK_LOCAL_SET_KEY[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void position(final ByteBuffer buffer, final int position) {
+    // Cast so the class file does not depend on the covariant overrides added in Java 9.
+    ((Buffer) buffer).position(position);
+  }
+
+  private void decodeLocalSet(final Integer packetId) {
+    timestamp = Long.MIN_VALUE;
+    centerLat = Double.NaN;
+    centerLon = Double.NaN;
+    Arrays.fill(offsetCornerLats, Double.NaN);
+    Arrays.fill(offsetCornerLons, Double.NaN);
+    Arrays.fill(cornerLats, Double.NaN);
+    Arrays.fill(cornerLons, Double.NaN);
+
+    try {
+      localSetDecoder.decode(klv.getValueBuffer(), valueSetter);
+    } catch (KlvDecodingException e) {
+      LOGGER.debug("Skipping a malformed UAS Datalink Local Set in stream {}.", packetId, e);
+      return;
+    }
+
+    if (!hasAll(cornerLats) || !hasAll(cornerLons)) {
+      for (int i = 0; i < CORNERS; i++) {
+        cornerLats[i] = centerLat + offsetCornerLats[i];
+        cornerLons[i] = centerLon + offsetCornerLons[i];
+      }
+    }
+
+    aggregator.addFrame(timestamp, centerLat, centerLon, cornerLats, cornerLons);
+  }
+
+  private static boolean hasAll(final double[] values) {
+    for (final double value : values) {
+      if (Double.isNaN(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void setValue(final KlvDataElement dataElement) {
+    if (dataElement.isErrorIndicated()) {
+      return;
+    }
+
+    final String name = dataElement.getName();
+    final Object value = dataElement.getValue();
+    switch (name) {
+      case PRECISION_TIME_STAMP:
+        timestamp = (Long) value;
+        return;
+      case FRAME_CENTER_LATITUDE:
+        centerLat = (Double) value;
+        return;
+      case FRAME_CENTER_LONGITUDE:
+        centerLon = (Double) value;
+        return;
+      default:
+        break;
+    }
+
+    // The corner names end in the point number, 1 to 4.
+    final int corner = name.charAt(name.length() - 1) - '1';
+    if (name.startsWith(OFFSET_CORNER_LATITUDE)) {
+      offsetCornerLats[corner] = (Double) value;
+    } else if (name.startsWith(OFFSET_CORNER_LONGITUDE)) {
+      offsetCornerLons[corner] = (Double) value;
+    } else if (name.startsWith(CORNER_LATITUDE)) {
+      cornerLats[corner] = (Double) value;
+    } else if (name.startsWith(CORNER_LONGITUDE)) {
+      cornerLons[corner] = (Double) value;
+    }
+  }
+
+  private static KlvContext createLocalSetContext() {
+    final List<KlvDataElement> dataElements = new ArrayList<>();
+
+    // Tag numbers are from MISB ST 0601.
+    dataElements.add(new KlvLong(new byte[] {2}, PRECISION_TIME_STAMP));
+    dataElements.add(latitude(23, FRAME_CENTER_LATITUDE));
+    dataElements.add(longitude(24, FRAME_CENTER_LONGITUDE));
+
+    for (int i = 0; i < CORNERS; i++) {
+      dataElements.add(offset(26 + i * 2, OFFSET_CORNER_LATITUDE + (i + 1)));
+      dataElements.add(offset(27 + i * 2, OFFSET_CORNER_LONGITUDE + (i + 1)));
+      dataElements.add(latitude(82 + i * 2, CORNER_LATITUDE + (i + 1)));
+      dataElements.add(longitude(83 + i * 2, CORNER_LONGITUDE + (i + 1)));
+    }
+
+    return new KlvContext(KeyLength.OneByte, LengthEncoding.BER, dataElements);
+  }
+
+  /** A latitude encoded as a signed 32-bit int, where the minimum value indicates an error. */
+  private static KlvDataElement latitude(final int tag, final String name) {
+    return new KlvIntegerEncodedFloatingPoint(
+        new KlvInt(new byte[] {(byte) tag}, name, Optional.of(Integer.MIN_VALUE)),
+        Integer.MIN_VALUE + 1,
+        Integer.MAX_VALUE,
+        -90,
+        90);
+  }
+
+  /** A longitude encoded as a signed 32-bit int, where the minimum value indicates an error. */
+  private static KlvDataElement longitude(final int tag, final String name) {
+    return new KlvIntegerEncodedFloatingPoint(
+        new KlvInt(new byte[] {(byte) tag}, name, Optional.of(Integer.MIN_VALUE)),
+        Integer.MIN_VALUE + 1,
+        Integer.MAX_VALUE,
+        -180,
+        180);
+  }
+
+  /**
+   * An offset from the frame center of up to 0.075 degrees, encoded as a signed 16-bit int, where
+   * the minimum value indicates an error.
+   */
+  private static KlvDataElement offset(final int tag, final String name) {
+    return new KlvIntegerEncodedFloatingPoint(
+        new KlvShort(new byte[] {(byte) tag}, name, Optional.of(Short.MIN_VALUE)),
+        Short.MIN_VALUE + 1,
+        Short.MAX_VALUE,
+        -0.075,
+        0.075);
+  }
+}
@@ -22,28 +22,118 @@
 import ddf.catalog.transform.InputTransformer;
 import ddf.catalog.transformer.common.tika.MetacardCreator;
 import ddf.catalog.transformer.common.tika.TikaMetadataExtractor;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
+import org.codice.ddf.libs.mpeg.transport.MpegTransportStreamMetadataExtractor;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class VideoInputTransformer implements InputTransformer {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(VideoInputTransformer.class);
+
+  private static final int TRANSPORT_STREAM_PACKET_SIZE = 188;
+
+  private static final byte TRANSPORT_STREAM_SYNC_BYTE = 0x47;
+
+  /** Enough to see the sync bytes of three consecutive transport stream packets. */
+  private static final int TRANSPORT_STREAM_PROBE_LENGTH = TRANSPORT_STREAM_PACKET_SIZE * 2 + 1;
+
+  /** The number of 64 KB chunks the content copy can get ahead of the metadata extraction. */
+  private static final int METADATA_PIPE_CAPACITY = 64;
+
   private MetacardType metacardType = null;
 
+  private final ExecutorService metadataExtractionExecutor =
+      Executors.newCachedThreadPool(
+          StandardThreadFactoryBuilder.newThreadFactory("videoInputTransformerThread"));
+
   public VideoInputTransformer(MetacardType metacardType) {
 
     this.metacardType = metacardType;
   }
 
+  public void destroy() {
+    metadataExtractionExecutor.shutdownNow();
+  }
+
   @Override
   public Metacard transform(InputStream input) throws IOException, CatalogTransformerException {
     return transform(input, null);
   }
 
+  /**
+   * Transforms the video into a metacard with Tika.
+   *
+   * <p>If the video is an MPEG-2 transport stream, the KLV metadata embedded in it (MISB ST 0601)
+   * is extracted at the same time, on another thread, from the same read of the input. The time and
+   * geometry of its frames are aggregated into the metacard's temporal bounds, footprint, and
+   * frame-center track, so large videos are only read once.
+   */
   @Override
   public Metacard transform(InputStream input, String id)
       throws IOException, CatalogTransformerException {
+    final BufferedInputStream bufferedInput = new BufferedInputStream(input);
+
+    if (isTransportStream(bufferedInput)) {
+      try {
+        return transformTransportStream(bufferedInput, id);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Unable to extract transport stream metadata; the transformer is stopping.");
+      }
+    }
+
+    return createMetacard(bufferedInput, id);
+  }
+
+  private Metacard transformTransportStream(final InputStream input, final String id)
+      throws IOException, CatalogTransformerException {
+    final ChunkPipe pipe = new ChunkPipe(METADATA_PIPE_CAPACITY);
+    final FrameMetadataAggregator aggregator = new FrameMetadataAggregator();
+
+    final Future<Void> extraction =
+        metadataExtractionExecutor.submit(
+            () -> {
+              new MpegTransportStreamMetadataExtractor(pipe.reader())
+                  .getMetadata(new UasDatalinkMetadataDecoder(aggregator));
+              return null;
+            });
+
+    final BranchingInputStream branchingInput = new BranchingInputStream(input, pipe);
+    final Metacard metacard;
+    try {
+      metacard = createMetacard(branchingInput, id);
+      branchingInput.finish();
+    } catch (IOException | CatalogTransformerException | RuntimeException e) {
+      branchingInput.abort();
+      extraction.cancel(true);
+      throw e;
+    }
+
+    try {
+      extraction.get();
+      aggregator.populate(metacard);
+    } catch (ExecutionException e) {
+      LOGGER.debug("Unable to extract the KLV metadata from the transport stream.", e.getCause());
+    } catch (InterruptedException e) {
+      extraction.cancel(true);
+      Thread.currentThread().interrupt();
+    }
+
+    return metacard;
+  }
+
+  private Metacard createMetacard(InputStream input, String id)
+      throws IOException, CatalogTransformerException {
 
     Metacard metacard;
     try {
@@ -61,4 +151,24 @@ public Metacard transform(InputStream input, String id)
     }
     return metacard;
   }
+
+  private static boolean isTransportStream(final BufferedInputStream input) throws IOException {
+    final byte[] probe = new byte[TRANSPORT_STREAM_PROBE_LENGTH];
+
+    input.mark(TRANSPORT_STREAM_PROBE_LENGTH);
+    int read = 0;
+    try {
+      int count;
+      while (read < probe.length && (count = input.read(probe, read, probe.length - read)) >= 0) {
+        read += count;
+      }
+    } finally {
+      input.reset();
+    }
+
+    return read == probe.length
+        && probe[0] == TRANSPORT_STREAM_SYNC_BYTE
+        && probe[TRANSPORT_STREAM_PACKET_SIZE] == TRANSPORT_STREAM_SYNC_BYTE
+        && probe[TRANSPORT_STREAM_PACKET_SIZE * 2] == TRANSPORT_STREAM_SYNC_BYTE;
+  }
 }
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.video;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.data.types.DateTime;
+import ddf.catalog.data.types.Media;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UasDatalinkMetadataDecoderTest {
+  private static final byte[] UAS_DATALINK_LOCAL_SET_KEY = {
+    0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01, 0x00, 0x00, 0x00
+  };
+
+  private FrameMetadataAggregator aggregator;
+
+  private UasDatalinkMetadataDecoder decoder;
+
+  @Before
+  public void setUp() {
+    aggregator = new FrameMetadataAggregator();
+    decoder = new UasDatalinkMetadataDecoder(aggregator);
+  }
+
+  @Test
+  public void testFramesWithOffsetCorners() {
+    decoder.accept(497, pesPacket(localSet(1_000_000L, 10, 20, 0.01)));
+    decoder.accept(497, pesPacket(localSet(3_000_000L, 10, 20.05, 0.01)));
+
+    final Metacard metacard = populate();
+
+    assertThat(
+        metacard.getAttribute(Core.LOCATION).getValue(),
+        is(
+            "POLYGON ((19.9899998 9.9899998, 20.0600001 9.9899998, 20.0600001 10.0100001, "
+                + "19.9899998 10.0100001, 19.9899998 9.9899998))"));
+    assertThat(
+        metacard.getAttribute(Media.FRAME_CENTER).getValue(),
+        is("LINESTRING (20.0 10.0, 20.05 10.0)"));
+    assertThat(metacard.getAttribute(DateTime.START).getValue(), is(new Date(1000)));
+    assertThat(metacard.getAttribute(DateTime.END).getValue(), is(new Date(3000)));
+  }
+
+  @Test
+  public void testFrameWithoutCornersUsesFrameCenter() {
+    decoder.accept(497, pesPacket(localSet(1_000_000L, 10, 20, Double.NaN)));
+
+    final Metacard metacard = populate();
+
+    assertThat(metacard.getAttribute(Core.LOCATION).getValue(), is("POINT (20.0 10.0)"));
+    assertThat(metacard.getAttribute(Media.FRAME_CENTER).getValue(), is("POINT (20.0 10.0)"));
+  }
+
+  @Test
+  public void testMetadataAccessUnitCellHeaderIsSkipped() {
+    final ByteArrayOutputStream cell = new ByteArrayOutputStream();
+    cell.write(new byte[] {0, 1, 0, 0, 0}, 0, 5);
+    final byte[] localSet = localSet(1_000_000L, 10, 20, Double.NaN);
+    cell.write(localSet, 0, localSet.length);
+
+    decoder.accept(497, pesPacket(cell.toByteArray()));
+
+    assertThat(populate().getAttribute(Core.LOCATION).getValue(), is("POINT (20.0 10.0)"));
+  }
+
+  @Test
+  public void testTruncatedPacketIsIgnored() {
+    final byte[] localSet = localSet(1_000_000L, 10, 20, 0.01);
+    final byte[] truncated = new byte[localSet.length - 4];
+    System.arraycopy(localSet, 0, truncated, 0, truncated.length);
+
+    decoder.accept(497, pesPacket(truncated));
+
+    final Metacard metacard = populate();
+    assertThat(metacard.getAttribute(Core.LOCATION), is(nullValue()));
+    assertThat(metacard.getAttribute(DateTime.START), is(nullValue()));
+  }
+
+  @Test
+  public void testTrackIsDecimated() {
+    final int frames = 3072;
+    for (int frame = 0; frame < frames; frame++) {
+      aggregator.addFrame(frame, 0, frame * 0.001, new double[4], new double[4]);
+    }
+
+    final String track = (String) populate().getAttribute(Media.FRAME_CENTER).getValue();
+    final int points = track.split(",").length;
+
+    assertThat(points <= FrameMetadataAggregator.MAX_TRACK_POINTS + 1, is(true));
+    assertThat(track.startsWith("LINESTRING (0.0 0.0, "), is(true));
+    assertThat(track.endsWith(", 3.071 0.0)"), is(true));
+  }
+
+  private Metacard populate() {
+    final Metacard metacard = new MetacardImpl();
+    aggregator.populate(metacard);
+    return metacard;
+  }
+
+  private static byte[] pesPacket(final byte[] payload) {
+    final ByteArrayOutputStream packet = new ByteArrayOutputStream();
+    packet.write(new byte[] {0, 0, 1, (byte) 0xBD, 0, 0, (byte) 0x84, 0, 0}, 0, 9);
+    packet.write(payload, 0, payload.length);
+    return packet.toByteArray();
+  }
+
+  private static byte[] localSet(
+      final long timestampMicros,
+      final double centerLat,
+      final double centerLon,
+      final double cornerOffset) {
+    final ByteArrayOutputStream value = new ByteArrayOutputStream();
+    writeElement(value, 2, timestampMicros, 8);
+    writeElement(value, 23, encode(centerLat, 90), 4);
+    writeElement(value, 24, encode(centerLon, 180), 4);
+    if (!Double.isNaN(cornerOffset)) {
+      final double[] latOffsets = {-cornerOffset, -cornerOffset, cornerOffset, cornerOffset};
+      final double[] lonOffsets = {-cornerOffset, cornerOffset, cornerOffset, -cornerOffset};
+      for (int i = 0; i < 4; i++) {
+        writeElement(value, 26 + i * 2, encodeOffset(latOffsets[i]), 2);
+        writeElement(value, 27 + i * 2, encodeOffset(lonOffsets[i]), 2);
+      }
+    }
+
+    final byte[] valueBytes = value.toByteArray();
+    final ByteArrayOutputStream klv = new ByteArrayOutputStream();
+    klv.write(UAS_DATALINK_LOCAL_SET_KEY, 0, UAS_DATALINK_LOCAL_SET_KEY.length);
+    klv.write(0x81);
+    klv.write(valueBytes.length);
+    klv.write(valueBytes, 0, valueBytes.length);
+    return klv.toByteArray();
+  }
+
+  private static long encode(final double degrees, final double range) {
+    return Math.round(degrees / range * Integer.MAX_VALUE);
+  }
+
+  private static long encodeOffset(final double degrees) {
+    return Math.round(degrees / 0.075 * Short.MAX_VALUE);
+  }
+
+  private static void writeElement(
+      final ByteArrayOutputStream out, final int tag, final long value, final int length) {
+    out.write(tag);
+    out.write(length);
+    for (int i = length - 1; i >= 0; i--) {
+      out.write((int) (value >>> (i * 8)));
+    }
+  }
+}
@@ -20,6 +20,7 @@
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.types.Core;
+import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.filter.impl.SortByImpl;
 import ddf.catalog.operation.Query;
@@ -29,11 +30,12 @@
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.util.impl.CatalogQueryException;
 import ddf.catalog.util.impl.QueryFunction;
 import ddf.catalog.util.impl.ResultIterable;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -211,22 +213,6 @@ private Map<String, Serializable> createProperties() {
     return securityService.addSystemSubject(new HashMap<>());
   }
 
-  private Filter getWorkspaceFilterFromIds(Set<String> workspaceIds) {
-    List<Filter> workspaceFilters = new ArrayList<>();
-
-    for (String workspaceId : workspaceIds) {
-      workspaceFilters.add(getWorkspaceFilter(workspaceId));
-    }
-
-    return filterBuilder.anyOf(workspaceFilters);
-  }
-
-  private Filter getWorkspaceFilter(String workspaceId) {
-    return filterBuilder.allOf(
-        filterBuilder.attribute(Core.METACARD_TAGS).is().like().text(WORKSPACE_TAG),
-        filterBuilder.attribute(Core.ID).is().equalTo().text(workspaceId));
-  }
-
   @Override
   public List<WorkspaceMetacardImpl> getWorkspaceMetacards(Set<String> workspaceIds) {
 
@@ -234,14 +220,15 @@ public List<WorkspaceMetacardImpl> getWorkspaceMetacards(Set<String> workspaceId
       return Collections.emptyList();
     }
 
-    final Filter filter = getWorkspaceFilterFromIds(workspaceIds);
-
-    final QueryRequest queryRequest = createQueryRequest(filter);
-
     try {
-      return createWorkspaceMetacards(query(queryRequest));
-    } catch (CatalogQueryException e) {
-      LOGGER.info("Error querying for workspaces: queryRequest={}", queryRequest, e);
+      return createWorkspaceMetacards(
+          catalogFramework.queryByIds(
+              workspaceIds,
+              Collections.singleton(WORKSPACE_TAG),
+              filterBuilder,
+              createProperties()));
+    } catch (UnsupportedQueryException | SourceUnavailableException | FederationException e) {
+      LOGGER.info("Error querying for workspaces: workspaceIds={}", workspaceIds, e);
     }
 
     return Collections.emptyList();
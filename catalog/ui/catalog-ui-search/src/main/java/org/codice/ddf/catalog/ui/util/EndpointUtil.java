@@ -193,12 +193,9 @@ public <T> Iterator<T> iterator(Class<T> category) {
 
   public Metacard getMetacardById(String id)
       throws UnsupportedQueryException, SourceUnavailableException, FederationException {
-    Filter idFilter = filterBuilder.attribute(Core.ID).is().equalTo().text(id);
-    Filter tagsFilter = filterBuilder.attribute(Core.METACARD_TAGS).is().like().text("*");
-    Filter filter = filterBuilder.allOf(idFilter, tagsFilter);
-
     QueryResponse queryResponse =
-        catalogFramework.query(new QueryRequestImpl(new QueryImpl(filter), false));
+        catalogFramework.queryByIds(
+            Collections.singleton(id), Collections.emptySet(), filterBuilder, new HashMap<>());
 
     if (queryResponse.getResults().isEmpty()) {
       throw new NotFoundException("Could not find metacard for id: " + id);
@@ -42,6 +42,7 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import javax.ws.rs.NotFoundException;
 import org.codice.ddf.catalog.ui.metacard.workspace.QueryMetacardImpl;
 import org.codice.ddf.catalog.ui.metacard.workspace.WorkspaceConstants;
@@ -125,6 +126,7 @@ private void mockCatalogFrameworkQuery(String id, String subject)
     List<Result> resultList = Collections.singletonList(result);
     when(queryResponse.getResults()).thenReturn(resultList);
     when(catalogFramework.query(any())).thenReturn(queryResponse);
+    when(catalogFramework.queryByIds(any(), any(), any(), any())).thenReturn(queryResponse);
     Filter filter = mock(Filter.class);
     when(workspaceQueryBuilder.createFilter(Collections.singleton(id))).thenReturn(filter);
   }
@@ -172,7 +174,16 @@ public void testGetWorkspaceMetacardsByWorkspaceId()
     List<WorkspaceMetacardImpl> workspaceMetacards =
         workspaceServiceImpl.getWorkspaceMetacards(Collections.singleton(TEST_ID));
 
-    assertMetacardList(TEST_ID, TEST_SUBJECT, workspaceMetacards);
+    ArgumentCaptor<Map> argumentCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(catalogFramework)
+        .queryByIds(
+            eq(Collections.singleton(TEST_ID)),
+            eq(Collections.singleton(WorkspaceConstants.WORKSPACE_TAG)),
+            eq(filterBuilder),
+            argumentCaptor.capture());
+    assertThat(argumentCaptor.getValue().get(SecurityConstants.SECURITY_SUBJECT), is(TEST_SUBJECT));
+    assertThat(workspaceMetacards, hasSize(1));
+    assertThat(workspaceMetacards.get(0).getId(), is(TEST_ID));
   }
 
   @SuppressWarnings("unchecked")
@@ -182,7 +193,8 @@ public void testGetWorkspaceMetacardsByWorkspaceIdWithException()
           PersistenceException {
 
     mockCatalogFrameworkQuery(TEST_ID, TEST_SUBJECT);
-    when(catalogFramework.query(any())).thenThrow(UnsupportedQueryException.class);
+    when(catalogFramework.queryByIds(any(), any(), any(), any()))
+        .thenThrow(UnsupportedQueryException.class);
 
     List<WorkspaceMetacardImpl> workspaceMetacards =
         workspaceServiceImpl.getWorkspaceMetacards(Collections.singleton(TEST_ID));
@@ -0,0 +1,432 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.throughput;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.operation.impl.DeleteRequestImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.UpdateRequestImpl;
+import ddf.catalog.source.IngestException;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.source.solr.SolrCatalogProvider;
+import ddf.catalog.source.solr.SolrFilterDelegateFactoryImpl;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.codice.ddf.test.performance.jmh.MetacardGenerator;
+import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.factory.impl.ConfigurationFileProxy;
+import org.codice.solr.factory.impl.ConfigurationStore;
+import org.codice.solr.factory.impl.EmbeddedSolrFactory;
+import org.codice.solr.factory.impl.HttpSolrClientFactory;
+import org.geotools.filter.text.cql2.CQLException;
+import org.geotools.filter.text.ecql.ECQL;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures end-to-end catalog throughput of a {@link SolrCatalogProvider} backed by an embedded
+ * Solr core, without standing up a distribution.
+ *
+ * <p>A run has three phases. The catalog is first loaded with synthetic metacards from {@link
+ * MetacardGenerator}. The configured mix of ingest, update, delete and CQL query operations is then
+ * run by concurrent clients for a warm-up period, and finally measured for the configured duration.
+ * For each phase and operation the harness reports throughput and latency percentiles. See {@link
+ * HarnessSettings} for the available settings.
+ *
+ * <p>The numbers cover the provider and Solr only; the catalog framework, plugins and endpoints are
+ * not involved.
+ */
+public class CatalogThroughputHarness {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogThroughputHarness.class);
+
+  private static final String CORE = "catalog";
+
+  private static final SortBy SORT_BY = new SortByImpl(Result.TEMPORAL, SortOrder.DESCENDING);
+
+  private static final long AVAILABILITY_TIMEOUT_MINUTES = 5;
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final HarnessSettings settings;
+
+  private final LiveIds liveIds;
+
+  private SolrClient solrClient;
+
+  private SolrCatalogProvider provider;
+
+  CatalogThroughputHarness(HarnessSettings settings) {
+    this.settings = settings;
+    this.liveIds = new LiveIds((int) Math.min(Integer.MAX_VALUE - 8, settings.records * 2));
+  }
+
+  public static void main(String[] args) throws Exception {
+    HarnessSettings settings = new HarnessSettings();
+    LOGGER.info("Starting catalog throughput harness with {}", settings);
+
+    CatalogThroughputHarness harness = new CatalogThroughputHarness(settings);
+    try {
+      harness.start();
+      harness.run(System.out);
+    } finally {
+      harness.stop();
+    }
+  }
+
+  void start() throws InterruptedException, IOException {
+    Files.createDirectories(settings.dataDir);
+
+    ConfigurationStore configStore = new ConfigurationStore();
+    configStore.setDataDirectoryPath(settings.dataDir.toAbsolutePath().toString());
+    configStore.setInMemory(settings.inMemory);
+    ddf.catalog.source.solr.ConfigurationStore.getInstance()
+        .setForceAutoCommit(settings.forceCommit);
+
+    solrClient =
+        new EmbeddedSolrFactory()
+            .newClient(
+                CORE,
+                settings.inMemory
+                    ? EmbeddedSolrFactory.IMMEMORY_SOLRCONFIG_XML
+                    : HttpSolrClientFactory.DEFAULT_SOLRCONFIG_XML,
+                HttpSolrClientFactory.DEFAULT_SCHEMA_XML,
+                configStore,
+                new ConfigurationFileProxy(configStore));
+    if (!solrClient.isAvailable(AVAILABILITY_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+      throw new IllegalStateException("Embedded Solr core " + CORE + " did not become available");
+    }
+
+    provider =
+        new SolrCatalogProvider(
+            solrClient, new GeotoolsFilterAdapterImpl(), new SolrFilterDelegateFactoryImpl());
+  }
+
+  void stop() {
+    if (provider != null) {
+      provider.shutdown();
+    } else if (solrClient != null) {
+      try {
+        solrClient.close();
+      } catch (IOException e) {
+        LOGGER.debug("Failed to close the embedded Solr client", e);
+      }
+    }
+  }
+
+  void run(PrintStream out) throws Exception {
+    Map<Operation, LatencyHistogram> load = histograms();
+    long loadNanos = load(load.get(Operation.LOAD));
+    out.printf("%nLoad: %d metacards%n", settings.records);
+    List<String> rows = report(out, "load", load, loadNanos);
+
+    if (settings.warmupSeconds > 0) {
+      LOGGER.info("Warming up for {} seconds", settings.warmupSeconds);
+      mix(settings.warmupSeconds, histograms());
+    }
+
+    LOGGER.info("Measuring for {} seconds", settings.durationSeconds);
+    Map<Operation, LatencyHistogram> mixed = histograms();
+    long mixedNanos = mix(settings.durationSeconds, mixed);
+    out.printf("%nMix: %s with %d clients%n", settings.mix, settings.threads);
+    rows.addAll(report(out, "mix", mixed, mixedNanos));
+
+    if (settings.report != null) {
+      writeCsv(rows);
+    }
+  }
+
+  /**
+   * Loads the catalog with {@link HarnessSettings#records} metacards using all client threads, and
+   * commits so that the mixed phase queries see every record.
+   *
+   * @return the time the load took, in nanoseconds
+   */
+  private long load(LatencyHistogram histogram)
+      throws InterruptedException, ExecutionException, IOException, SolrServerException {
+    AtomicLong remaining = new AtomicLong(settings.records);
+    AtomicLong loaded = new AtomicLong();
+    long progressStep = Math.max(settings.records / 20, settings.loadBatch);
+
+    long start = System.nanoTime();
+    runClients(
+        client -> {
+          MetacardGenerator generator = new MetacardGenerator(settings.seed + client);
+          int batch;
+          while ((batch = claim(remaining, settings.loadBatch)) > 0) {
+            List<Metacard> metacards = generator.metacards(batch);
+            if (create(metacards, histogram)) {
+              long total = loaded.addAndGet(batch);
+              if (total / progressStep != (total - batch) / progressStep) {
+                LOGGER.info("Loaded {} of {} metacards", total, settings.records);
+              }
+            }
+          }
+        });
+    solrClient.commit();
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Runs the operation mix on all client threads for the given time.
+   *
+   * @return the time the mix ran for, in nanoseconds
+   */
+  private long mix(long seconds, Map<Operation, LatencyHistogram> histograms)
+      throws InterruptedException, ExecutionException {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+    runClients(
+        client -> {
+          long seed = settings.seed * 31 + client + System.nanoTime();
+          Random random = new Random(seed);
+          MetacardGenerator generator = new MetacardGenerator(seed);
+          CqlQueries queries = new CqlQueries(generator, random, liveIds);
+          while (System.nanoTime() < deadline) {
+            Operation operation = settings.mix.next(random);
+            execute(operation, histograms.get(operation), generator, queries, random);
+          }
+        });
+    return System.nanoTime() - start;
+  }
+
+  private void execute(
+      Operation operation,
+      LatencyHistogram histogram,
+      MetacardGenerator generator,
+      CqlQueries queries,
+      Random random) {
+    switch (operation) {
+      case INGEST:
+        create(generator.metacards(settings.writeBatch), histogram);
+        break;
+      case UPDATE:
+        update(liveIds.sample(random, settings.writeBatch), generator, histogram);
+        break;
+      case DELETE:
+        delete(liveIds.take(random, settings.writeBatch), histogram);
+        break;
+      case QUERY:
+        query(queries.next(), histogram);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + operation);
+    }
+  }
+
+  private boolean create(List<Metacard> metacards, LatencyHistogram histogram) {
+    try {
+      long start = System.nanoTime();
+      CreateResponse response = provider.create(new CreateRequestImpl(metacards));
+      histogram.record(System.nanoTime() - start, metacards.size());
+      liveIds.addAll(
+          response
+              .getCreatedMetacards()
+              .stream()
+              .map(Metacard::getId)
+              .collect(Collectors.toList()));
+      return true;
+    } catch (IngestException | RuntimeException e) {
+      histogram.recordError();
+      LOGGER.debug("Failed to create {} metacards", metacards.size(), e);
+      return false;
+    }
+  }
+
+  private void update(List<String> ids, MetacardGenerator generator, LatencyHistogram histogram) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    List<Metacard> metacards = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      Metacard metacard = generator.metacard();
+      metacard.setAttribute(new AttributeImpl(Metacard.ID, id));
+      metacards.add(metacard);
+    }
+    try {
+      long start = System.nanoTime();
+      provider.update(new UpdateRequestImpl(ids.toArray(new String[0]), metacards));
+      histogram.record(System.nanoTime() - start, ids.size());
+    } catch (IngestException | RuntimeException e) {
+      // a concurrent delete may have removed one of the sampled ids
+      histogram.recordError();
+      LOGGER.debug("Failed to update metacards {}", ids, e);
+    }
+  }
+
+  private void delete(List<String> ids, LatencyHistogram histogram) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    try {
+      long start = System.nanoTime();
+      provider.delete(new DeleteRequestImpl(ids.toArray(new String[0])));
+      histogram.record(System.nanoTime() - start, ids.size());
+    } catch (IngestException | RuntimeException e) {
+      histogram.recordError();
+      LOGGER.debug("Failed to delete metacards {}", ids, e);
+    }
+  }
+
+  private void query(String cql, LatencyHistogram histogram) {
+    try {
+      Filter filter = ECQL.toFilter(cql);
+      long start = System.nanoTime();
+      SourceResponse response =
+          provider.query(
+              new QueryRequestImpl(new QueryImpl(filter, 1, settings.pageSize, SORT_BY, true, 0)));
+      histogram.record(System.nanoTime() - start, response.getResults().size());
+    } catch (CQLException | UnsupportedQueryException | RuntimeException e) {
+      histogram.recordError();
+      LOGGER.debug("Failed to run query [{}]", cql, e);
+    }
+  }
+
+  private void runClients(Client client) throws InterruptedException, ExecutionException {
+    ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>(settings.threads);
+      for (int i = 0; i < settings.threads; i++) {
+        int clientNumber = i;
+        futures.add(executor.submit(() -> client.run(clientNumber)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<String> report(
+      PrintStream out, String phase, Map<Operation, LatencyHistogram> histograms, long nanos) {
+    double seconds = nanos / 1e9;
+    List<String> rows = new ArrayList<>();
+    out.printf(
+        "%-8s %10s %12s %8s %10s %12s %9s %9s %9s %9s %9s%n",
+        "op",
+        "count",
+        "metacards",
+        "errors",
+        "ops/s",
+        "metacards/s",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "p99.9 ms",
+        "max ms");
+    for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+      LatencyHistogram histogram = entry.getValue();
+      if (histogram.getCount() == 0 && histogram.getErrors() == 0) {
+        continue;
+      }
+      String operation = entry.getKey().name().toLowerCase(Locale.ROOT);
+      double[] latencies = new double[PERCENTILES.length + 1];
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        latencies[i] = histogram.getPercentileMicros(PERCENTILES[i]) / 1000.0;
+      }
+      latencies[PERCENTILES.length] = histogram.getMaxMicros() / 1000.0;
+
+      out.printf(
+          "%-8s %10d %12d %8d %10.1f %12.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+          operation,
+          histogram.getCount(),
+          histogram.getItems(),
+          histogram.getErrors(),
+          histogram.getCount() / seconds,
+          histogram.getItems() / seconds,
+          latencies[0],
+          latencies[1],
+          latencies[2],
+          latencies[3],
+          latencies[4]);
+      rows.add(
+          String.format(
+              "%s,%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+              phase,
+              operation,
+              histogram.getCount(),
+              histogram.getItems(),
+              histogram.getErrors(),
+              histogram.getCount() / seconds,
+              histogram.getItems() / seconds,
+              latencies[0],
+              latencies[1],
+              latencies[2],
+              latencies[3],
+              latencies[4]));
+    }
+    return rows;
+  }
+
+  private void writeCsv(List<String> rows) throws IOException {
+    try (PrintWriter writer =
+        new PrintWriter(
+            Files.newBufferedWriter(Paths.get(settings.report), StandardCharsets.UTF_8))) {
+      writer.println(
+          "phase,operation,count,metacards,errors,ops_per_second,metacards_per_second,"
+              + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+      rows.forEach(writer::println);
+    }
+    LOGGER.info("Wrote report to {}", settings.report);
+  }
+
+  private static Map<Operation, LatencyHistogram> histograms() {
+    Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, new LatencyHistogram());
+    }
+    return histograms;
+  }
+
+  private static int claim(AtomicLong remaining, int batchSize) {
+    long before = remaining.getAndAdd(-batchSize);
+    return (int) Math.max(0, Math.min(before, batchSize));
+  }
+
+  /** Work done by one client thread; the client number seeds its generators. */
+  @FunctionalInterface
+  private interface Client {
+    void run(int clientNumber);
+  }
+}
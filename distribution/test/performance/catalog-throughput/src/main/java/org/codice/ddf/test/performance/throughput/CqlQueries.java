@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.throughput;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+import org.codice.ddf.test.performance.jmh.MetacardGenerator;
+
+/**
+ * Generates the CQL queries of the mixed phase. The mix resembles catalog UI traffic: mostly
+ * keyword searches, often restricted to an area or a time range, plus id lookups for metacards that
+ * are known to exist.
+ */
+class CqlQueries {
+
+  private final MetacardGenerator generator;
+
+  private final Random random;
+
+  private final LiveIds liveIds;
+
+  CqlQueries(MetacardGenerator generator, Random random, LiveIds liveIds) {
+    this.generator = generator;
+    this.random = random;
+    this.liveIds = liveIds;
+  }
+
+  String next() {
+    int kind = random.nextInt(20);
+    if (kind < 6) {
+      return keyword();
+    } else if (kind < 8) {
+      return String.format("title ILIKE '%s*'", generator.word());
+    } else if (kind < 11) {
+      return spatial();
+    } else if (kind < 13) {
+      return String.format("modified AFTER %s", date());
+    } else if (kind < 17) {
+      return String.format("%s AND %s AND %s", keyword(), spatial(), during());
+    }
+    return id();
+  }
+
+  private String keyword() {
+    return String.format("anyText ILIKE '%s'", generator.word());
+  }
+
+  private String spatial() {
+    return String.format("INTERSECTS(anyGeo, %s)", generator.searchArea());
+  }
+
+  private String during() {
+    Instant start = generator.pastDate().toInstant().truncatedTo(ChronoUnit.SECONDS);
+    Instant end = start.plus(30 + random.nextInt(335), ChronoUnit.DAYS);
+    return String.format("created DURING %s/%s", start, end);
+  }
+
+  private String date() {
+    return generator.pastDate().toInstant().truncatedTo(ChronoUnit.SECONDS).toString();
+  }
+
+  private String id() {
+    List<String> ids = liveIds.sample(random, 1);
+    return ids.isEmpty() ? keyword() : String.format("id = '%s'", ids.get(0));
+  }
+}
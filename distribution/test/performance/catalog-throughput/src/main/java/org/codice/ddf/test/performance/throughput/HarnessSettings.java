@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.throughput;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings of a harness run, read from system properties so that runs can be scripted:
+ *
+ * <ul>
+ *   <li>harness.records: number of metacards loaded before the mixed phase (default 1000000)
+ *   <li>harness.threads: number of concurrent clients (default 8)
+ *   <li>harness.loadBatch: metacards per create request while loading (default 500)
+ *   <li>harness.writeBatch: metacards per create, update or delete request in the mixed phase
+ *       (default 10)
+ *   <li>harness.pageSize: page size of the queries (default 100)
+ *   <li>harness.mix: relative weights of the mixed phase operations (default
+ *       ingest=20,update=20,delete=5,query=55)
+ *   <li>harness.warmup: seconds the mix runs before measuring (default 30)
+ *   <li>harness.duration: seconds the mix is measured for (default 300)
+ *   <li>harness.dataDir: directory of the Solr core (default target/solr)
+ *   <li>harness.inMemory: use the in-memory Solr configuration (default false)
+ *   <li>harness.forceCommit: hard commit after every write, as with the provider's force auto
+ *       commit option (default false)
+ *   <li>harness.seed: seed of the metacard generators (default 3551)
+ *   <li>harness.report: optional CSV file the results are written to
+ * </ul>
+ */
+class HarnessSettings {
+
+  final long records = Long.getLong("harness.records", 1_000_000L);
+
+  final int threads = Integer.getInteger("harness.threads", 8);
+
+  final int loadBatch = Integer.getInteger("harness.loadBatch", 500);
+
+  final int writeBatch = Integer.getInteger("harness.writeBatch", 10);
+
+  final int pageSize = Integer.getInteger("harness.pageSize", 100);
+
+  final OperationMix mix =
+      OperationMix.parse(
+          System.getProperty("harness.mix", "ingest=20,update=20,delete=5,query=55"));
+
+  final long warmupSeconds = Long.getLong("harness.warmup", 30L);
+
+  final long durationSeconds = Long.getLong("harness.duration", 300L);
+
+  final Path dataDir = Paths.get(System.getProperty("harness.dataDir", "target/solr"));
+
+  final boolean inMemory = Boolean.getBoolean("harness.inMemory");
+
+  final boolean forceCommit = Boolean.getBoolean("harness.forceCommit");
+
+  final long seed = Long.getLong("harness.seed", 0x0DDFL);
+
+  final String report = System.getProperty("harness.report");
+
+  @Override
+  public String toString() {
+    return String.format(
+        "records=%d threads=%d loadBatch=%d writeBatch=%d pageSize=%d mix=%s warmup=%ds "
+            + "duration=%ds dataDir=%s inMemory=%b forceCommit=%b seed=%d",
+        records,
+        threads,
+        loadBatch,
+        writeBatch,
+        pageSize,
+        mix,
+        warmupSeconds,
+        durationSeconds,
+        dataDir.toAbsolutePath(),
+        inMemory,
+        forceCommit,
+        seed);
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.throughput;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram with logarithmic buckets. Values below 64 microseconds are recorded
+ * exactly; larger values fall into one of 32 sub-buckets per power of two, so reported percentiles
+ * are within about 3% of the recorded latencies while the histogram stays a fixed, small size no
+ * matter how many operations are recorded.
+ */
+class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+  private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+
+  private static final int BUCKET_COUNT = LINEAR_LIMIT + (Long.SIZE - LINEAR_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong items = new AtomicLong();
+
+  private final AtomicLong errors = new AtomicLong();
+
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records one completed operation.
+   *
+   * @param nanos how long the operation took
+   * @param itemCount how many metacards the operation read or wrote
+   */
+  void record(long nanos, int itemCount) {
+    long micros = Math.max(0, nanos / 1000);
+    buckets.incrementAndGet(indexOf(micros));
+    count.incrementAndGet();
+    items.addAndGet(itemCount);
+    max.accumulateAndGet(micros, Math::max);
+  }
+
+  void recordError() {
+    errors.incrementAndGet();
+  }
+
+  long getCount() {
+    return count.get();
+  }
+
+  long getItems() {
+    return items.get();
+  }
+
+  long getErrors() {
+    return errors.get();
+  }
+
+  long getMaxMicros() {
+    return max.get();
+  }
+
+  /**
+   * Returns the latency, in microseconds, that the given percentage of operations completed within.
+   *
+   * @param percentile a value between 0 and 100
+   * @return the upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+   */
+  long getPercentileMicros(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets.get(i);
+      if (seen >= target) {
+        return Math.min(upperBoundOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  private static int indexOf(long micros) {
+    if (micros < LINEAR_LIMIT) {
+      return (int) micros;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+    return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long upperBoundOf(int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+    int shift = exponent - SUB_BUCKET_BITS;
+    long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
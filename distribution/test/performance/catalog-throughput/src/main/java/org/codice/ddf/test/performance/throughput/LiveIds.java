@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.throughput;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The ids of the metacards currently in the catalog, so that updates, deletes and id queries only
+ * target records that exist. Ids are removed in random order by swapping the chosen id with the
+ * last one, which keeps every operation constant-time.
+ */
+class LiveIds {
+
+  private final List<String> ids;
+
+  LiveIds(int expectedSize) {
+    this.ids = new ArrayList<>(expectedSize);
+  }
+
+  synchronized void addAll(Collection<String> newIds) {
+    ids.addAll(newIds);
+  }
+
+  synchronized int size() {
+    return ids.size();
+  }
+
+  /**
+   * Returns up to {@code count} distinct ids, which stay in the catalog. The ids are consecutive
+   * entries starting at a random position; the generated ids are random, so neighbouring entries
+   * are not related to each other.
+   */
+  synchronized List<String> sample(Random random, int count) {
+    int size = ids.size();
+    int sampleSize = Math.min(count, size);
+    List<String> sample = new ArrayList<>(sampleSize);
+    int start = size > 0 ? random.nextInt(size) : 0;
+    for (int i = 0; i < sampleSize; i++) {
+      sample.add(ids.get((start + i) % size));
+    }
+    return sample;
+  }
+
+  /** Removes and returns up to {@code count} randomly chosen ids. */
+  synchronized List<String> take(Random random, int count) {
+    List<String> taken = new ArrayList<>(Math.min(count, ids.size()));
+    for (int i = 0; i < count && !ids.isEmpty(); i++) {
+      int index = random.nextInt(ids.size());
+      int last = ids.size() - 1;
+      taken.add(ids.get(index));
+      ids.set(index, ids.get(last));
+      ids.remove(last);
+    }
+    return taken;
+  }
+}
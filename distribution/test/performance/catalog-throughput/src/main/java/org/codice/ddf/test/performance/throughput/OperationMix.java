@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.throughput;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted choice between the operations run during the mixed phase, parsed from a specification
+ * such as {@code ingest=20,update=20,delete=5,query=55}. Weights are relative and do not need to
+ * add up to 100.
+ */
+class OperationMix {
+
+  private final Operation[] operations;
+
+  private final int[] cumulativeWeights;
+
+  private final int totalWeight;
+
+  private OperationMix(Map<Operation, Integer> weights) {
+    operations = weights.keySet().toArray(new Operation[0]);
+    cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += weights.get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+    totalWeight = total;
+  }
+
+  /**
+   * @param specification comma-separated {@code operation=weight} pairs
+   * @throws IllegalArgumentException if the specification names an unknown operation, has a
+   *     negative weight, or has no positive weight at all
+   */
+  static OperationMix parse(String specification) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (String entry : specification.split(",")) {
+      String[] parts = entry.trim().split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Invalid operation mix entry: " + entry);
+      }
+      Operation operation = Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+      if (operation == Operation.LOAD) {
+        throw new IllegalArgumentException("The load operation cannot be part of the mix");
+      }
+      int weight = Integer.parseInt(parts[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Invalid weight for " + operation + ": " + weight);
+      }
+      if (weight > 0) {
+        weights.put(operation, weight);
+      }
+    }
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("The operation mix has no operations: " + specification);
+    }
+    return new OperationMix(weights);
+  }
+
+  Operation next(Random random) {
+    int value = random.nextInt(totalWeight);
+    for (int i = 0; i < operations.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    int previous = 0;
+    for (int i = 0; i < operations.length; i++) {
+      builder
+          .append(i == 0 ? "" : ",")
+          .append(operations[i].name().toLowerCase(Locale.ROOT))
+          .append('=')
+          .append(cumulativeWeights[i] - previous);
+      previous = cumulativeWeights[i];
+    }
+    return builder.toString();
+  }
+}
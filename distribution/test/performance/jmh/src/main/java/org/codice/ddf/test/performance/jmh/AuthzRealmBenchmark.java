@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.security.pdp.realm.AuthzRealm;
+import ddf.security.pdp.realm.xacml.processor.PdpException;
+import ddf.security.permission.CollectionPermission;
+import ddf.security.permission.KeyValueCollectionPermission;
+import ddf.security.permission.KeyValuePermission;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.codice.ddf.parser.xml.XmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AuthzRealm#isPermitted} for the per-result security checks done when filtering
+ * query responses. The subject's attributes and the metacard security markings are resolved by the
+ * match-all and match-one mappings, so no XACML policy is evaluated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthzRealmBenchmark {
+
+  private static final int METACARD_COUNT = 1000;
+
+  private AuthzRealm realm;
+
+  private PrincipalCollection principal;
+
+  private List<Permission> permissions;
+
+  private int index;
+
+  @Setup
+  public void setup() throws IOException, PdpException {
+    SimpleAuthorizationInfo authorizationInfo = new SimpleAuthorizationInfo();
+    authorizationInfo.addObjectPermission(
+        new KeyValuePermission("Clearance", Arrays.asList("U", "C", "S")));
+    authorizationInfo.addObjectPermission(
+        new KeyValuePermission("CountryOfAffiliation", Collections.singletonList("USA")));
+    authorizationInfo.addRole("user");
+
+    realm =
+        new AuthzRealm(Files.createTempDirectory("policies").toString(), new XmlParser()) {
+          @Override
+          public AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+            return authorizationInfo;
+          }
+        };
+    realm.setMatchAllMappings(Collections.singletonList("Clearance=classification"));
+    realm.setMatchOneMappings(Collections.singletonList("CountryOfAffiliation=releasability"));
+
+    principal = new SimplePrincipalCollection("user", "benchmark");
+
+    permissions = new ArrayList<>(METACARD_COUNT);
+    for (Metacard metacard : new MetacardGenerator().metacards(METACARD_COUNT)) {
+      Attribute security = metacard.getAttribute(Metacard.SECURITY);
+      @SuppressWarnings("unchecked")
+      Map<String, ? extends Collection<String>> markings =
+          (Map<String, ? extends Collection<String>>) security.getValue();
+      permissions.add(new KeyValueCollectionPermission(CollectionPermission.READ_ACTION, markings));
+    }
+  }
+
+  @Benchmark
+  public boolean isPermitted() {
+    index = (index + 1) % METACARD_COUNT;
+    return realm.isPermitted(principal, permissions.get(index));
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@link DynamicSchemaResolver} conversions done for every metacard written to and
+ * read from Solr.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamicSchemaResolverBenchmark {
+
+  private static final int METACARD_COUNT = 500;
+
+  private DynamicSchemaResolver resolver;
+
+  private List<Metacard> metacards;
+
+  private List<SolrInputDocument> documents;
+
+  private int index;
+
+  @Setup
+  public void setup() throws MetacardCreationException {
+    resolver = new DynamicSchemaResolver();
+    metacards = new MetacardGenerator().metacards(METACARD_COUNT);
+    documents = new ArrayList<>(METACARD_COUNT);
+    for (Metacard metacard : metacards) {
+      SolrInputDocument document = new SolrInputDocument();
+      resolver.addFields(metacard, document);
+      documents.add(document);
+    }
+  }
+
+  @Benchmark
+  public SolrInputDocument addFields() throws MetacardCreationException {
+    index = (index + 1) % METACARD_COUNT;
+    SolrInputDocument document = new SolrInputDocument();
+    resolver.addFields(metacards.get(index), document);
+    return document;
+  }
+
+  /** Converts every stored field of a document back to its attribute name and value. */
+  @Benchmark
+  public void getDocValue(Blackhole blackhole) {
+    index = (index + 1) % METACARD_COUNT;
+    for (SolrInputField field : documents.get(index)) {
+      String name = field.getName();
+      if (resolver.isPrivateField(name)) {
+        continue;
+      }
+      blackhole.consume(resolver.resolveFieldName(name));
+      for (Object value : field.getValues()) {
+        blackhole.consume(resolver.getDocValue(name, value));
+      }
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.security.expansion.impl.AbstractExpansion;
+import ddf.security.expansion.impl.RegexExpansion;
+import ddf.security.expansion.impl.StraightExpansionImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one {@link AbstractExpansion#expand(String, Set)} call, as made for each subject login
+ * and for the security attributes of each result during authorization. The rule set maps roles and
+ * countries the way a typical attribute ruleset does. Values are either drawn from a small pool, as
+ * they are in practice, or made unique on every call to measure expansions that are never seen
+ * twice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpansionBenchmark {
+
+  private static final int RULE_COUNT = 50;
+
+  private static final int VALUE_POOL_SIZE = 64;
+
+  @Param({"regex", "straight"})
+  public String implementation;
+
+  @Param({"true", "false"})
+  public boolean repeatedValues;
+
+  private AbstractExpansion expansion;
+
+  private List<List<String>> valueSets;
+
+  private int index;
+
+  private long unique;
+
+  @Setup
+  public void setup() {
+    boolean regex = "regex".equals(implementation);
+    expansion = regex ? new RegexExpansion() : new StraightExpansionImpl();
+
+    List<String> rules = new ArrayList<>(RULE_COUNT + 2);
+    for (int i = 0; i < RULE_COUNT; i++) {
+      rules.add(
+          regex
+              ? String.format("role:\\Arole-%d\\z:$0 group-%d", i, i % 10)
+              : String.format("role:role-%d:role-%d group-%d", i, i, i % 10));
+    }
+    rules.add(regex ? "role:\\Agroup-0\\z:$0 admin" : "role:group-0:group-0 admin");
+    rules.add(regex ? "role:\\Aadmin\\z:$0 user" : "role:admin:admin user");
+    expansion.setExpansionRules(rules);
+
+    valueSets = new ArrayList<>(VALUE_POOL_SIZE);
+    for (int i = 0; i < VALUE_POOL_SIZE; i++) {
+      valueSets.add(Arrays.asList("role-" + (i % RULE_COUNT), "role-" + ((i * 7) % RULE_COUNT)));
+    }
+  }
+
+  @Benchmark
+  public Set<String> expand() {
+    index = (index + 1) % VALUE_POOL_SIZE;
+    Set<String> values = new HashSet<>(valueSets.get(index));
+    if (!repeatedValues) {
+      values.add("unmapped-" + unique++);
+    }
+    return expansion.expand("role", values);
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.FilterDelegate;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SolrFilterDelegate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.opengis.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link GeotoolsFilterAdapterImpl} visitation of OGC filters, on its own with a trivial
+ * delegate and together with the {@link SolrFilterDelegate} the Solr provider uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterAdapterBenchmark {
+
+  @Param({
+    QueryFixtures.KEYWORD,
+    QueryFixtures.ID,
+    QueryFixtures.SPATIAL_TEMPORAL,
+    QueryFixtures.ID_LIST
+  })
+  public String filterKind;
+
+  private final FilterAdapter filterAdapter = new GeotoolsFilterAdapterImpl();
+
+  private Filter filter;
+
+  private SolrFilterDelegate solrFilterDelegate;
+
+  @Setup
+  public void setup() {
+    filter = QueryFixtures.filter(filterKind, new MetacardGenerator());
+    solrFilterDelegate = new SolrFilterDelegate(new DynamicSchemaResolver());
+  }
+
+  @Benchmark
+  public Integer visit() throws UnsupportedQueryException {
+    return filterAdapter.adapt(filter, new CountingDelegate());
+  }
+
+  @Benchmark
+  public SolrQuery visitIntoSolrQuery() throws UnsupportedQueryException {
+    return filterAdapter.adapt(filter, solrFilterDelegate);
+  }
+
+  /** Counts the filter nodes so that only the cost of visiting the filter tree is measured. */
+  private static class CountingDelegate extends FilterDelegate<Integer> {
+
+    @Override
+    public Integer and(List<Integer> operands) {
+      return operands.stream().mapToInt(Integer::intValue).sum() + 1;
+    }
+
+    @Override
+    public Integer or(List<Integer> operands) {
+      return operands.stream().mapToInt(Integer::intValue).sum() + 1;
+    }
+
+    @Override
+    public Integer not(Integer operand) {
+      return operand + 1;
+    }
+
+    @Override
+    public Integer propertyIsEqualTo(String propertyName, String literal, boolean isCaseSensitive) {
+      return 1;
+    }
+
+    @Override
+    public Integer propertyIsLike(String propertyName, String pattern, boolean isCaseSensitive) {
+      return 1;
+    }
+
+    @Override
+    public Integer intersects(String propertyName, String wkt) {
+      return 1;
+    }
+
+    @Override
+    public Integer during(String propertyName, Date startDate, Date endDate) {
+      return 1;
+    }
+  }
+}
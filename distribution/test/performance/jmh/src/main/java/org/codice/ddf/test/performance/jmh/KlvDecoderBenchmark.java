@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.codice.ddf.libs.klv.KlvContext;
+import org.codice.ddf.libs.klv.KlvDataElement;
+import org.codice.ddf.libs.klv.KlvDecoder;
+import org.codice.ddf.libs.klv.KlvDecodingException;
+import org.codice.ddf.libs.klv.data.Klv.KeyLength;
+import org.codice.ddf.libs.klv.data.Klv.LengthEncoding;
+import org.codice.ddf.libs.klv.data.numerical.KlvInt;
+import org.codice.ddf.libs.klv.data.numerical.KlvLong;
+import org.codice.ddf.libs.klv.data.numerical.KlvShort;
+import org.codice.ddf.libs.klv.data.numerical.KlvUnsignedShort;
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+import org.codice.ddf.libs.klv.data.text.KlvString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures decoding a UAS Datalink Local Set (MISB ST 0601) packet, the KLV metadata carried in
+ * full-motion video streams, once per frame.
+ *
+ * <p>{@code decodeToContext} builds a new {@link KlvContext} of freshly copied data elements per
+ * packet. {@code decodeFlyweight} hands the decoder's reusable data elements to a callback instead.
+ * Run with {@code -prof gc} to compare the bytes allocated per packet ({@code gc.alloc.rate.norm}),
+ * e.g.
+ *
+ * <pre>
+ *   mvn install -Pjmh -Djmh.includes="KlvDecoderBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KlvDecoderBenchmark {
+
+  private static final byte[] UAS_DATALINK_LOCAL_SET_KEY = {
+    0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01, 0x00, 0x00, 0x00
+  };
+
+  private KlvDecoder packetDecoder;
+
+  private KlvDecoder localSetDecoder;
+
+  private byte[] packet;
+
+  private ByteBuffer localSet;
+
+  private Consumer<KlvDataElement> consumer;
+
+  private Blackhole blackhole;
+
+  @Setup
+  public void setUp() {
+    final List<KlvDataElement> dataElements = new ArrayList<>();
+    final ByteArrayOutputStream localSetBytes = new ByteArrayOutputStream();
+
+    addLong(dataElements, localSetBytes, 0x02, "timestamp", 1245257585099653L);
+    addString(dataElements, localSetBytes, 0x03, "mission id", "MISSION01");
+    addString(dataElements, localSetBytes, 0x04, "platform tail number", "AF-101");
+    addUnsignedShort(dataElements, localSetBytes, 0x05, "platform heading angle", 15675);
+    addShort(dataElements, localSetBytes, 0x06, "platform pitch angle", 5504);
+    addShort(dataElements, localSetBytes, 0x07, "platform roll angle", 338);
+    addString(dataElements, localSetBytes, 0x0b, "image source sensor", "EON");
+    addString(dataElements, localSetBytes, 0x0c, "image coordinate system", "Geodetic WGS84");
+    addInt(dataElements, localSetBytes, 0x0d, "sensor latitude", 1304747195);
+    addInt(dataElements, localSetBytes, 0x0e, "sensor longitude", -1314362114);
+    addUnsignedShort(dataElements, localSetBytes, 0x0f, "sensor true altitude", 8010);
+    addUnsignedShort(dataElements, localSetBytes, 0x10, "sensor horizontal fov", 133);
+    addUnsignedShort(dataElements, localSetBytes, 0x11, "sensor vertical fov", 75);
+    addInt(dataElements, localSetBytes, 0x13, "sensor relative elevation angle", -52624680);
+    addInt(dataElements, localSetBytes, 0x17, "frame center latitude", 1306364970);
+    addInt(dataElements, localSetBytes, 0x18, "frame center longitude", -1312907532);
+    addUnsignedShort(dataElements, localSetBytes, 0x19, "frame center elevation", 2949);
+    addInt(dataElements, localSetBytes, 0x1a, "offset corner latitude point 1", 1306364971);
+    addInt(dataElements, localSetBytes, 0x1b, "offset corner longitude point 1", -1312907533);
+    addInt(dataElements, localSetBytes, 0x1c, "offset corner latitude point 2", 1306364972);
+    addInt(dataElements, localSetBytes, 0x1d, "offset corner longitude point 2", -1312907534);
+    addInt(dataElements, localSetBytes, 0x28, "target location latitude", 1306364970);
+    addInt(dataElements, localSetBytes, 0x29, "target location longitude", -1312907532);
+    addUnsignedShort(dataElements, localSetBytes, 0x01, "checksum", 7263);
+
+    final KlvContext localSetContext =
+        new KlvContext(KeyLength.OneByte, LengthEncoding.OneByte, dataElements);
+    final KlvContext packetContext = new KlvContext(KeyLength.SixteenBytes, LengthEncoding.BER);
+    packetContext.addDataElement(
+        new KlvLocalSet(UAS_DATALINK_LOCAL_SET_KEY, "uas datalink local set", localSetContext));
+
+    final byte[] value = localSetBytes.toByteArray();
+    final ByteArrayOutputStream packetBytes = new ByteArrayOutputStream();
+    packetBytes.write(UAS_DATALINK_LOCAL_SET_KEY, 0, UAS_DATALINK_LOCAL_SET_KEY.length);
+    // Long-form BER length: one following byte.
+    packetBytes.write(0x81);
+    packetBytes.write(value.length);
+    packetBytes.write(value, 0, value.length);
+
+    packet = packetBytes.toByteArray();
+    localSet = ByteBuffer.wrap(value);
+    packetDecoder = new KlvDecoder(packetContext);
+    localSetDecoder = new KlvDecoder(localSetContext);
+    // Created once so the callback itself does not count towards the allocations per packet.
+    consumer = dataElement -> blackhole.consume(dataElement.getValue());
+  }
+
+  @Benchmark
+  public KlvContext decodeToContext() throws KlvDecodingException {
+    return packetDecoder.decode(packet);
+  }
+
+  @Benchmark
+  public KlvContext decodeLocalSetToContext() throws KlvDecodingException {
+    return localSetDecoder.decode(localSet);
+  }
+
+  @Benchmark
+  public void decodeFlyweight(Blackhole blackhole) throws KlvDecodingException {
+    this.blackhole = blackhole;
+    localSetDecoder.decode(localSet, consumer);
+  }
+
+  private static void addShort(
+      final List<KlvDataElement> dataElements,
+      final ByteArrayOutputStream bytes,
+      final int key,
+      final String name,
+      final int value) {
+    dataElements.add(new KlvShort(new byte[] {(byte) key}, name));
+    write(bytes, key, value, 2);
+  }
+
+  private static void addUnsignedShort(
+      final List<KlvDataElement> dataElements,
+      final ByteArrayOutputStream bytes,
+      final int key,
+      final String name,
+      final int value) {
+    dataElements.add(new KlvUnsignedShort(new byte[] {(byte) key}, name));
+    write(bytes, key, value, 2);
+  }
+
+  private static void addInt(
+      final List<KlvDataElement> dataElements,
+      final ByteArrayOutputStream bytes,
+      final int key,
+      final String name,
+      final int value) {
+    dataElements.add(new KlvInt(new byte[] {(byte) key}, name));
+    write(bytes, key, value, 4);
+  }
+
+  private static void addLong(
+      final List<KlvDataElement> dataElements,
+      final ByteArrayOutputStream bytes,
+      final int key,
+      final String name,
+      final long value) {
+    dataElements.add(new KlvLong(new byte[] {(byte) key}, name));
+    write(bytes, key, value, 8);
+  }
+
+  private static void addString(
+      final List<KlvDataElement> dataElements,
+      final ByteArrayOutputStream bytes,
+      final int key,
+      final String name,
+      final String value) {
+    dataElements.add(new KlvString(new byte[] {(byte) key}, name));
+    final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+    bytes.write(key);
+    bytes.write(encoded.length);
+    bytes.write(encoded, 0, encoded.length);
+  }
+
+  private static void write(
+      final ByteArrayOutputStream bytes, final int key, final long value, final int length) {
+    bytes.write(key);
+    bytes.write(length);
+    for (int i = length - 1; i >= 0; i--) {
+      bytes.write((int) (value >>> (i * 8)));
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.data.impl.types.AssociationsAttributes;
+import ddf.catalog.data.impl.types.ContactAttributes;
+import ddf.catalog.data.impl.types.CoreAttributes;
+import ddf.catalog.data.impl.types.DateTimeAttributes;
+import ddf.catalog.data.impl.types.LocationAttributes;
+import ddf.catalog.data.impl.types.MediaAttributes;
+import ddf.catalog.data.impl.types.SecurityAttributes;
+import ddf.catalog.data.impl.types.TopicAttributes;
+import ddf.catalog.data.impl.types.ValidationAttributes;
+import ddf.catalog.data.impl.types.VersionAttributes;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Measures the heap cost of a page of {@link MetacardImpl}s built the way the Solr provider builds
+ * query results: one attribute at a time, from freshly read attribute names and values.
+ *
+ * <p>The retained size of a page, excluding the attribute values themselves, is printed once per
+ * trial. The benchmark methods report build time; run them with {@code -prof gc} to also get the
+ * bytes allocated per page ({@code gc.alloc.rate.norm}), e.g.
+ *
+ * <pre>
+ *   mvn install -Pjmh -Djmh.includes="MetacardFootprintBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetacardFootprintBenchmark {
+
+  /**
+   * A type with every core taxonomy attribute, like the default metacard type of a distribution.
+   */
+  private static final MetacardType WIDE_TYPE =
+      new MetacardTypeImpl(
+          "footprint.wide",
+          Arrays.asList(
+              MetacardImpl.BASIC_METACARD,
+              new AssociationsAttributes(),
+              new ContactAttributes(),
+              new CoreAttributes(),
+              new DateTimeAttributes(),
+              new LocationAttributes(),
+              new MediaAttributes(),
+              new SecurityAttributes(),
+              new TopicAttributes(),
+              new ValidationAttributes(),
+              new VersionAttributes()));
+
+  @Param({"basic", "wide"})
+  public String type;
+
+  @Param({"250", "1000"})
+  public int pageSize;
+
+  private MetacardType metacardType;
+
+  /** Attribute names and values of each record, as they would be read from a Solr document. */
+  private List<List<Object[]>> records;
+
+  @Setup
+  public void setup() {
+    metacardType = "wide".equals(type) ? WIDE_TYPE : MetacardImpl.BASIC_METACARD;
+    records = new ArrayList<>(pageSize);
+    for (Metacard metacard : new MetacardGenerator().metacards(pageSize)) {
+      List<Object[]> fields = new ArrayList<>();
+      for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
+        Attribute attribute = metacard.getAttribute(descriptor.getName());
+        if (attribute != null) {
+          fields.add(new Object[] {descriptor.getName(), attribute.getValues()});
+        }
+      }
+      records.add(fields);
+    }
+
+    List<Metacard> page = buildPage();
+    long retained =
+        GraphLayout.parseInstance(page)
+            .subtract(GraphLayout.parseInstance(records, metacardType))
+            .totalSize();
+    System.out.printf(
+        "%n%s metacards: %d bytes retained per metacard, excluding attribute values%n",
+        type, retained / pageSize);
+  }
+
+  @Benchmark
+  public List<Metacard> build() {
+    return buildPage();
+  }
+
+  @Benchmark
+  public void buildAndRead(Blackhole blackhole) {
+    for (Metacard metacard : buildPage()) {
+      blackhole.consume(metacard.getId());
+      blackhole.consume(metacard.getTitle());
+      blackhole.consume(metacard.getLocation());
+      blackhole.consume(metacard.getModifiedDate());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Metacard> buildPage() {
+    List<Metacard> page = new ArrayList<>(records.size());
+    for (List<Object[]> fields : records) {
+      MetacardImpl metacard = new MetacardImpl(metacardType);
+      for (Object[] field : fields) {
+        // copy the name as a Solr document would hold its own instance of every field name
+        metacard.setAttribute(
+            new AttributeImpl(new String((String) field[0]), (List<Serializable>) field[1]));
+      }
+      page.add(metacard);
+    }
+    return page;
+  }
+}
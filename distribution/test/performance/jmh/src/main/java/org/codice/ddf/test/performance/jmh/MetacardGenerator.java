@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates synthetic metacards that resemble a typical catalog: mostly small footprints clustered
+ * around a few regions, text drawn from a fixed vocabulary, XML metadata of a few kilobytes, and
+ * dates spread over several years with recent records being more common. The generator is seeded so
+ * that every benchmark run works on the same data.
+ */
+public class MetacardGenerator {
+
+  private static final long DEFAULT_SEED = 0x0DDF;
+
+  private static final long FIVE_YEARS_MILLIS = TimeUnit.DAYS.toMillis(5 * 365);
+
+  private static final String[] WORDS = {
+    "airfield",
+    "bridge",
+    "harbor",
+    "convoy",
+    "flood",
+    "imagery",
+    "report",
+    "sensor",
+    "vessel",
+    "border",
+    "railway",
+    "pipeline",
+    "storm",
+    "survey",
+    "coastal",
+    "mountain",
+    "desert",
+    "urban",
+    "exercise",
+    "patrol",
+    "logistics",
+    "weather",
+    "satellite",
+    "terrain",
+    "river",
+    "crossing",
+    "damage",
+    "assessment",
+    "route",
+    "activity",
+    "facility",
+    "runway",
+    "depot",
+    "signal",
+    "north",
+    "south",
+    "east",
+    "west",
+    "summary",
+    "daily",
+    "weekly",
+    "analysis",
+    "observation",
+    "track"
+  };
+
+  private static final String[] CONTENT_TYPES = {
+    "image/nitf", "video/mp2t", "application/pdf", "text/xml", "image/jpeg", "application/json"
+  };
+
+  private static final String[] CLASSIFICATIONS = {"U", "C", "S"};
+
+  private static final String[] COUNTRIES = {"USA", "CAN", "GBR", "AUS", "NZL"};
+
+  /** Centers of the regions most of the generated footprints cluster around, as lon/lat pairs. */
+  private static final double[][] HOT_SPOTS = {
+    {-77.0, 38.9}, {-0.1, 51.5}, {151.2, -33.9}, {44.4, 33.3}, {126.9, 37.5}, {-122.4, 37.8}
+  };
+
+  private final Random random;
+
+  private final long now = System.currentTimeMillis();
+
+  public MetacardGenerator() {
+    this(DEFAULT_SEED);
+  }
+
+  public MetacardGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  public List<Metacard> metacards(int count) {
+    List<Metacard> metacards = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      metacards.add(metacard());
+    }
+    return metacards;
+  }
+
+  public List<Result> results(int count) {
+    List<Result> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ResultImpl result = new ResultImpl(metacard());
+      result.setRelevanceScore(random.nextDouble());
+      result.setDistanceInMeters(random.nextDouble() * 100_000);
+      results.add(result);
+    }
+    return results;
+  }
+
+  public Metacard metacard() {
+    MetacardImpl metacard = new MetacardImpl();
+    String id = new UUID(random.nextLong(), random.nextLong()).toString().replace("-", "");
+    String title = sentence(3 + random.nextInt(6));
+
+    metacard.setId(id);
+    metacard.setSourceId("ddf.distribution");
+    metacard.setTitle(title);
+    metacard.setDescription(sentence(20 + random.nextInt(40)));
+    metacard.setContentTypeName(CONTENT_TYPES[random.nextInt(CONTENT_TYPES.length)]);
+    metacard.setContentTypeVersion("1.0");
+    metacard.setPointOfContact(word() + "@example.com");
+    metacard.setLocation(wkt());
+    metacard.setTags(Collections.singleton("resource"));
+    metacard.setResourceURI(URI.create("content:" + id));
+    metacard.setResourceSize(String.valueOf(1024 + random.nextInt(50 * 1024 * 1024)));
+
+    Date created = pastDate();
+    metacard.setCreatedDate(created);
+    metacard.setEffectiveDate(created);
+    metacard.setModifiedDate(new Date(created.getTime() + random.nextInt(86_400_000)));
+    if (random.nextInt(4) == 0) {
+      metacard.setExpirationDate(new Date(now + TimeUnit.DAYS.toMillis(1 + random.nextInt(365))));
+    }
+    if (random.nextInt(10) == 0) {
+      byte[] thumbnail = new byte[2048 + random.nextInt(8192)];
+      random.nextBytes(thumbnail);
+      metacard.setThumbnail(thumbnail);
+    }
+
+    HashMap<String, List<String>> security = new HashMap<>();
+    security.put("classification", Collections.singletonList(pick(CLASSIFICATIONS)));
+    security.put("releasability", countries());
+    metacard.setSecurity(security);
+
+    metacard.setMetadata(metadata(id, title));
+    return metacard;
+  }
+
+  /**
+   * Returns a footprint in WKT. Most records are small polygons or points around one of the hot
+   * spots; a few are long tracks or large, world-spanning footprints.
+   */
+  public String wkt() {
+    double[] center = HOT_SPOTS[random.nextInt(HOT_SPOTS.length)];
+    double lon = clamp(center[0] + random.nextGaussian() * 5, -179, 179);
+    double lat = clamp(center[1] + random.nextGaussian() * 5, -89, 89);
+
+    int kind = random.nextInt(10);
+    if (kind < 4) {
+      return String.format(Locale.US, "POINT (%.5f %.5f)", lon, lat);
+    } else if (kind < 8) {
+      double size = 0.01 + random.nextDouble() * 0.5;
+      return box(lon, lat, size);
+    } else if (kind < 9) {
+      StringBuilder track = new StringBuilder("LINESTRING (");
+      int points = 10 + random.nextInt(90);
+      for (int i = 0; i < points; i++) {
+        lon = clamp(lon + random.nextGaussian() * 0.05, -179, 179);
+        lat = clamp(lat + random.nextGaussian() * 0.05, -89, 89);
+        track.append(i == 0 ? "" : ", ").append(String.format(Locale.US, "%.5f %.5f", lon, lat));
+      }
+      return track.append(')').toString();
+    }
+    return box(clamp(lon, -160, 160), clamp(lat, -70, 70), 5 + random.nextDouble() * 15);
+  }
+
+  /** Returns a rectangular search area in WKT over one of the hot spots, as a user would draw. */
+  public String searchArea() {
+    double[] center = HOT_SPOTS[random.nextInt(HOT_SPOTS.length)];
+    return box(center[0], center[1], 1 + random.nextDouble() * 10);
+  }
+
+  public String word() {
+    return pick(WORDS);
+  }
+
+  public String sentence(int words) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      builder.append(i == 0 ? "" : " ").append(word());
+    }
+    return builder.toString();
+  }
+
+  /** Returns a date in the last five years, skewed towards the present. */
+  public Date pastDate() {
+    double skew = random.nextDouble();
+    return new Date(now - (long) (skew * skew * FIVE_YEARS_MILLIS));
+  }
+
+  private String metadata(String id, String title) {
+    StringBuilder xml = new StringBuilder(4096);
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+        .append("<metadata xmlns=\"urn:example:metadata\" id=\"")
+        .append(id)
+        .append("\"><title>")
+        .append(title)
+        .append("</title><keywords>");
+    int keywords = 3 + random.nextInt(8);
+    for (int i = 0; i < keywords; i++) {
+      xml.append("<keyword>").append(word()).append("</keyword>");
+    }
+    xml.append("</keywords><abstract>")
+        .append(sentence(50 + random.nextInt(250)))
+        .append("</abstract><security classification=\"")
+        .append(pick(CLASSIFICATIONS))
+        .append("\" releasableTo=\"")
+        .append(String.join(" ", countries()))
+        .append("\"/></metadata>");
+    return xml.toString();
+  }
+
+  private List<String> countries() {
+    Set<String> countries = new HashSet<>();
+    int count = 1 + random.nextInt(COUNTRIES.length);
+    for (int i = 0; i < count; i++) {
+      countries.add(pick(COUNTRIES));
+    }
+    return new ArrayList<>(countries);
+  }
+
+  private String box(double lon, double lat, double size) {
+    double minX = clamp(lon - size / 2, -180, 180);
+    double maxX = clamp(lon + size / 2, -180, 180);
+    double minY = clamp(lat - size / 2, -90, 90);
+    double maxY = clamp(lat + size / 2, -90, 90);
+    return String.format(
+        Locale.US,
+        "POLYGON ((%.5f %.5f, %.5f %.5f, %.5f %.5f, %.5f %.5f, %.5f %.5f))",
+        minX,
+        minY,
+        maxX,
+        minY,
+        maxX,
+        maxY,
+        minX,
+        maxY,
+        minX,
+        minY);
+  }
+
+  private String pick(String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static double clamp(double value, double min, double max) {
+    return Math.max(min, Math.min(max, value));
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures attribute access on {@link MetacardImpl}, the most common catalog data structure. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetacardImplBenchmark {
+
+  private static final int METACARD_COUNT = 1000;
+
+  private List<Metacard> metacards;
+
+  private int index;
+
+  @Setup
+  public void setup() {
+    metacards = new MetacardGenerator().metacards(METACARD_COUNT);
+  }
+
+  private Metacard next() {
+    index = (index + 1) % METACARD_COUNT;
+    return metacards.get(index);
+  }
+
+  @Benchmark
+  public Object getAttributeByName() {
+    return next().getAttribute(Metacard.TITLE);
+  }
+
+  @Benchmark
+  public void getCommonProperties(Blackhole blackhole) {
+    Metacard metacard = next();
+    blackhole.consume(metacard.getId());
+    blackhole.consume(metacard.getTitle());
+    blackhole.consume(metacard.getLocation());
+    blackhole.consume(metacard.getCreatedDate());
+    blackhole.consume(metacard.getModifiedDate());
+    blackhole.consume(metacard.getMetadata());
+  }
+
+  @Benchmark
+  public void getAllDescribedAttributes(Blackhole blackhole) {
+    Metacard metacard = next();
+    for (AttributeDescriptor descriptor : metacard.getMetacardType().getAttributeDescriptors()) {
+      blackhole.consume(metacard.getAttribute(descriptor.getName()));
+    }
+  }
+
+  @Benchmark
+  public Metacard setAttribute() {
+    Metacard metacard = next();
+    metacard.setAttribute(new AttributeImpl(Metacard.POINT_OF_CONTACT, "poc@example.com"));
+    return metacard;
+  }
+
+  @Benchmark
+  public Metacard copy() {
+    return new MetacardImpl(next());
+  }
+}
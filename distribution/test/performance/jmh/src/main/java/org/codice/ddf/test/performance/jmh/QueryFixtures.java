@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.opengis.filter.Filter;
+
+/**
+ * Filters shaped like the ones the search UI, workspaces and saved searches send to the catalog.
+ */
+class QueryFixtures {
+
+  static final String KEYWORD = "keyword";
+
+  static final String ID = "id";
+
+  static final String SPATIAL_TEMPORAL = "spatialTemporal";
+
+  static final String ID_LIST = "idList";
+
+  private static final int ID_LIST_SIZE = 50;
+
+  private static final FilterBuilder FILTER_BUILDER = new GeotoolsFilterBuilder();
+
+  private QueryFixtures() {}
+
+  static Filter filter(String kind, MetacardGenerator generator) {
+    switch (kind) {
+      case KEYWORD:
+        return FILTER_BUILDER.attribute(Metacard.ANY_TEXT).is().like().text(generator.word());
+      case ID:
+        return FILTER_BUILDER.attribute(Core.ID).is().equalTo().text(generator.metacard().getId());
+      case SPATIAL_TEMPORAL:
+        Date start = generator.pastDate();
+        return FILTER_BUILDER.allOf(
+            FILTER_BUILDER.attribute(Metacard.ANY_TEXT).is().like().text(generator.word()),
+            FILTER_BUILDER.attribute(Metacard.ANY_GEO).is().intersecting().wkt(generator.wkt()),
+            FILTER_BUILDER
+                .attribute(Core.MODIFIED)
+                .is()
+                .during()
+                .dates(start, new Date(start.getTime() + 86_400_000L * 30)),
+            FILTER_BUILDER.attribute(Core.METACARD_TAGS).is().like().text("resource"));
+      case ID_LIST:
+        List<Filter> ids = new ArrayList<>(ID_LIST_SIZE);
+        for (Metacard metacard : generator.metacards(ID_LIST_SIZE)) {
+          ids.add(FILTER_BUILDER.attribute(Core.ID).is().equalTo().text(metacard.getId()));
+        }
+        return FILTER_BUILDER.anyOf(ids);
+      default:
+        throw new IllegalArgumentException("Unknown filter kind: " + kind);
+    }
+  }
+}
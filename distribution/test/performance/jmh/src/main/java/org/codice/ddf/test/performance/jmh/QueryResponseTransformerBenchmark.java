@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
+import ddf.catalog.transformer.queryresponse.geojson.GeoJsonQueryResponseTransformer;
+import ddf.catalog.transformer.xml.MetacardMarshallerImpl;
+import ddf.catalog.transformer.xml.PrintWriterProviderImpl;
+import ddf.catalog.transformer.xml.XmlResponseQueueTransformer;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.activation.MimeType;
+import javax.activation.MimeTypeParseException;
+import org.codice.ddf.parser.Parser;
+import org.codice.ddf.parser.xml.XmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing a page of query results with the XML and GeoJSON query response transformers.
+ * The content is fully read so lazily produced output is included in the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryResponseTransformerBenchmark {
+
+  @Param({"10", "250", "1000"})
+  public int pageSize;
+
+  private SourceResponse response;
+
+  private XmlResponseQueueTransformer xmlTransformer;
+
+  private GeoJsonQueryResponseTransformer geoJsonTransformer;
+
+  @Setup
+  public void setup() throws MimeTypeParseException {
+    response =
+        new SourceResponseImpl(
+            null, new MetacardGenerator().results(pageSize), (long) pageSize * 10);
+
+    Parser parser = new XmlParser();
+    PrintWriterProviderImpl printWriterProvider = new PrintWriterProviderImpl();
+    xmlTransformer =
+        new XmlResponseQueueTransformer(
+            parser,
+            printWriterProvider,
+            new MetacardMarshallerImpl(parser, printWriterProvider),
+            new MimeType("text/xml"));
+
+    geoJsonTransformer = new GeoJsonQueryResponseTransformer(new GeoJsonMetacardTransformer());
+  }
+
+  @Benchmark
+  public byte[] xml() throws CatalogTransformerException, IOException {
+    return read(xmlTransformer.transform(response, Collections.emptyMap()));
+  }
+
+  @Benchmark
+  public byte[] geoJson() throws CatalogTransformerException, IOException {
+    return read(geoJsonTransformer.transform(response, Collections.emptyMap()));
+  }
+
+  private byte[] read(BinaryContent content) throws IOException {
+    return content.getByteArray();
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SolrFilterDelegate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building Solr queries with {@link SolrFilterDelegate}, without the cost of visiting an
+ * OGC filter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolrFilterDelegateBenchmark {
+
+  private SolrFilterDelegate delegate;
+
+  private String keyword;
+
+  private String id;
+
+  private String wkt;
+
+  private Date start;
+
+  private Date end;
+
+  @Setup
+  public void setup() {
+    MetacardGenerator generator = new MetacardGenerator();
+    delegate = new SolrFilterDelegate(new DynamicSchemaResolver());
+    keyword = generator.word();
+    id = generator.metacard().getId();
+    wkt = generator.wkt();
+    start = generator.pastDate();
+    end = new Date(start.getTime() + TimeUnit.DAYS.toMillis(30));
+  }
+
+  @Benchmark
+  public SolrQuery keyword() {
+    return delegate.propertyIsLike(Metacard.ANY_TEXT, keyword, false);
+  }
+
+  @Benchmark
+  public SolrQuery idEquality() {
+    return delegate.propertyIsEqualTo(Core.ID, id, true);
+  }
+
+  @Benchmark
+  public SolrQuery intersects() {
+    return delegate.intersects(Metacard.ANY_GEO, wkt);
+  }
+
+  @Benchmark
+  public SolrQuery during() {
+    return delegate.during(Core.MODIFIED, start, end);
+  }
+
+  @Benchmark
+  public SolrQuery spatialTemporalKeyword() {
+    return delegate.and(
+        Arrays.asList(
+            delegate.propertyIsLike(Metacard.ANY_TEXT, keyword, false),
+            delegate.intersects(Metacard.ANY_GEO, wkt),
+            delegate.during(Core.MODIFIED, start, end),
+            delegate.propertyIsLike(Core.METACARD_TAGS, "resource", false)));
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.ContentType;
+import ddf.catalog.data.Result;
+import ddf.catalog.federation.impl.SortedFederationStrategy;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.source.Source;
+import ddf.catalog.source.SourceMonitor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.opengis.filter.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SortedFederationStrategy} merging and sorting the responses of several in-memory
+ * sources into one page of results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SortedFederationStrategyBenchmark {
+
+  @Param({"1", "5", "20"})
+  public int sourceCount;
+
+  @Param({"100", "1000"})
+  public int pageSize;
+
+  @Param({Result.TEMPORAL, Result.RELEVANCE})
+  public String sortProperty;
+
+  private ExecutorService executor;
+
+  private SortedFederationStrategy strategy;
+
+  private List<Source> sources;
+
+  private QueryRequest request;
+
+  @Setup
+  public void setup() {
+    executor = Executors.newFixedThreadPool(sourceCount + 2);
+    strategy =
+        new SortedFederationStrategy(executor, Collections.emptyList(), Collections.emptyList());
+
+    MetacardGenerator generator = new MetacardGenerator();
+    sources = new ArrayList<>(sourceCount);
+    for (int i = 0; i < sourceCount; i++) {
+      sources.add(new InMemorySource("source" + i, generator.results(pageSize)));
+    }
+
+    request =
+        new QueryRequestImpl(
+            new QueryImpl(
+                new GeotoolsFilterBuilder().attribute("anyText").is().like().text("*"),
+                1,
+                pageSize,
+                new SortByImpl(sortProperty, SortOrder.DESCENDING),
+                true,
+                TimeUnit.MINUTES.toMillis(1)));
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public List<Result> federate() {
+    return strategy.federate(sources, request).getResults();
+  }
+
+  /** Source that answers every query with the same pre-generated results. */
+  private static class InMemorySource implements Source {
+
+    private final String id;
+
+    private final List<Result> results;
+
+    InMemorySource(String id, List<Result> results) {
+      this.id = id;
+      this.results = results;
+    }
+
+    @Override
+    public SourceResponse query(QueryRequest queryRequest) {
+      return new SourceResponseImpl(queryRequest, new ArrayList<>(results), (long) results.size());
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public boolean isAvailable(SourceMonitor callback) {
+      return true;
+    }
+
+    @Override
+    public Set<ContentType> getContentTypes() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public String getVersion() {
+      return "1.0";
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @Override
+    public String getTitle() {
+      return id;
+    }
+
+    @Override
+    public String getDescription() {
+      return id;
+    }
+
+    @Override
+    public String getOrganization() {
+      return "Codice";
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.test.performance.jmh;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.services.xsltlistener.XsltMetacardTransformer;
+import ddf.catalog.transform.CatalogTransformerException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.TransformerConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Measures the per-metacard cost of {@link XsltMetacardTransformer}, which the XSLT based query
+ * response transformers run for every result. Runs with several threads so contention on the pooled
+ * transformers is part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class XsltMetacardTransformerBenchmark {
+
+  private static final int METACARD_COUNT = 500;
+
+  private BenchmarkXsltMetacardTransformer transformer;
+
+  private List<Metacard> metacards;
+
+  @Setup
+  public void setup() throws IOException, TransformerConfigurationException {
+    metacards = new MetacardGenerator().metacards(METACARD_COUNT);
+    transformer = new BenchmarkXsltMetacardTransformer();
+    try (InputStream xsl = getClass().getResourceAsStream("/xslt/metacard-html.xsl")) {
+      transformer.init("text/html", xsl);
+    }
+  }
+
+  @Benchmark
+  public byte[] transform(ThreadIndex threadIndex) throws CatalogTransformerException, IOException {
+    Metacard metacard = metacards.get(threadIndex.next());
+    return transformer.transform(metacard, Collections.emptyMap()).getByteArray();
+  }
+
+  /** Per thread position in the generated metacards. */
+  @State(Scope.Thread)
+  public static class ThreadIndex {
+
+    private int index;
+
+    int next() {
+      index = (index + 1) % METACARD_COUNT;
+      return index;
+    }
+  }
+
+  /**
+   * {@link XsltMetacardTransformer} outside of OSGi. Looking up the other registered metacard
+   * transformers finds none.
+   */
+  private static class BenchmarkXsltMetacardTransformer extends XsltMetacardTransformer {
+
+    BenchmarkXsltMetacardTransformer() {
+      context =
+          (BundleContext)
+              Proxy.newProxyInstance(
+                  BundleContext.class.getClassLoader(),
+                  new Class<?>[] {BundleContext.class},
+                  (proxy, method, args) -> null);
+    }
+  }
+}
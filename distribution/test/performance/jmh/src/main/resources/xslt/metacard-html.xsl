@@ -0,0 +1,54 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<!--
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+-->
+<xsl:stylesheet version="2.0"
+                xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+                xmlns:md="urn:example:metadata"
+                exclude-result-prefixes="md">
+
+    <xsl:output method="html" indent="no"/>
+
+    <xsl:param name="id"/>
+    <xsl:param name="title"/>
+    <xsl:param name="siteName"/>
+    <xsl:param name="date"/>
+    <xsl:param name="geometry"/>
+
+    <xsl:template match="/">
+        <html>
+            <head>
+                <title><xsl:value-of select="$title"/></title>
+            </head>
+            <body>
+                <h1><xsl:value-of select="$title"/></h1>
+                <table>
+                    <tr><td>Id</td><td><xsl:value-of select="$id"/></td></tr>
+                    <tr><td>Source</td><td><xsl:value-of select="$siteName"/></td></tr>
+                    <tr><td>Created</td><td><xsl:value-of select="$date"/></td></tr>
+                    <tr><td>Location</td><td><xsl:value-of select="$geometry"/></td></tr>
+                    <tr>
+                        <td>Classification</td>
+                        <td><xsl:value-of select="md:metadata/md:security/@classification"/></td>
+                    </tr>
+                </table>
+                <ul>
+                    <xsl:for-each select="md:metadata/md:keywords/md:keyword">
+                        <li><xsl:value-of select="."/></li>
+                    </xsl:for-each>
+                </ul>
+                <p><xsl:value-of select="md:metadata/md:abstract"/></p>
+            </body>
+        </html>
+    </xsl:template>
+</xsl:stylesheet>
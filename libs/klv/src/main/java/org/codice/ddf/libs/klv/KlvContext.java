@@ -45,6 +45,8 @@ public class KlvContext {
 
   private final Map<String, KlvDataElement> keyToDataElementMap;
 
+  private volatile KlvKeyIndex keyIndex;
+
   /**
    * Constructs a {@code KlvContext} containing the properties of a specific KLV-encoded data set.
    *
@@ -95,6 +97,7 @@ public void addDataElement(final KlvDataElement dataElement) {
     Preconditions.checkArgument(dataElement != null, "The data element cannot be null.");
     nameToDataElementMap.put(dataElement.getName(), dataElement);
     keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
+    keyIndex = null;
   }
 
   /**
@@ -111,6 +114,7 @@ public void addDataElements(final Collection<? extends KlvDataElement> dataEleme
           nameToDataElementMap.put(dataElement.getName(), dataElement);
           keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
         });
+    keyIndex = null;
   }
 
   public KeyLength getKeyLength() {
@@ -157,4 +161,18 @@ public KlvDataElement getDataElementByName(final String name) {
   Map<String, KlvDataElement> getKeyToDataElementMap() {
     return keyToDataElementMap;
   }
+
+  /**
+   * Returns an index of this context's data elements by key. It is built on first use and rebuilt
+   * after data elements are added, so a context that is set up once and then used to decode many
+   * KLV packets only pays for it once.
+   */
+  KlvKeyIndex getKeyIndex() {
+    KlvKeyIndex index = keyIndex;
+    if (index == null) {
+      index = new KlvKeyIndex(keyLength.value(), keyToDataElementMap.values());
+      keyIndex = index;
+    }
+    return index;
+  }
 }
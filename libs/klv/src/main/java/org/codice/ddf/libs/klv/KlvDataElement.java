@@ -24,6 +24,10 @@
 
   protected final String key;
 
+  private final long keyMostSignificantBits;
+
+  private final long keyLeastSignificantBits;
+
   protected final String name;
 
   protected T value;
@@ -43,6 +47,19 @@ public KlvDataElement(final byte[] key, final String name) {
     keyBytes = Arrays.copyOf(key, key.length);
     this.key = DatatypeConverter.printHexBinary(key);
     this.name = name;
+
+    // Split the key the same way Klv does so lookups can compare two longs instead of strings.
+    final int leastSignificantStart = Math.max(0, key.length - 8);
+    keyMostSignificantBits = toLong(key, 0, leastSignificantStart);
+    keyLeastSignificantBits = toLong(key, leastSignificantStart, key.length);
+  }
+
+  private static long toLong(final byte[] bytes, final int from, final int to) {
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      value = (value << 8) | (bytes[i] & 0xFF);
+    }
+    return value;
   }
 
   public final byte[] getKey() {
@@ -53,6 +70,18 @@ protected final String getKeyAsString() {
     return key;
   }
 
+  final int getKeyLength() {
+    return keyBytes.length;
+  }
+
+  final long getKeyMostSignificantBits() {
+    return keyMostSignificantBits;
+  }
+
+  final long getKeyLeastSignificantBits() {
+    return keyLeastSignificantBits;
+  }
+
   public final String getName() {
     return name;
   }
@@ -14,15 +14,20 @@
 package org.codice.ddf.libs.klv;
 
 import com.google.common.base.Preconditions;
-import java.util.List;
-import java.util.Map;
-import javax.xml.bind.DatatypeConverter;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
 import org.codice.ddf.libs.klv.data.Klv;
 
 /** Decodes bytes that contain KLV-encoded data. */
 public class KlvDecoder {
   private final KlvContext klvContext;
 
+  /** The index the {@link #flyweights} were created for. */
+  private KlvKeyIndex flyweightIndex;
+
+  /** Reusable copies of the data elements, by {@link KlvKeyIndex} slot. */
+  private KlvDataElement[] flyweights;
+
   /**
    * Creates a {@code KlvDecoder} with the given {@link KlvContext}.
    *
@@ -51,17 +56,93 @@ public KlvDecoder(final KlvContext klvContext) {
    */
   public KlvContext decode(final byte[] klvBytes) throws KlvDecodingException {
     Preconditions.checkArgument(klvBytes != null, "The array of bytes to decode cannot be null.");
+    return decode(ByteBuffer.wrap(klvBytes));
+  }
+
+  /**
+   * Decodes the KLV data between the position and the limit of {@code klvBuffer} in the same way as
+   * {@link #decode(byte[])}. The bytes are read in place; the buffer's position is not changed.
+   *
+   * @param klvBuffer buffer holding data in KLV format
+   * @return a new {@code KlvContext} containing the decoded KLV data elements
+   * @throws IllegalArgumentException if {@code klvBuffer} is null
+   * @throws KlvDecodingException if the KLV cannot be decoded using the given context information
+   */
+  public KlvContext decode(final ByteBuffer klvBuffer) throws KlvDecodingException {
+    Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
+
+    final KlvContext decodedContext =
+        new KlvContext(klvContext.getKeyLength(), klvContext.getLengthEncoding());
+    final KlvKeyIndex keyIndex = klvContext.getKeyIndex();
+    final ByteBuffer buffer = klvBuffer.duplicate();
+    final Klv klv = Klv.reusable();
+
+    while (buffer.hasRemaining()) {
+      final int slot = readNext(buffer, klv, keyIndex);
+
+      if (slot >= 0) {
+        final KlvDataElement dataElementCopy = keyIndex.get(slot).copy();
+        dataElementCopy.decodeValue(klv);
+        decodedContext.addDataElement(dataElementCopy);
+      }
+    }
 
-    List<Klv> klvDataElements;
+    return decodedContext;
+  }
 
+  /**
+   * Decodes the KLV data between the position and the limit of {@code klvBuffer}, handing each
+   * decoded {@link KlvDataElement} to {@code consumer} in the order it appears in the buffer.
+   *
+   * <p>Unlike {@link #decode(ByteBuffer)}, this does not allocate a data element or a {@code
+   * KlvContext} per call. Each data element in the {@code KlvContext} has one copy owned by this
+   * decoder, which is overwritten every time its key is decoded. The element passed to {@code
+   * consumer} is therefore only valid until the consumer returns, and a decoder used this way must
+   * not be shared between threads.
+   *
+   * @param klvBuffer buffer holding data in KLV format; its position is not changed
+   * @param consumer receives each decoded data element
+   * @throws IllegalArgumentException if any of the arguments are null
+   * @throws KlvDecodingException if the KLV cannot be decoded using the given context information
+   */
+  public void decode(final ByteBuffer klvBuffer, final Consumer<KlvDataElement> consumer)
+      throws KlvDecodingException {
+    Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
+    Preconditions.checkArgument(consumer != null, "The consumer cannot be null.");
+
+    final KlvKeyIndex keyIndex = klvContext.getKeyIndex();
+    if (keyIndex != flyweightIndex) {
+      flyweights = new KlvDataElement[keyIndex.capacity()];
+      flyweightIndex = keyIndex;
+    }
+
+    final ByteBuffer buffer = klvBuffer.duplicate();
+    final Klv klv = Klv.reusable();
+
+    while (buffer.hasRemaining()) {
+      final int slot = readNext(buffer, klv, keyIndex);
+
+      if (slot >= 0) {
+        KlvDataElement flyweight = flyweights[slot];
+        if (flyweight == null) {
+          flyweight = keyIndex.get(slot).copy();
+          flyweights[slot] = flyweight;
+        }
+        flyweight.decodeValue(klv);
+        consumer.accept(flyweight);
+      }
+    }
+  }
+
+  /**
+   * Reads the next KLV set from {@code buffer} into {@code klv}.
+   *
+   * @return the key index slot of the matching data element, or -1 if the key is not in the context
+   */
+  private int readNext(final ByteBuffer buffer, final Klv klv, final KlvKeyIndex keyIndex)
+      throws KlvDecodingException {
     try {
-      klvDataElements =
-          Klv.bytesToList(
-              klvBytes,
-              0,
-              klvBytes.length,
-              klvContext.getKeyLength(),
-              klvContext.getLengthEncoding());
+      klv.read(buffer, klvContext.getKeyLength(), klvContext.getLengthEncoding());
     } catch (RuntimeException e) {
       throw new KlvDecodingException(
           String.format(
@@ -70,21 +151,6 @@ public KlvContext decode(final byte[] klvBytes) throws KlvDecodingException {
           e);
     }
 
-    final KlvContext decodedContext =
-        new KlvContext(klvContext.getKeyLength(), klvContext.getLengthEncoding());
-    final Map<String, KlvDataElement> keyToDataElementMap = klvContext.getKeyToDataElementMap();
-
-    klvDataElements.forEach(
-        klv -> {
-          final String key = DatatypeConverter.printHexBinary(klv.getFullKey());
-
-          if (keyToDataElementMap.containsKey(key)) {
-            final KlvDataElement dataElementCopy = keyToDataElementMap.get(key).copy();
-            dataElementCopy.decodeValue(klv);
-            decodedContext.addDataElement(dataElementCopy);
-          }
-        });
-
-    return decodedContext;
+    return keyIndex.indexOf(klv.getKeyMostSignificantBits(), klv.getKeyLeastSignificantBits());
   }
 }
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import java.util.Collection;
+
+/**
+ * An open-addressed table from KLV keys to the {@link KlvDataElement}s of a {@link KlvContext}.
+ * Keys are compared as the two longs that {@link org.codice.ddf.libs.klv.data.Klv} splits them
+ * into, so a lookup neither copies the key nor builds a hex string from it.
+ */
+final class KlvKeyIndex {
+  private final long[] mostSignificantBits;
+
+  private final long[] leastSignificantBits;
+
+  private final KlvDataElement[] dataElements;
+
+  private final int mask;
+
+  /**
+   * @param keyLength the key length of the context; data elements with keys of any other length can
+   *     never match and are left out
+   * @param candidates the data elements to index, with unique keys
+   */
+  KlvKeyIndex(final int keyLength, final Collection<KlvDataElement> candidates) {
+    int capacity = 2;
+    while (capacity < candidates.size() * 2) {
+      capacity <<= 1;
+    }
+
+    mostSignificantBits = new long[capacity];
+    leastSignificantBits = new long[capacity];
+    dataElements = new KlvDataElement[capacity];
+    mask = capacity - 1;
+
+    for (final KlvDataElement dataElement : candidates) {
+      if (dataElement.getKeyLength() != keyLength) {
+        continue;
+      }
+
+      final long msb = dataElement.getKeyMostSignificantBits();
+      final long lsb = dataElement.getKeyLeastSignificantBits();
+      int slot = hash(msb, lsb) & mask;
+      while (dataElements[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+
+      mostSignificantBits[slot] = msb;
+      leastSignificantBits[slot] = lsb;
+      dataElements[slot] = dataElement;
+    }
+  }
+
+  /**
+   * Returns the slot of the data element with the given key, or -1 if there is none. Slots are
+   * stable for the lifetime of this index and lie between zero and {@link #capacity()}.
+   */
+  int indexOf(final long msb, final long lsb) {
+    int slot = hash(msb, lsb) & mask;
+    while (dataElements[slot] != null) {
+      if (mostSignificantBits[slot] == msb && leastSignificantBits[slot] == lsb) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  KlvDataElement get(final int slot) {
+    return dataElements[slot];
+  }
+
+  int capacity() {
+    return dataElements.length;
+  }
+
+  private static int hash(final long msb, final long lsb) {
+    long h = msb * 0x9E3779B97F4A7C15L + lsb;
+    h ^= h >>> 32;
+    h *= 0xC2B2AE3D27D4EB4FL;
+    return (int) (h ^ (h >>> 29));
+  }
+}
@@ -13,10 +13,10 @@
  */
 package org.codice.ddf.libs.klv.data;
 
-import com.google.common.base.Preconditions;
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,8 +29,8 @@
  * it also greatly eases the burden of non-TV-related applications for an easy, interchangeable
  * binary format.
  *
- * <p>The underlying byte array is always king. If you change the key length or the length encoding,
- * you only change how the underlying byte array is interpreted on subsequent calls.
+ * <p>The underlying byte array is always king. A KLV set reads its value in place from the buffer
+ * it was read from instead of copying it out.
  *
  * <p>Everything in KLV is Big Endian.
  *
@@ -91,73 +91,100 @@ public int value() {
   /** Number of bytes in key. */
   private KeyLength keyLength;
 
-  /** The key if the key length is greater than four bytes. */
-  private byte[] keyIfLong;
+  /**
+   * The first eight bytes of the key if the key length is sixteen bytes, otherwise zero. Together
+   * with {@link #keyLeastSignificantBits} this lets keys be compared without building an array.
+   */
+  private long keyMostSignificantBits;
 
-  /** The key if the key length is four bytes or fewer. */
-  private int keyIfShort;
+  /**
+   * The last eight bytes of the key if the key length is sixteen bytes, otherwise the whole key as
+   * an unsigned number.
+   */
+  private long keyLeastSignificantBits;
 
   /**
-   * The bytes from which the KLV set is made up. May include irrelevant bytes so that byte arrays
-   * with offset and length specified separately so arrays can be passed around with a minimum of
-   * copying.
+   * The buffer from which the KLV set was read. The value is not copied out of it; {@link
+   * #valueOffset} and {@link #valueLength} locate the value inside the buffer so that buffers can
+   * be passed around with a minimum of copying.
    */
-  private byte[] value;
+  private ByteBuffer source;
+
+  /** The absolute index of the first byte of the value in {@link #source}. */
+  private int valueOffset;
+
+  /** The number of bytes in the value. */
+  private int valueLength;
+
+  private Klv() {}
 
   /**
-   * When instantiated by reading a byte array, this private field will record the offset of the
-   * next byte in the array where perhaps another KLV set begins. This is used by the {@link
-   * #bytesToList} method to create a list of KLV sets from a long byte array.
+   * Reads the KLV set that begins at the buffer's current position and advances the position past
+   * the end of its value.
+   *
+   * <p>The returned KLV set does not copy the value out of {@code buffer}; it reads the buffer's
+   * bytes in place, so the buffer's contents should not be changed while the KLV set is in use.
+   *
+   * @param buffer The buffer positioned at the start of the KLV set
+   * @param keyLength The number of bytes in the key.
+   * @param lengthEncoding The length field encoding type.
+   * @return the KLV set
+   * @throws IndexOutOfBoundsException If there are not enough bytes remaining in the buffer for the
+   *     key, the length field, or the declared length of the value.
    */
-  private int offsetAfterInstantiation;
+  public static Klv next(
+      final ByteBuffer buffer, final KeyLength keyLength, final LengthEncoding lengthEncoding) {
+    final Klv klv = new Klv();
+    klv.read(buffer, keyLength, lengthEncoding);
+    return klv;
+  }
 
   /**
-   * Creates a KLV set from the given byte array, the given offset in that array, the total length
-   * of the KLV set in the byte array, the specified key length, and the specified length field
-   * encoding.
+   * Creates an empty KLV set that can be filled repeatedly with {@link #read}. This allows a caller
+   * walking a long chain of KLV sets to reuse one instance rather than allocating one per set.
    *
-   * <p>If there are not as many bytes in the array as the length field suggests, as many bytes as
-   * possible will be stored as the value, and the length field will reflect the actual length.
+   * @return an empty KLV set
+   */
+  public static Klv reusable() {
+    return new Klv();
+  }
+
+  /**
+   * Replaces the contents of this KLV set with the KLV set that begins at the buffer's current
+   * position and advances the position past the end of its value. If an exception is thrown, the
+   * buffer's position is left unchanged.
    *
-   * @param theBytes The bytes that make up the entire KLV set
-   * @param offset The offset from beginning of theBytes
+   * @param buffer The buffer positioned at the start of the KLV set
    * @param keyLength The number of bytes in the key.
    * @param lengthEncoding The length field encoding type.
-   * @throws IndexOutOfBoundsException If offset is out of range of the byte array.
+   * @return <tt>this</tt> to aid in stringing together commands
+   * @throws IndexOutOfBoundsException If there are not enough bytes remaining in the buffer for the
+   *     key, the length field, or the declared length of the value.
    */
-  private Klv(
-      final byte[] theBytes,
-      final int offset,
-      final KeyLength keyLength,
-      final LengthEncoding lengthEncoding) {
-    Preconditions.checkElementIndex(
-        offset,
-        theBytes.length,
-        String.format(
-            "Offset %d is out of range (byte array length: %d).", offset, theBytes.length));
-
-    // These methods will interpret the byte array
-    // and set the appropriate key length and length encoding flags.
-    // setLength returns the offset of where the length field ends
-    // and the value portion begins. It also initializes an array in
-    // this.value of the appropriate length.
-    setKey(theBytes, offset, keyLength);
-
-    // Set length and verify enough bytes exist
-    // setLength(..) also establishes a this.value array.
-    final int valueOffset = setLength(theBytes, offset + keyLength.value(), lengthEncoding);
-    final int remaining = theBytes.length - valueOffset;
-    checkEnoughBytesRemaining(
-        remaining,
-        this.value.length,
-        String.format(
-            "Not enough bytes left in array (%d) for the declared length (%d).",
-            remaining, this.value.length));
-
-    System.arraycopy(theBytes, valueOffset, this.value, 0, this.value.length);
-
-    // Private field used when creating a list of KLVs from a long array.
-    this.offsetAfterInstantiation = valueOffset + this.value.length;
+  public Klv read(
+      final ByteBuffer buffer, final KeyLength keyLength, final LengthEncoding lengthEncoding) {
+    final int offset = buffer.position();
+    final int limit = buffer.limit();
+
+    // setKey and setLength interpret the buffer without moving its position.
+    // setLength returns the index where the length field ends and the value portion begins.
+    setKey(buffer, offset, limit, keyLength);
+    final int valueStart = setLength(buffer, offset + keyLength.value(), limit, lengthEncoding);
+
+    final int remaining = limit - valueStart;
+    if (valueLength < 0 || remaining < valueLength) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Not enough bytes left in array (%d) for the declared length (%d).",
+              remaining, valueLength));
+    }
+
+    this.source = buffer;
+    this.valueOffset = valueStart;
+
+    // Cast so the class file does not depend on the covariant overrides added in Java 9.
+    ((Buffer) buffer).position(valueStart + valueLength);
+    return this;
   }
 
   /**
@@ -170,38 +197,73 @@ public byte[] getFullKey() {
     final int length = this.keyLength.value;
     final byte[] key = new byte[length];
 
-    switch (this.keyLength) {
-      case OneByte:
-        key[0] = (byte) this.keyIfShort;
-        break;
-
-      case TwoBytes:
-        key[0] = (byte) (this.keyIfShort >> 8);
-        key[1] = (byte) this.keyIfShort;
-        break;
-
-      case FourBytes:
-        key[0] = (byte) (this.keyIfShort >> 24);
-        key[1] = (byte) (this.keyIfShort >> 16);
-        key[2] = (byte) (this.keyIfShort >> 8);
-        key[3] = (byte) this.keyIfShort;
-        break;
-
-      case SixteenBytes:
-        System.arraycopy(this.keyIfLong, 0, key, 0, 16);
-        break;
+    if (this.keyLength == KeyLength.SixteenBytes) {
+      for (int i = 0; i < 8; i++) {
+        key[i] = (byte) (this.keyMostSignificantBits >> (56 - i * 8));
+        key[i + 8] = (byte) (this.keyLeastSignificantBits >> (56 - i * 8));
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        key[i] = (byte) (this.keyLeastSignificantBits >> ((length - 1 - i) * 8));
+      }
     }
 
     return key;
   }
 
   /**
-   * Returns the value of this KLV set as a copy of the underlying byte array.
+   * Returns the first eight bytes of a sixteen-byte key as a big-endian long, or zero for shorter
+   * keys.
+   *
+   * @return the most significant bits of the key
+   */
+  public long getKeyMostSignificantBits() {
+    return keyMostSignificantBits;
+  }
+
+  /**
+   * Returns the last eight bytes of a sixteen-byte key as a big-endian long, or the whole key as an
+   * unsigned number for shorter keys.
+   *
+   * @return the least significant bits of the key
+   */
+  public long getKeyLeastSignificantBits() {
+    return keyLeastSignificantBits;
+  }
+
+  /**
+   * Returns the value of this KLV set as a copy of the underlying bytes.
    *
    * @return the value
    */
   public byte[] getValue() {
-    return Arrays.copyOf(this.value, this.value.length);
+    final byte[] bytes = new byte[this.valueLength];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = this.source.get(this.valueOffset + i);
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns a view of the value of this KLV set. No bytes are copied; the view's position is zero
+   * and its limit is the length of the value.
+   *
+   * @return the value as a {@link ByteBuffer}
+   */
+  public ByteBuffer getValueBuffer() {
+    final ByteBuffer view = this.source.duplicate();
+    ((Buffer) view).limit(this.valueOffset + this.valueLength);
+    ((Buffer) view).position(this.valueOffset);
+    return view.slice();
+  }
+
+  /**
+   * Returns the number of bytes in the value of this KLV set.
+   *
+   * @return the length of the value
+   */
+  public int getValueLength() {
+    return valueLength;
   }
 
   /**
@@ -210,12 +272,7 @@ public byte[] getValue() {
    * @return the value as an 8-bit signed integer
    */
   public int getValueAs8bitSignedInt() {
-    final byte[] bytes = getValue();
-    byte value = 0;
-    if (bytes.length > 0) {
-      value = bytes[0];
-    }
-    return value;
+    return (byte) readValue(1);
   }
 
   /**
@@ -224,12 +281,7 @@ public int getValueAs8bitSignedInt() {
    * @return the value as an 8-bit unsigned integer
    */
   public int getValueAs8bitUnsignedInt() {
-    final byte[] bytes = getValue();
-    int value = 0;
-    if (bytes.length > 0) {
-      value = bytes[0] & 0xFF;
-    }
-    return value;
+    return (int) readValue(1);
   }
 
   /**
@@ -238,14 +290,7 @@ public int getValueAs8bitUnsignedInt() {
    * @return the value as a 16-bit signed integer
    */
   public int getValueAs16bitSignedInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 2 ? length : 2;
-    short value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (short) readValue(2);
   }
 
   /**
@@ -254,14 +299,7 @@ public int getValueAs16bitSignedInt() {
    * @return the value as a 16-bit unsigned integer
    */
   public int getValueAs16bitUnsignedInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 2 ? length : 2;
-    int value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (int) readValue(2);
   }
 
   /**
@@ -272,14 +310,7 @@ public int getValueAs16bitUnsignedInt() {
    * @return the value as an int
    */
   public int getValueAs32bitInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 4 ? length : 4;
-    int value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (int) readValue(4);
   }
 
   /**
@@ -290,14 +321,7 @@ public int getValueAs32bitInt() {
    * @return the value as a long
    */
   public long getValueAs64bitLong() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 8 ? length : 8;
-    long value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (long) (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return readValue(8);
   }
 
   /**
@@ -309,7 +333,7 @@ public long getValueAs64bitLong() {
    * @return the value as a float
    */
   public float getValueAsFloat() {
-    return this.getValue().length < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
+    return this.valueLength < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
   }
 
   /**
@@ -321,7 +345,7 @@ public float getValueAsFloat() {
    * @return the value as a double
    */
   public double getValueAsDouble() {
-    return this.getValue().length < 8 ? Double.NaN : Double.longBitsToDouble(getValueAs64bitLong());
+    return this.valueLength < 8 ? Double.NaN : Double.longBitsToDouble(getValueAs64bitLong());
   }
 
   /**
@@ -333,120 +357,108 @@ public double getValueAsDouble() {
    *     encoding
    */
   public String getValueAsString(final String charsetName) throws UnsupportedEncodingException {
+    if (this.source.hasArray()) {
+      return new String(
+          this.source.array(),
+          this.source.arrayOffset() + this.valueOffset,
+          this.valueLength,
+          charsetName);
+    }
     return new String(getValue(), charsetName);
   }
 
   /**
-   * Sets the key according to the key found in the byte array and of the given length. If
+   * Reads up to the first <tt>maxBytes</tt> bytes of the value as a big-endian unsigned number.
+   *
+   * @param maxBytes The maximum number of bytes to read, at most eight
+   * @return the bytes as a long
+   */
+  private long readValue(final int maxBytes) {
+    final int length = Math.min(this.valueLength, maxBytes);
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value = (value << 8) | (this.source.get(this.valueOffset + i) & 0xFF);
+    }
+    return value;
+  }
+
+  /**
+   * Sets the key according to the key found in the buffer and of the given length. If
    * <tt>keyLength</tt> is different than what was previously set for this KLV, then this KLV's key
    * length parameter will be updated.
    *
-   * @param inTheseBytes The byte array containing the key (and other stuff)
-   * @param offset The offset where to look for the key
+   * @param inThisBuffer The buffer containing the key (and other stuff)
+   * @param offset The index where to look for the key
+   * @param limit The index of the first byte that may not be read
    * @param keyLength The length of the key
-   * @return <tt>this</tt> to aid in stringing together commands
    * @throws IndexOutOfBoundsException If offset is invalid
    */
-  private Klv setKey(final byte[] inTheseBytes, final int offset, final KeyLength keyLength) {
-    Preconditions.checkElementIndex(
-        offset,
-        inTheseBytes.length,
-        String.format(
-            "Offset %d is out of range (byte array length: %d).", offset, inTheseBytes.length));
-
-    final int remaining = inTheseBytes.length - offset;
-    checkEnoughBytesRemaining(
-        remaining,
-        keyLength.value(),
-        String.format("Not enough bytes for %d-byte key.", keyLength.value()));
+  private void setKey(
+      final ByteBuffer inThisBuffer, final int offset, final int limit, final KeyLength keyLength) {
+    checkOffset(offset, limit);
+
+    if (limit - offset < keyLength.value()) {
+      throw new IndexOutOfBoundsException(
+          String.format("Not enough bytes for %d-byte key.", keyLength.value()));
+    }
 
     // Set key according to length of key
     this.keyLength = keyLength;
     switch (keyLength) {
       case OneByte:
-        this.keyIfShort = inTheseBytes[offset] & 0xFF;
-        this.keyIfLong = null;
+        this.keyMostSignificantBits = 0;
+        this.keyLeastSignificantBits = inThisBuffer.get(offset) & 0xFFL;
         break;
 
       case TwoBytes:
-        this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 8;
-        this.keyIfShort |= inTheseBytes[offset + 1] & 0xFF;
-        this.keyIfLong = null;
+        this.keyMostSignificantBits = 0;
+        this.keyLeastSignificantBits = readUnsigned(inThisBuffer, offset, 2);
         break;
 
       case FourBytes:
-        this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 24;
-        this.keyIfShort |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-        this.keyIfShort |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-        this.keyIfShort |= inTheseBytes[offset + 3] & 0xFF;
-        this.keyIfLong = null;
+        this.keyMostSignificantBits = 0;
+        this.keyLeastSignificantBits = readUnsigned(inThisBuffer, offset, 4);
         break;
 
       case SixteenBytes:
-        this.keyIfLong = new byte[16];
-        System.arraycopy(inTheseBytes, offset, this.keyIfLong, 0, 16);
-        this.keyIfShort = 0;
+        this.keyMostSignificantBits = readUnsigned(inThisBuffer, offset, 8);
+        this.keyLeastSignificantBits = readUnsigned(inThisBuffer, offset + 8, 8);
         break;
     }
-    return this;
   }
 
   /**
-   * Sets the length according to the length found in the byte array and of the given length
-   * encoding. If <tt>lengthEncoding</tt> is different than what was previously set for this KLV,
-   * then this KLV's length encoding parameter will be updated. An array of the appropriate length
-   * will be initialized.
+   * Sets the length according to the length found in the buffer and of the given length encoding.
    *
-   * @param inTheseBytes The byte array containing the key (and other stuff)
-   * @param offset The offset where to look for the key
-   * @param lengthEncoding The length of the key
-   * @return Offset where value field would begin after length
+   * @param inThisBuffer The buffer containing the length (and other stuff)
+   * @param offset The index where to look for the length
+   * @param limit The index of the first byte that may not be read
+   * @param lengthEncoding The length encoding
+   * @return Index where value field would begin after length
    * @throws IndexOutOfBoundsException If offset is invalid
    */
   private int setLength(
-      final byte[] inTheseBytes, final int offset, final LengthEncoding lengthEncoding) {
-    Preconditions.checkElementIndex(
-        offset,
-        inTheseBytes.length,
-        String.format(
-            "Offset %d is out of range (byte array length: %d).", offset, inTheseBytes.length));
-
-    int length = 0;
-    int valueOffset = 0;
-    final int remaining = inTheseBytes.length - offset;
-    final String lengthEncodingErrorMessage =
-        String.format("Not enough bytes for %s length encoding.", lengthEncoding);
+      final ByteBuffer inThisBuffer,
+      final int offset,
+      final int limit,
+      final LengthEncoding lengthEncoding) {
+    checkOffset(offset, limit);
+
+    final int remaining = limit - offset;
+    final int valueStart;
 
     switch (lengthEncoding) {
       case OneByte:
-        checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
-
-        length = inTheseBytes[offset] & 0xFF;
-        setLength(length, lengthEncoding);
-        valueOffset = offset + 1;
-        break;
-
       case TwoBytes:
-        checkEnoughBytesRemaining(remaining, 2, lengthEncodingErrorMessage);
-
-        length = (inTheseBytes[offset] & 0xFF) << 8;
-        length |= inTheseBytes[offset + 1] & 0xFF;
-        setLength(length, lengthEncoding);
-        valueOffset = offset + 2;
-        break;
-
       case FourBytes:
-        checkEnoughBytesRemaining(remaining, 4, lengthEncodingErrorMessage);
-
-        length = (inTheseBytes[offset] & 0xFF) << 24;
-        length |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-        length |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-        length |= inTheseBytes[offset + 3] & 0xFF;
-        setLength(length, lengthEncoding);
-        valueOffset = offset + 4;
+        checkEnoughBytesForLength(remaining, lengthEncoding.value(), lengthEncoding);
+
+        this.valueLength = (int) readUnsigned(inThisBuffer, offset, lengthEncoding.value());
+        valueStart = offset + lengthEncoding.value();
         break;
 
       case BER:
+      default:
         // Short BER form: If high bit is not set, then
         // use the byte to determine length of payload.
         // Long BER form: If high bit is set (0x80),
@@ -456,51 +468,34 @@ private int setLength(
         // Using more than four bytes to specify the length
         // is not supported in this code, though it's not
         // exactly illegal KLV notation either.
-        checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
-        final int ber = inTheseBytes[offset] & 0xFF;
+        checkEnoughBytesForLength(remaining, 1, lengthEncoding);
+        final int ber = inThisBuffer.get(offset) & 0xFF;
 
         // Easy case: low seven bits is length
         if ((ber & 0x80) == 0) {
-          setLength(ber, lengthEncoding);
-          valueOffset = offset + 1;
+          this.valueLength = ber;
+          valueStart = offset + 1;
         } else {
           final int following = ber & 0x7F; // Low seven bits
-          checkEnoughBytesRemaining(remaining, following + 1, lengthEncodingErrorMessage);
+          checkEnoughBytesForLength(remaining, following + 1, lengthEncoding);
 
+          int length = 0;
           for (int i = 0; i < following; i++) {
-            length |= (inTheseBytes[offset + 1 + i] & 0xFF) << (following - 1 - i) * 8;
+            length |= (inThisBuffer.get(offset + 1 + i) & 0xFF) << (following - 1 - i) * 8;
           }
-          setLength(length, lengthEncoding);
-          valueOffset = offset + 1 + following;
+          this.valueLength = length;
+          valueStart = offset + 1 + following;
         }
         break;
     }
 
-    return valueOffset;
-  }
-
-  /**
-   * Sets the length of the value, copying or truncating the old value as appropriate for the new
-   * length.
-   *
-   * @param length The new number of bytes in the Value
-   * @param lengthEncoding The length encoding to use
-   * @return <tt>this</tt> to aid in stringing commands together
-   */
-  private Klv setLength(final int length, final LengthEncoding lengthEncoding) {
-    // Copy old value
-    final byte[] bytes = new byte[length];
-    if (this.value != null) {
-      System.arraycopy(value, 0, bytes, 0, Math.min(length, this.value.length));
-    }
-    this.value = bytes;
-
-    return this;
+    return valueStart;
   }
 
   /**
    * Returns a list of KLV sets in the supplied byte array assuming the provided key length and
-   * length field encoding.
+   * length field encoding. The values of the returned KLV sets are read in place from
+   * <tt>bytes</tt>, which should not be changed while they are in use.
    *
    * @param bytes The byte array to parse
    * @param offset Where to start parsing
@@ -515,24 +510,39 @@ public static List<Klv> bytesToList(
       final int length,
       final KeyLength keyLength,
       LengthEncoding lengthEncoding) {
-    final List<Klv> list = new LinkedList<>();
+    final List<Klv> list = new ArrayList<>();
 
-    int currentPos = offset;
-    while (currentPos < offset + length) {
-      final Klv klv = new Klv(bytes, currentPos, keyLength, lengthEncoding);
-      currentPos = klv.offsetAfterInstantiation;
-      list.add(klv);
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    ((Buffer) buffer).position(offset);
+    while (buffer.position() < offset + length) {
+      list.add(next(buffer, keyLength, lengthEncoding));
     }
 
     return list;
   }
 
-  private void checkEnoughBytesRemaining(
+  private static long readUnsigned(final ByteBuffer buffer, final int offset, final int length) {
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value = (value << 8) | (buffer.get(offset + i) & 0xFF);
+    }
+    return value;
+  }
+
+  private static void checkOffset(final int offset, final int limit) {
+    if (offset < 0 || offset >= limit) {
+      throw new IndexOutOfBoundsException(
+          String.format("Offset %d is out of range (byte array length: %d).", offset, limit));
+    }
+  }
+
+  private static void checkEnoughBytesForLength(
       final int actualNumberOfBytesRemaining,
       final int minimumExpectedNumberOfBytesRemaining,
-      final String message) {
+      final LengthEncoding lengthEncoding) {
     if (actualNumberOfBytesRemaining < minimumExpectedNumberOfBytesRemaining) {
-      throw new IndexOutOfBoundsException(message);
+      throw new IndexOutOfBoundsException(
+          String.format("Not enough bytes for %s length encoding.", lengthEncoding));
     }
   }
 }
@@ -43,8 +43,9 @@ public KlvLocalSet(final byte[] key, final String name, final KlvContext localSe
   @Override
   protected void decodeValue(final Klv klv) {
     try {
-      value = new KlvDecoder(localSetKlvContext).decode(klv.getValue());
+      value = new KlvDecoder(localSetKlvContext).decode(klv.getValueBuffer());
     } catch (KlvDecodingException e) {
+      value = null;
       LOGGER.debug("Couldn't decode the KLV local set named {}", name, e);
     }
   }
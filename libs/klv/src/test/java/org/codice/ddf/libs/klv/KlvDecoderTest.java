@@ -27,11 +27,14 @@
 import static org.junit.Assert.fail;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -738,4 +741,70 @@ public void testIsErrorIndicatedUnsignedByte() throws KlvDecodingException {
     assertThat(isErrorIndicatedUnsignedByte((short) 1, Optional.of((short) 0)), is(false));
     assertThat(isErrorIndicatedUnsignedByte((short) 1, Optional.empty()), is(false));
   }
+
+  @Test
+  public void testDecodeByteBufferReadsBetweenPositionAndLimit() throws KlvDecodingException {
+    final byte[] klvBytes = {99, 99, -8, 2, (byte) 0xB6, 0x1f, 99};
+    final ByteBuffer buffer = ByteBuffer.wrap(klvBytes, 2, 4);
+    final KlvContext klvContext = new KlvContext(KeyLength.OneByte, LengthEncoding.OneByte);
+    klvContext.addDataElement(new KlvShort(new byte[] {-8}, "test"));
+
+    final KlvContext decodedKlvContext = new KlvDecoder(klvContext).decode(buffer);
+
+    assertThat(decodedKlvContext.getDataElementByName("test").getValue(), is((short) -18913));
+    assertThat(buffer.position(), is(2));
+  }
+
+  @Test
+  public void testSixteenByteKeyDoesNotMatchShorterKey() throws KlvDecodingException {
+    final byte[] klvBytes = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, -8, 1, 7};
+    final KlvContext decodedKlvContext =
+        decodeKLV(
+            KeyLength.SixteenBytes,
+            LengthEncoding.OneByte,
+            new KlvByte(new byte[] {-8}, "test"),
+            klvBytes);
+    assertThat(decodedKlvContext.getDataElements().size(), is(0));
+  }
+
+  @Test
+  public void testFlyweightDecodeMatchesKLVSet() throws Exception {
+    byte[] klvBytes;
+
+    try (final InputStream inputStream =
+        getClass().getClassLoader().getResourceAsStream("testKLV.klv")) {
+      klvBytes = IOUtils.toByteArray(inputStream);
+    }
+
+    final KlvDecoder localSetDecoder =
+        new KlvDecoder(new KlvContext(KeyLength.OneByte, LengthEncoding.OneByte, DATA_ELEMENTS));
+    final Map<String, Object> decodedValues = new HashMap<>();
+
+    // Skip the 16-byte key and the 2-byte BER length of the outer set.
+    localSetDecoder.decode(
+        ByteBuffer.wrap(klvBytes, 18, klvBytes.length - 18),
+        dataElement -> decodedValues.put(dataElement.getName(), dataElement.getValue()));
+
+    assertThat(decodedValues, is(EXPECTED_VALUES));
+  }
+
+  @Test
+  public void testFlyweightDecodeReusesDataElements() throws KlvDecodingException {
+    final KlvContext klvContext = new KlvContext(KeyLength.OneByte, LengthEncoding.OneByte);
+    klvContext.addDataElement(new KlvByte(new byte[] {-8}, "test"));
+    final KlvDecoder decoder = new KlvDecoder(klvContext);
+    final List<KlvDataElement> dataElements = new ArrayList<>();
+    final List<Object> values = new ArrayList<>();
+
+    decoder.decode(
+        ByteBuffer.wrap(new byte[] {-8, 1, 5, 3, 1, 0, -8, 1, 6}),
+        dataElement -> {
+          dataElements.add(dataElement);
+          values.add(dataElement.getValue());
+        });
+
+    assertThat(values, is(Arrays.asList((byte) 5, (byte) 6)));
+    assertThat(dataElements.get(0) == dataElements.get(1), is(true));
+    assertThat(klvContext.getDataElementByName("test").getValue() == null, is(true));
+  }
 }
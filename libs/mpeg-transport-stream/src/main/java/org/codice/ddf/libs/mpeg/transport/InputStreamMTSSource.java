@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.mpeg.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.taktik.mpegts.MTSPacket;
+import org.taktik.mpegts.sources.MTSSource;
+
+/**
+ * An {@link MTSSource} that reads transport stream packets from an {@link InputStream} in a single
+ * pass. Unlike the sources that read from a file or a {@link com.google.common.io.ByteSource}, it
+ * cannot be reset.
+ */
+class InputStreamMTSSource implements MTSSource {
+  private final InputStream inputStream;
+
+  private boolean endOfStream;
+
+  InputStreamMTSSource(final InputStream inputStream) {
+    this.inputStream = inputStream;
+  }
+
+  /**
+   * Returns the next packet in the stream, or null if the stream ends before a whole packet has
+   * been read.
+   *
+   * <p>A stream cannot be read past an I/O error, so after throwing an {@link IOException} this
+   * source behaves as if the stream had ended. Otherwise {@link MTSValidPacketIterator}, which
+   * skips packets that throw, would keep retrying the broken stream.
+   *
+   * @throws IllegalArgumentException if the packet is malformed
+   * @throws IOException if the stream cannot be read
+   */
+  @Override
+  public MTSPacket nextPacket() throws IOException {
+    if (endOfStream) {
+      return null;
+    }
+
+    final byte[] packet = new byte[MappedFileMTSSource.PACKET_SIZE];
+
+    int read = 0;
+    try {
+      while (read < packet.length) {
+        final int count = inputStream.read(packet, read, packet.length - read);
+        if (count < 0) {
+          endOfStream = true;
+          return null;
+        }
+        read += count;
+      }
+    } catch (IOException e) {
+      endOfStream = true;
+      throw e;
+    }
+
+    return new MTSPacket(ByteBuffer.wrap(packet));
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+}
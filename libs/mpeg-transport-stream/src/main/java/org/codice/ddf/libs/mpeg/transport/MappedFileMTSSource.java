@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.mpeg.transport;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.taktik.mpegts.MTSPacket;
+import org.taktik.mpegts.sources.ResettableMTSSource;
+
+/**
+ * A {@link ResettableMTSSource} that reads transport stream packets from a memory-mapped file.
+ *
+ * <p>Each packet is a view of the mapped file rather than a copy of it. The file is mapped a window
+ * at a time, because a single mapping cannot be larger than 2 GB and full-length videos often are.
+ * The mappings are released when they are garbage collected, which may be after this source is
+ * closed.
+ */
+class MappedFileMTSSource implements ResettableMTSSource {
+  static final int PACKET_SIZE = 188;
+
+  /** A whole number of packets, so packets never straddle two windows. */
+  private static final long WINDOW_SIZE = PACKET_SIZE * (1L << 18);
+
+  private final FileChannel channel;
+
+  private final long fileSize;
+
+  private MappedByteBuffer window;
+
+  /** The file offset of the first byte of {@link #window}. */
+  private long windowOffset;
+
+  /** Set when a window cannot be mapped, so the failure is reported once rather than retried. */
+  private boolean failed;
+
+  /**
+   * Opens {@code file} for reading.
+   *
+   * @param file the transport stream file
+   * @throws IOException if the file cannot be opened
+   */
+  MappedFileMTSSource(final Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    fileSize = channel.size();
+  }
+
+  /**
+   * Returns the next packet in the file, or null if fewer than {@link #PACKET_SIZE} bytes are left.
+   *
+   * @throws IllegalArgumentException if the packet is malformed
+   * @throws IOException if the file cannot be mapped, after which the source behaves as if the file
+   *     had ended
+   */
+  @Override
+  public MTSPacket nextPacket() throws IOException {
+    if (failed) {
+      return null;
+    }
+
+    if (window == null || window.remaining() < PACKET_SIZE) {
+      final long nextOffset = window == null ? windowOffset : windowOffset + window.position();
+      if (fileSize - nextOffset < PACKET_SIZE) {
+        return null;
+      }
+
+      try {
+        mapWindow(nextOffset);
+      } catch (IOException e) {
+        failed = true;
+        throw e;
+      }
+    }
+
+    final ByteBuffer packet = window.slice();
+    ((Buffer) packet).limit(PACKET_SIZE);
+    ((Buffer) window).position(window.position() + PACKET_SIZE);
+    return new MTSPacket(packet);
+  }
+
+  @Override
+  public void reset() {
+    window = null;
+    windowOffset = 0;
+    failed = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+
+  private void mapWindow(final long offset) throws IOException {
+    windowOffset = offset;
+    window = channel.map(MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, fileSize - offset));
+  }
+}
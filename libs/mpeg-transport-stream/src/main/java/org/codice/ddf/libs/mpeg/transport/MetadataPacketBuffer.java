@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.mpeg.transport;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Accumulates the transport stream packet payloads that make up one metadata packet of an
+ * elementary stream.
+ *
+ * <p>Payloads are copied straight from the packets' buffers into a backing array that doubles in
+ * size when it fills up, so reassembling a metadata packet takes time linear in its size. The
+ * backing array is kept when the buffer is cleared and reused for the stream's next metadata
+ * packet, so a stream whose metadata packets are all about the same size stops allocating after the
+ * first one.
+ */
+class MetadataPacketBuffer {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+  private int size;
+
+  /**
+   * Appends the remaining bytes of {@code payload}, advancing its position to its limit.
+   *
+   * @param payload the payload to append
+   */
+  void append(final ByteBuffer payload) {
+    final int length = payload.remaining();
+    ensureCapacity(size + length);
+    payload.get(bytes, size, length);
+    size += length;
+  }
+
+  /** Discards the accumulated bytes but keeps the backing array for the next metadata packet. */
+  void clear() {
+    size = 0;
+  }
+
+  /** Returns a copy of the accumulated bytes. */
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  private void ensureCapacity(final int minimumCapacity) {
+    if (minimumCapacity > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(minimumCapacity, bytes.length * 2));
+    }
+  }
+}
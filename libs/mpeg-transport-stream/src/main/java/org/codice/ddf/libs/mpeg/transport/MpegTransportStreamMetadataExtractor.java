@@ -14,7 +14,11 @@
 package org.codice.ddf.libs.mpeg.transport;
 
 import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -23,7 +27,6 @@
 import java.util.Set;
 import java.util.function.BiConsumer;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.jcodec.api.JCodecException;
 import org.jcodec.containers.mps.MTSUtils.StreamType;
 import org.jcodec.containers.mps.psi.PMTSection;
@@ -43,13 +46,18 @@ public class MpegTransportStreamMetadataExtractor {
 
   private final ByteSource byteSource;
 
+  private final Path transportStreamFile;
+
+  private final InputStream inputStream;
+
   private final Set<Integer> programMapTablePacketIdDirectory = new HashSet<>();
 
   private final Map<Integer, PMTSection> programMapTables = new HashMap<>();
 
   private final Map<Integer, PMTStream> programElementaryStreams = new HashMap<>();
 
-  private final Map<Integer, byte[]> currentMetadataPacketBytesByStream = new HashMap<>();
+  private final Map<Integer, MetadataPacketBuffer> currentMetadataPacketBytesByStream =
+      new HashMap<>();
 
   /**
    * Constructs an {@code MpegTransportStreamMetadataExtractor} with the given {@link ByteSource} as
@@ -59,6 +67,50 @@ public class MpegTransportStreamMetadataExtractor {
    */
   public MpegTransportStreamMetadataExtractor(final ByteSource byteSource) {
     this.byteSource = byteSource;
+    this.transportStreamFile = null;
+    this.inputStream = null;
+  }
+
+  /**
+   * Constructs an {@code MpegTransportStreamMetadataExtractor} that reads the transport stream from
+   * the given file. The file is memory-mapped rather than read through a stream, so the packets are
+   * parsed in place without being copied.
+   *
+   * @param transportStreamFile the file containing the transport stream
+   */
+  public MpegTransportStreamMetadataExtractor(final Path transportStreamFile) {
+    this.byteSource = Files.asByteSource(transportStreamFile.toFile());
+    this.transportStreamFile = transportStreamFile;
+    this.inputStream = null;
+  }
+
+  /**
+   * Constructs an {@code MpegTransportStreamMetadataExtractor} that reads the transport stream from
+   * the given file. See {@link #MpegTransportStreamMetadataExtractor(Path)}.
+   *
+   * @param transportStreamFile the file containing the transport stream
+   */
+  public MpegTransportStreamMetadataExtractor(final File transportStreamFile) {
+    this(transportStreamFile.toPath());
+  }
+
+  /**
+   * Constructs an {@code MpegTransportStreamMetadataExtractor} that reads the transport stream from
+   * the given {@link InputStream} in a single pass, so the stream can be extracted while it is
+   * still being produced, e.g. while it is being copied somewhere else.
+   *
+   * <p>The program tables are read as they are encountered instead of in a first pass over the
+   * stream, so metadata packets that come before their stream's program map table are skipped.
+   * Transport streams repeat their program tables several times a second, so only the very start of
+   * the stream is affected. The extractor can only be used once and closes the stream when it is
+   * done.
+   *
+   * @param inputStream the stream providing the transport stream bytes
+   */
+  public MpegTransportStreamMetadataExtractor(final InputStream inputStream) {
+    this.byteSource = null;
+    this.transportStreamFile = null;
+    this.inputStream = inputStream;
   }
 
   /**
@@ -100,12 +152,37 @@ public Map<Integer, List<byte[]>> getMetadata() throws Exception {
 
   private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> callback)
       throws Exception {
-    final ResettableMTSSource source = MTSSources.from(byteSource);
+    if (inputStream != null) {
+      final MTSSource source = new InputStreamMTSSource(inputStream);
+      try {
+        extractMetadataPackets(source, true, callback);
+      } finally {
+        source.close();
+      }
+      return;
+    }
+
+    final ResettableMTSSource source =
+        transportStreamFile != null
+            ? new MappedFileMTSSource(transportStreamFile)
+            : MTSSources.from(byteSource);
+
+    try {
+      getProgramSpecificInformation(source);
 
-    getProgramSpecificInformation(source);
+      source.reset();
 
-    source.reset();
+      extractMetadataPackets(source, false, callback);
+    } finally {
+      source.close();
+    }
+  }
 
+  private void extractMetadataPackets(
+      final MTSSource source,
+      final boolean readProgramSpecificInformation,
+      final BiConsumer<Integer, byte[]> callback)
+      throws JCodecException {
     MTSValidPacketIterator packetIterator = new MTSValidPacketIterator(source);
     MTSPacket transportStreamPacket = packetIterator.getNextValidPacket();
 
@@ -117,7 +194,15 @@ private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> ca
       while (transportStreamPacket != null) {
         final int packetId = transportStreamPacket.getPid();
 
-        if (isElementaryStreamPacket(packetId)) {
+        if (readProgramSpecificInformation
+            && isProgramAssociationTable(transportStreamPacket)
+            && !seenProgramAssociationTable()) {
+          getProgramAssociationTable(transportStreamPacket);
+        } else if (readProgramSpecificInformation
+            && isProgramMapTable(transportStreamPacket)
+            && !seenProgramMapTable(transportStreamPacket)) {
+          getProgramMapTable(transportStreamPacket);
+        } else if (isElementaryStreamPacket(packetId)) {
           handleElementaryStreamPacket(transportStreamPacket, packetId, callback);
         }
 
@@ -206,36 +291,28 @@ private boolean isElementaryStreamPacket(final int packetId) {
     return packetId != 0 && !programMapTablePacketIdDirectory.contains(packetId);
   }
 
-  private byte[] getByteBufferAsBytes(final ByteBuffer buffer) {
-    final byte[] bytes = new byte[buffer.remaining()];
-    buffer.get(bytes);
-    return bytes;
-  }
-
   private void handleElementaryStreamPacket(
       final MTSPacket packet, final int packetId, final BiConsumer<Integer, byte[]> callback) {
     if (programElementaryStreams.containsKey(packetId)) {
       final PMTStream stream = programElementaryStreams.get(packetId);
 
       if (isMetadataStream(stream)) {
-        final byte[] currentMetadataPacketBytes = currentMetadataPacketBytesByStream.get(packetId);
+        final MetadataPacketBuffer currentMetadataPacketBytes =
+            currentMetadataPacketBytesByStream.get(packetId);
 
         final boolean startingNewMetadataPacket = packet.isPayloadUnitStartIndicator();
         final boolean currentMetadataPacketToHandle = currentMetadataPacketBytes != null;
         final boolean reachedEndOfCurrentMetadataPacket =
             startingNewMetadataPacket && currentMetadataPacketToHandle;
 
-        final byte[] payloadBytes = getByteBufferAsBytes(packet.getPayload());
-
         if (reachedEndOfCurrentMetadataPacket) {
-          callback.accept(packetId, currentMetadataPacketBytes);
-          startNewMetadataPacketBytes(packetId, payloadBytes);
+          callback.accept(packetId, currentMetadataPacketBytes.toByteArray());
+          currentMetadataPacketBytes.clear();
+          currentMetadataPacketBytes.append(packet.getPayload());
         } else if (startingNewMetadataPacket) {
-          startNewMetadataPacketBytes(packetId, payloadBytes);
+          startNewMetadataPacketBytes(packetId, packet.getPayload());
         } else if (currentMetadataPacketToHandle) {
-          final byte[] concatenatedMetadataPacket =
-              ArrayUtils.addAll(currentMetadataPacketBytes, payloadBytes);
-          currentMetadataPacketBytesByStream.put(packetId, concatenatedMetadataPacket);
+          currentMetadataPacketBytes.append(packet.getPayload());
         }
       }
     }
@@ -253,8 +330,10 @@ private boolean isMetadataStream(final PMTStream stream) {
     return isPrivateDataStream(stream) || isMetadataPesStream(stream);
   }
 
-  private void startNewMetadataPacketBytes(final int packetId, final byte[] newMetadataBytes) {
-    currentMetadataPacketBytesByStream.put(packetId, newMetadataBytes);
+  private void startNewMetadataPacketBytes(final int packetId, final ByteBuffer payload) {
+    final MetadataPacketBuffer metadataPacketBytes = new MetadataPacketBuffer();
+    metadataPacketBytes.append(payload);
+    currentMetadataPacketBytesByStream.put(packetId, metadataPacketBytes);
   }
 
   /*
@@ -266,6 +345,8 @@ private void startNewMetadataPacketBytes(final int packetId, final byte[] newMet
    * over the transport stream and they will need to be handled separately.
    */
   private void handleLastPacketOfEachStream(final BiConsumer<Integer, byte[]> callback) {
-    currentMetadataPacketBytesByStream.forEach(callback);
+    currentMetadataPacketBytesByStream.forEach(
+        (packetId, metadataPacketBytes) ->
+            callback.accept(packetId, metadataPacketBytes.toByteArray()));
   }
 }
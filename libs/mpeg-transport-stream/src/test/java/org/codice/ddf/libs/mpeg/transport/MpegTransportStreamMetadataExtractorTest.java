@@ -13,7 +13,11 @@
  */
 package org.codice.ddf.libs.mpeg.transport;
 
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.hamcrest.CoreMatchers.both;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.collection.IsMapContaining.hasKey;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.eq;
@@ -22,16 +26,23 @@
 import static org.mockito.Mockito.verify;
 
 import com.google.common.io.ByteSource;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 public class MpegTransportStreamMetadataExtractorTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private MpegTransportStreamMetadataExtractor getExtractor() throws IOException {
     final ByteSource byteSource =
         ByteSource.wrap(
@@ -72,6 +83,45 @@ public void testExtractAll() throws Exception {
     verifyExtractedBytes(metadataStreams.get(497));
   }
 
+  @Test
+  public void testExtractAllFromFile() throws Exception {
+    final File transportStreamFile = temporaryFolder.newFile("dayflight.mpg");
+    try (final InputStream inputStream =
+        getClass().getClassLoader().getResourceAsStream("dayflight.mpg")) {
+      Files.copy(inputStream, transportStreamFile.toPath(), REPLACE_EXISTING);
+    }
+
+    final Map<Integer, List<byte[]>> metadataStreams =
+        new MpegTransportStreamMetadataExtractor(transportStreamFile).getMetadata();
+
+    // The packet ID of the metadata stream in this file is 497.
+    assertThat(metadataStreams, hasKey(497));
+
+    verifyExtractedBytes(metadataStreams.get(497));
+  }
+
+  @Test
+  public void testExtractAllFromInputStream() throws Exception {
+    final List<byte[]> expectedMetadataPackets = getExtractor().getMetadata().get(497);
+
+    final Map<Integer, List<byte[]>> metadataStreams =
+        new MpegTransportStreamMetadataExtractor(
+                getClass().getClassLoader().getResourceAsStream("dayflight.mpg"))
+            .getMetadata();
+
+    // The program tables are read in the same pass, so any metadata packets before them are
+    // skipped; everything after them must match the two-pass extraction. The test file starts
+    // with its program tables, so at most the first metadata packet may come before them.
+    assertThat(metadataStreams, hasKey(497));
+    final List<byte[]> metadataPackets = metadataStreams.get(497);
+    final int skipped = expectedMetadataPackets.size() - metadataPackets.size();
+    assertThat(skipped, is(both(greaterThanOrEqualTo(0)).and(lessThanOrEqualTo(1))));
+    for (int packetNum = 0; packetNum < metadataPackets.size(); ++packetNum) {
+      assertThat(
+          metadataPackets.get(packetNum), is(expectedMetadataPackets.get(packetNum + skipped)));
+    }
+  }
+
   private void verifyExtractedBytes(final List<byte[]> metadataPackets) {
     assertThat(metadataPackets.size(), is(12));
 
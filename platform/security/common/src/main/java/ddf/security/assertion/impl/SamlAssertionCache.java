@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.assertion.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ddf.security.assertion.impl.SecurityAssertionImpl.ParsedAssertion;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.wss4j.common.crypto.Crypto;
+import org.apache.wss4j.common.saml.OpenSAMLUtil;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * Remembers what has been learned about SAML assertions so that an assertion presented again, as
+ * busy clients do on every request, is neither parsed nor validated again. An assertion is found by
+ * the identity of its element, or, when it arrives as a new document, by its ID and a digest of its
+ * content. What is known about an assertion is forgotten once its NotOnOrAfter time has passed.
+ *
+ * <p>This class is part of a library embedded in the bundles that use it, so each of those bundles
+ * has its own instance.
+ */
+public final class SamlAssertionCache {
+
+  private static final SamlAssertionCache INSTANCE = new SamlAssertionCache();
+
+  private static final int MAX_ENTRIES = 1000;
+
+  /**
+   * Bounds how long an assertion without a NotOnOrAfter time is trusted, and how long a validation
+   * result outlives a change to the trusted certificates.
+   */
+  private static final long MAX_ENTRY_AGE_MINUTES = 30;
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private static final Comparator<Attr> ATTRIBUTE_ORDER = Comparator.comparing(Attr::getNodeName);
+
+  private final Cache<Element, Entry> entriesByElement =
+      CacheBuilder.newBuilder()
+          .weakKeys()
+          .maximumSize(MAX_ENTRIES)
+          .expireAfterWrite(MAX_ENTRY_AGE_MINUTES, TimeUnit.MINUTES)
+          .build();
+
+  private final Cache<String, Entry> entriesByContent =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_ENTRIES)
+          .expireAfterWrite(MAX_ENTRY_AGE_MINUTES, TimeUnit.MINUTES)
+          .build();
+
+  SamlAssertionCache() {}
+
+  public static SamlAssertionCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns whether the signature and conditions of an assertion were successfully validated
+   * against the given trusted certificates, and the assertion has not expired since.
+   *
+   * @param assertion the assertion element
+   * @param crypto the trusted certificates the assertion must have been validated against
+   * @return true if the assertion does not need to be validated again
+   */
+  public boolean isValidated(Element assertion, Crypto crypto) {
+    return crypto != null && getEntry(assertion).validatedWith == crypto;
+  }
+
+  /**
+   * Records that the signature and conditions of an assertion were successfully validated against
+   * the given trusted certificates. Assertions confirmed by holder of key are not recorded, since
+   * that confirmation depends on the client certificate of each request.
+   *
+   * @param assertion the assertion element
+   * @param crypto the trusted certificates the assertion was validated against
+   */
+  public void setValidated(Element assertion, Crypto crypto) {
+    Entry entry = getEntry(assertion);
+    if (!entry.isHolderOfKey()) {
+      entry.validatedWith = crypto;
+    }
+  }
+
+  ParsedAssertion getParsedAssertion(Element assertion) {
+    return getEntry(assertion).parsedAssertion;
+  }
+
+  private Entry getEntry(Element assertion) {
+    if (assertion == null) {
+      return new Entry(SecurityAssertionImpl.parseToken(null));
+    }
+
+    long now = System.currentTimeMillis();
+    Entry entry = entriesByElement.getIfPresent(assertion);
+    if (entry != null && !entry.isExpired(now)) {
+      return entry;
+    }
+
+    String contentKey = contentKey(assertion);
+    entry = entriesByContent.getIfPresent(contentKey);
+    if (entry == null || entry.isExpired(now)) {
+      entry = new Entry(SecurityAssertionImpl.parseToken(assertion));
+      if (entry.isExpired(now)) {
+        return entry;
+      }
+      entriesByContent.put(contentKey, entry);
+    }
+    entriesByElement.put(assertion, entry);
+    return entry;
+  }
+
+  /**
+   * Identifies an assertion by its ID and a digest of everything in it, comments included, so two
+   * assertions share a key only if they cannot be told apart when parsed or validated.
+   */
+  private static String contentKey(Element assertion) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+    }
+    update(digest, assertion);
+
+    String id = assertion.getAttributeNS(null, "ID");
+    if (id.isEmpty()) {
+      // SAML 1.1 assertions
+      id = assertion.getAttributeNS(null, "AssertionID");
+    }
+    return id + '#' + Base64.getEncoder().encodeToString(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, Node node) {
+    digest.update((byte) node.getNodeType());
+    switch (node.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        update(digest, node.getNamespaceURI());
+        update(digest, node.getNodeName());
+        NamedNodeMap attributeMap = node.getAttributes();
+        Attr[] attributes = new Attr[attributeMap.getLength()];
+        for (int i = 0; i < attributes.length; i++) {
+          attributes[i] = (Attr) attributeMap.item(i);
+        }
+        // the order of attributes is not significant, and parsers need not preserve it
+        Arrays.sort(attributes, ATTRIBUTE_ORDER);
+        updateLength(digest, attributes.length);
+        for (Attr attribute : attributes) {
+          update(digest, attribute.getNamespaceURI());
+          update(digest, attribute.getNodeName());
+          update(digest, attribute.getValue());
+        }
+        updateChildren(digest, node);
+        break;
+      case Node.TEXT_NODE:
+      case Node.CDATA_SECTION_NODE:
+      case Node.COMMENT_NODE:
+        update(digest, node.getNodeValue());
+        break;
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        update(digest, ((ProcessingInstruction) node).getTarget());
+        update(digest, ((ProcessingInstruction) node).getData());
+        break;
+      default:
+        update(digest, node.getNodeName());
+        updateChildren(digest, node);
+        break;
+    }
+  }
+
+  private static void updateChildren(MessageDigest digest, Node node) {
+    int children = 0;
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      update(digest, child);
+      children++;
+    }
+    updateLength(digest, children);
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    if (value == null) {
+      updateLength(digest, -1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      updateLength(digest, bytes.length);
+      digest.update(bytes);
+    }
+  }
+
+  private static void updateLength(MessageDigest digest, int length) {
+    digest.update((byte) (length >>> 24));
+    digest.update((byte) (length >>> 16));
+    digest.update((byte) (length >>> 8));
+    digest.update((byte) length);
+  }
+
+  private static final class Entry {
+
+    private final ParsedAssertion parsedAssertion;
+
+    private final long expiresAt;
+
+    private volatile Crypto validatedWith;
+
+    private Entry(ParsedAssertion parsedAssertion) {
+      this.parsedAssertion = parsedAssertion;
+      Date notOnOrAfter = parsedAssertion.getNotOnOrAfter();
+      expiresAt = notOnOrAfter == null ? Long.MAX_VALUE : notOnOrAfter.getTime();
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+
+    private boolean isHolderOfKey() {
+      return parsedAssertion
+          .getSubjectConfirmations()
+          .stream()
+          .anyMatch(OpenSAMLUtil::isMethodHolderOfKey);
+    }
+  }
+}
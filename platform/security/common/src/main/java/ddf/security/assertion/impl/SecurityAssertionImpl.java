@@ -142,7 +142,17 @@ public SecurityAssertionImpl(SecurityToken securityToken, List<String> usernameA
     } else {
       this.usernameAttributeList = new ArrayList<>(usernameAttributeList);
     }
-    parseToken(securityToken);
+    ParsedAssertion parsedAssertion =
+        SamlAssertionCache.getInstance().getParsedAssertion(securityToken.getToken());
+    name = parsedAssertion.name;
+    nameIDFormat = parsedAssertion.nameIDFormat;
+    issuer = parsedAssertion.issuer;
+    attributeStatements = parsedAssertion.attributeStatements;
+    authenticationStatements = parsedAssertion.authenticationStatements;
+    subjectConfirmations = parsedAssertion.subjectConfirmations;
+    notBefore = parsedAssertion.notBefore;
+    notOnOrAfter = parsedAssertion.notOnOrAfter;
+    tokenType = parsedAssertion.tokenType;
     identifyNameIDFormat();
   }
 
@@ -160,12 +170,15 @@ private void init() {
   }
 
   /**
-   * Parses the SecurityToken by wrapping within an AssertionWrapper.
+   * Parses the assertion of a SecurityToken. Callers should go through {@link SamlAssertionCache},
+   * which only parses an assertion it has not seen before.
    *
-   * @param securityToken SecurityToken
+   * @param token the assertion element of the SecurityToken
+   * @return the values read from the assertion
    */
-  private void parseToken(SecurityToken securityToken) {
-    XMLStreamReader xmlStreamReader = StaxUtils.createXMLStreamReader(securityToken.getToken());
+  static ParsedAssertion parseToken(Element token) {
+    ParsedAssertion parsed = new ParsedAssertion();
+    XMLStreamReader xmlStreamReader = StaxUtils.createXMLStreamReader(token);
 
     try {
       AttrStatement attributeStatement = null;
@@ -180,23 +193,23 @@ private void parseToken(SecurityToken securityToken) {
               String localName = xmlStreamReader.getLocalName();
               switch (localName) {
                 case NameID.DEFAULT_ELEMENT_LOCAL_NAME:
-                  name = xmlStreamReader.getElementText();
+                  parsed.name = xmlStreamReader.getElementText();
                   for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
                     if (xmlStreamReader
                         .getAttributeLocalName(i)
                         .equals(NameID.FORMAT_ATTRIB_NAME)) {
-                      nameIDFormat = xmlStreamReader.getAttributeValue(i);
+                      parsed.nameIDFormat = xmlStreamReader.getAttributeValue(i);
                       break;
                     }
                   }
                   break;
                 case AttributeStatement.DEFAULT_ELEMENT_LOCAL_NAME:
                   attributeStatement = new AttrStatement();
-                  attributeStatements.add(attributeStatement);
+                  parsed.attributeStatements.add(attributeStatement);
                   break;
                 case AuthnStatement.DEFAULT_ELEMENT_LOCAL_NAME:
                   authenticationStatement = new AuthenticationStatement();
-                  authenticationStatements.add(authenticationStatement);
+                  parsed.authenticationStatements.add(authenticationStatement);
                   attrs = xmlStreamReader.getAttributeCount();
                   for (int i = 0; i < attrs; i++) {
                     String name = xmlStreamReader.getAttributeLocalName(i);
@@ -245,7 +258,7 @@ private void parseToken(SecurityToken securityToken) {
                   }
                   break;
                 case Issuer.DEFAULT_ELEMENT_LOCAL_NAME:
-                  issuer = xmlStreamReader.getElementText();
+                  parsed.issuer = xmlStreamReader.getElementText();
                   break;
                 case Conditions.DEFAULT_ELEMENT_LOCAL_NAME:
                   attrs = xmlStreamReader.getAttributeCount();
@@ -253,9 +266,9 @@ private void parseToken(SecurityToken securityToken) {
                     String name = xmlStreamReader.getAttributeLocalName(i);
                     String value = xmlStreamReader.getAttributeValue(i);
                     if (Conditions.NOT_BEFORE_ATTRIB_NAME.equals(name)) {
-                      notBefore = DatatypeConverter.parseDateTime(value).getTime();
+                      parsed.notBefore = DatatypeConverter.parseDateTime(value).getTime();
                     } else if (Conditions.NOT_ON_OR_AFTER_ATTRIB_NAME.equals(name)) {
-                      notOnOrAfter = DatatypeConverter.parseDateTime(value).getTime();
+                      parsed.notOnOrAfter = DatatypeConverter.parseDateTime(value).getTime();
                     }
                   }
                   break;
@@ -265,7 +278,7 @@ private void parseToken(SecurityToken securityToken) {
                     String name = xmlStreamReader.getAttributeLocalName(i);
                     String value = xmlStreamReader.getAttributeValue(i);
                     if (SubjectConfirmation.METHOD_ATTRIB_NAME.equals(name)) {
-                      subjectConfirmations.add(value);
+                      parsed.subjectConfirmations.add(value);
                     }
                   }
                   break;
@@ -276,10 +289,10 @@ private void parseToken(SecurityToken securityToken) {
                     String value = xmlStreamReader.getAttributeValue(i);
                     if (Assertion.VERSION_ATTRIB_NAME.equals(name)) {
                       if ("2.0".equals(value)) {
-                        tokenType =
+                        parsed.tokenType =
                             "http://docs.oasis-open.org/wss/oasis-wss-saml-token-profile-1.1#SAMLV2.0";
                       } else if ("1.1".equals(value)) {
-                        tokenType =
+                        parsed.tokenType =
                             "http://docs.oasis-open.org/wss/oasis-wss-saml-token-profile-1.1#SAMLV1.1";
                       }
                     }
@@ -313,6 +326,7 @@ private void parseToken(SecurityToken securityToken) {
         // ignore
       }
     }
+    return parsed.freeze();
   }
 
   /*
@@ -532,6 +546,45 @@ public boolean isPresentlyValid() {
     return true;
   }
 
+  /**
+   * The values read from an assertion. Once parsed they are not changed, so every
+   * SecurityAssertionImpl for the same assertion can share them.
+   */
+  static final class ParsedAssertion {
+    private String name;
+
+    private String nameIDFormat;
+
+    private String issuer;
+
+    private List<AttributeStatement> attributeStatements = new ArrayList<>();
+
+    private List<AuthnStatement> authenticationStatements = new ArrayList<>();
+
+    private List<String> subjectConfirmations = new ArrayList<>();
+
+    private Date notBefore;
+
+    private Date notOnOrAfter;
+
+    private String tokenType;
+
+    Date getNotOnOrAfter() {
+      return notOnOrAfter;
+    }
+
+    List<String> getSubjectConfirmations() {
+      return subjectConfirmations;
+    }
+
+    private ParsedAssertion freeze() {
+      attributeStatements = Collections.unmodifiableList(attributeStatements);
+      authenticationStatements = Collections.unmodifiableList(authenticationStatements);
+      subjectConfirmations = Collections.unmodifiableList(subjectConfirmations);
+      return this;
+    }
+  }
+
   private static class AbstractXmlObject implements XMLObject {
     private IDIndex idIndex;
 
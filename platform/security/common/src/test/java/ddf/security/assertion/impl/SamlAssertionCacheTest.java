@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.assertion.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.InputStream;
+import java.util.Calendar;
+import javax.xml.bind.DatatypeConverter;
+import org.apache.wss4j.common.crypto.Crypto;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+public class SamlAssertionCacheTest {
+
+  private static final String BEARER = "urn:oasis:names:tc:SAML:2.0:cm:bearer";
+
+  private SamlAssertionCache cache;
+
+  private Crypto crypto;
+
+  @Before
+  public void setUp() {
+    cache = new SamlAssertionCache();
+    crypto = mock(Crypto.class);
+  }
+
+  @Test
+  public void testSameAssertionIsParsedOnce() throws Exception {
+    Element assertion = readAssertion();
+
+    assertThat(
+        cache.getParsedAssertion(assertion), sameInstance(cache.getParsedAssertion(assertion)));
+    assertThat(
+        cache.getParsedAssertion(readAssertion()),
+        sameInstance(cache.getParsedAssertion(assertion)));
+  }
+
+  @Test
+  public void testValidationIsRememberedForEqualAssertions() throws Exception {
+    Element assertion = readBearerAssertion();
+    assertThat(cache.isValidated(assertion, crypto), is(false));
+
+    cache.setValidated(assertion, crypto);
+
+    assertThat(cache.isValidated(assertion, crypto), is(true));
+    assertThat(cache.isValidated(readBearerAssertion(), crypto), is(true));
+    assertThat(cache.isValidated(assertion, mock(Crypto.class)), is(false));
+    assertThat(cache.isValidated(assertion, null), is(false));
+  }
+
+  @Test
+  public void testChangedAssertionIsNotValidated() throws Exception {
+    cache.setValidated(readBearerAssertion(), crypto);
+
+    Element changed = readBearerAssertion();
+    changed
+        .getElementsByTagName("saml2:NameID")
+        .item(0)
+        .appendChild(changed.getOwnerDocument().createComment(""));
+
+    assertThat(cache.isValidated(changed, crypto), is(false));
+  }
+
+  @Test
+  public void testExpiredAssertionIsNotValidated() throws Exception {
+    Element assertion = readBearerAssertion();
+    Calendar past = Calendar.getInstance();
+    past.add(Calendar.MINUTE, -1);
+    assertion
+        .getElementsByTagName("saml2:Conditions")
+        .item(0)
+        .getAttributes()
+        .getNamedItem("NotOnOrAfter")
+        .setNodeValue(DatatypeConverter.printDateTime(past));
+
+    cache.setValidated(assertion, crypto);
+
+    assertThat(cache.isValidated(assertion, crypto), is(false));
+  }
+
+  @Test
+  public void testHolderOfKeyAssertionIsNotValidated() throws Exception {
+    Element assertion = readAssertion();
+
+    cache.setValidated(assertion, crypto);
+
+    assertThat(cache.isValidated(assertion, crypto), is(false));
+  }
+
+  private Element readBearerAssertion() throws Exception {
+    Element assertion = readAssertion();
+    ((Element) assertion.getElementsByTagName("saml2:SubjectConfirmation").item(0))
+        .setAttribute("Method", BEARER);
+    return assertion;
+  }
+
+  private Element readAssertion() throws Exception {
+    try (InputStream inputStream = getClass().getResourceAsStream("/saml.xml")) {
+      return SecurityAssertionImplTest.readXml(inputStream).getDocumentElement();
+    }
+  }
+}
@@ -13,6 +13,8 @@
  */
 package ddf.security.expansion.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import ddf.security.expansion.Expansion;
 import java.io.BufferedReader;
 import java.io.File;
@@ -29,6 +31,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import org.apache.commons.lang.StringUtils;
@@ -65,6 +68,9 @@ public abstract class AbstractExpansion implements Expansion {
 
   private static final String EXPANSION_FILE_NAME = "expansionFileName";
 
+  /** The most values per attribute whose expansions are remembered between calls. */
+  private static final int MAX_CACHED_VALUES_PER_KEY = 1024;
+
   protected Pattern rulePattern = Pattern.compile(RULE_SPLIT_REGEX); // ("\\[(.+)\\|(.*)\\]");
 
   protected Map<String, List<String[]>> expansionTable;
@@ -73,6 +79,12 @@ public abstract class AbstractExpansion implements Expansion {
 
   private String expansionFilename = DEFAULT_CONFIG_FILE_NAME;
 
+  /**
+   * The rules of the expansion table compiled per attribute, or null when the table or separator
+   * has changed since they were last compiled.
+   */
+  private volatile Map<String, RuleChain> ruleChains;
+
   /*
    * @see ddf.security.expansion.Expansion#expand(Map<String, Set<String>>)
    */
@@ -112,55 +124,28 @@ public Set<String> expand(String key, Set<String> values) {
       return values;
     }
 
-    List<String[]> mappingRuleList = expansionTable.get(key);
+    RuleChain ruleChain = getRuleChains().get(key);
 
     // if there are not matching keys in the expansion table - return the original string
-    if (mappingRuleList == null) {
+    if (ruleChain == null) {
       return values;
     }
 
     /*
-     * This expansion loop builds on itself, so the order of the rules is important - the
-     * expanded set of strings is processed for expansion by subsequent rules.
-     *
-     * Each list element in the expansion table is a two-element array with the regular
-     * expression to search for and the replacement value. The replacement value can be empty in
-     * which case the found value is deleted.
+     * Each rule applies to every value on its own, so the expansion of a set is the union of the
+     * expansions of its values. That lets the expansion of each value be remembered.
      */
-
-    String original;
-    String expandedValue;
-    Set<String> temp;
     Set<String> expandedSet = new HashSet<String>();
-    Set<String> currentSet = new HashSet<String>();
-    currentSet.addAll(values);
     LOGGER.debug("Original key of {} with value[s]: {}", key, values);
-    for (String[] rule : mappingRuleList) {
-      expandedSet.clear();
-      if ((rule != null) && (rule.length == 2)) {
-        if ((rule[0] != null) && (!rule[0].isEmpty())) {
-          LOGGER.trace("Processing expansion entry: {} => {}", rule[0], rule[1]);
-          // now go through and expand each string in the passed in set
-          for (String s : currentSet) {
-            original = s;
-            expandedValue = doExpansion(s, rule);
-            LOGGER.debug("Expanded value from '{}' to '{}'", original, expandedValue);
-            expandedSet.addAll(split(expandedValue, attributeSeparator));
-          }
-        }
-      } else {
-        LOGGER.debug("Expansion table contains invalid entries - skipping.");
-      }
-      temp = currentSet;
-      currentSet = expandedSet;
-      expandedSet = temp;
+    for (String value : values) {
+      expandedSet.addAll(ruleChain.expand(value));
     }
 
-    LOGGER.debug("Expanded result for key {} is {}", key, currentSet);
+    LOGGER.debug("Expanded result for key {} is {}", key, expandedSet);
     // update the original set passed in for expansion
     values.clear();
-    values.addAll(currentSet);
-    return currentSet;
+    values.addAll(expandedSet);
+    return expandedSet;
   }
 
   /**
@@ -173,6 +158,43 @@ public Set<String> expand(String key, Set<String> values) {
    */
   protected abstract String doExpansion(String original, String[] rule);
 
+  /**
+   * Prepares a rule to be applied to many values. By default the rule is applied with {@link
+   * #doExpansion(String, String[])}; implementations can override this to do per-rule work, such as
+   * compiling a pattern, once instead of for every value.
+   *
+   * @param rule the rule that describes the expansion for one specific attribute value
+   * @return a function applying the rule to an original value
+   */
+  protected UnaryOperator<String> compileRule(String[] rule) {
+    return original -> doExpansion(original, rule);
+  }
+
+  private Map<String, RuleChain> getRuleChains() {
+    Map<String, RuleChain> chains = ruleChains;
+    if (chains == null) {
+      synchronized (this) {
+        chains = ruleChains;
+        if (chains == null) {
+          chains = new HashMap<>();
+          for (Map.Entry<String, List<String[]>> entry : expansionTable.entrySet()) {
+            chains.put(entry.getKey(), new RuleChain(entry.getValue(), attributeSeparator));
+          }
+          ruleChains = chains;
+        }
+      }
+    }
+    return chains;
+  }
+
+  /**
+   * Discards the compiled rules. Must be called after any change to the expansion table or the
+   * attribute separator.
+   */
+  private synchronized void rulesChanged() {
+    ruleChains = null;
+  }
+
   /*
    * @see ddf.security.expansion.Expansion#getExpansionMap()
    */
@@ -198,6 +220,7 @@ public void setExpansionMap(Map<String, List<String[]>> table) {
     } else {
       expansionTable = table;
     }
+    rulesChanged();
   }
 
   /**
@@ -231,6 +254,7 @@ public void addExpansionRule(String key, String[] rule) {
     }
 
     list.add(rule);
+    rulesChanged();
   }
 
   /**
@@ -257,6 +281,7 @@ public boolean removeExpansionRule(String key, String[] rule) {
       if (list.size() == 0) {
         expansionTable.remove(key);
       }
+      rulesChanged();
     }
     return result;
   }
@@ -297,6 +322,7 @@ public void setExpansionRules(List<String> rulesList) {
 
     if ((rulesList == null) || (rulesList.isEmpty())) {
       expansionTable.clear();
+      rulesChanged();
     } else {
       String key;
       String[] rule;
@@ -374,6 +400,7 @@ public void setAttributeSeparator(String separator) {
     } else {
       attributeSeparator = separator;
     }
+    rulesChanged();
   }
 
   /**
@@ -392,6 +419,7 @@ public void setExpansionFileName(String filename) {
       LOGGER.warn(
           "Null or empty mapping configuration file name: {} - clearing existing map.", filename);
       expansionTable.clear();
+      rulesChanged();
     }
   }
 
@@ -423,6 +451,7 @@ protected void loadConfiguration(String filename) {
     // first clear out the existing table
     if (expansionTable != null) {
       expansionTable.clear();
+      rulesChanged();
     }
     File file = null;
     filename = StringUtils.strip(filename);
@@ -455,10 +484,71 @@ protected void loadConfiguration(String filename) {
           }
         }
       }
+      rulesChanged();
       LOGGER.debug("Finished loading mapping configuration file.");
     } catch (IOException e) {
       LOGGER.warn("Unexpected exception reading mapping configuration file {}", filename, e);
       setExpansionMap(null);
     }
   }
+
+  /** The compiled rules for one attribute, along with the expansions already worked out. */
+  private class RuleChain {
+    private final List<UnaryOperator<String>> rules = new ArrayList<>();
+
+    private final String separator;
+
+    private final Cache<String, Set<String>> expansions =
+        CacheBuilder.newBuilder().maximumSize(MAX_CACHED_VALUES_PER_KEY).build();
+
+    RuleChain(List<String[]> ruleList, String separator) {
+      this.separator = separator;
+      for (String[] rule : ruleList) {
+        if ((rule != null) && (rule.length == 2) && (rule[0] != null) && (!rule[0].isEmpty())) {
+          rules.add(compileRule(rule));
+        } else {
+          // an invalid rule expands every value to nothing, as it always has
+          LOGGER.debug("Expansion table contains invalid entries - skipping.");
+          rules.add(null);
+        }
+      }
+    }
+
+    Set<String> expand(String value) {
+      if (value == null) {
+        return apply(null);
+      }
+
+      Set<String> expanded = expansions.getIfPresent(value);
+      if (expanded == null) {
+        expanded = apply(value);
+        expansions.put(value, expanded);
+      }
+      return expanded;
+    }
+
+    /*
+     * This expansion loop builds on itself, so the order of the rules is important - the values
+     * expanded by one rule are processed for expansion by subsequent rules.
+     *
+     * Each rule in the expansion table is a two-element array with the expression to search for
+     * and the replacement value. The replacement value can be empty in which case the found value
+     * is deleted.
+     */
+    private Set<String> apply(String value) {
+      Set<String> currentSet = Collections.singleton(value);
+      for (UnaryOperator<String> rule : rules) {
+        Set<String> expandedSet = new HashSet<>();
+        if (rule != null) {
+          for (String s : currentSet) {
+            String expandedValue = rule.apply(s);
+            LOGGER.debug("Expanded value from '{}' to '{}'", s, expandedValue);
+            expandedSet.addAll(split(expandedValue, separator));
+          }
+        }
+        currentSet = expandedSet;
+      }
+      return Collections.unmodifiableSet(currentSet);
+    }
+  }
 }
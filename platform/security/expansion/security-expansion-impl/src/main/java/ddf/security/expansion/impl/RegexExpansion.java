@@ -13,6 +13,10 @@
  */
 package ddf.security.expansion.impl;
 
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
 public class RegexExpansion extends AbstractExpansion {
   public RegexExpansion() {}
 
@@ -32,4 +36,26 @@ protected String doExpansion(String original, String[] rule) {
     expandedValue = original.replaceAll(rule[0], rule[1]);
     return expandedValue;
   }
+
+  /**
+   * Compiles the rule's search expression once, so applying the rule does the same work as {@link
+   * #doExpansion(String, String[])} without compiling the expression for each value.
+   *
+   * @param rule Two values specifying the expression to search for and the expression to replace it
+   *     with
+   * @return a function applying the rule to an original value
+   */
+  @Override
+  protected UnaryOperator<String> compileRule(String[] rule) {
+    Pattern pattern;
+    try {
+      pattern = Pattern.compile(rule[0]);
+    } catch (PatternSyntaxException e) {
+      // leave the failure to be reported each time the rule is applied, as it always has been
+      LOGGER.warn("Invalid expansion rule expression: {}", rule[0]);
+      return super.compileRule(rule);
+    }
+    String replacement = rule[1];
+    return original -> pattern.matcher(original).replaceAll(replacement);
+  }
 }
@@ -14,11 +14,13 @@
 package ddf.security.expansion.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.PatternSyntaxException;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -183,4 +185,60 @@ public void testExpandMap() throws Exception {
     assert (result.size() == 1);
     assert (result.contains("AZTEC"));
   }
+
+  @Test
+  public void testRuleChangesApplyAfterExpansion() throws Exception {
+    AbstractExpansion exp = new RegexExpansion();
+    exp.addExpansionRule("role", rule2);
+
+    Set<String> result = exp.expand("role", new HashSet<String>(Collections.singleton("VP")));
+    assert (result.size() == 2);
+    assert (result.contains("Manager"));
+
+    exp.addExpansionRule("role", rule3);
+    result = exp.expand("role", new HashSet<String>(Collections.singleton("VP")));
+    assert (result.size() == 3);
+    assert (result.contains("Employee"));
+
+    exp.setAttributeSeparator(",");
+    result = exp.expand("role", new HashSet<String>(Collections.singleton("VP")));
+    assert (result.size() == 1);
+    assert (result.contains("VP Manager Employee"));
+
+    exp.setExpansionRules(null);
+    result = exp.expand("role", new HashSet<String>(Collections.singleton("VP")));
+    assert (result.size() == 1);
+    assert (result.contains("VP"));
+  }
+
+  @Test
+  public void testRepeatedExpansionReturnsIndependentSets() throws Exception {
+    AbstractExpansion exp = new RegexExpansion();
+    exp.setExpansionMap(testmap);
+
+    Set<String> first = exp.expand("role", new HashSet<String>(Collections.singleton("VP-Sales")));
+    first.add("Intern");
+    Set<String> second = exp.expand("role", new HashSet<String>(Collections.singleton("VP-Sales")));
+
+    assert (second.size() == 5);
+    assert (!second.contains("Intern"));
+    assert (second.contains("Employee"));
+  }
+
+  @Test
+  public void testInvalidExpressionOnlyAffectsItsAttribute() throws Exception {
+    AbstractExpansion exp = new RegexExpansion();
+    exp.addExpansionRule("role", new String[] {"VP(", "Manager"});
+    exp.addExpansionRule("location", rule5);
+
+    Set<String> result = exp.expand("location", new HashSet<String>(Collections.singleton("AZ")));
+    assert (result.contains("Arizona"));
+
+    try {
+      exp.expand("role", new HashSet<String>(Collections.singleton("VP")));
+      assert (false);
+    } catch (PatternSyntaxException e) {
+      // expected - the rule cannot be applied
+    }
+  }
 }
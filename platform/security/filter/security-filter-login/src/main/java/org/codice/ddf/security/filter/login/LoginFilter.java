@@ -18,6 +18,7 @@
 import ddf.security.SecurityConstants;
 import ddf.security.Subject;
 import ddf.security.assertion.SecurityAssertion;
+import ddf.security.assertion.impl.SamlAssertionCache;
 import ddf.security.assertion.impl.SecurityAssertionImpl;
 import ddf.security.common.SecurityTokenHolder;
 import ddf.security.common.audit.SecurityLogger;
@@ -117,6 +118,8 @@ protected DocumentBuilder initialValue() {
 
   private static final XMLUtils XML_UTILS = XMLUtils.getInstance();
 
+  private static final SamlAssertionCache ASSERTION_CACHE = SamlAssertionCache.getInstance();
+
   private static SAMLObjectBuilder<Status> statusBuilder;
 
   private static SAMLObjectBuilder<StatusCode> statusCodeBuilder;
@@ -371,51 +374,14 @@ private Subject handleAuthenticationToken(
         securityToken = (SecurityToken) token.getCredentials();
       }
       if (!wasReference) {
-        // wrap the token
-        SamlAssertionWrapper assertion = new SamlAssertionWrapper(securityToken.getToken());
-
-        // get the crypto junk
+        Element assertionElement = securityToken.getToken();
         Crypto crypto = getSignatureCrypto();
-        Response samlResponse =
-            createSamlResponse(
-                httpRequest.getRequestURI(),
-                assertion.getIssuerString(),
-                createStatus(SAMLProtocolResponseValidator.SAML2_STATUSCODE_SUCCESS, null));
-
-        BUILDER.get().reset();
-        Document doc = BUILDER.get().newDocument();
-        Element policyElement = OpenSAMLUtil.toDom(samlResponse, doc);
-        doc.appendChild(policyElement);
-
-        Credential credential = new Credential();
-        credential.setSamlAssertion(assertion);
-
-        RequestData requestData = new RequestData();
-        requestData.setWsDocInfo(new WSDocInfo(samlResponse.getDOM().getOwnerDocument()));
-        requestData.setSigVerCrypto(crypto);
-        WSSConfig wssConfig = WSSConfig.getNewInstance();
-        requestData.setWssConfig(wssConfig);
-
-        X509Certificate[] x509Certs =
-            (X509Certificate[]) httpRequest.getAttribute("javax.servlet.request.X509Certificate");
-        requestData.setTlsCerts(x509Certs);
-
-        validateHolderOfKeyConfirmation(assertion, x509Certs);
-
-        if (assertion.isSigned()) {
-          // Verify the signature
-          WSSSAMLKeyInfoProcessor wsssamlKeyInfoProcessor =
-              new WSSSAMLKeyInfoProcessor(requestData);
-          assertion.verifySignature(wsssamlKeyInfoProcessor, crypto);
-
-          assertion.parseSubject(
-              new WSSSAMLKeyInfoProcessor(requestData),
-              requestData.getSigVerCrypto(),
-              requestData.getCallbackHandler());
+        if (ASSERTION_CACHE.isValidated(assertionElement, crypto)) {
+          LOGGER.debug("SAML assertion was validated by an earlier request.");
+        } else {
+          validateAssertion(httpRequest, assertionElement, crypto);
+          ASSERTION_CACHE.setValidated(assertionElement, crypto);
         }
-
-        // Validate the Assertion & verify trust in the signature
-        assertionValidator.validate(credential, requestData);
       }
 
       // if it is all good, then we'll create our subject
@@ -442,6 +408,57 @@ private Subject handleAuthenticationToken(
     return subject;
   }
 
+  /**
+   * Verifies the signature of a SAML assertion and validates it, including any holder of key
+   * confirmation against the client certificate of the request.
+   */
+  private void validateAssertion(
+      HttpServletRequest httpRequest, Element assertionElement, Crypto crypto)
+      throws WSSecurityException, SecurityServiceException {
+    // wrap the token
+    SamlAssertionWrapper assertion = new SamlAssertionWrapper(assertionElement);
+
+    Response samlResponse =
+        createSamlResponse(
+            httpRequest.getRequestURI(),
+            assertion.getIssuerString(),
+            createStatus(SAMLProtocolResponseValidator.SAML2_STATUSCODE_SUCCESS, null));
+
+    BUILDER.get().reset();
+    Document doc = BUILDER.get().newDocument();
+    Element policyElement = OpenSAMLUtil.toDom(samlResponse, doc);
+    doc.appendChild(policyElement);
+
+    Credential credential = new Credential();
+    credential.setSamlAssertion(assertion);
+
+    RequestData requestData = new RequestData();
+    requestData.setWsDocInfo(new WSDocInfo(samlResponse.getDOM().getOwnerDocument()));
+    requestData.setSigVerCrypto(crypto);
+    WSSConfig wssConfig = WSSConfig.getNewInstance();
+    requestData.setWssConfig(wssConfig);
+
+    X509Certificate[] x509Certs =
+        (X509Certificate[]) httpRequest.getAttribute("javax.servlet.request.X509Certificate");
+    requestData.setTlsCerts(x509Certs);
+
+    validateHolderOfKeyConfirmation(assertion, x509Certs);
+
+    if (assertion.isSigned()) {
+      // Verify the signature
+      WSSSAMLKeyInfoProcessor wsssamlKeyInfoProcessor = new WSSSAMLKeyInfoProcessor(requestData);
+      assertion.verifySignature(wsssamlKeyInfoProcessor, crypto);
+
+      assertion.parseSubject(
+          new WSSSAMLKeyInfoProcessor(requestData),
+          requestData.getSigVerCrypto(),
+          requestData.getCallbackHandler());
+    }
+
+    // Validate the Assertion & verify trust in the signature
+    assertionValidator.validate(credential, requestData);
+  }
+
   private void validateHolderOfKeyConfirmation(
       SamlAssertionWrapper assertion, X509Certificate[] x509Certs) throws SecurityServiceException {
     List<String> confirmationMethods = assertion.getConfirmationMethods();
@@ -0,0 +1,511 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.sts;
+
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.cxf.rt.security.claims.Claim;
+import org.apache.cxf.rt.security.claims.ClaimCollection;
+import org.apache.cxf.sts.claims.ClaimsHandler;
+import org.apache.cxf.sts.claims.ClaimsManager;
+import org.apache.cxf.sts.claims.ClaimsParameters;
+import org.apache.cxf.sts.claims.ProcessedClaim;
+import org.apache.cxf.sts.claims.ProcessedClaimCollection;
+import org.apache.cxf.sts.token.realm.RealmSupport;
+import org.apache.cxf.sts.token.realm.Relationship;
+import org.apache.cxf.ws.security.sts.provider.STSException;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ClaimsManager} that queries its claims handlers in parallel instead of one after the
+ * other, and caches each handler's answer per principal. Empty answers are cached as well, for a
+ * shorter time, so that a principal unknown to one handler (for example a local user that is not in
+ * LDAP) does not cost a round trip on every issuance.
+ *
+ * <p>Cache hit rate and per-handler latency are published over JMX in the {@code
+ * ddf.metrics.security.sts} domain.
+ *
+ * <p>Requests that federate claims through a {@link Relationship} other than a federated identity
+ * are left to {@link ClaimsManager}.
+ */
+public class ConcurrentClaimsManager extends ClaimsManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentClaimsManager.class);
+
+  private static final String CACHE_SCOPE = "ClaimsCache";
+
+  private static final String HANDLERS_SCOPE = "ClaimsHandlers";
+
+  private static final int THREAD_POOL_SIZE = 16;
+
+  private static final long MAX_CACHE_ENTRIES = 10000;
+
+  private static final long DEFAULT_CACHE_TTL = 60;
+
+  private static final long DEFAULT_NEGATIVE_CACHE_TTL = 10;
+
+  private final MetricRegistry metrics = new MetricRegistry();
+
+  private final JmxReporter reporter =
+      JmxReporter.forRegistry(metrics).inDomain("ddf.metrics.security.sts").build();
+
+  private final Meter hits;
+
+  private final Meter misses;
+
+  private final ExecutorService executor;
+
+  private final Ticker ticker;
+
+  private volatile long claimsCacheTtl = DEFAULT_CACHE_TTL;
+
+  private volatile long negativeClaimsCacheTtl = DEFAULT_NEGATIVE_CACHE_TTL;
+
+  private volatile Cache<CacheKey, CachedClaims> cache;
+
+  public ConcurrentClaimsManager() {
+    this(
+        Executors.newFixedThreadPool(
+            THREAD_POOL_SIZE, StandardThreadFactoryBuilder.newThreadFactory("stsClaimsThread")),
+        Ticker.systemTicker());
+  }
+
+  ConcurrentClaimsManager(ExecutorService executor, Ticker ticker) {
+    this.executor = executor;
+    this.ticker = ticker;
+
+    hits = metrics.meter(MetricRegistry.name(CACHE_SCOPE, "Hits"));
+    misses = metrics.meter(MetricRegistry.name(CACHE_SCOPE, "Misses"));
+    metrics.register(
+        MetricRegistry.name(CACHE_SCOPE, "HitRatio"),
+        new RatioGauge() {
+          @Override
+          protected Ratio getRatio() {
+            return Ratio.of(
+                hits.getOneMinuteRate(), hits.getOneMinuteRate() + misses.getOneMinuteRate());
+          }
+        });
+
+    cache = buildCache();
+  }
+
+  public void init() {
+    reporter.start();
+  }
+
+  public void destroy() {
+    reporter.stop();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Sets how long, in seconds, a handler's claims for a principal are reused. Zero or less turns
+   * the cache off.
+   */
+  public synchronized void setClaimsCacheTtl(long claimsCacheTtl) {
+    this.claimsCacheTtl = claimsCacheTtl;
+    cache = buildCache();
+  }
+
+  /**
+   * Sets how long, in seconds, a handler that returned no claims for a principal is not asked
+   * again. Zero or less turns off negative caching. Never longer than the claims cache TTL.
+   */
+  public synchronized void setNegativeClaimsCacheTtl(long negativeClaimsCacheTtl) {
+    this.negativeClaimsCacheTtl = negativeClaimsCacheTtl;
+    cache = buildCache();
+  }
+
+  MetricRegistry getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public ProcessedClaimCollection retrieveClaimValues(
+      ClaimCollection claims, ClaimsParameters parameters) {
+    if (claims == null || claims.isEmpty()) {
+      return null;
+    }
+
+    Map<String, Object> additionalProperties = parameters.getAdditionalProperties();
+    Relationship relationship =
+        (additionalProperties == null)
+            ? null
+            : (Relationship) additionalProperties.get(Relationship.class.getName());
+    if (relationship != null && !Relationship.FED_TYPE_IDENTITY.equals(relationship.getType())) {
+      return super.retrieveClaimValues(claims, parameters);
+    }
+
+    ProcessedClaimCollection claimValues = handleClaims(claims, parameters);
+    validateClaimValues(claims, claimValues);
+    return claimValues;
+  }
+
+  private ProcessedClaimCollection handleClaims(
+      ClaimCollection claims, ClaimsParameters parameters) {
+    List<Supplier<ProcessedClaimCollection>> lookups = new ArrayList<>();
+    List<ClaimsHandler> handlers = getClaimHandlers();
+    if (handlers != null) {
+      for (ClaimsHandler handler : handlers) {
+        ClaimCollection supportedClaims =
+            filterHandlerClaims(claims, handler.getSupportedClaimTypes());
+        if (supportedClaims.isEmpty()) {
+          continue;
+        }
+        ClaimsParameters handlerParameters = getHandlerParameters(handler, parameters);
+        if (handlerParameters != null) {
+          lookups.add(() -> lookup(handler, supportedClaims, handlerParameters));
+        }
+      }
+    }
+
+    ProcessedClaimCollection claimValues = new ProcessedClaimCollection();
+    for (ProcessedClaimCollection handlerValues : invokeAll(lookups)) {
+      if (handlerValues != null) {
+        claimValues.addAll(handlerValues);
+      }
+    }
+    return claimValues;
+  }
+
+  /**
+   * Runs the first lookup on the calling thread and the rest on the executor, returning the results
+   * in handler order.
+   */
+  private List<ProcessedClaimCollection> invokeAll(
+      List<Supplier<ProcessedClaimCollection>> lookups) {
+    if (lookups.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Future<ProcessedClaimCollection>> futures = new ArrayList<>(lookups.size() - 1);
+    try {
+      for (Supplier<ProcessedClaimCollection> lookup : lookups.subList(1, lookups.size())) {
+        futures.add(executor.submit(lookup::get));
+      }
+
+      List<ProcessedClaimCollection> results = new ArrayList<>(lookups.size());
+      results.add(lookups.get(0).get());
+      for (Future<ProcessedClaimCollection> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new STSException("Interrupted while retrieving claims", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new STSException("Failed retrieving claims", e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  private ProcessedClaimCollection lookup(
+      ClaimsHandler handler, ClaimCollection claims, ClaimsParameters parameters) {
+    Cache<CacheKey, CachedClaims> claimsCache = cache;
+    CacheKey key = (claimsCache == null) ? null : CacheKey.of(handler, claims, parameters);
+    if (key != null) {
+      CachedClaims cached = claimsCache.getIfPresent(key);
+      if (cached != null && cached.expiresAt - ticker.read() > 0) {
+        hits.mark();
+        return copyOf(cached.claims);
+      }
+      misses.mark();
+    }
+
+    ProcessedClaimCollection claimValues;
+    try (Timer.Context ignored = handlerTimer(handler).time()) {
+      claimValues = handler.retrieveClaimValues(claims, parameters);
+    } catch (RuntimeException e) {
+      LOGGER.info("Failed retrieving claims from claims handler {}", handlerName(handler), e);
+      if (isStopProcessingOnException()) {
+        throw e;
+      }
+      return null;
+    }
+
+    if (key != null) {
+      cache(claimsCache, key, claimValues);
+    }
+    return claimValues;
+  }
+
+  private void cache(
+      Cache<CacheKey, CachedClaims> claimsCache, CacheKey key, ProcessedClaimCollection values) {
+    boolean negative = values == null || values.isEmpty();
+    long ttl = negative ? Math.min(negativeClaimsCacheTtl, claimsCacheTtl) : claimsCacheTtl;
+    if (ttl > 0) {
+      long expiresAt = ticker.read() + TimeUnit.SECONDS.toNanos(ttl);
+      claimsCache.put(
+          key,
+          new CachedClaims(negative ? new ProcessedClaimCollection() : copyOf(values), expiresAt));
+    }
+  }
+
+  private Cache<CacheKey, CachedClaims> buildCache() {
+    if (claimsCacheTtl <= 0) {
+      return null;
+    }
+    return CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHE_ENTRIES)
+        .expireAfterWrite(claimsCacheTtl, TimeUnit.SECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  private Timer handlerTimer(ClaimsHandler handler) {
+    return metrics.timer(MetricRegistry.name(HANDLERS_SCOPE, handlerName(handler)));
+  }
+
+  private static String handlerName(ClaimsHandler handler) {
+    return handler.getClass().getSimpleName();
+  }
+
+  /**
+   * Applies the same realm rules as {@link ClaimsManager}, but maps the principal on a copy of the
+   * parameters so that handlers running in parallel do not see each other's principal.
+   *
+   * @return the parameters to pass to the handler, or {@code null} if the handler should be skipped
+   */
+  private ClaimsParameters getHandlerParameters(
+      ClaimsHandler handler, ClaimsParameters parameters) {
+    if (!(handler instanceof RealmSupport)) {
+      return parameters;
+    }
+
+    RealmSupport realmSupport = (RealmSupport) handler;
+    List<String> supportedRealms = realmSupport.getSupportedRealms();
+    if (supportedRealms != null
+        && !supportedRealms.isEmpty()
+        && !supportedRealms.contains(parameters.getRealm())) {
+      LOGGER.trace(
+          "Claims handler {} doesn't support realm {}",
+          handlerName(handler),
+          parameters.getRealm());
+      return null;
+    }
+
+    String handlerRealm = realmSupport.getHandlerRealm();
+    if (handlerRealm == null || handlerRealm.equalsIgnoreCase(parameters.getRealm())) {
+      return parameters;
+    }
+
+    Principal targetPrincipal = null;
+    try {
+      targetPrincipal = doMapping(parameters.getRealm(), parameters.getPrincipal(), handlerRealm);
+    } catch (RuntimeException e) {
+      LOGGER.debug("Failed to map user to realm {}", handlerRealm, e);
+    }
+    if (targetPrincipal == null || targetPrincipal.getName() == null) {
+      LOGGER.debug(
+          "Skipping claims handler {}. Unable to map user to realm {}.",
+          handlerName(handler),
+          handlerRealm);
+      return null;
+    }
+    return copyOf(parameters, targetPrincipal);
+  }
+
+  private static ClaimCollection filterHandlerClaims(
+      ClaimCollection claims, List<URI> handlerClaimTypes) {
+    ClaimCollection supportedClaims = new ClaimCollection();
+    supportedClaims.setDialect(claims.getDialect());
+    for (Claim claim : claims) {
+      if (handlerClaimTypes.contains(claim.getClaimType())) {
+        supportedClaims.add(claim);
+      }
+    }
+    return supportedClaims;
+  }
+
+  private static void validateClaimValues(
+      ClaimCollection claims, ProcessedClaimCollection claimValues) {
+    for (Claim claim : claims) {
+      URI claimType = claim.getClaimType();
+      if (!claim.isOptional()
+          && claimValues.stream().noneMatch(value -> claimType.equals(value.getClaimType()))) {
+        LOGGER.warn("Mandatory claim not found: {}", claimType);
+        throw new STSException("Mandatory claim '" + claimType + "' not found");
+      }
+    }
+  }
+
+  private static ProcessedClaimCollection copyOf(ProcessedClaimCollection claims) {
+    ProcessedClaimCollection copy = new ProcessedClaimCollection();
+    for (ProcessedClaim claim : claims) {
+      copy.add(claim.clone());
+    }
+    return copy;
+  }
+
+  private static ClaimsParameters copyOf(ClaimsParameters parameters, Principal principal) {
+    ClaimsParameters copy = new ClaimsParameters();
+    copy.setStsProperties(parameters.getStsProperties());
+    copy.setEncryptionProperties(parameters.getEncryptionProperties());
+    copy.setPrincipal(principal);
+    copy.setRoles(parameters.getRoles());
+    copy.setMessageContext(parameters.getMessageContext());
+    copy.setKeyRequirements(parameters.getKeyRequirements());
+    copy.setTokenRequirements(parameters.getTokenRequirements());
+    copy.setAppliesToAddress(parameters.getAppliesToAddress());
+    copy.setAdditionalProperties(parameters.getAdditionalProperties());
+    copy.setTokenStore(parameters.getTokenStore());
+    copy.setRealm(parameters.getRealm());
+    return copy;
+  }
+
+  private static final class CachedClaims {
+
+    private final ProcessedClaimCollection claims;
+
+    private final long expiresAt;
+
+    private CachedClaims(ProcessedClaimCollection claims, long expiresAt) {
+      this.claims = claims;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Identifies one handler's answer for one principal. The type of the principal is part of the
+   * key, since principals of different types (X.500 subject, user name, guest) can share a name.
+   * The additional properties set by the token validators (guest IP address, certificate e-mail,
+   * ...) are part of the key too, since some handlers answer from them rather than from the
+   * principal.
+   */
+  private static final class CacheKey {
+
+    private final ClaimsHandler handler;
+
+    private final String realm;
+
+    private final Class<?> principalType;
+
+    private final String principal;
+
+    private final Set<URI> claimTypes;
+
+    private final Map<String, Object> additionalProperties;
+
+    private CacheKey(
+        ClaimsHandler handler,
+        String realm,
+        Class<?> principalType,
+        String principal,
+        Set<URI> claimTypes,
+        Map<String, Object> additionalProperties) {
+      this.handler = handler;
+      this.realm = realm;
+      this.principalType = principalType;
+      this.principal = principal;
+      this.claimTypes = claimTypes;
+      this.additionalProperties = additionalProperties;
+    }
+
+    /** @return the key, or {@code null} if the request can't be cached */
+    private static CacheKey of(
+        ClaimsHandler handler, ClaimCollection claims, ClaimsParameters parameters) {
+      Principal principal = parameters.getPrincipal();
+      if (principal == null || principal.getName() == null) {
+        return null;
+      }
+
+      Map<String, Object> additionalProperties = Collections.emptyMap();
+      if (parameters.getAdditionalProperties() != null) {
+        if (!parameters.getAdditionalProperties().values().stream().allMatch(CacheKey::isValue)) {
+          return null;
+        }
+        additionalProperties = new HashMap<>(parameters.getAdditionalProperties());
+      }
+
+      Set<URI> claimTypes = new HashSet<>();
+      for (Claim claim : claims) {
+        claimTypes.add(claim.getClaimType());
+      }
+
+      return new CacheKey(
+          handler,
+          parameters.getRealm(),
+          principal.getClass(),
+          principal.getName(),
+          claimTypes,
+          additionalProperties);
+    }
+
+    private static boolean isValue(Object object) {
+      if (object instanceof Collection) {
+        return ((Collection<?>) object).stream().allMatch(CacheKey::isValue);
+      }
+      return object == null
+          || object instanceof CharSequence
+          || object instanceof Number
+          || object instanceof Boolean;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey other = (CacheKey) o;
+      return handler == other.handler
+          && Objects.equals(realm, other.realm)
+          && principalType == other.principalType
+          && principal.equals(other.principal)
+          && claimTypes.equals(other.claimTypes)
+          && additionalProperties.equals(other.additionalProperties);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          System.identityHashCode(handler),
+          realm,
+          principalType,
+          principal,
+          claimTypes,
+          additionalProperties);
+    }
+  }
+}
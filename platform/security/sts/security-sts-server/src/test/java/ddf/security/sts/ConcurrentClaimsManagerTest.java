@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.sts;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.security.auth.x500.X500Principal;
+import org.apache.cxf.rt.security.claims.Claim;
+import org.apache.cxf.rt.security.claims.ClaimCollection;
+import org.apache.cxf.sts.claims.ClaimsHandler;
+import org.apache.cxf.sts.claims.ClaimsParameters;
+import org.apache.cxf.sts.claims.ProcessedClaim;
+import org.apache.cxf.sts.claims.ProcessedClaimCollection;
+import org.apache.cxf.ws.security.sts.provider.STSException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentClaimsManagerTest {
+
+  private static final URI ROLE = URI.create("http://schemas.xmlsoap.org/claims/Role");
+
+  private static final URI EMAIL =
+      URI.create("http://schemas.xmlsoap.org/ws/2005/05/identity/claims/emailaddress");
+
+  private final FakeTicker ticker = new FakeTicker();
+
+  private ExecutorService executor;
+
+  private ConcurrentClaimsManager claimsManager;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newCachedThreadPool();
+    claimsManager = new ConcurrentClaimsManager(executor, ticker);
+  }
+
+  @After
+  public void tearDown() {
+    claimsManager.destroy();
+  }
+
+  @Test
+  public void testHandlersAreQueriedInParallel() {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    ClaimsHandler roles = new BlockingHandler(ROLE, "admin", bothStarted);
+    ClaimsHandler email = new BlockingHandler(EMAIL, "admin@localhost", bothStarted);
+    claimsManager.setClaimHandlers(Arrays.asList(roles, email));
+
+    ProcessedClaimCollection claimValues =
+        claimsManager.retrieveClaimValues(claims(ROLE, EMAIL), parameters("admin"));
+
+    assertThat(types(claimValues), contains(ROLE, EMAIL));
+  }
+
+  @Test
+  public void testClaimsAreCachedPerPrincipal() {
+    ClaimsHandler handler = handler(ROLE, "admin");
+    claimsManager.setClaimHandlers(Collections.singletonList(handler));
+
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+    ProcessedClaimCollection claimValues =
+        claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("guest"));
+
+    assertThat(claimValues.get(0).getValues(), contains("admin"));
+    verify(handler, times(2)).retrieveClaimValues(any(), any());
+    assertThat(claimsManager.getMetrics().meter("ClaimsCache.Hits").getCount(), is(1L));
+    assertThat(claimsManager.getMetrics().meter("ClaimsCache.Misses").getCount(), is(2L));
+  }
+
+  @Test
+  public void testClaimsAreCachedPerPrincipalType() {
+    ClaimsHandler handler = handler(ROLE, "admin");
+    claimsManager.setClaimHandlers(Collections.singletonList(handler));
+
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters(new X500Principal("CN=admin")));
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters(new UserPrincipal("CN=admin")));
+
+    verify(handler, times(2)).retrieveClaimValues(any(), any());
+    assertThat(claimsManager.getMetrics().meter("ClaimsCache.Hits").getCount(), is(0L));
+  }
+
+  @Test
+  public void testCachedClaimsExpire() {
+    ClaimsHandler handler = handler(ROLE, "admin");
+    claimsManager.setClaimHandlers(Collections.singletonList(handler));
+
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+    ticker.advance(61, TimeUnit.SECONDS);
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+
+    verify(handler, times(2)).retrieveClaimValues(any(), any());
+  }
+
+  @Test
+  public void testEmptyClaimsAreCachedForTheNegativeTtl() {
+    ClaimsHandler handler = handler(ROLE);
+    claimsManager.setClaimHandlers(Collections.singletonList(handler));
+    claimsManager.setNegativeClaimsCacheTtl(5);
+
+    claimsManager.retrieveClaimValues(optionalClaims(ROLE), parameters("admin"));
+    ticker.advance(4, TimeUnit.SECONDS);
+    claimsManager.retrieveClaimValues(optionalClaims(ROLE), parameters("admin"));
+    verify(handler, times(1)).retrieveClaimValues(any(), any());
+
+    ticker.advance(2, TimeUnit.SECONDS);
+    claimsManager.retrieveClaimValues(optionalClaims(ROLE), parameters("admin"));
+    verify(handler, times(2)).retrieveClaimValues(any(), any());
+  }
+
+  @Test
+  public void testCacheCanBeDisabled() {
+    ClaimsHandler handler = handler(ROLE, "admin");
+    claimsManager.setClaimHandlers(Collections.singletonList(handler));
+    claimsManager.setClaimsCacheTtl(0);
+
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+
+    verify(handler, times(2)).retrieveClaimValues(any(), any());
+  }
+
+  @Test
+  public void testCachedClaimsCannotBeModifiedByCallers() {
+    claimsManager.setClaimHandlers(Collections.singletonList(handler(ROLE, "admin")));
+
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin")).get(0).addValue("other");
+    ProcessedClaimCollection claimValues =
+        claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+
+    assertThat(claimValues.get(0).getValues(), contains("admin"));
+  }
+
+  @Test
+  public void testFailingHandlerIsSkipped() {
+    ClaimsHandler failing = handler(EMAIL);
+    when(failing.retrieveClaimValues(any(), any())).thenThrow(new IllegalStateException());
+    claimsManager.setClaimHandlers(Arrays.asList(failing, handler(ROLE, "admin")));
+    claimsManager.setStopProcessingOnException(false);
+
+    ProcessedClaimCollection claimValues =
+        claimsManager.retrieveClaimValues(optionalClaims(ROLE, EMAIL), parameters("admin"));
+    claimsManager.retrieveClaimValues(optionalClaims(ROLE, EMAIL), parameters("admin"));
+
+    assertThat(types(claimValues), contains(ROLE));
+    verify(failing, times(2)).retrieveClaimValues(any(), any());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testFailingHandlerStopsProcessing() {
+    ClaimsHandler failing = handler(EMAIL);
+    when(failing.retrieveClaimValues(any(), any())).thenThrow(new IllegalStateException());
+    claimsManager.setClaimHandlers(Arrays.asList(handler(ROLE, "admin"), failing));
+    claimsManager.setStopProcessingOnException(true);
+
+    claimsManager.retrieveClaimValues(claims(ROLE, EMAIL), parameters("admin"));
+  }
+
+  @Test(expected = STSException.class)
+  public void testMissingMandatoryClaim() {
+    claimsManager.setClaimHandlers(Collections.singletonList(handler(ROLE)));
+
+    claimsManager.retrieveClaimValues(claims(ROLE), parameters("admin"));
+  }
+
+  @Test
+  public void testNoHandlers() {
+    ProcessedClaimCollection claimValues =
+        claimsManager.retrieveClaimValues(optionalClaims(ROLE), parameters("admin"));
+
+    assertThat(claimValues, is(empty()));
+  }
+
+  private static ClaimsHandler handler(URI claimType, String... values) {
+    ClaimsHandler handler = mock(ClaimsHandler.class);
+    when(handler.getSupportedClaimTypes()).thenReturn(Collections.singletonList(claimType));
+    when(handler.retrieveClaimValues(any(), any()))
+        .thenAnswer(invocation -> processedClaims(claimType, values));
+    return handler;
+  }
+
+  private static ProcessedClaimCollection processedClaims(URI claimType, String... values) {
+    ProcessedClaimCollection claimValues = new ProcessedClaimCollection();
+    if (values.length > 0) {
+      ProcessedClaim claim = new ProcessedClaim();
+      claim.setClaimType(claimType);
+      claim.setValues(new ArrayList<>(Arrays.asList(values)));
+      claimValues.add(claim);
+    }
+    return claimValues;
+  }
+
+  private static ClaimCollection claims(URI... claimTypes) {
+    ClaimCollection claims = new ClaimCollection();
+    for (URI claimType : claimTypes) {
+      Claim claim = new Claim();
+      claim.setClaimType(claimType);
+      claims.add(claim);
+    }
+    return claims;
+  }
+
+  private static ClaimCollection optionalClaims(URI... claimTypes) {
+    ClaimCollection claims = claims(claimTypes);
+    claims.forEach(claim -> claim.setOptional(true));
+    return claims;
+  }
+
+  private static ClaimsParameters parameters(String name) {
+    Principal principal = mock(Principal.class);
+    when(principal.getName()).thenReturn(name);
+    return parameters(principal);
+  }
+
+  private static ClaimsParameters parameters(Principal principal) {
+    ClaimsParameters parameters = new ClaimsParameters();
+    parameters.setPrincipal(principal);
+    return parameters;
+  }
+
+  private static List<URI> types(ProcessedClaimCollection claimValues) {
+    List<URI> types = new ArrayList<>();
+    claimValues.forEach(claim -> types.add(claim.getClaimType()));
+    return types;
+  }
+
+  private static class UserPrincipal implements Principal {
+
+    private final String name;
+
+    UserPrincipal(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+  }
+
+  /** Only answers once every other {@code BlockingHandler} sharing the latch has been called. */
+  private static class BlockingHandler implements ClaimsHandler {
+
+    private final URI claimType;
+
+    private final String value;
+
+    private final CountDownLatch started;
+
+    BlockingHandler(URI claimType, String value, CountDownLatch started) {
+      this.claimType = claimType;
+      this.value = value;
+      this.started = started;
+    }
+
+    @Override
+    public List<URI> getSupportedClaimTypes() {
+      return Collections.singletonList(claimType);
+    }
+
+    @Override
+    public ProcessedClaimCollection retrieveClaimValues(
+        ClaimCollection claims, ClaimsParameters parameters) {
+      started.countDown();
+      try {
+        if (!started.await(10, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("Claims handlers were not called in parallel");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return processedClaims(claimType, value);
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+
+    void advance(long time, TimeUnit unit) {
+      nanos.addAndGet(unit.toNanos(time));
+    }
+  }
+}